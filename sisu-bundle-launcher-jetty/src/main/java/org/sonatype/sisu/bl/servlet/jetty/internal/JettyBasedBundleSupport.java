@@ -30,8 +30,11 @@ import org.sonatype.sisu.bl.servlet.internal.DefaultServletContainerBundle;
 import org.sonatype.sisu.bl.servlet.jetty.JettyBasedBundle;
 import org.sonatype.sisu.bl.servlet.jetty.JettyBasedBundleConfiguration;
 import org.sonatype.sisu.bl.support.RunningBundles;
+import org.sonatype.sisu.bl.support.TimingSpan;
 import org.sonatype.sisu.bl.support.port.PortReservationService;
 import org.sonatype.sisu.filetasks.FileTaskBuilder;
+import org.sonatype.sisu.filetasks.builder.CopyDirectoryBuilder;
+import org.sonatype.sisu.filetasks.builder.ExpandBuilder;
 import org.sonatype.sisu.filetasks.support.AntHelper;
 
 /**
@@ -65,10 +68,18 @@ public abstract class JettyBasedBundleSupport<TB extends JettyBasedBundle, TBC e
     {
         super.configure();
 
-        httpsPort = getPortReservationService().reservePort();
-
-        copyServerXml();
-        makeScriptsExecutable();
+        try ( TimingSpan ignore = TimingSpan.start( "reservePorts" ) )
+        {
+            httpsPort = reservePort();
+        }
+        try ( TimingSpan ignore = TimingSpan.start( "copyServerXml" ) )
+        {
+            copyServerXml();
+        }
+        try ( TimingSpan ignore = TimingSpan.start( "makeScriptsExecutable" ) )
+        {
+            makeScriptsExecutable();
+        }
     }
 
     @Override
@@ -76,7 +87,7 @@ public abstract class JettyBasedBundleSupport<TB extends JettyBasedBundle, TBC e
     {
         if ( httpsPort != 0 )
         {
-            getPortReservationService().cancelPort( httpsPort );
+            cancelPort( httpsPort );
             httpsPort = 0;
         }
     }
@@ -92,21 +103,33 @@ public abstract class JettyBasedBundleSupport<TB extends JettyBasedBundle, TBC e
         }
         if ( bundle.isDirectory() )
         {
+            final CopyDirectoryBuilder copy = getFileTaskBuilder().copy().directory( file( bundle ) );
+            if ( config.isHardLinksEnabled() )
+            {
+                copy.useHardLinks();
+            }
             onDirectory( config.getTargetDirectory() ).apply(
-                getFileTaskBuilder().copy().directory( file( bundle ) )
-                    .to().directory( path( "/" ) )
+                copy.to().directory( path( "/" ) )
             );
         }
         else
         {
+            final ExpandBuilder expand = getFileTaskBuilder().expand( file( bundle ) )
+                .exclude( "*/contexts/**" )
+                .exclude( "*/contexts-available/**" )
+                .exclude( "*/javadoc/**" )
+                .exclude( "*/overlays/**" )
+                .exclude( "*/webapps/**" );
+            if ( config.isArchiveCacheEnabled() )
+            {
+                expand.useCache();
+            }
+            if ( config.isHardLinksEnabled() )
+            {
+                expand.useHardLinks();
+            }
             onDirectory( config.getTargetDirectory() ).apply(
-                getFileTaskBuilder().expand( file( bundle ) )
-                    .exclude( "*/contexts/**" )
-                    .exclude( "*/contexts-available/**" )
-                    .exclude( "*/javadoc/**" )
-                    .exclude( "*/overlays/**" )
-                    .exclude( "*/webapps/**" )
-                    .to().directory( path( "/" ) )
+                expand.to().directory( path( "/" ) )
             );
         }
     }
@@ -121,6 +144,15 @@ public abstract class JettyBasedBundleSupport<TB extends JettyBasedBundle, TBC e
         executeScript( startupScript.getAbsolutePath(), false, "start" );
     }
 
+    /**
+     * @since 1.12
+     */
+    @Override
+    protected String getPidEnvironmentVariable()
+    {
+        return "JETTY_PID";
+    }
+
     @Override
     protected void stopApplication()
     {
@@ -28,9 +28,14 @@ import org.sonatype.sisu.bl.servlet.ServletContainerBundle;
 import org.sonatype.sisu.bl.servlet.ServletContainerBundleConfiguration;
 import org.sonatype.sisu.bl.servlet.WAR;
 import org.sonatype.sisu.bl.support.DefaultWebBundle;
+import org.sonatype.sisu.bl.support.PidFile;
+import org.sonatype.sisu.bl.support.PreparePipeline;
+import org.sonatype.sisu.bl.support.ReadinessScheduler;
 import org.sonatype.sisu.bl.support.RunningBundles;
 import org.sonatype.sisu.bl.support.port.PortReservationService;
 import org.sonatype.sisu.filetasks.FileTaskBuilder;
+import org.sonatype.sisu.filetasks.builder.CopyDirectoryBuilder;
+import org.sonatype.sisu.filetasks.builder.ExpandBuilder;
 import org.sonatype.sisu.filetasks.support.AntHelper;
 
 /**
@@ -68,27 +73,62 @@ public abstract class DefaultServletContainerBundle<SCB extends ServletContainer
         installWARs();
     }
 
+    /**
+     * Installs configured WARs, concurrently if preparation is configured to use more than one thread. Installation is
+     * skipped if WARs did not change since last preparation.
+     */
     private void installWARs()
+    {
+        final List<WAR> wars = getConfiguration().getWARs();
+        if ( isUpToDate( "wars", wars ) )
+        {
+            log.debug( "WARs did not change since last preparation, skipping installation" );
+            return;
+        }
+        final PreparePipeline pipeline = new PreparePipeline();
+        for ( final WAR war : wars )
+        {
+            pipeline.stage( "war:" + war.getContext(), new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    installWAR( war );
+                }
+            } );
+        }
+        pipeline.run( prepareThreads() );
+    }
+
+    private void installWAR( final WAR war )
     {
         final SCBC config = getConfiguration();
-        final List<WAR> wars = config.getWARs();
-        for ( WAR war : wars )
+        recordSize( war.getFile() );
+        if ( war.getFile().isDirectory() )
         {
-            if ( war.getFile().isDirectory() )
+            final CopyDirectoryBuilder copy = getFileTaskBuilder().copy().directory( file( war.getFile() ) );
+            if ( config.isHardLinksEnabled() )
             {
-                onDirectory( config.getTargetDirectory() ).apply(
-                    getFileTaskBuilder().copy()
-                        .directory( file( war.getFile() ) )
-                        .to().directory( path( getName() + "/" + getWebAppPath() + "/" + war.getContext() ) )
-                );
+                copy.useHardLinks();
             }
-            else
+            onDirectory( config.getTargetDirectory() ).apply(
+                copy.to().directory( path( getName() + "/" + getWebAppPath() + "/" + war.getContext() ) )
+            );
+        }
+        else
+        {
+            final ExpandBuilder expand = getFileTaskBuilder().expand( file( war.getFile() ) );
+            if ( config.isArchiveCacheEnabled() )
             {
-                onDirectory( config.getTargetDirectory() ).apply(
-                    getFileTaskBuilder().expand( file( war.getFile() ) )
-                        .to().directory( path( getName() + "/" + getWebAppPath() + "/" + war.getContext() ) )
-                );
+                expand.useCache();
             }
+            if ( config.isHardLinksEnabled() )
+            {
+                expand.useHardLinks();
+            }
+            onDirectory( config.getTargetDirectory() ).apply(
+                expand.to().directory( path( getName() + "/" + getWebAppPath() + "/" + war.getContext() ) )
+            );
         }
     }
 
@@ -98,6 +138,54 @@ public abstract class DefaultServletContainerBundle<SCB extends ServletContainer
         return String.format( "http://localhost:%s/", getPort() );
     }
 
+    /**
+     * @return {@code logs} directory of servlet container
+     * @since 1.12
+     */
+    @Override
+    protected File getBootLog()
+    {
+        return new File( getConfiguration().getTargetDirectory(), getName() + "/logs" );
+    }
+
+    /**
+     * Checks that the servlet container process, as recorded in {@link #getPidFile()} by startup script, is still
+     * running. Startup scripts are run synchronously, so the pid file is (re)written by the time application is probed.
+     *
+     * @throws ReadinessScheduler.ProbeFailedException if servlet container process exited
+     * @since 1.12
+     */
+    @Override
+    protected void checkApplicationProcess()
+        throws ReadinessScheduler.ProbeFailedException
+    {
+        if ( getPidEnvironmentVariable() != null )
+        {
+            PidFile.checkAlive( getPidFile() );
+        }
+    }
+
+    /**
+     * Returns the environment variable used by startup / shutdown scripts to locate the file where the servlet
+     * container process id is recorded.
+     *
+     * @return environment variable name, null if scripts do not support recording process id
+     * @since 1.12
+     */
+    protected String getPidEnvironmentVariable()
+    {
+        return null;
+    }
+
+    /**
+     * @return file where startup script records the servlet container process id
+     * @since 1.12
+     */
+    protected File getPidFile()
+    {
+        return new File( getConfiguration().getTargetDirectory(), getName() + "/bundle.pid" );
+    }
+
     protected void executeScript( final String script, final boolean spawn, final String... arguments )
     {
         ExecTask exec = ant.createTask( ExecTask.class );
@@ -130,6 +218,14 @@ public abstract class DefaultServletContainerBundle<SCB extends ServletContainer
         javaHome.setValue( System.getProperty( "java.home" ) );
         exec.addEnv( javaHome );
 
+        if ( getPidEnvironmentVariable() != null )
+        {
+            final Environment.Variable pidFile = new Environment.Variable();
+            pidFile.setKey( getPidEnvironmentVariable() );
+            pidFile.setValue( getPidFile().getAbsolutePath() );
+            exec.addEnv( pidFile );
+        }
+
         if ( arguments != null && arguments.length > 0 )
         {
             log.debug( "Executing {} with arguments: {}", script, arguments );
@@ -30,6 +30,7 @@ import org.sonatype.sisu.bl.servlet.internal.DefaultServletContainerBundle;
 import org.sonatype.sisu.bl.servlet.tomcat.TomcatBundle;
 import org.sonatype.sisu.bl.servlet.tomcat.TomcatBundleConfiguration;
 import org.sonatype.sisu.bl.support.RunningBundles;
+import org.sonatype.sisu.bl.support.TimingSpan;
 import org.sonatype.sisu.bl.support.port.PortReservationService;
 import org.sonatype.sisu.filetasks.FileTaskBuilder;
 import org.sonatype.sisu.filetasks.support.AntHelper;
@@ -67,10 +68,18 @@ public class DefaultTomcatBundle<TB extends TomcatBundle, TBC extends TomcatBund
     {
         super.configure();
 
-        serverPort = getPortReservationService().reservePort();
-
-        copyServerXml();
-        makeScriptsExecutable();
+        try ( TimingSpan ignore = TimingSpan.start( "reservePorts" ) )
+        {
+            serverPort = reservePort();
+        }
+        try ( TimingSpan ignore = TimingSpan.start( "copyServerXml" ) )
+        {
+            copyServerXml();
+        }
+        try ( TimingSpan ignore = TimingSpan.start( "makeScriptsExecutable" ) )
+        {
+            makeScriptsExecutable();
+        }
     }
 
     @Override
@@ -78,7 +87,7 @@ public class DefaultTomcatBundle<TB extends TomcatBundle, TBC extends TomcatBund
     {
         if ( serverPort != 0 )
         {
-            getPortReservationService().cancelPort( serverPort );
+            cancelPort( serverPort );
             serverPort = 0;
         }
     }
@@ -93,6 +102,15 @@ public class DefaultTomcatBundle<TB extends TomcatBundle, TBC extends TomcatBund
         executeScript( startupScript.getAbsolutePath(), false );
     }
 
+    /**
+     * @since 1.12
+     */
+    @Override
+    protected String getPidEnvironmentVariable()
+    {
+        return "CATALINA_PID";
+    }
+
     @Override
     protected void stopApplication()
     {
@@ -13,6 +13,9 @@
 
 package org.sonatype.sisu.bl;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * An application bundle.
  *
@@ -51,6 +54,103 @@ public interface Bundle<B extends Bundle, BC extends BundleConfiguration>
    */
   B cleanup() throws Exception;
 
+  /**
+   * Asynchronous variant of {@link #start()}, run using the lifecycle executor.
+   * <p/>
+   * Returned future completes exceptionally with the failure that caused the start to fail. Cancelling the future
+   * aborts waiting for application to boot (and the application is stopped).
+   * <p/>
+   * By default (for implementations predating asynchronous operations) the operation is run on calling thread and an
+   * already completed future is returned.
+   *
+   * @return future completed with itself when application booted
+   * @since 1.12
+   */
+  default CompletableFuture<B> startAsync() {
+    final CompletableFuture<B> future = new CompletableFuture<B>();
+    try {
+      future.complete(start());
+    }
+    catch (Throwable e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Asynchronous variant of {@link #stop()}, run using the lifecycle executor.
+   * <p/>
+   * By default (for implementations predating asynchronous operations) the operation is run on calling thread and an
+   * already completed future is returned.
+   *
+   * @return future completed with itself when application was stopped
+   * @since 1.12
+   */
+  default CompletableFuture<B> stopAsync() {
+    final CompletableFuture<B> future = new CompletableFuture<B>();
+    try {
+      future.complete(stop());
+    }
+    catch (Throwable e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Asynchronous variant of {@link #prepare()}, run using the lifecycle executor.
+   * <p/>
+   * By default (for implementations predating asynchronous operations) the operation is run on calling thread and an
+   * already completed future is returned.
+   *
+   * @return future completed with itself when file system was prepared
+   * @since 1.12
+   */
+  default CompletableFuture<B> prepareAsync() {
+    final CompletableFuture<B> future = new CompletableFuture<B>();
+    try {
+      future.complete(prepare());
+    }
+    catch (Throwable e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Asynchronous variant of {@link #cleanup()}, run using the lifecycle executor.
+   * <p/>
+   * By default (for implementations predating asynchronous operations) the operation is run on calling thread and an
+   * already completed future is returned.
+   *
+   * @return future completed with itself when file system was cleaned up
+   * @since 1.12
+   */
+  default CompletableFuture<B> cleanupAsync() {
+    final CompletableFuture<B> future = new CompletableFuture<B>();
+    try {
+      future.complete(cleanup());
+    }
+    catch (Throwable e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Sets the executor used to run asynchronous lifecycle operations.
+   * <p/>
+   * By default (for implementations predating asynchronous operations) the executor is ignored.
+   *
+   * @param executor executor to be used. Can be null, case when a shared default executor (using virtual threads when
+   *                 available) will be used
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  default B setLifecycleExecutor(Executor executor) {
+    return (B) this;
+  }
+
   /**
    * Returns bundle configuration.
    *
@@ -256,4 +256,120 @@ public interface BundleConfiguration<T extends BundleConfiguration>
    */
   T addJavaAgents(JavaAgent... javaAgents);
 
+  /**
+   * Returns true if bundle should be expanded via the machine wide archive cache.
+   *
+   * @return true if bundle should be expanded via the machine wide archive cache
+   * @since 1.12
+   */
+  boolean isArchiveCacheEnabled();
+
+  /**
+   * Sets if bundle should be expanded via the machine wide archive cache, meaning that the bundle archive is expanded
+   * only once per content and target directory populated from the cached expansion.
+   *
+   * @param enabled true to use the archive cache
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  T setArchiveCacheEnabled(boolean enabled);
+
+  /**
+   * Returns true if bundle files should be hard linked instead of copied.
+   *
+   * @return true if bundle files should be hard linked from bundle directory / archive cache
+   * @since 1.12
+   */
+  boolean isHardLinksEnabled();
+
+  /**
+   * Sets if bundle files should be hard linked (when supported by file system) from bundle directory, or from archive
+   * cache if bundle is an archive, instead of being copied. Saves time and disk space, but linked files share their
+   * content and permissions with the bundle directory / cache for the whole bundle lifetime (until bundle directory
+   * is deleted): application must not modify its files in place. File tasks (overlays, chmod) replace linked files
+   * with a copy before modifying them.
+   *
+   * @param enabled true to hard link bundle files
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  T setHardLinksEnabled(boolean enabled);
+
+  /**
+   * Returns true if bundle preparation should be incremental.
+   *
+   * @return true if target directory should be reused when bundle and overlays did not change
+   * @since 1.12
+   */
+  boolean isIncrementalPrepareEnabled();
+
+  /**
+   * Sets if bundle preparation should be incremental, meaning that a fingerprint of the preparation inputs (bundle,
+   * overlays, WARs) is recorded in target directory and on next preparation the target directory is not cleaned and
+   * only the stages whose inputs changed are re-run.
+   * <p/>
+   * Note that the content of target directory (e.g. logs or data written by the running application) is retained
+   * between runs when nothing changed.
+   *
+   * @param enabled true to prepare incrementally
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  T setIncrementalPrepareEnabled(boolean enabled);
+
+  /**
+   * Returns the maximum number of preparation stages (e.g. unpacking bundle, preparing java agents, installing WARs)
+   * that can run concurrently.
+   *
+   * @return maximum number of concurrent preparation stages
+   * @since 1.12
+   */
+  Integer getPrepareThreads();
+
+  /**
+   * Sets the maximum number of preparation stages that can run concurrently. Use 1 to prepare sequentially.
+   *
+   * @param threads maximum number of concurrent preparation stages
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  T setPrepareThreads(Integer threads);
+
+  /**
+   * Returns the regular expression matching the log line written by application when it finished booting. If set,
+   * application readiness is detected by tailing the application log instead of probing the application.
+   *
+   * @return boot log pattern, null if application should be probed
+   * @since 1.12
+   */
+  String getBootLogPattern();
+
+  /**
+   * Sets the regular expression matching the log line written by application when it finished booting.
+   *
+   * @param pattern boot log pattern. Can be null, case when application is probed
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  T setBootLogPattern(String pattern);
+
+  /**
+   * Returns the regular expression matching a log line written by application when it failed to boot. Used only when
+   * a boot log pattern is set.
+   *
+   * @return boot failure log pattern, null if failures should not be detected from application log
+   * @since 1.12
+   */
+  String getBootFailureLogPattern();
+
+  /**
+   * Sets the regular expression matching a log line written by application when it failed to boot. When matched,
+   * start fails right away.
+   *
+   * @param pattern boot failure log pattern. Can be null
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  T setBootFailureLogPattern(String pattern);
+
 }
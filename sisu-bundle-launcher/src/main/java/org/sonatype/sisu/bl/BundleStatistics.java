@@ -13,6 +13,10 @@
 
 package org.sonatype.sisu.bl;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import org.sonatype.sisu.goodies.common.Time;
 
 /**
@@ -27,10 +31,95 @@ public interface BundleStatistics
 
   Time preparationTime();
 
+  /**
+   * Returns the time it took to run each preparation stage (e.g. unpacking bundle, configuring, applying overlays).
+   * As stages could run concurrently, the sum of stage times could be greater than {@link #preparationTime()}.
+   *
+   * @return time per preparation stage, keyed by stage name, in registration order. Never null. By default, no
+   *         stages
+   * @since 1.12
+   */
+  default Map<String, Time> preparationStageTimes() {
+    return Collections.emptyMap();
+  }
+
   Time startupTime();
 
   Time bootingTime();
 
+  /**
+   * Returns the number of times application was probed while waiting for it to boot.
+   *
+   * @return number of boot probe attempts during last start, 0 if not started (or, by default, not recorded)
+   * @since 1.12
+   */
+  default int bootProbeAttempts() {
+    return 0;
+  }
+
+  /**
+   * Returns the latency of each probe while waiting for application to boot.
+   *
+   * @return latency of each boot probe attempt during last start, in attempt order. Never null. By default, no
+   *         latencies
+   * @since 1.12
+   */
+  default List<Time> bootProbeLatencies() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the time between launching the application and its first successful response to an HTTP boot probe.
+   * Unlike {@link #bootingTime()}, includes the time spent launching the application and excludes the delay until
+   * next probe.
+   *
+   * @return time to first successful response during last start, null if application was not probed over HTTP or it
+   *         did not respond successfully (or, by default, not recorded)
+   * @since 1.12
+   */
+  default Time firstSuccessfulResponseTime() {
+    return null;
+  }
+
   Time stoppingTime();
 
+  /**
+   * Returns the timings of last run of each lifecycle phase ({@code cleanup}, {@code prepare}, {@code start},
+   * {@code stop}), as a tree of spans: preparation stages, application start and boot, configuration steps. Spans
+   * record number of {@code files} / {@code bytes} touched, where relevant. Use {@link Span#toJson()} to export.
+   *
+   * @return root span, named after bundle id, containing a span per phase that was run. Never null. By default, an
+   *         empty span named {@code bundle}
+   * @since 1.12
+   */
+  default Span spans() {
+    return new Span()
+    {
+      @Override
+      public String getName() {
+        return "bundle";
+      }
+
+      @Override
+      public Time getDuration() {
+        return Time.millis(0);
+      }
+
+      @Override
+      public Map<String, Long> getAttributes() {
+        return Collections.emptyMap();
+      }
+
+      @Override
+      public List<Span> getChildren() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public String toJson() {
+        return "{\"name\":\"bundle\",\"durationMillis\":0,\"attributes\":{},\"children\":[]}";
+      }
+    };
+  }
+
 }
@@ -15,6 +15,7 @@ package org.sonatype.sisu.bl;
 
 import java.io.File;
 import java.net.URL;
+import java.util.List;
 
 /**
  * Dropwizard bundle.
@@ -40,4 +41,14 @@ public interface DropwizardBundle
    */
   File getBundleDirectory();
 
+  /**
+   * Returns the metrics sampled from admin application while bundle was running, when metrics scraping is enabled.
+   * Samples are available until bundle is started again.
+   *
+   * @return latest metrics samples (at most 1024) collected during last run, in sampling order. Never null.
+   * @see DropwizardBundleConfiguration#getMetricsScrapeInterval()
+   * @since 1.12
+   */
+  List<MetricsSample> getMetrics();
+
 }
@@ -15,6 +15,8 @@ package org.sonatype.sisu.bl;
 
 import java.io.File;
 
+import org.sonatype.sisu.goodies.common.Time;
+
 /**
  * {@link DropwizardBundle} configuration.
  *
@@ -71,4 +73,33 @@ public interface DropwizardBundleConfiguration
    */
   DropwizardBundleConfiguration setArguments(String... arguments);
 
+  /**
+   * @return true if application is considered booted only when admin {@code healthcheck} reports all checks healthy
+   * @since 1.12
+   */
+  boolean isHealthCheckReadinessEnabled();
+
+  /**
+   * @param enabled true if application should be considered booted only when admin {@code healthcheck} reports all
+   *                checks healthy, false if application url (or health path) should be probed
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  DropwizardBundleConfiguration setHealthCheckReadinessEnabled(boolean enabled);
+
+  /**
+   * @return interval at which admin {@code metrics} are sampled while bundle is running, null if metrics should not
+   *         be sampled
+   * @since 1.12
+   */
+  Time getMetricsScrapeInterval();
+
+  /**
+   * @param interval interval at which admin {@code metrics} should be sampled while bundle is running. Can be null,
+   *                 case when metrics are not sampled
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  DropwizardBundleConfiguration setMetricsScrapeInterval(Time interval);
+
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl;
+
+import java.util.Map;
+
+/**
+ * Values of application metrics, sampled at a point in time.
+ *
+ * @since 1.12
+ */
+public interface MetricsSample
+{
+
+  /**
+   * @return time when metrics were sampled, in milliseconds since epoch
+   */
+  long getTimestamp();
+
+  /**
+   * Returns the numeric metric values, keyed by the path of value in metrics document, e.g.
+   * {@code gauges.jvm.memory.heap.used.value}, {@code meters.<name>.m1_rate} or {@code timers.<name>.p99}.
+   *
+   * @return metric values. Never null.
+   */
+  Map<String, Double> getValues();
+
+}
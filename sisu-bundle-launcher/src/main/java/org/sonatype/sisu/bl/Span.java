@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sonatype.sisu.goodies.common.Time;
+
+/**
+ * Timing of a bundle operation (e.g. a lifecycle phase or a preparation stage), with the timings of the operations it
+ * is made of.
+ *
+ * @since 1.12
+ */
+public interface Span
+{
+
+  /**
+   * @return operation name
+   */
+  String getName();
+
+  /**
+   * @return time it took to perform the operation (so far, if operation is still in progress)
+   */
+  Time getDuration();
+
+  /**
+   * @return attributes of the operation (e.g. {@code bytes}, {@code files}), in recording order. Never null.
+   */
+  Map<String, Long> getAttributes();
+
+  /**
+   * @return spans of the operations this operation is made of, in start order. Never null.
+   */
+  List<Span> getChildren();
+
+  /**
+   * Exports the span tree as JSON, in the form
+   * {@code {"name":"...","durationMillis":n,"attributes":{...},"children":[...]}}.
+   *
+   * @return span tree as JSON
+   */
+  String toJson();
+
+}
@@ -13,6 +13,8 @@
 
 package org.sonatype.sisu.bl;
 
+import java.util.Set;
+
 /**
  * An web bundle configuration.
  *
@@ -39,4 +41,56 @@ public interface WebBundleConfiguration<T extends WebBundleConfiguration>
    */
   T setPort(int port);
 
+  /**
+   * Returns the path (relative to application url) probed to check that application finished booting.
+   *
+   * @return health path, null if application url should be probed
+   * @since 1.12
+   */
+  String getHealthPath();
+
+  /**
+   * Sets the path (relative to application url) probed to check that application finished booting.
+   *
+   * @param path health path. Can be null, case when application url is probed
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  T setHealthPath(String path);
+
+  /**
+   * Returns the HTTP status codes that, when returned by health path, mean that application finished booting.
+   *
+   * @return expected status codes. If empty, health path is not requested, application finished booting as soon as it
+   *         accepts connections. Never null.
+   * @since 1.12
+   */
+  Set<Integer> getHealthStatusCodes();
+
+  /**
+   * Sets the HTTP status codes that, when returned by health path, mean that application finished booting.
+   *
+   * @param statusCodes expected status codes. If none, application finished booting as soon as it accepts connections
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  T setHealthStatusCodes(Integer... statusCodes);
+
+  /**
+   * Returns the connect / read timeout of a health path probe.
+   *
+   * @return health probe timeout in milliseconds
+   * @since 1.12
+   */
+  int getHealthTimeout();
+
+  /**
+   * Sets the connect / read timeout of a health path probe.
+   *
+   * @param timeout health probe timeout in milliseconds
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  T setHealthTimeout(int timeout);
+
 }
@@ -13,10 +13,19 @@
 
 package org.sonatype.sisu.bl.internal.support;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 import org.sonatype.sisu.bl.Bundle;
 import org.sonatype.sisu.bl.BundleConfiguration;
+import org.sonatype.sisu.bl.support.LifecycleStatistics;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 import org.sonatype.sisu.goodies.common.Mutex;
 import org.sonatype.sisu.goodies.common.Time;
@@ -36,8 +45,25 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
 
   private final Mutex mutex;
 
+  private final Handler handler;
+
   private final LifecycleHandlerContext state;
 
+  /**
+   * Executor used to run asynchronous lifecycle operations. If null, {@link DefaultExecutor} is used.
+   */
+  private volatile Executor executor;
+
+  /**
+   * Statistics lifecycle phase durations are recorded to. If null, {@link LifecycleStatistics#getDefault()} is used.
+   */
+  private volatile LifecycleStatistics statistics;
+
+  /**
+   * True while cleaning up as part of {@link #prepare()}. Guarded by mutex.
+   */
+  private boolean cleaningBeforePrepare;
+
   protected Time cleanupTime;
 
   protected Time preparationTime;
@@ -48,7 +74,8 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
 
   public BundleLifecycle() {
     mutex = new Mutex();
-    state = new LifecycleHandlerContext(new Handler());
+    handler = new Handler();
+    state = new LifecycleHandlerContext(handler);
     cleanupTime = Time.millis(0);
     preparationTime = Time.millis(0);
     startupTime = Time.millis(0);
@@ -59,7 +86,15 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
   public T prepare() {
     synchronized (mutex) {
 
-      cleanup();
+      handler.failure = null;
+
+      cleaningBeforePrepare = true;
+      try {
+        cleanup();
+      }
+      finally {
+        cleaningBeforePrepare = false;
+      }
 
       state.prepare();
       state.perform();
@@ -73,6 +108,8 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
   public T cleanup() {
     synchronized (mutex) {
 
+      handler.failure = null;
+
       state.clean();
       state.perform();
       state.commit();
@@ -85,6 +122,8 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
   public T start() {
     synchronized (mutex) {
 
+      handler.failure = null;
+
       prepare();
 
       state.start();
@@ -99,6 +138,8 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
   public T stop() {
     synchronized (mutex) {
 
+      handler.failure = null;
+
       state.stop();
       state.perform();
       state.commit();
@@ -107,10 +148,229 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
     }
   }
 
+  /**
+   * @since 1.12
+   */
+  @Override
+  public CompletableFuture<T> startAsync() {
+    return async(new Operation<T>()
+    {
+      @Override
+      T perform() {
+        return start();
+      }
+    });
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public CompletableFuture<T> stopAsync() {
+    return async(new Operation<T>()
+    {
+      @Override
+      T perform() {
+        return stop();
+      }
+    });
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public CompletableFuture<T> prepareAsync() {
+    return async(new Operation<T>()
+    {
+      @Override
+      T perform() {
+        return prepare();
+      }
+    });
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public CompletableFuture<T> cleanupAsync() {
+    return async(new Operation<T>()
+    {
+      @Override
+      T perform() {
+        return cleanup();
+      }
+    });
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setLifecycleExecutor(final Executor executor) {
+    this.executor = executor;
+    return (T) this;
+  }
+
+  /**
+   * Sets the statistics lifecycle phase durations are recorded to.
+   *
+   * @param statistics statistics to record to. Can be null, case when {@link LifecycleStatistics#getDefault()} will be
+   *                   used
+   * @return itself, for usage in fluent api
+   * @since 1.12
+   */
+  public T setLifecycleStatistics(final LifecycleStatistics statistics) {
+    this.statistics = statistics;
+    return (T) this;
+  }
+
+  /**
+   * Checks if the bundle is cleaned up as first step of a preparation (as opposed to an explicit {@link #cleanup()}).
+   * To be used from {@link #doClean()}.
+   *
+   * @return true if cleaning up as part of {@link #prepare()}
+   * @since 1.12
+   */
+  protected boolean isCleaningBeforePrepare() {
+    synchronized (mutex) {
+      return cleaningBeforePrepare;
+    }
+  }
+
+  /**
+   * @return statistics lifecycle phase durations are recorded to
+   * @since 1.12
+   */
+  protected LifecycleStatistics getLifecycleStatistics() {
+    return statistics == null ? LifecycleStatistics.getDefault() : statistics;
+  }
+
+  /**
+   * Returns the type under which lifecycle phase durations of this bundle are aggregated.
+   *
+   * @return bundle type, by default the simple class name (of first named class, for anonymous classes)
+   * @since 1.12
+   */
+  protected String getStatisticsType() {
+    Class<?> type = getClass();
+    while (type.isAnonymousClass()) {
+      type = type.getSuperclass();
+    }
+    return type.getSimpleName();
+  }
+
+  /**
+   * Runs an operation using lifecycle executor. Future is completed exceptionally with the lifecycle handler failure,
+   * if operation failed. Cancelling the future interrupts the thread running the operation.
+   *
+   * @param operation to run
+   * @return future completed when operation completes
+   */
+  private CompletableFuture<T> async(final Operation<T> operation) {
+    final CompletableFuture<T> future = new CompletableFuture<T>();
+    future.whenComplete(new BiConsumer<T, Throwable>()
+    {
+      @Override
+      public void accept(final T result, final Throwable failure) {
+        if (future.isCancelled()) {
+          operation.interrupt();
+        }
+      }
+    });
+    (executor != null ? executor : DefaultExecutor.INSTANCE).execute(new Runnable()
+    {
+      @Override
+      public void run() {
+        if (future.isDone()) {
+          return;
+        }
+        operation.running(Thread.currentThread());
+        try {
+          synchronized (mutex) {
+            // could have been cancelled while waiting for the monitor, which ignores interruption
+            if (future.isDone()) {
+              return;
+            }
+            try {
+              future.complete(operation.perform());
+            }
+            catch (Throwable e) {
+              future.completeExceptionally(handler.failure != null ? handler.failure : e);
+            }
+          }
+        }
+        finally {
+          operation.running(null);
+          // clear an eventual interruption caused by cancelling, so it does not leak to further executor tasks
+          Thread.interrupted();
+        }
+      }
+    });
+    return future;
+  }
+
+  /**
+   * An asynchronous lifecycle operation, keeping track of thread running it.
+   */
+  private abstract static class Operation<T>
+  {
+
+    private Thread thread;
+
+    abstract T perform();
+
+    synchronized void running(final Thread thread) {
+      this.thread = thread;
+    }
+
+    synchronized void interrupt() {
+      if (thread != null) {
+        thread.interrupt();
+      }
+    }
+
+  }
+
+  /**
+   * Default executor for asynchronous lifecycle operations, shared by all bundles. Uses virtual threads when running
+   * on a Java version supporting them, otherwise daemon threads.
+   */
+  private static class DefaultExecutor
+  {
+
+    static final Executor INSTANCE = create();
+
+    private static Executor create() {
+      try {
+        final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        return (ExecutorService) method.invoke(null);
+      }
+      catch (Exception e) {
+        return Executors.newCachedThreadPool(new ThreadFactory()
+        {
+          private final AtomicInteger counter = new AtomicInteger();
+
+          @Override
+          public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "bundle-lifecycle-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+      }
+    }
+
+  }
+
   private class Handler
       implements LifecycleHandler
   {
 
+    /**
+     * Failure of last performed lifecycle phase, cleared when a lifecycle operation starts. Guarded by mutex.
+     */
     Throwable failure;
 
     @Override
@@ -133,6 +393,7 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
 
     @Override
     public void doPrepare() {
+      final LifecycleEvent event = LifecycleEvent.begin();
       final Stopwatch stopwatch = Stopwatch.createStarted();
       try {
         failure = null;
@@ -143,12 +404,14 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
       }
       stopwatch.stop();
       preparationTime = Time.millis(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+      record("prepare", stopwatch, event);
       startupTime = Time.millis(0);
       stoppingTime = Time.millis(0);
     }
 
     @Override
     public void doClean() {
+      final LifecycleEvent event = LifecycleEvent.begin();
       final Stopwatch stopwatch = Stopwatch.createStarted();
       try {
         failure = null;
@@ -159,6 +422,7 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
       }
       stopwatch.stop();
       cleanupTime = Time.millis(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+      record("clean", stopwatch, event);
       preparationTime = Time.millis(0);
       startupTime = Time.millis(0);
       stoppingTime = Time.millis(0);
@@ -166,6 +430,7 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
 
     @Override
     public void doStart() {
+      final LifecycleEvent event = LifecycleEvent.begin();
       final Stopwatch stopwatch = Stopwatch.createStarted();
       try {
         failure = null;
@@ -176,11 +441,13 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
       }
       stopwatch.stop();
       startupTime = Time.millis(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+      record("start", stopwatch, event);
       stoppingTime = Time.millis(0);
     }
 
     @Override
     public void doStop() {
+      final LifecycleEvent event = LifecycleEvent.begin();
       final Stopwatch stopwatch = Stopwatch.createStarted();
       try {
         failure = null;
@@ -191,6 +458,22 @@ public abstract class BundleLifecycle<T extends Bundle, C extends BundleConfigur
       }
       stopwatch.stop();
       stoppingTime = Time.millis(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+      record("stop", stopwatch, event);
+    }
+
+    private void record(final String phase, final Stopwatch stopwatch, final LifecycleEvent event) {
+      try {
+        if (event != null) {
+          final BundleConfiguration configuration = getConfiguration();
+          event.commit(getStatisticsType(), configuration == null ? null : configuration.getId(), phase, failure);
+        }
+        getLifecycleStatistics().record(
+            getStatisticsType(), phase, stopwatch.elapsed(TimeUnit.NANOSECONDS), success()
+        );
+      }
+      catch (Exception e) {
+        BundleLifecycle.this.log.debug("Could not record {} statistics", phase, e);
+      }
     }
   }
 
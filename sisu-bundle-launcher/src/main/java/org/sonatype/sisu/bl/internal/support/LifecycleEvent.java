@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.internal.support;
+
+import org.sonatype.sisu.filetasks.support.FlightRecorderEvent;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event of a bundle lifecycle phase (prepare, clean, start, stop).
+ *
+ * @since 1.12
+ */
+final class LifecycleEvent
+    extends FlightRecorderEvent<LifecycleEvent.Jfr>
+{
+
+  private LifecycleEvent(final Jfr event) {
+    super(event);
+  }
+
+  /**
+   * Starts timing a lifecycle phase.
+   *
+   * @return started event, null if Flight Recorder is not recording lifecycle events
+   */
+  static LifecycleEvent begin() {
+    final Jfr event = isAvailable() ? begin(new Jfr()) : null;
+    return event == null ? null : new LifecycleEvent(event);
+  }
+
+  /**
+   * Ends timing and commits the event.
+   *
+   * @param bundleType type of bundle
+   * @param bundleId   id of bundle (can be null)
+   * @param phase      lifecycle phase
+   * @param failure    phase failure, null if phase succeeded
+   */
+  void commit(final String bundleType, final String bundleId, final String phase, final Throwable failure) {
+    final Jfr event = end(failure == null);
+    if (event != null) {
+      event.bundleType = bundleType;
+      event.bundleId = bundleId;
+      event.phase = phase;
+      event.failure = failure == null ? null : failure.toString();
+      event.commit();
+    }
+  }
+
+  /**
+   * The actual event. Only loaded when Flight Recorder API is available.
+   */
+  @Name("org.sonatype.sisu.bl.BundleLifecycle")
+  @Label("Bundle Lifecycle")
+  @Category({"Sisu", "Bundle Launcher"})
+  @Description("Bundle lifecycle phase")
+  static class Jfr
+      extends FlightRecorderEvent.Jfr
+  {
+
+    @Label("Bundle Type")
+    String bundleType;
+
+    @Label("Bundle Id")
+    String bundleId;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Failure")
+    String failure;
+
+  }
+
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import org.sonatype.sisu.bl.Bundle;
+import org.sonatype.sisu.bl.WebBundle;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A group of bundles with dependencies between them, managed together.
+ * <p/>
+ * Bundles are prepared concurrently, each bundle as soon as its dependencies were prepared. Before a bundle is
+ * prepared, the {@link Binding}s are used to pass information about its dependencies (by default port and url of web
+ * bundles as system properties), as ports and urls are resolved while preparing. Bundles are started in waves: a wave
+ * contains the bundles whose dependencies were started in previous waves and bundles of a wave are started
+ * concurrently. Bundles are stopped in reverse order of waves, bundles of a wave being stopped concurrently.
+ * <p/>
+ * Asynchronous operations are run on the lifecycle executor of each bundle.
+ *
+ * @since 1.12
+ */
+public class BundleGroup
+    extends ComponentSupport
+{
+
+  /**
+   * Bundles, keyed by name, in order of registration.
+   * Never null.
+   */
+  private final Map<String, Member> members;
+
+  /**
+   * Bindings used to pass information about dependencies to dependent bundles.
+   * Never null.
+   */
+  private final List<Binding> bindings;
+
+  /**
+   * Constructor. Creates a group using {@link #WEB_BUNDLE_BINDING}.
+   */
+  public BundleGroup() {
+    members = Maps.newLinkedHashMap();
+    bindings = Lists.newArrayList();
+    bindings.add(WEB_BUNDLE_BINDING);
+  }
+
+  /**
+   * Adds a bundle to group.
+   *
+   * @param name      bundle name, unique in group
+   * @param bundle    bundle to add
+   * @param dependsOn names of (already added) bundles that must be started before this bundle
+   * @return itself, for usage in fluent api
+   */
+  public BundleGroup add(final String name, final Bundle bundle, final String... dependsOn) {
+    checkNotNull(name);
+    checkNotNull(bundle);
+    checkArgument(!members.containsKey(name), "Bundle '%s' already added", name);
+    int wave = 0;
+    for (String dependency : dependsOn) {
+      final Member member = members.get(dependency);
+      checkArgument(member != null, "Bundle '%s' depends on unknown bundle '%s'", name, dependency);
+      wave = Math.max(wave, member.wave + 1);
+    }
+    members.put(name, new Member(name, bundle, Arrays.asList(dependsOn), wave));
+    return this;
+  }
+
+  /**
+   * Adds a binding to be used to pass information about dependencies to dependent bundles.
+   *
+   * @param binding to add
+   * @return itself, for usage in fluent api
+   */
+  public BundleGroup addBinding(final Binding binding) {
+    bindings.add(checkNotNull(binding));
+    return this;
+  }
+
+  /**
+   * Removes all bindings (including the default {@link #WEB_BUNDLE_BINDING}).
+   *
+   * @return itself, for usage in fluent api
+   */
+  public BundleGroup clearBindings() {
+    bindings.clear();
+    return this;
+  }
+
+  /**
+   * Returns bundle with specified name.
+   *
+   * @param name bundle name
+   * @return bundle. Never null.
+   * @throws IllegalArgumentException if there is no bundle with specified name
+   */
+  public <B extends Bundle> B get(final String name) {
+    final Member member = members.get(name);
+    checkArgument(member != null, "Unknown bundle '%s'", name);
+    return (B) member.bundle;
+  }
+
+  /**
+   * Returns the names of bundles in each start wave.
+   *
+   * @return waves, in start order. Never null.
+   */
+  public List<List<String>> getWaves() {
+    final List<List<String>> waves = Lists.newArrayList();
+    for (Member member : members.values()) {
+      while (waves.size() <= member.wave) {
+        waves.add(Lists.<String>newArrayList());
+      }
+      waves.get(member.wave).add(member.name);
+    }
+    return waves;
+  }
+
+  /**
+   * Prepares all bundles concurrently, each bundle after its dependencies were prepared.
+   *
+   * @return itself, for usage in fluent api
+   * @throws RuntimeException if any of the bundles failed to prepare
+   */
+  public BundleGroup prepare() {
+    final Map<String, CompletableFuture> futures = Maps.newLinkedHashMap();
+    for (final Member member : members.values()) {
+      final List<CompletableFuture> dependencies = Lists.newArrayList();
+      for (String dependency : member.dependsOn) {
+        dependencies.add(futures.get(dependency));
+      }
+      futures.put(member.name, CompletableFuture
+          .allOf(dependencies.toArray(new CompletableFuture[dependencies.size()]))
+          .thenCompose(new Function<Void, CompletionStage<Object>>()
+          {
+            @Override
+            public CompletionStage<Object> apply(final Void ignore) {
+              bind(member);
+              return member.bundle.prepareAsync();
+            }
+          }));
+    }
+    await(Lists.newArrayList(futures.values()));
+    return this;
+  }
+
+  /**
+   * Prepares all bundles and starts them, wave by wave. If any bundle fails to start, already started bundles are
+   * stopped.
+   *
+   * @return itself, for usage in fluent api
+   * @throws RuntimeException if any of the bundles failed to prepare or start
+   */
+  public BundleGroup start() {
+    prepare();
+    try {
+      for (List<String> wave : getWaves()) {
+        log.info("Starting {}", wave);
+        final List<CompletableFuture> futures = Lists.newArrayList();
+        for (String name : wave) {
+          futures.add(members.get(name).bundle.startAsync());
+        }
+        await(futures);
+      }
+    }
+    catch (RuntimeException e) {
+      try {
+        stop();
+      }
+      catch (RuntimeException stopFailure) {
+        log.warn("Could not stop bundles after start failure", stopFailure);
+      }
+      throw e;
+    }
+    return this;
+  }
+
+  /**
+   * Stops all bundles, in reverse order of start waves. All bundles are stopped even if some of them failed to stop.
+   *
+   * @return itself, for usage in fluent api
+   * @throws RuntimeException if any of the bundles failed to stop
+   */
+  public BundleGroup stop() {
+    final List<List<String>> waves = getWaves();
+    Collections.reverse(waves);
+    RuntimeException failure = null;
+    for (List<String> wave : waves) {
+      log.info("Stopping {}", wave);
+      final List<CompletableFuture> futures = Lists.newArrayList();
+      for (String name : wave) {
+        futures.add(members.get(name).bundle.stopAsync());
+      }
+      try {
+        await(futures);
+      }
+      catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return this;
+  }
+
+  /**
+   * Passes information about dependencies to specified bundle, using configured bindings.
+   */
+  private void bind(final Member member) {
+    for (String dependency : member.dependsOn) {
+      for (Binding binding : bindings) {
+        binding.bind(dependency, members.get(dependency).bundle, member.bundle);
+      }
+    }
+  }
+
+  /**
+   * Waits for all futures to complete.
+   *
+   * @throws RuntimeException first failure, if any of futures completed exceptionally
+   */
+  private void await(final List<CompletableFuture> futures) {
+    Throwable failure = null;
+    for (CompletableFuture future : futures) {
+      try {
+        future.get();
+      }
+      catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        for (CompletableFuture toCancel : futures) {
+          toCancel.cancel(true);
+        }
+        throw Throwables.propagate(e);
+      }
+    }
+    if (failure != null) {
+      throw Throwables.propagate(failure);
+    }
+  }
+
+  /**
+   * Passes information about a dependency to a dependent bundle, before dependent bundle is prepared. At this point
+   * dependency is prepared, so its ports and urls are resolved.
+   *
+   * @since 1.12
+   */
+  public static interface Binding
+  {
+
+    /**
+     * @param name       name of dependency in group
+     * @param dependency dependency bundle
+     * @param dependent  dependent bundle
+     */
+    void bind(String name, Bundle dependency, Bundle dependent);
+
+  }
+
+  /**
+   * Binding that sets {@code <name>.port} and {@code <name>.url} system properties of dependent bundle to port / url
+   * of a dependency web bundle.
+   */
+  public static final Binding WEB_BUNDLE_BINDING = new Binding()
+  {
+    @Override
+    public void bind(final String name, final Bundle dependency, final Bundle dependent) {
+      if (dependency instanceof WebBundle) {
+        final WebBundle webBundle = (WebBundle) dependency;
+        dependent.getConfiguration().setSystemProperty(name + ".port", String.valueOf(webBundle.getPort()));
+        if (webBundle.getUrl() != null) {
+          dependent.getConfiguration().setSystemProperty(name + ".url", webBundle.getUrl().toExternalForm());
+        }
+      }
+    }
+  };
+
+  private static class Member
+  {
+
+    private final String name;
+
+    private final Bundle bundle;
+
+    private final List<String> dependsOn;
+
+    private final int wave;
+
+    private Member(final String name, final Bundle bundle, final List<String> dependsOn, final int wave) {
+      this.name = name;
+      this.bundle = bundle;
+      this.dependsOn = dependsOn;
+      this.wave = wave;
+    }
+
+  }
+
+}
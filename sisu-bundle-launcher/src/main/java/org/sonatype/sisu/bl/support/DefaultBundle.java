@@ -14,10 +14,20 @@
 package org.sonatype.sisu.bl.support;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -26,17 +36,24 @@ import org.sonatype.sisu.bl.Bundle;
 import org.sonatype.sisu.bl.BundleConfiguration;
 import org.sonatype.sisu.bl.BundleStatistics;
 import org.sonatype.sisu.bl.JavaAgent;
+import org.sonatype.sisu.bl.Span;
 import org.sonatype.sisu.bl.internal.support.BundleLifecycle;
 import org.sonatype.sisu.bl.jmx.JMXConfiguration;
 import org.sonatype.sisu.bl.support.port.PortReservationService;
 import org.sonatype.sisu.filetasks.FileTask;
 import org.sonatype.sisu.filetasks.FileTaskBuilder;
+import org.sonatype.sisu.filetasks.FileTaskRunner;
+import org.sonatype.sisu.filetasks.builder.CopyDirectoryBuilder;
+import org.sonatype.sisu.filetasks.builder.ExpandBuilder;
+import org.sonatype.sisu.filetasks.support.HardLinks;
 import org.sonatype.sisu.goodies.common.SimpleFormat;
 import org.sonatype.sisu.goodies.common.Time;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import org.apache.tools.ant.DirectoryScanner;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -56,6 +73,50 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
     implements Bundle<B, BC>
 {
 
+  /**
+   * Name of preparation stage that unpacks the bundle (and of the fingerprint of bundle and overlays).
+   *
+   * @since 1.12
+   */
+  protected static final String BUNDLE_STAGE = "bundle";
+
+  /**
+   * Name of preparation stage that prepares the java agents.
+   */
+  private static final String JAVA_AGENTS_STAGE = "javaAgents";
+
+  /**
+   * Name of preparation stage that configures the bundle.
+   *
+   * @since 1.12
+   */
+  protected static final String CONFIGURE_STAGE = "configure";
+
+  /**
+   * Name of preparation stage that applies the overlays.
+   */
+  private static final String OVERLAYS_STAGE = "overlays";
+
+  private static final String CLEANUP_PHASE = "cleanup";
+
+  private static final String PREPARE_PHASE = "prepare";
+
+  private static final String START_PHASE = "start";
+
+  private static final String STOP_PHASE = "stop";
+
+  /**
+   * Reads the log lines included in boot failure messages: at most 20 lines, found in last 16KB of log.
+   */
+  private static final LogTail BOOT_LOG_TAIL = new LogTail(20, 16 * 1024);
+
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  /**
+   * Time waited for boot check to complete, on top of start timeout.
+   */
+  private static final Time BOOT_TIMEOUT_SLACK = Time.seconds(10);
+
   /**
    * File tasks builder used to manipulate files necessary to prepare bundle target directory.
    * Cannot be null.
@@ -85,6 +146,11 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
    */
   protected PortReservationService portReservationService;
 
+  /**
+   * Ports reserved via {@link #reservePorts(int)}, not yet cancelled.
+   */
+  private final Set<Integer> reservedPorts = Sets.newConcurrentHashSet();
+
   /**
    * Time it took to boot the application.
    */
@@ -118,6 +184,43 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
    */
   private List<String> javaAgentOptions;
 
+  /**
+   * Fingerprint recorded by previous preparation of target directory, null if not available or not up to date.
+   * Valid only during preparation step.
+   */
+  private PrepareFingerprint previousFingerprint;
+
+  /**
+   * Fingerprint of current preparation. Valid only during preparation step.
+   */
+  private PrepareFingerprint fingerprint;
+
+  /**
+   * Scheduler used to check that application finished booting. If null, a shared default one is used.
+   */
+  private ReadinessScheduler readinessScheduler;
+
+  /**
+   * Readiness check of last boot, null if application was not started.
+   */
+  private volatile ReadinessScheduler.Check bootCheck;
+
+  /**
+   * Probe used to check that application finished booting, during last start. Can be null.
+   */
+  private volatile ReadinessScheduler.Probe bootProbe;
+
+  /**
+   * Time it took to run each preparation stage during last preparation, keyed by stage name.
+   */
+  private Map<String, Time> preparationStageTimes;
+
+  /**
+   * Span of last run of each lifecycle phase, keyed by phase.
+   * Never null.
+   */
+  private final Map<String, TimingSpan> phaseSpans;
+
   /**
    * Constructor. Creates the bundle with a default configuration and a not running state.
    *
@@ -141,6 +244,8 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
     bootingTime = Time.millis(0);
     statistics = new Statistics();
     javaAgentOptions = Lists.newArrayList();
+    preparationStageTimes = Collections.emptyMap();
+    phaseSpans = new ConcurrentHashMap<String, TimingSpan>();
   }
 
   /**
@@ -155,13 +260,30 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
   @Override
   public void doStart() {
     bootingTime = Time.millis(0);
+    bootCheck = null;
+    bootProbe = null;
     final Stopwatch bootingWatch = Stopwatch.createUnstarted();
+    final TimingSpan span = startPhase(START_PHASE);
     try {
-      startApplication();
+      // created before starting, so log lines of previous runs are not considered
+      bootProbe = createBootProbe();
+      try (TimingSpan ignore = TimingSpan.start("startApplication")) {
+        if (!reservedPorts.isEmpty()) {
+          getPortReservationService().unbindPorts(Ints.toArray(reservedPorts));
+        }
+        startApplication();
+      }
       running = true;
       getRunningBundles().add(this);
       bootingWatch.start();
-      waitForBoot();
+      try (TimingSpan bootSpan = TimingSpan.start("boot")) {
+        try {
+          waitForBoot(bootProbe);
+        }
+        finally {
+          bootSpan.set("probes", statistics.bootProbeAttempts());
+        }
+      }
     }
     catch (RuntimeException e) {
       doStop();
@@ -172,6 +294,7 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
         bootingWatch.stop();
       }
       bootingTime = Time.millis(bootingWatch.elapsed(TimeUnit.MILLISECONDS));
+      span.close();
     }
   }
 
@@ -185,6 +308,7 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
   @Override
   public void doStop() {
     if (isRunning()) {
+      final TimingSpan span = startPhase(STOP_PHASE);
       try {
         stopApplication();
       }
@@ -192,6 +316,7 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
         unconfigure();
         running = false;
         getRunningBundles().remove(this);
+        span.close();
       }
     }
   }
@@ -204,29 +329,142 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
    * - configure<br/>
    * - applying overlays
    * <p/>
+   * If incremental preparation is enabled, unpacking bundle and applying overlays are skipped when bundle and overlays
+   * did not change since last preparation.
+   * <p/>
    * {@inheritDoc}
    */
   @Override
   public void doPrepare() {
     bootingTime = Time.millis(0);
+    preparationStageTimes = Collections.emptyMap();
     log.debug("Using configuration {}", getConfiguration());
     validateConfiguration();
-    createBundle();
-    renameApplicationDirectory();
-    prepareJavaAgents();
+    final File targetDirectory = getConfiguration().getTargetDirectory();
+    previousFingerprint = getConfiguration().isIncrementalPrepareEnabled()
+        ? PrepareFingerprint.load(targetDirectory)
+        : null;
+    fingerprint = new PrepareFingerprint();
+    final TimingSpan span = startPhase(PREPARE_PHASE);
     try {
-      configure();
+      PrepareFingerprint.delete(targetDirectory);
+      if (getConfiguration().isHardLinksEnabled()) {
+        // a reused target directory could have been linked by another process
+        HardLinks.register(targetDirectory);
+      }
+      final boolean bundleUpToDate = isUpToDate(BUNDLE_STAGE, bundleInputs());
+      if (bundleUpToDate) {
+        log.info("{} ({}) bundle and overlays did not change, reusing {}",
+            getName(), getConfiguration().getId(), targetDirectory);
+      }
+      else {
+        // all other stages were applied on top of the bundle, so they have to be re-applied
+        previousFingerprint = null;
+      }
+      final PreparePipeline pipeline = new PreparePipeline();
+      pipeline.stage(BUNDLE_STAGE, new Runnable()
+      {
+        @Override
+        public void run() {
+          if (!bundleUpToDate) {
+            createBundle();
+            renameApplicationDirectory();
+          }
+        }
+      });
+      pipeline.stage(JAVA_AGENTS_STAGE, new Runnable()
+      {
+        @Override
+        public void run() {
+          prepareJavaAgents();
+        }
+      });
+      pipeline.stage(CONFIGURE_STAGE, new Runnable()
+      {
+        @Override
+        public void run() {
+          try {
+            configure();
+          }
+          catch (Exception e) {
+            throw Throwables.propagate(e);
+          }
+        }
+      }, BUNDLE_STAGE);
+      addPrepareStages(pipeline);
+      pipeline.stageAfterAll(OVERLAYS_STAGE, new Runnable()
+      {
+        @Override
+        public void run() {
+          if (!bundleUpToDate) {
+            applyOverlays();
+          }
+        }
+      });
+      try {
+        pipeline.run(prepareThreads());
+      }
+      finally {
+        preparationStageTimes = pipeline.getTimes();
+      }
+      if (getConfiguration().isIncrementalPrepareEnabled()) {
+        fingerprint.store(targetDirectory);
+      }
     }
-    catch (Exception e) {
-      throw Throwables.propagate(e);
+    finally {
+      previousFingerprint = null;
+      fingerprint = null;
+      span.close();
     }
-    applyOverlays();
   }
 
+  /**
+   * Template method for subclasses to register additional preparation stages, if necessary. Registered stages are run
+   * after the (already registered) stages they depend on and before overlays are applied.
+   * <p/>
+   * Stages are run concurrently with other stages, so they should only depend on state of the stages declared as
+   * dependencies. {@link #isUpToDate(String, Object...)} should be checked while registering the stages.
+   *
+   * @param pipeline to register stages with. Already contains {@code bundle} (unpacking bundle), {@code javaAgents}
+   *                 (preparing java agents) and {@code configure} (configuring the bundle) stages
+   * @since 1.12
+   */
+  protected void addPrepareStages(final PreparePipeline pipeline) {
+    // template method
+  }
+
+  /**
+   * Deletes target directory. If incremental preparation is enabled and bundle is cleaned up as part of preparation,
+   * target directory is retained if bundle and overlays did not change since last preparation.
+   * <p/>
+   * {@inheritDoc}
+   */
   @Override
   public void doClean() {
     bootingTime = Time.millis(0);
-    deleteTarget();
+    preparationStageTimes = Collections.emptyMap();
+    try (TimingSpan ignore = startPhase(CLEANUP_PHASE)) {
+      final File targetDirectory = getConfiguration().getTargetDirectory();
+      if (targetDirectory != null && getConfiguration().isIncrementalPrepareEnabled() && isCleaningBeforePrepare()) {
+        final PrepareFingerprint previous = PrepareFingerprint.load(targetDirectory);
+        final String current = PrepareFingerprint.calculate(targetDirectory, bundleInputs());
+        if (previous != null && current != null && current.equals(previous.get(BUNDLE_STAGE))) {
+          log.debug("{} ({}) bundle and overlays did not change, not cleaning {}",
+              getName(), getConfiguration().getId(), targetDirectory);
+          return;
+        }
+      }
+      deleteTarget();
+    }
+  }
+
+  /**
+   * Starts recording the span of a lifecycle phase, replacing the span recorded by previous run of same phase.
+   */
+  private TimingSpan startPhase(final String phase) {
+    final TimingSpan span = TimingSpan.root(phase);
+    phaseSpans.put(phase, span);
+    return span;
   }
 
   @Override
@@ -266,6 +504,26 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
     return running;
   }
 
+  /**
+   * Checks if a preparation stage is up to date, meaning that its inputs did not change since last preparation of
+   * target directory. Stage inputs are recorded in the fingerprint written to target directory at the end of a
+   * successful preparation, so stages that are not up to date will be considered on next preparation.
+   * <p/>
+   * To be used only during preparation step (e.g. from {@link #configure()}). Always false if incremental preparation
+   * is not enabled.
+   *
+   * @param stage  stage name
+   * @param inputs stage inputs (files, overlays, ...)
+   * @return true if stage inputs did not change and as so stage can be skipped
+   * @since 1.12
+   */
+  protected boolean isUpToDate(final String stage, final Object... inputs) {
+    checkState(fingerprint != null, "Stages can be checked only during preparation");
+    final String current = PrepareFingerprint.calculate(getConfiguration().getTargetDirectory(), inputs);
+    fingerprint.put(stage, current);
+    return previousFingerprint != null && current != null && current.equals(previousFingerprint.get(stage));
+  }
+
   /**
    * Starts the application.
    */
@@ -284,7 +542,7 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
   {
     JMXConfiguration jmxConfig = getConfiguration().getJmxConfiguration();
     if (JMXConfiguration.RANDOM_JMX_REMOTE_PORT.equals(jmxConfig.getRemotePort())) {
-      this.jmxRemotePort = getPortReservationService().reservePort();
+      this.jmxRemotePort = reservePort();
     }
   }
 
@@ -294,7 +552,7 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
   protected void unconfigure() {
     JMXConfiguration jmxConfig = getConfiguration().getJmxConfiguration();
     if (JMXConfiguration.RANDOM_JMX_REMOTE_PORT.equals(jmxConfig.getRemotePort()) && this.jmxRemotePort != null) {
-      getPortReservationService().cancelPort(this.jmxRemotePort);
+      cancelPort(this.jmxRemotePort);
     }
     this.jmxRemotePort = null;
   }
@@ -308,6 +566,79 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
     return true;
   }
 
+  /**
+   * Returns the log file or directory containing log files written by application, tailed to detect that application
+   * finished booting when a boot log pattern is configured.
+   *
+   * @return application log file / directory, null if application does not write a log
+   * @see BundleConfiguration#getBootLogPattern()
+   * @since 1.12
+   */
+  protected File getBootLog() {
+    return null;
+  }
+
+  /**
+   * Checks that application process is still running, while waiting for application to boot. Called before each boot
+   * probe, so a boot fails right away when application process died.
+   *
+   * @throws ReadinessScheduler.ProbeFailedException if application process exited
+   * @since 1.12
+   */
+  protected void checkApplicationProcess()
+      throws ReadinessScheduler.ProbeFailedException
+  {
+    // by default there is no process to check
+  }
+
+  /**
+   * Returns the last lines written to application log, to be used as context when application failed to boot.
+   *
+   * @return last lines of application log (of most recently modified file in case of a log directory), null if
+   *         application does not write a log or log could not be read
+   * @since 1.12
+   */
+  protected String getBootLogTail() {
+    final File bootLog = getBootLog();
+    try {
+      return BOOT_LOG_TAIL.read(bootLog);
+    }
+    catch (IOException e) {
+      log.debug("Could not read {}", bootLog, e);
+      return null;
+    }
+  }
+
+  /**
+   * Creates the probe used to check that application finished booting. Called before application is started.
+   * <p/>
+   * If a boot log pattern is configured and application writes a log, the log is tailed for boot success / failure
+   * lines, otherwise {@link #applicationAlive()} is used.
+   *
+   * @return boot probe. Never null.
+   * @since 1.12
+   */
+  protected ReadinessScheduler.Probe createBootProbe() {
+    final String bootLogPattern = getConfiguration().getBootLogPattern();
+    final File bootLog = getBootLog();
+    if (bootLogPattern != null && bootLog != null) {
+      final String bootFailureLogPattern = getConfiguration().getBootFailureLogPattern();
+      log.debug("{} ({}) will detect boot by tailing {}", getName(), getConfiguration().getId(), bootLog);
+      return new LogMarkerProbe(
+          bootLog,
+          Pattern.compile(bootLogPattern),
+          bootFailureLogPattern == null ? null : Pattern.compile(bootFailureLogPattern)
+      );
+    }
+    return new ReadinessScheduler.Probe()
+    {
+      @Override
+      public boolean isReady() {
+        return applicationAlive(); // meaning application is finished booting and ready for work
+      }
+    };
+  }
+
   /**
    * Generates a random id for application.
    *
@@ -342,30 +673,68 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
   /**
    * Waits for application to boot for configured timeout period.
    */
-  private void waitForBoot() {
+  private void waitForBoot(final ReadinessScheduler.Probe probe) {
     long start = System.currentTimeMillis();
     int startTimeout = getConfiguration().getStartTimeout();
 
     log.info("{} ({}) waiting to boot for {} seconds", getName(), getConfiguration().getId(), startTimeout);
 
-    final boolean applicationAlive = new TimedCondition()
+    final ReadinessScheduler.Check check = getReadinessScheduler().schedule(new ReadinessScheduler.Probe()
     {
       @Override
-      protected boolean isSatisfied() {
-        return applicationAlive(); // meaning application is finished booting and ready for work
+      public boolean isReady()
+          throws Exception
+      {
+        checkApplicationProcess();
+        return probe.isReady();
       }
-    }.await(Time.seconds(startTimeout));
-    this.secondsUntilAlive = (System.currentTimeMillis() - start) / 1000;
-    if (applicationAlive) {
-      logApplicationIsAlive();
+    }, Time.seconds(startTimeout));
+    bootCheck = check;
+    try {
+      // check times out by itself, timing out here too is a backstop in case check never completes
+      check.getFuture().get(startTimeout + BOOT_TIMEOUT_SLACK.toSeconds(), TimeUnit.SECONDS);
     }
-    else {
-      // FIXME throw new BootTimeoutException()
+    catch (InterruptedException e) {
+      // interrupted status is cleared so application can be stopped
+      check.getFuture().cancel(true);
       throw new RuntimeException(
-          SimpleFormat.format("%s (%s) did not finish booting within %s seconds - possibly suspended? : %s",
-              getName(), getConfiguration().getId(), startTimeout, getConfiguration().isSuspendOnStart())
+          SimpleFormat.format("%s (%s) waiting to boot was aborted", getName(), getConfiguration().getId())
       );
     }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof ReadinessScheduler.ProbeFailedException) {
+        final String bootLogTail = getBootLogTail();
+        throw new RuntimeException(
+            SimpleFormat.format("%s (%s) failed to boot: %s%s",
+                getName(), getConfiguration().getId(), e.getCause().getMessage(),
+                bootLogTail == null ? "" : LINE_SEPARATOR + bootLogTail),
+            e.getCause()
+        );
+      }
+      if (!(e.getCause() instanceof TimeoutException)) {
+        throw new RuntimeException(
+            SimpleFormat.format("%s (%s) failed to check boot: %s",
+                getName(), getConfiguration().getId(), e.getCause()),
+            e.getCause()
+        );
+      }
+      throw bootTimeout(startTimeout, check);
+    }
+    catch (TimeoutException e) {
+      check.getFuture().cancel(true);
+      throw bootTimeout(startTimeout, check);
+    }
+    this.secondsUntilAlive = (System.currentTimeMillis() - start) / 1000;
+    logApplicationIsAlive();
+  }
+
+  private RuntimeException bootTimeout(final int startTimeout, final ReadinessScheduler.Check check) {
+    // FIXME throw new BootTimeoutException()
+    return new RuntimeException(
+        SimpleFormat.format("%s (%s) did not finish booting within %s seconds - possibly suspended? : %s",
+            getName(), getConfiguration().getId(), startTimeout, getConfiguration().isSuspendOnStart()),
+        check.getLastFailure()
+    );
   }
 
   /**
@@ -382,6 +751,16 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
     return name;
   }
 
+  /**
+   * Lifecycle statistics are aggregated by bundle name.
+   *
+   * @since 1.12
+   */
+  @Override
+  protected String getStatisticsType() {
+    return getName();
+  }
+
   /**
    * Bundle specific jmx port, possibly altered from what may have been originally configured as part of
    * {@link JMXConfiguration}.
@@ -401,20 +780,53 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
     if (bundle == null) {
       return;
     }
+    recordSize(bundle);
     if (bundle.isDirectory()) {
+      final CopyDirectoryBuilder copy = getFileTaskBuilder().copy().directory(file(bundle));
+      if (config.isHardLinksEnabled()) {
+        copy.useHardLinks();
+      }
       onDirectory(config.getTargetDirectory()).apply(
-          getFileTaskBuilder().copy().directory(file(bundle))
-              .to().directory(path("/"))
+          copy.to().directory(path("/"))
       );
     }
     else {
+      final ExpandBuilder expand = getFileTaskBuilder().expand(file(bundle));
+      if (config.isArchiveCacheEnabled()) {
+        expand.useCache();
+      }
+      if (config.isHardLinksEnabled()) {
+        expand.useHardLinks();
+      }
       onDirectory(config.getTargetDirectory()).apply(
-          getFileTaskBuilder().expand(file(bundle))
-              .to().directory(path("/"))
+          expand.to().directory(path("/"))
       );
     }
   }
 
+  /**
+   * Adds number of files and their size (in bytes) to the current span, if any. Size is calculated only if span is
+   * consumed (see {@link TimingSpan#addSize(File)}).
+   *
+   * @param file file or directory (case when all contained files are counted)
+   * @since 1.12
+   */
+  protected void recordSize(final File file) {
+    final TimingSpan span = TimingSpan.current();
+    if (span != null && file != null) {
+      span.addSize(file);
+    }
+  }
+
+  /**
+   * @return maximum number of concurrent preparation stages, as configured (at least 1)
+   * @since 1.12
+   */
+  protected int prepareThreads() {
+    final Integer threads = getConfiguration().getPrepareThreads();
+    return threads == null || threads < 1 ? 1 : threads;
+  }
+
   /**
    * Validates configuration:<br/>
    * - id is set
@@ -439,7 +851,8 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
   }
 
   /**
-   * Deletes target directory.
+   * Deletes target directory, in parallel. When enabled via {@code sisu.bl.delete.trash} system property, target
+   * directory is moved to trash and deleted in background instead, so preparation can start right away.
    */
   private void deleteTarget() {
     final File targetDirectory = getConfiguration().getTargetDirectory();
@@ -447,10 +860,18 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
       throw new RuntimeException("Target directory must be set in bundle configuration");
     }
     onDirectory(targetDirectory).apply(
-        getFileTaskBuilder().delete().directory(path("/"))
+        getFileTaskBuilder().delete().directory(path("/")).useParallelDelete()
     );
   }
 
+  /**
+   * Returns the inputs of bundle stage: the bundle and the overlays, as overlays are modifying the unpacked bundle.
+   */
+  private Object[] bundleInputs() {
+    BundleConfiguration config = getConfiguration();
+    return new Object[]{getClass().getName(), getName(), config.getBundle(), config.getOverlays()};
+  }
+
   /**
    * Applies overlays to target directory.
    */
@@ -460,7 +881,25 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
     if (overlays == null) {
       return;
     }
-    onDirectory(config.getTargetDirectory()).apply(overlays);
+    final TimingSpan span = TimingSpan.current();
+    if (span != null) {
+      span.set("overlays", overlays.size());
+    }
+    if (!FileTaskRunner.isParallelByDefault()) {
+      onDirectory(config.getTargetDirectory()).apply(overlays);
+      return;
+    }
+    // overlays touching different paths are applied concurrently, the others in order
+    try {
+      onDirectory(config.getTargetDirectory()).applyAsync(overlays).get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while applying overlays of " + getName(), e);
+    }
+    catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
   }
 
   /**
@@ -472,9 +911,11 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
     javaAgentOptions.clear();
     List<JavaAgent> agents = getConfiguration().getJavaAgents();
     for (JavaAgent agent : agents) {
-      String argument = agent.prepare(this);
-      if (argument != null && !argument.trim().isEmpty()) {
-        javaAgentOptions.add(argument);
+      try (TimingSpan ignore = TimingSpan.start(agent.getClass().getSimpleName())) {
+        String argument = agent.prepare(this);
+        if (argument != null && !argument.trim().isEmpty()) {
+          javaAgentOptions.add(argument);
+        }
       }
     }
   }
@@ -496,11 +937,64 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
     return sb.toString();
   }
 
+  /**
+   * Sets the scheduler used to check that application finished booting.
+   *
+   * @param readinessScheduler scheduler to be used. Can be null, case when {@link ReadinessScheduler#getDefault()} will
+   *                           be used
+   * @since 1.12
+   */
+  @Inject
+  public void setReadinessScheduler(final @Nullable ReadinessScheduler readinessScheduler) {
+    this.readinessScheduler = readinessScheduler;
+  }
+
+  /**
+   * @return scheduler used to check that application finished booting
+   * @since 1.12
+   */
+  protected ReadinessScheduler getReadinessScheduler() {
+    return readinessScheduler == null ? ReadinessScheduler.getDefault() : readinessScheduler;
+  }
+
   protected PortReservationService getPortReservationService() {
     checkState(portReservationService != null);
     return portReservationService;
   }
 
+  /**
+   * Reserves ports to be used by application. If the service keeps reserved ports bound, they are unbound right before
+   * application is started.
+   *
+   * @param count number of ports to reserve
+   * @return reserved ports
+   * @since 1.12
+   */
+  protected int[] reservePorts(final int count) {
+    final int[] ports = getPortReservationService().reservePorts(count);
+    reservedPorts.addAll(Ints.asList(ports));
+    return ports;
+  }
+
+  /**
+   * @return a port reserved via {@link #reservePorts(int)}
+   * @since 1.12
+   */
+  protected int reservePort() {
+    return reservePorts(1)[0];
+  }
+
+  /**
+   * Cancels reservation of a port reserved via {@link #reservePorts(int)}.
+   *
+   * @param port reserved port
+   * @since 1.12
+   */
+  protected void cancelPort(final int port) {
+    reservedPorts.remove(port);
+    getPortReservationService().cancelPort(port);
+  }
+
   private class Statistics
       implements BundleStatistics
   {
@@ -520,11 +1014,45 @@ public abstract class DefaultBundle<B extends Bundle, BC extends BundleConfigura
       return startupTime;
     }
 
+    @Override
+    public Map<String, Time> preparationStageTimes() {
+      return preparationStageTimes;
+    }
+
     @Override
     public Time bootingTime() {
       return bootingTime;
     }
 
+    @Override
+    public int bootProbeAttempts() {
+      final ReadinessScheduler.Check check = bootCheck;
+      return check == null ? 0 : check.getAttempts();
+    }
+
+    @Override
+    public List<Time> bootProbeLatencies() {
+      final ReadinessScheduler.Check check = bootCheck;
+      return check == null ? Collections.<Time>emptyList() : check.getLatencies();
+    }
+
+    @Override
+    public Span spans() {
+      final List<Span> phases = Lists.newArrayList();
+      for (String phase : Arrays.asList(CLEANUP_PHASE, PREPARE_PHASE, START_PHASE, STOP_PHASE)) {
+        if (phaseSpans.containsKey(phase)) {
+          phases.add(phaseSpans.get(phase));
+        }
+      }
+      return TimingSpan.of(getConfiguration().getId(), phases);
+    }
+
+    @Override
+    public Time firstSuccessfulResponseTime() {
+      final ReadinessScheduler.Probe probe = bootProbe;
+      return probe instanceof HttpProbe ? ((HttpProbe) probe).getTimeToFirstSuccess() : null;
+    }
+
     @Override
     public Time stoppingTime() {
       return stoppingTime;
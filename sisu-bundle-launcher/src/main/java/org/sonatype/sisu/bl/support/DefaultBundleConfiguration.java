@@ -31,6 +31,7 @@ import org.sonatype.sisu.bl.support.resolver.BundleResolver;
 import org.sonatype.sisu.bl.support.resolver.TargetDirectoryResolver;
 import org.sonatype.sisu.filetasks.FileTask;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -67,6 +68,56 @@ public class DefaultBundleConfiguration<T extends BundleConfiguration>
    */
   public static final String HOSTNAME_DEFAULT = "127.0.0.1";
 
+  /**
+   * Archive cache usage configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String ARCHIVE_CACHE = "DefaultBundleConfiguration.archiveCache";
+
+  /**
+   * Hard links usage configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String HARD_LINKS = "DefaultBundleConfiguration.hardLinks";
+
+  /**
+   * Incremental preparation configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String INCREMENTAL_PREPARE = "DefaultBundleConfiguration.incrementalPrepare";
+
+  /**
+   * Concurrent preparation stages configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String PREPARE_THREADS = "DefaultBundleConfiguration.prepareThreads";
+
+  /**
+   * Default maximum number of concurrent preparation stages. Stages run file tasks, so only raise it when file tasks
+   * can safely run concurrently (sisu-file-tasks 1.12+, where each ANT based task runs against its own ANT project).
+   *
+   * @since 1.12
+   */
+  public static final int PREPARE_THREADS_DEFAULT = 1;
+
+  /**
+   * Boot log pattern configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String BOOT_LOG_PATTERN = "DefaultBundleConfiguration.bootLogPattern";
+
+  /**
+   * Boot failure log pattern configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String BOOT_FAILURE_LOG_PATTERN = "DefaultBundleConfiguration.bootFailureLogPattern";
+
   /**
    * System properties.
    * Should never be null.
@@ -147,6 +198,36 @@ public class DefaultBundleConfiguration<T extends BundleConfiguration>
    */
   private List<String> javaOptions;
 
+  /**
+   * True if bundle should be expanded via the machine wide archive cache.
+   */
+  private boolean archiveCacheEnabled;
+
+  /**
+   * True if bundle files should be hard linked instead of copied.
+   */
+  private boolean hardLinksEnabled;
+
+  /**
+   * True if bundle should be prepared incrementally.
+   */
+  private boolean incrementalPrepareEnabled;
+
+  /**
+   * Maximum number of concurrent preparation stages.
+   */
+  private Integer prepareThreads;
+
+  /**
+   * Regular expression matching the log line written when application finished booting. Can be null.
+   */
+  private String bootLogPattern;
+
+  /**
+   * Regular expression matching a log line written when application failed to boot. Can be null.
+   */
+  private String bootFailureLogPattern;
+
   @Inject
   public DefaultBundleConfiguration(final Provider<JMXConfiguration> jmxConfigurationProvider) {
     this.jmxConfigurationProvider = checkNotNull(jmxConfigurationProvider);
@@ -411,6 +492,177 @@ public class DefaultBundleConfiguration<T extends BundleConfiguration>
     return self();
   }
 
+  /**
+   * @since 1.12
+   */
+  @Override
+  public boolean isArchiveCacheEnabled() {
+    return archiveCacheEnabled;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setArchiveCacheEnabled(final boolean enabled) {
+    this.archiveCacheEnabled = enabled;
+    return self();
+  }
+
+  /**
+   * Sets if bundle should be expanded via the machine wide archive cache. If injected will use the value bounded to
+   * {@link #ARCHIVE_CACHE}, defaulting to false.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureArchiveCache(final @Named("${" + ARCHIVE_CACHE + ":-false}") Boolean enabled) {
+    setArchiveCacheEnabled(enabled);
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public boolean isHardLinksEnabled() {
+    return hardLinksEnabled;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setHardLinksEnabled(final boolean enabled) {
+    this.hardLinksEnabled = enabled;
+    return self();
+  }
+
+  /**
+   * Sets if bundle files should be hard linked instead of copied. If injected will use the value bounded to
+   * {@link #HARD_LINKS}, defaulting to false.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureHardLinks(final @Named("${" + HARD_LINKS + ":-false}") Boolean enabled) {
+    setHardLinksEnabled(enabled);
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public boolean isIncrementalPrepareEnabled() {
+    return incrementalPrepareEnabled;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setIncrementalPrepareEnabled(final boolean enabled) {
+    this.incrementalPrepareEnabled = enabled;
+    return self();
+  }
+
+  /**
+   * Sets if bundle should be prepared incrementally. If injected will use the value bounded to
+   * {@link #INCREMENTAL_PREPARE}, defaulting to false.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureIncrementalPrepare(final @Named("${" + INCREMENTAL_PREPARE + ":-false}") Boolean enabled) {
+    setIncrementalPrepareEnabled(enabled);
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public Integer getPrepareThreads() {
+    return prepareThreads;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setPrepareThreads(final Integer threads) {
+    this.prepareThreads = threads;
+    return self();
+  }
+
+  /**
+   * Sets maximum number of concurrent preparation stages. If injected will use the value bounded to
+   * {@link #PREPARE_THREADS} with a default of {@link #PREPARE_THREADS_DEFAULT}.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configurePrepareThreads(
+      final @Named("${" + PREPARE_THREADS + ":-" + PREPARE_THREADS_DEFAULT + "}") Integer threads)
+  {
+    setPrepareThreads(threads);
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public String getBootLogPattern() {
+    return bootLogPattern;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setBootLogPattern(final String pattern) {
+    this.bootLogPattern = Strings.emptyToNull(pattern);
+    return self();
+  }
+
+  /**
+   * Sets boot log pattern. If injected will use the value bounded to {@link #BOOT_LOG_PATTERN}, defaulting to none.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureBootLogPattern(final @Named("${" + BOOT_LOG_PATTERN + ":-}") String pattern) {
+    setBootLogPattern(pattern);
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public String getBootFailureLogPattern() {
+    return bootFailureLogPattern;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setBootFailureLogPattern(final String pattern) {
+    this.bootFailureLogPattern = Strings.emptyToNull(pattern);
+    return self();
+  }
+
+  /**
+   * Sets boot failure log pattern. If injected will use the value bounded to {@link #BOOT_FAILURE_LOG_PATTERN},
+   * defaulting to none.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureBootFailureLogPattern(
+      final @Named("${" + BOOT_FAILURE_LOG_PATTERN + ":-}") String pattern)
+  {
+    setBootFailureLogPattern(pattern);
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder();
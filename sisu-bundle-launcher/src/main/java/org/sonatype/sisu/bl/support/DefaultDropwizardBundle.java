@@ -16,9 +16,12 @@ package org.sonatype.sisu.bl.support;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -26,6 +29,7 @@ import javax.inject.Provider;
 
 import org.sonatype.sisu.bl.DropwizardBundle;
 import org.sonatype.sisu.bl.DropwizardBundleConfiguration;
+import org.sonatype.sisu.bl.MetricsSample;
 import org.sonatype.sisu.bl.support.port.PortReservationService;
 import org.sonatype.sisu.filetasks.FileTaskBuilder;
 import org.sonatype.sisu.filetasks.builder.FileRef;
@@ -69,6 +73,22 @@ public class DefaultDropwizardBundle
 
   private ExecuteStreamHandler streamHandler;
 
+  /**
+   * Handler notified when application process exits. Should be null if application is not running.
+   */
+  private DefaultExecuteResultHandler resultHandler;
+
+  /**
+   * Samples admin metrics while application is running. Null if metrics are not sampled or application not running.
+   */
+  private volatile MetricsScraper metricsScraper;
+
+  /**
+   * Metrics sampled during last run.
+   * Never null.
+   */
+  private volatile List<MetricsSample> metrics = Collections.emptyList();
+
   @Inject
   public DefaultDropwizardBundle(final Provider<DropwizardBundleConfiguration> configurationProvider,
                                  final RunningBundles runningBundles,
@@ -88,9 +108,11 @@ public class DefaultDropwizardBundle
   protected void configure()
       throws Exception
   {
-    adminPort = getConfiguration().getAdminPort();
-    if (adminPort == RANDOM_PORT) {
-      adminPort = portReservationService.reservePort();
+    try (TimingSpan ignore = TimingSpan.start("reservePorts")) {
+      adminPort = getConfiguration().getAdminPort();
+      if (adminPort == RANDOM_PORT) {
+        adminPort = reservePort();
+      }
     }
     adminUrl = new URL(String.format("http://localhost:%s/", getAdminPort()));
 
@@ -110,8 +132,8 @@ public class DefaultDropwizardBundle
 
   @Override
   protected void unconfigure() {
-    if (getConfiguration().getPort() == RANDOM_PORT && adminPort > 0) {
-      getPortReservationService().cancelPort(adminPort);
+    if (getConfiguration().getAdminPort() == RANDOM_PORT && adminPort > 0) {
+      cancelPort(adminPort);
     }
     adminPort = 0;
     adminUrl = null;
@@ -132,11 +154,51 @@ public class DefaultDropwizardBundle
     return adminUrl;
   }
 
+  /**
+   * @since 1.12
+   */
+  @Override
+  public List<MetricsSample> getMetrics() {
+    final MetricsScraper scraper = metricsScraper;
+    return scraper == null ? metrics : scraper.getSamples();
+  }
+
+  /**
+   * Probes admin {@code healthcheck} if health check readiness is enabled.
+   * <p/>
+   * {@inheritDoc}
+   *
+   * @since 1.12
+   */
+  @Override
+  protected HttpProbe createHealthProbe() {
+    if (getConfiguration().isHealthCheckReadinessEnabled()) {
+      try {
+        return new HealthCheckProbe(
+            new URL(adminUrl, "healthcheck"), Time.millis(getConfiguration().getHealthTimeout())
+        );
+      }
+      catch (MalformedURLException e) {
+        throw Throwables.propagate(e);
+      }
+    }
+    return super.createHealthProbe();
+  }
+
   @Override
   public File getBundleDirectory() {
     return new File(getConfiguration().getTargetDirectory(), getName());
   }
 
+  /**
+   * @return {@code output.log} from bundle directory, where the output of application is written
+   * @since 1.12
+   */
+  @Override
+  protected File getBootLog() {
+    return new File(getBundleDirectory(), "output.log");
+  }
+
   @Override
   protected void startApplication() {
     File bundleDirectory = getBundleDirectory();
@@ -150,6 +212,9 @@ public class DefaultDropwizardBundle
     if (javaOptions.size() > 0) {
       cmdLine.addArguments(javaOptions.toArray(new String[javaOptions.size()]));
     }
+    for (Map.Entry<String, String> entry : getConfiguration().getSystemProperties().entrySet()) {
+      cmdLine.addArgument("-D" + entry.getKey() + "=" + entry.getValue(), false);
+    }
     cmdLine
         .addArgument("-jar")
         .addArgument(getJarName())
@@ -166,11 +231,41 @@ public class DefaultDropwizardBundle
       executor.setStreamHandler(streamHandler = new PumpStreamHandler(
           new FileOutputStream(new File(bundleDirectory, "output.log")))
       );
-      executor.execute(cmdLine, new DefaultExecuteResultHandler());
+      executor.execute(cmdLine, resultHandler = new DefaultExecuteResultHandler());
     }
     catch (IOException e) {
       throw Throwables.propagate(e);
     }
+
+    metrics = Collections.emptyList();
+    final Time metricsScrapeInterval = getConfiguration().getMetricsScrapeInterval();
+    if (metricsScrapeInterval != null) {
+      try {
+        metricsScraper = new MetricsScraper(
+            new URL(adminUrl, "metrics"), metricsScrapeInterval, Time.millis(getConfiguration().getHealthTimeout())
+        );
+      }
+      catch (MalformedURLException e) {
+        throw Throwables.propagate(e);
+      }
+      metricsScraper.start();
+    }
+  }
+
+  /**
+   * @throws ReadinessScheduler.ProbeFailedException if application JVM exited
+   * @since 1.12
+   */
+  @Override
+  protected void checkApplicationProcess()
+      throws ReadinessScheduler.ProbeFailedException
+  {
+    final DefaultExecuteResultHandler handler = resultHandler;
+    if (handler != null && handler.hasResult()) {
+      throw new ReadinessScheduler.ProbeFailedException(
+          "Process exited with code " + handler.getExitValue(), handler.getException()
+      );
+    }
   }
 
   private String getJarName() {
@@ -190,10 +285,15 @@ public class DefaultDropwizardBundle
 
   @Override
   protected void stopApplication() {
+    if (metricsScraper != null) {
+      metrics = metricsScraper.stop();
+      metricsScraper = null;
+    }
     if (watchdog != null) {
       watchdog.destroyProcess();
       watchdog = null;
     }
+    resultHandler = null;
     if (streamHandler != null) {
       streamHandler.stop();
       streamHandler = null;
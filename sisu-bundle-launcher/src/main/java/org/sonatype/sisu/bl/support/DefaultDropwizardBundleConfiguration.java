@@ -21,6 +21,7 @@ import javax.inject.Provider;
 
 import org.sonatype.sisu.bl.DropwizardBundleConfiguration;
 import org.sonatype.sisu.bl.jmx.JMXConfiguration;
+import org.sonatype.sisu.goodies.common.Time;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -35,6 +36,20 @@ public class DefaultDropwizardBundleConfiguration
     implements DropwizardBundleConfiguration
 {
 
+  /**
+   * Health check readiness configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String HEALTH_CHECK_READINESS = "DefaultDropwizardBundleConfiguration.healthCheckReadiness";
+
+  /**
+   * Metrics scrape interval (milliseconds, 0 to disable) configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String METRICS_SCRAPE_INTERVAL = "DefaultDropwizardBundleConfiguration.metricsScrapeInterval";
+
   /**
    * Port on which the admin application will be accessible.
    */
@@ -55,6 +70,16 @@ public class DefaultDropwizardBundleConfiguration
    */
   private String[] arguments = new String[0];
 
+  /**
+   * True if application is considered booted only when admin health checks are healthy.
+   */
+  private boolean healthCheckReadinessEnabled;
+
+  /**
+   * Interval at which admin metrics are sampled. Null if metrics should not be sampled.
+   */
+  private Time metricsScrapeInterval;
+
   @Inject
   public DefaultDropwizardBundleConfiguration(final Provider<JMXConfiguration> jmxConfigurationProvider) {
     super(jmxConfigurationProvider);
@@ -103,4 +128,64 @@ public class DefaultDropwizardBundleConfiguration
     return this;
   }
 
+  /**
+   * @since 1.12
+   */
+  @Override
+  public boolean isHealthCheckReadinessEnabled() {
+    return healthCheckReadinessEnabled;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public DropwizardBundleConfiguration setHealthCheckReadinessEnabled(final boolean enabled) {
+    this.healthCheckReadinessEnabled = enabled;
+    return this;
+  }
+
+  /**
+   * Sets if admin health checks should be used to detect boot. If injected will use the value bounded to
+   * {@link #HEALTH_CHECK_READINESS}, defaulting to false.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureHealthCheckReadiness(
+      final @Named("${" + HEALTH_CHECK_READINESS + ":-false}") Boolean enabled)
+  {
+    setHealthCheckReadinessEnabled(enabled);
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public Time getMetricsScrapeInterval() {
+    return metricsScrapeInterval;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public DropwizardBundleConfiguration setMetricsScrapeInterval(final Time interval) {
+    this.metricsScrapeInterval = interval;
+    return this;
+  }
+
+  /**
+   * Sets metrics scrape interval. If injected will use the value (in milliseconds) bounded to
+   * {@link #METRICS_SCRAPE_INTERVAL}, defaulting to 0 (metrics are not sampled).
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureMetricsScrapeInterval(
+      final @Named("${" + METRICS_SCRAPE_INTERVAL + ":-0}") Integer interval)
+  {
+    setMetricsScrapeInterval(interval > 0 ? Time.millis(interval) : null);
+  }
+
 }
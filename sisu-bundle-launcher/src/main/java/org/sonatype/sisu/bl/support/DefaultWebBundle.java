@@ -14,7 +14,7 @@
 package org.sonatype.sisu.bl.support;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 
 import javax.inject.Inject;
@@ -25,6 +25,7 @@ import org.sonatype.sisu.bl.WebBundle;
 import org.sonatype.sisu.bl.WebBundleConfiguration;
 import org.sonatype.sisu.bl.support.port.PortReservationService;
 import org.sonatype.sisu.filetasks.FileTaskBuilder;
+import org.sonatype.sisu.goodies.common.Time;
 
 import static org.sonatype.sisu.bl.WebBundleConfiguration.RANDOM_PORT;
 
@@ -79,26 +80,57 @@ public abstract class DefaultWebBundle<WB extends WebBundle, WBC extends WebBund
   }
 
   /**
-   * Checks if application is alive by accessing state provided URL and checking that it responds with 200 OK.
+   * Checks if application is alive by accessing health URL and checking that it responds with an expected status.
    *
    * @return true if application is alive, false otherwise
+   * @see #createHealthProbe()
    */
   @Override
   protected boolean applicationAlive() {
     try {
-      HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-      urlConnection.setConnectTimeout(0);
-      urlConnection.setReadTimeout(0);
-      urlConnection.setUseCaches(false);
-      urlConnection.connect();
-      // if connect does not result in an exception, the application is alive
-      return true;
+      return createHealthProbe().isReady();
     }
     catch (IOException ignore) {
       return false;
     }
   }
 
+  /**
+   * Probes health URL, unless a boot log pattern is configured.
+   * <p/>
+   * {@inheritDoc}
+   *
+   * @since 1.12
+   */
+  @Override
+  protected ReadinessScheduler.Probe createBootProbe() {
+    if (getConfiguration().getBootLogPattern() != null && getBootLog() != null) {
+      return super.createBootProbe();
+    }
+    return createHealthProbe();
+  }
+
+  /**
+   * Creates a probe of health URL (application URL resolved against configured health path), expecting configured
+   * health status codes.
+   *
+   * @return health probe. Never null.
+   * @since 1.12
+   */
+  protected HttpProbe createHealthProbe() {
+    final WBC config = getConfiguration();
+    URL healthUrl = url;
+    if (config.getHealthPath() != null) {
+      try {
+        healthUrl = new URL(url, config.getHealthPath());
+      }
+      catch (MalformedURLException e) {
+        throw new IllegalArgumentException("Invalid health path " + config.getHealthPath(), e);
+      }
+    }
+    return new HttpProbe(healthUrl, Time.millis(config.getHealthTimeout()), config.getHealthStatusCodes());
+  }
+
   /**
    * Logs URL where application is running.
    * <p/>
@@ -116,11 +148,13 @@ public abstract class DefaultWebBundle<WB extends WebBundle, WBC extends WebBund
   protected void configure()
       throws Exception
   {
-    if (getConfiguration().getPort() == RANDOM_PORT) {
-      port = portReservationService.reservePort();
-    }
-    else {
-      port = getConfiguration().getPort();
+    try (TimingSpan ignore = TimingSpan.start("reservePorts")) {
+      if (getConfiguration().getPort() == RANDOM_PORT) {
+        port = reservePort();
+      }
+      else {
+        port = getConfiguration().getPort();
+      }
     }
     url = new URL(composeApplicationURL());
   }
@@ -131,7 +165,7 @@ public abstract class DefaultWebBundle<WB extends WebBundle, WBC extends WebBund
   @Override
   protected void unconfigure() {
     if (getConfiguration().getPort() == RANDOM_PORT && port > 0) {
-      getPortReservationService().cancelPort(port);
+      cancelPort(port);
     }
     port = 0;
     url = null;
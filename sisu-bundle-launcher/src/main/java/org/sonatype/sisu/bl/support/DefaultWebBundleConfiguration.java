@@ -13,6 +13,11 @@
 
 package org.sonatype.sisu.bl.support;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -20,6 +25,11 @@ import javax.inject.Provider;
 import org.sonatype.sisu.bl.WebBundleConfiguration;
 import org.sonatype.sisu.bl.jmx.JMXConfiguration;
 
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
 /**
  * Default {@link WebBundleConfiguration} implementation.
  *
@@ -31,15 +41,60 @@ public class DefaultWebBundleConfiguration<T extends WebBundleConfiguration>
     implements WebBundleConfiguration<T>
 {
 
+  /**
+   * Health path configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String HEALTH_PATH = "DefaultWebBundleConfiguration.healthPath";
+
+  /**
+   * Health status codes (comma separated) configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String HEALTH_STATUS_CODES = "DefaultWebBundleConfiguration.healthStatusCodes";
+
+  /**
+   * Health probe timeout (milliseconds) configuration property key.
+   *
+   * @since 1.12
+   */
+  public static final String HEALTH_TIMEOUT = "DefaultWebBundleConfiguration.healthTimeout";
+
+  /**
+   * Default health probe timeout in milliseconds.
+   *
+   * @since 1.12
+   */
+  public static final int HEALTH_TIMEOUT_DEFAULT = 2000;
+
   /**
    * Port on which the application will be accessible.
    */
   private int port;
 
+  /**
+   * Path probed to check that application finished booting. Can be null.
+   */
+  private String healthPath;
+
+  /**
+   * Status codes expected from health path. Never null.
+   */
+  private Set<Integer> healthStatusCodes;
+
+  /**
+   * Health probe connect / read timeout in milliseconds.
+   */
+  private int healthTimeout;
+
   @Inject
   public DefaultWebBundleConfiguration(final Provider<JMXConfiguration> jmxConfigurationProvider) {
     super(jmxConfigurationProvider);
     setPort(RANDOM_PORT);
+    setHealthStatusCodes();
+    setHealthTimeout(HEALTH_TIMEOUT_DEFAULT);
   }
 
   @Override
@@ -53,6 +108,97 @@ public class DefaultWebBundleConfiguration<T extends WebBundleConfiguration>
     return self();
   }
 
+  /**
+   * @since 1.12
+   */
+  @Override
+  public String getHealthPath() {
+    return healthPath;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setHealthPath(final String path) {
+    this.healthPath = Strings.emptyToNull(path);
+    return self();
+  }
+
+  /**
+   * Sets health path. If injected will use the value bounded to {@link #HEALTH_PATH}, defaulting to none.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureHealthPath(final @Named("${" + HEALTH_PATH + ":-}") String path) {
+    setHealthPath(path);
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public Set<Integer> getHealthStatusCodes() {
+    return healthStatusCodes;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setHealthStatusCodes(final Integer... statusCodes) {
+    this.healthStatusCodes = statusCodes == null
+        ? Collections.<Integer>emptySet()
+        : Collections.unmodifiableSet(Sets.newLinkedHashSet(Arrays.asList(statusCodes)));
+    return self();
+  }
+
+  /**
+   * Sets health status codes. If injected will use the comma separated value bounded to
+   * {@link #HEALTH_STATUS_CODES}, defaulting to none.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureHealthStatusCodes(final @Named("${" + HEALTH_STATUS_CODES + ":-}") String statusCodes) {
+    final List<Integer> codes = Lists.newArrayList();
+    for (String code : Splitter.on(',').trimResults().omitEmptyStrings().split(statusCodes)) {
+      codes.add(Integer.valueOf(code));
+    }
+    setHealthStatusCodes(codes.toArray(new Integer[codes.size()]));
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public int getHealthTimeout() {
+    return healthTimeout;
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public T setHealthTimeout(final int timeout) {
+    this.healthTimeout = timeout;
+    return self();
+  }
+
+  /**
+   * Sets health probe timeout. If injected will use the value bounded to {@link #HEALTH_TIMEOUT} with a default of
+   * {@link #HEALTH_TIMEOUT_DEFAULT}.
+   *
+   * @since 1.12
+   */
+  @Inject
+  protected void configureHealthTimeout(
+      final @Named("${" + HEALTH_TIMEOUT + ":-" + HEALTH_TIMEOUT_DEFAULT + "}") Integer timeout)
+  {
+    setHealthTimeout(timeout);
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder();
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.sonatype.sisu.goodies.common.Time;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+
+/**
+ * Readiness probe of Dropwizard admin {@code healthcheck} endpoint. Ready only when endpoint responds with 200 OK and
+ * all health checks are healthy.
+ *
+ * @since 1.12
+ */
+class HealthCheckProbe
+    extends HttpProbe
+{
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * @param url     health check url
+   * @param timeout connect and read timeout
+   */
+  HealthCheckProbe(final URL url, final Time timeout) {
+    super(url, timeout, Collections.singleton(200));
+  }
+
+  @Override
+  protected void checkResponse(final int status, final byte[] body)
+      throws IOException
+  {
+    final List<String> unhealthy = Lists.newArrayList();
+    try {
+      final JsonNode checks = MAPPER.readTree(body);
+      if (checks != null && checks.isObject()) {
+        final Iterator<Map.Entry<String, JsonNode>> it = checks.fields();
+        while (it.hasNext()) {
+          final Map.Entry<String, JsonNode> check = it.next();
+          if (!check.getValue().path("healthy").asBoolean(false)) {
+            unhealthy.add(check.getKey());
+          }
+        }
+      }
+    }
+    catch (IOException e) {
+      // not a health checks document, rely on status
+    }
+    if (!unhealthy.isEmpty()) {
+      throw new IOException(getUrl() + " reported unhealthy checks " + unhealthy);
+    }
+    super.checkResponse(status, body);
+  }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.sisu.goodies.common.Time;
+
+import com.google.common.collect.ImmutableSet;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Readiness probe that sends a GET request to an url and checks the response status code, or, when no status codes are
+ * expected, only checks that a connection to the url can be established (application is listening), whatever it would
+ * respond (e.g. a 503 while still deploying counts as ready).
+ * <p/>
+ * Connect and read are bounded by a timeout. Response body is consumed, so the underlying connection is kept alive
+ * and reused by next probe. The time between probe creation and first successful response is recorded.
+ *
+ * @since 1.12
+ */
+public class HttpProbe
+    implements ReadinessScheduler.Probe
+{
+
+  /**
+   * Maximum response body size that is read (consumed in order to reuse the connection).
+   */
+  private static final int MAX_READ_BYTES = 64 * 1024;
+
+  private final URL url;
+
+  private final int timeout;
+
+  private final Set<Integer> expectedStatusCodes;
+
+  private final long created;
+
+  private volatile Time timeToFirstSuccess;
+
+  /**
+   * @param url                 url to be probed
+   * @param timeout             connect and read timeout
+   * @param expectedStatusCodes status codes considered as success. If empty (or null) no request is sent, probe only
+   *                            checks that a connection can be established
+   */
+  public HttpProbe(final URL url, final Time timeout, final Collection<Integer> expectedStatusCodes) {
+    this.url = checkNotNull(url);
+    checkArgument(checkNotNull(timeout).toMillis() > 0, "Timeout must be greater than 0");
+    this.timeout = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+    this.expectedStatusCodes = expectedStatusCodes == null
+        ? Collections.<Integer>emptySet()
+        : ImmutableSet.copyOf(expectedStatusCodes);
+    this.created = System.nanoTime();
+  }
+
+  /**
+   * @return true if url responded with an expected status code (or connection could be established, if no status
+   *         codes are expected)
+   * @throws IOException if url could not be accessed or responded with an unexpected status code
+   */
+  @Override
+  public boolean isReady()
+      throws IOException
+  {
+    final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setConnectTimeout(timeout);
+    connection.setReadTimeout(timeout);
+    connection.setUseCaches(false);
+    connection.setInstanceFollowRedirects(false);
+    if (expectedStatusCodes.isEmpty()) {
+      // connect only, the application is alive if it accepts connections
+      connection.connect();
+      connection.disconnect();
+    }
+    else {
+      final int status = connection.getResponseCode();
+      checkResponse(status, readBody(connection, status));
+    }
+    if (timeToFirstSuccess == null) {
+      timeToFirstSuccess = Time.millis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - created));
+    }
+    return true;
+  }
+
+  /**
+   * @return time between probe creation and first successful response, null if there was no successful response yet
+   */
+  public Time getTimeToFirstSuccess() {
+    return timeToFirstSuccess;
+  }
+
+  /**
+   * @return probed url
+   */
+  public URL getUrl() {
+    return url;
+  }
+
+  /**
+   * Checks that response means readiness. By default checks that status code is an expected one. Not called when no
+   * status codes are expected.
+   *
+   * @param status response status code
+   * @param body   response body (up to first 64k)
+   * @throws IOException if response does not mean readiness
+   */
+  protected void checkResponse(final int status, final byte[] body)
+      throws IOException
+  {
+    if (!expectedStatusCodes.contains(status)) {
+      throw new IOException(url + " responded with unexpected status " + status);
+    }
+  }
+
+  /**
+   * Consumes response body, so connection can be reused. Connection is closed if body is too large.
+   *
+   * @return response body, up to {@link #MAX_READ_BYTES}
+   */
+  private static byte[] readBody(final HttpURLConnection connection, final int status)
+      throws IOException
+  {
+    final InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    if (in == null) {
+      return body.toByteArray();
+    }
+    try {
+      final byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        body.write(buffer, 0, read);
+        if (body.size() > MAX_READ_BYTES) {
+          connection.disconnect();
+          break;
+        }
+      }
+    }
+    finally {
+      in.close();
+    }
+    return body.toByteArray();
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+/**
+ * JMX view of the durations of a lifecycle phase, for a bundle type, as aggregated by {@link LifecycleStatistics}.
+ * Registered as {@code org.sonatype.sisu.bl:type=LifecycleStatistics,bundle=<bundle type>,phase=<phase>}.
+ *
+ * @since 1.12
+ */
+public interface LifecycleHistogramMXBean
+{
+
+  /**
+   * @return number of successful executions of the phase
+   */
+  long getCount();
+
+  /**
+   * @return number of failed executions of the phase (not included in percentiles)
+   */
+  long getFailures();
+
+  /**
+   * @return median duration in milliseconds
+   */
+  double getP50Millis();
+
+  /**
+   * @return 90th percentile duration in milliseconds
+   */
+  double getP90Millis();
+
+  /**
+   * @return 99th percentile duration in milliseconds
+   */
+  double getP99Millis();
+
+  /**
+   * @return maximum duration in milliseconds
+   */
+  double getMaxMillis();
+
+}
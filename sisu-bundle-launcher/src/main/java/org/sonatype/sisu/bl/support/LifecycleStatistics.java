@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Aggregates durations of bundle lifecycle phases (across all bundles in the process), per bundle type and phase, as
+ * histograms from which p50/p90/p99/max are computed.
+ * <p/>
+ * Histograms use log-linear buckets (HDR style) so recording is lock free and constant time, with a relative error of
+ * less than 2%. Aggregated values are available as JMX MBeans (see {@link LifecycleHistogramMXBean}) and, optionally,
+ * over HTTP in Prometheus text format (see {@link #startHttpEndpoint(InetSocketAddress)}).
+ * <p/>
+ * Shared instance ({@link #getDefault()}) starts the HTTP endpoint on localhost if system property
+ * {@value #PROMETHEUS_PORT} is set to a port (0 for a random one).
+ *
+ * @since 1.12
+ */
+public class LifecycleStatistics
+    extends ComponentSupport
+{
+
+  /**
+   * System property holding the port on which shared instance serves Prometheus text format.
+   */
+  public static final String PROMETHEUS_PORT = "LifecycleStatistics.prometheusPort";
+
+  /**
+   * Domain of registered MBeans.
+   */
+  public static final String JMX_DOMAIN = "org.sonatype.sisu.bl";
+
+  /**
+   * Name of exported Prometheus metrics.
+   */
+  public static final String METRIC_NAME = "sisu_bundle_lifecycle_seconds";
+
+  /**
+   * Histograms by bundle type and phase. Sorted, so export is stable.
+   */
+  private final ConcurrentMap<Key, Histogram> histograms;
+
+  private MBeanServer mBeanServer;
+
+  private HttpServer httpServer;
+
+  public LifecycleStatistics() {
+    histograms = new ConcurrentSkipListMap<Key, Histogram>();
+  }
+
+  /**
+   * Returns statistics shared by all bundles in the process, registered with platform MBean server.
+   *
+   * @return shared statistics. Never null.
+   */
+  public static LifecycleStatistics getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Records duration of a lifecycle phase.
+   *
+   * @param bundleType type of bundle (e.g. "jetty")
+   * @param phase      lifecycle phase (e.g. "start")
+   * @param nanos      phase duration in nanoseconds
+   * @param success    true if phase succeeded. Only successful phases are included in percentiles.
+   */
+  public void record(final String bundleType, final String phase, final long nanos, final boolean success) {
+    final Histogram histogram = histogram(new Key(checkNotNull(bundleType), checkNotNull(phase)));
+    if (success) {
+      histogram.record(TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos)));
+    }
+    else {
+      histogram.failures.incrementAndGet();
+    }
+  }
+
+  /**
+   * @param bundleType type of bundle
+   * @param phase      lifecycle phase
+   * @return histogram of durations, null if nothing was recorded for bundle type/phase
+   */
+  public LifecycleHistogramMXBean getHistogram(final String bundleType, final String phase) {
+    return histograms.get(new Key(bundleType, phase));
+  }
+
+  /**
+   * Registers one MBean per histogram (including the ones created later) with specified server.
+   *
+   * @param server MBean server to register with
+   */
+  public synchronized void registerMBeans(final MBeanServer server) {
+    checkState(mBeanServer == null, "Already registered");
+    mBeanServer = checkNotNull(server);
+    for (Map.Entry<Key, Histogram> entry : histograms.entrySet()) {
+      register(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Unregisters MBeans registered via {@link #registerMBeans(MBeanServer)}, if any.
+   */
+  public synchronized void unregisterMBeans() {
+    if (mBeanServer != null) {
+      for (Key key : histograms.keySet()) {
+        try {
+          mBeanServer.unregisterMBean(key.objectName());
+        }
+        catch (Exception e) {
+          log.debug("Could not unregister MBean for {}", key, e);
+        }
+      }
+      mBeanServer = null;
+    }
+  }
+
+  /**
+   * Exports aggregated durations in Prometheus text format, as a summary with quantiles 0.5, 0.9, 0.99 and 1 (max),
+   * labeled with {@code bundle} and {@code phase}, plus a {@code _failures_total} counter.
+   *
+   * @return statistics in Prometheus text format (version 0.0.4)
+   */
+  public String toPrometheusText() {
+    final StringBuilder text = new StringBuilder();
+    text.append("# HELP ").append(METRIC_NAME).append(" Duration of bundle lifecycle phases.\n");
+    text.append("# TYPE ").append(METRIC_NAME).append(" summary\n");
+    for (Map.Entry<Key, Histogram> entry : histograms.entrySet()) {
+      final String labels = entry.getKey().labels();
+      final Histogram histogram = entry.getValue();
+      sample(text, METRIC_NAME, labels + ",quantile=\"0.5\"", histogram.getP50Millis() / 1000);
+      sample(text, METRIC_NAME, labels + ",quantile=\"0.9\"", histogram.getP90Millis() / 1000);
+      sample(text, METRIC_NAME, labels + ",quantile=\"0.99\"", histogram.getP99Millis() / 1000);
+      sample(text, METRIC_NAME, labels + ",quantile=\"1\"", histogram.getMaxMillis() / 1000);
+      sample(text, METRIC_NAME + "_sum", labels, histogram.sum.get() / 1000000.0);
+      sample(text, METRIC_NAME + "_count", labels, histogram.getCount());
+    }
+    text.append("# HELP ").append(METRIC_NAME).append("_failures_total Number of failed bundle lifecycle phases.\n");
+    text.append("# TYPE ").append(METRIC_NAME).append("_failures_total counter\n");
+    for (Map.Entry<Key, Histogram> entry : histograms.entrySet()) {
+      sample(text, METRIC_NAME + "_failures_total", entry.getKey().labels(), entry.getValue().getFailures());
+    }
+    return text.toString();
+  }
+
+  /**
+   * Starts serving {@link #toPrometheusText()} over HTTP, on any path (conventionally {@code /metrics}).
+   *
+   * @param address address to bind to
+   * @return bound address (actual port if a random one was requested)
+   * @throws IOException if server could not be bound
+   */
+  public synchronized InetSocketAddress startHttpEndpoint(final InetSocketAddress address)
+      throws IOException
+  {
+    checkState(httpServer == null, "Already started");
+    final HttpServer server = HttpServer.create(checkNotNull(address), 0);
+    server.createContext("/", new HttpHandler()
+    {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        try {
+          final byte[] body = toPrometheusText().getBytes(Charsets.UTF_8);
+          exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+          exchange.sendResponseHeaders(200, body.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+          }
+        }
+        finally {
+          exchange.close();
+        }
+      }
+    });
+    // dispatcher thread inherits daemon status of the thread starting the server, and should not keep the jvm alive
+    final Thread starter = new Thread("bundle-statistics-http")
+    {
+      @Override
+      public void run() {
+        server.start();
+      }
+    };
+    starter.setDaemon(true);
+    starter.start();
+    try {
+      starter.join();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    httpServer = server;
+    log.info("Serving bundle lifecycle statistics on http://{}:{}/metrics",
+        server.getAddress().getHostString(), server.getAddress().getPort());
+    return server.getAddress();
+  }
+
+  /**
+   * Stops serving over HTTP, if started.
+   */
+  public synchronized void stopHttpEndpoint() {
+    if (httpServer != null) {
+      httpServer.stop(0);
+      httpServer = null;
+    }
+  }
+
+  private Histogram histogram(final Key key) {
+    Histogram histogram = histograms.get(key);
+    if (histogram == null) {
+      final Histogram created = new Histogram();
+      histogram = histograms.putIfAbsent(key, created);
+      if (histogram == null) {
+        histogram = created;
+        synchronized (this) {
+          if (mBeanServer != null) {
+            register(key, histogram);
+          }
+        }
+      }
+    }
+    return histogram;
+  }
+
+  private void register(final Key key, final Histogram histogram) {
+    try {
+      mBeanServer.registerMBean(new StandardMBean(histogram, LifecycleHistogramMXBean.class, true), key.objectName());
+    }
+    catch (Exception e) {
+      log.warn("Could not register MBean for {}: {}", key, e.toString());
+    }
+  }
+
+  private static void sample(final StringBuilder text, final String name, final String labels, final double value) {
+    text.append(name).append('{').append(labels).append("} ");
+    if (value == Math.rint(value) && !Double.isInfinite(value)) {
+      text.append((long) value);
+    }
+    else {
+      text.append(String.format(Locale.ENGLISH, "%.6f", value));
+    }
+    text.append('\n');
+  }
+
+  private static class Key
+      implements Comparable<Key>
+  {
+
+    private final String bundleType;
+
+    private final String phase;
+
+    private Key(final String bundleType, final String phase) {
+      this.bundleType = bundleType;
+      this.phase = phase;
+    }
+
+    private ObjectName objectName() throws Exception {
+      return new ObjectName(
+          JMX_DOMAIN + ":type=LifecycleStatistics"
+              + ",bundle=" + ObjectName.quote(bundleType)
+              + ",phase=" + ObjectName.quote(phase)
+      );
+    }
+
+    private String labels() {
+      return "bundle=\"" + escape(bundleType) + "\",phase=\"" + escape(phase) + "\"";
+    }
+
+    private static String escape(final String value) {
+      return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public int compareTo(final Key that) {
+      final int result = bundleType.compareTo(that.bundleType);
+      return result != 0 ? result : phase.compareTo(that.phase);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key that = (Key) o;
+      return bundleType.equals(that.bundleType) && phase.equals(that.phase);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * bundleType.hashCode() + phase.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return bundleType + "/" + phase;
+    }
+
+  }
+
+  /**
+   * Histogram of durations in microseconds. Values below {@link #LINEAR} have their own bucket, above that each power
+   * of two range is split in {@link #SUB_BUCKETS} buckets.
+   */
+  static class Histogram
+      implements LifecycleHistogramMXBean
+  {
+
+    static final int LINEAR = 128;
+
+    static final int SUB_BUCKETS = 64;
+
+    private static final int BUCKETS = LINEAR + 56 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    void record(final long micros) {
+      counts.incrementAndGet(index(micros));
+      count.incrementAndGet();
+      sum.addAndGet(micros);
+      long current;
+      while (micros > (current = max.get())) {
+        if (max.compareAndSet(current, micros)) {
+          break;
+        }
+      }
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return highest value (in microseconds) equivalent to the value at quantile, capped at max. 0 if empty.
+     */
+    long valueAt(final double quantile) {
+      checkArgument(quantile >= 0 && quantile <= 1, "Quantile must be between 0 and 1");
+      final long[] snapshot = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        snapshot[i] = counts.get(i);
+        total += snapshot[i];
+      }
+      if (total == 0) {
+        return 0;
+      }
+      final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += snapshot[i];
+        if (seen >= rank) {
+          return Math.min(highestEquivalent(i), max.get());
+        }
+      }
+      return max.get();
+    }
+
+    static int index(final long value) {
+      if (value < LINEAR) {
+        return (int) value;
+      }
+      final int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+      return LINEAR + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestEquivalent(final int index) {
+      if (index < LINEAR) {
+        return index;
+      }
+      final int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+      final long mantissa = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+      return ((mantissa + 1) << shift) - 1;
+    }
+
+    @Override
+    public long getCount() {
+      return count.get();
+    }
+
+    @Override
+    public long getFailures() {
+      return failures.get();
+    }
+
+    @Override
+    public double getP50Millis() {
+      return valueAt(0.5) / 1000.0;
+    }
+
+    @Override
+    public double getP90Millis() {
+      return valueAt(0.9) / 1000.0;
+    }
+
+    @Override
+    public double getP99Millis() {
+      return valueAt(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMillis() {
+      return max.get() / 1000.0;
+    }
+
+  }
+
+  private static class DefaultHolder
+  {
+
+    static final LifecycleStatistics INSTANCE = create();
+
+    private static LifecycleStatistics create() {
+      final LifecycleStatistics statistics = new LifecycleStatistics();
+      statistics.registerMBeans(ManagementFactory.getPlatformMBeanServer());
+      final String port = Strings.emptyToNull(System.getProperty(PROMETHEUS_PORT));
+      if (port != null) {
+        try {
+          statistics.startHttpEndpoint(
+              new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port.trim()))
+          );
+        }
+        catch (Exception e) {
+          statistics.log.warn("Could not serve bundle lifecycle statistics on port {}: {}", port, e.toString());
+        }
+      }
+      return statistics;
+    }
+
+  }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Readiness probe that tails application log file(s) and matches each new line against a success and (optionally) a
+ * failure pattern.
+ * <p/>
+ * Log can be a file or a directory, case when all files in directory (including the ones created after the probe was
+ * created) are tailed. Content present when the probe is created is ignored, so probe should be created before
+ * application is started. Files are read incrementally, by remembering the position up to which each file was read.
+ * A file that shrinks (e.g. was recreated) is read again from the beginning.
+ *
+ * @since 1.12
+ */
+public class LogMarkerProbe
+    implements ReadinessScheduler.Probe
+{
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final File log;
+
+  private final Pattern successPattern;
+
+  private final Pattern failurePattern;
+
+  /**
+   * Tailed files, keyed by file.
+   * Never null.
+   */
+  private final Map<File, Tail> tails;
+
+  /**
+   * @param log            log file or directory containing log files
+   * @param successPattern pattern matching the line written when application finished booting
+   * @param failurePattern pattern matching a line written when application failed to boot. Can be null.
+   */
+  public LogMarkerProbe(final File log, final Pattern successPattern, final Pattern failurePattern) {
+    this.log = checkNotNull(log);
+    this.successPattern = checkNotNull(successPattern);
+    this.failurePattern = failurePattern;
+    this.tails = Maps.newHashMap();
+    for (File file : logFiles()) {
+      tails.put(file, new Tail(file, file.length()));
+    }
+  }
+
+  /**
+   * @return true if a line matching success pattern was logged since last probe
+   * @throws ReadinessScheduler.ProbeFailedException if a line matching failure pattern was logged since last probe
+   */
+  @Override
+  public synchronized boolean isReady()
+      throws ReadinessScheduler.ProbeFailedException, IOException
+  {
+    boolean ready = false;
+    for (File file : logFiles()) {
+      Tail tail = tails.get(file);
+      if (tail == null) {
+        tail = new Tail(file, 0);
+        tails.put(file, tail);
+      }
+      for (String line : tail.readLines()) {
+        if (failurePattern != null && failurePattern.matcher(line).find()) {
+          throw new ReadinessScheduler.ProbeFailedException("Failure logged in " + file + ": " + line);
+        }
+        if (successPattern.matcher(line).find()) {
+          ready = true;
+        }
+      }
+    }
+    return ready;
+  }
+
+  /**
+   * @return log files to be tailed, sorted by name
+   */
+  private File[] logFiles() {
+    if (log.isFile()) {
+      return new File[]{log};
+    }
+    final File[] files = log.listFiles();
+    if (files == null) {
+      return new File[0];
+    }
+    Arrays.sort(files);
+    return files;
+  }
+
+  private static class Tail
+  {
+
+    private final File file;
+
+    private final ByteArrayOutputStream partialLine;
+
+    private long position;
+
+    private Tail(final File file, final long position) {
+      this.file = file;
+      this.partialLine = new ByteArrayOutputStream();
+      this.position = position;
+    }
+
+    /**
+     * @return complete lines written since last read
+     */
+    private String[] readLines()
+        throws IOException
+    {
+      if (!file.isFile()) {
+        return new String[0];
+      }
+      final ByteArrayOutputStream lines = new ByteArrayOutputStream();
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        if (channel.size() < position) {
+          position = 0;
+          partialLine.reset();
+        }
+        channel.position(position);
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        int read;
+        while ((read = channel.read(buffer)) > 0) {
+          position += read;
+          for (int i = 0; i < read; i++) {
+            final byte b = buffer.get(i);
+            partialLine.write(b);
+            if (b == '\n') {
+              partialLine.writeTo(lines);
+              partialLine.reset();
+            }
+          }
+          buffer.clear();
+        }
+      }
+      if (lines.size() == 0) {
+        return new String[0];
+      }
+      return new String(lines.toByteArray(), Charsets.UTF_8).split("\r?\n");
+    }
+
+  }
+
+}
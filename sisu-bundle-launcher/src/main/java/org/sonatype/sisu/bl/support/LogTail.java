@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.bl.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reads the last lines of an application log, e.g. to be included as context in boot failure messages. Only the end
+ * of the log is read, so reading is cheap whatever the log size.
+ *
+ * @since 1.12
+ */
+public class LogTail
+{
+
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  private final int maxLines;
+
+  private final int maxBytes;
+
+  /**
+   * @param maxLines maximum number of lines returned
+   * @param maxBytes maximum number of bytes read from end of log to find the lines
+   */
+  public LogTail(final int maxLines, final int maxBytes) {
+    checkArgument(maxLines > 0, "Maximum number of lines must be greater than 0");
+    checkArgument(maxBytes > 0, "Maximum number of bytes must be greater than 0");
+    this.maxLines = maxLines;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the last lines of a log.
+   *
+   * @param log log file or directory, case when most recently modified file in directory is used
+   * @return log path followed by its last lines (an incomplete first line is dropped), null if there is no log or log
+   *         could not be read
+   * @throws IOException if log could not be read
+   */
+  @Nullable
+  public String read(final @Nullable File log)
+      throws IOException
+  {
+    File file = log;
+    if (file != null && file.isDirectory()) {
+      File newest = null;
+      final File[] files = file.listFiles();
+      if (files != null) {
+        for (File candidate : files) {
+          if (candidate.isFile() && (newest == null || candidate.lastModified() > newest.lastModified())) {
+            newest = candidate;
+          }
+        }
+      }
+      file = newest;
+    }
+    if (file == null || !file.isFile()) {
+      return null;
+    }
+    try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+      final long start = Math.max(0, in.length() - maxBytes);
+      final byte[] bytes = new byte[(int) (in.length() - start)];
+      in.seek(start);
+      in.readFully(bytes);
+      final List<String> lines = Lists.newArrayList(new String(bytes, Charsets.UTF_8).split("\\r?\\n"));
+      if (start > 0) {
+        // first line is most probably incomplete
+        lines.remove(0);
+      }
+      return file + ":" + LINE_SEPARATOR + Joiner.on(LINE_SEPARATOR).join(
+          lines.subList(Math.max(0, lines.size() - maxLines), lines.size())
+      );
+    }
+  }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.sisu.bl.MetricsSample;
+import org.sonatype.sisu.goodies.common.Time;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.EvictingQueue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Samples Dropwizard admin {@code metrics} endpoint at a fixed interval, in background, collecting the numeric values
+ * as a time series. Only the latest samples are kept, so memory stays bounded whatever the bundle run duration.
+ *
+ * @since 1.12
+ */
+class MetricsScraper
+{
+
+  private static final Logger log = LoggerFactory.getLogger(MetricsScraper.class);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * Default maximum number of samples kept.
+   */
+  static final int MAX_SAMPLES_DEFAULT = 1024;
+
+  private final URL url;
+
+  private final Time interval;
+
+  private final int timeout;
+
+  /**
+   * Latest collected samples, in sampling order, oldest evicted when full. Guarded by itself.
+   * Never null.
+   */
+  private final EvictingQueue<MetricsSample> samples;
+
+  private ScheduledExecutorService executor;
+
+  /**
+   * @param url      metrics url
+   * @param interval interval between samples
+   * @param timeout  connect and read timeout
+   */
+  MetricsScraper(final URL url, final Time interval, final Time timeout) {
+    this(url, interval, timeout, MAX_SAMPLES_DEFAULT);
+  }
+
+  /**
+   * @param url        metrics url
+   * @param interval   interval between samples
+   * @param timeout    connect and read timeout
+   * @param maxSamples maximum number of samples kept
+   */
+  MetricsScraper(final URL url, final Time interval, final Time timeout, final int maxSamples) {
+    this.url = checkNotNull(url);
+    checkArgument(checkNotNull(interval).toMillis() > 0, "Interval must be greater than 0");
+    checkArgument(maxSamples > 0, "Max samples must be greater than 0");
+    this.interval = interval;
+    this.timeout = (int) Math.min(Integer.MAX_VALUE, checkNotNull(timeout).toMillis());
+    this.samples = EvictingQueue.create(maxSamples);
+  }
+
+  /**
+   * Starts sampling in background.
+   */
+  synchronized void start() {
+    checkState(executor == null, "Already started");
+    executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+    {
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "bundle-metrics-" + url.getPort());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    executor.scheduleAtFixedRate(new Runnable()
+    {
+      @Override
+      public void run() {
+        try {
+          final MetricsSample sample = sample();
+          synchronized (samples) {
+            samples.add(sample);
+          }
+        }
+        catch (Exception e) {
+          log.debug("Could not sample {}: {}", url, e.toString());
+        }
+      }
+    }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops sampling, if started.
+   *
+   * @return collected samples
+   */
+  synchronized List<MetricsSample> stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+      try {
+        // let an in progress sample complete, so samples do not change after stop
+        executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      executor = null;
+    }
+    return getSamples();
+  }
+
+  /**
+   * @return latest samples collected so far, in sampling order
+   */
+  List<MetricsSample> getSamples() {
+    synchronized (samples) {
+      return ImmutableList.copyOf(samples);
+    }
+  }
+
+  private MetricsSample sample()
+      throws IOException
+  {
+    final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setConnectTimeout(timeout);
+    connection.setReadTimeout(timeout);
+    connection.setUseCaches(false);
+    final long timestamp = System.currentTimeMillis();
+    final Map<String, Double> values = Maps.newTreeMap();
+    try (InputStream in = connection.getInputStream()) {
+      flatten(null, MAPPER.readTree(in), values);
+    }
+    return new Sample(timestamp, values);
+  }
+
+  /**
+   * Collects numeric values of a json node, keyed by their path.
+   */
+  private static void flatten(final String path, final JsonNode node, final Map<String, Double> values) {
+    if (node == null) {
+      return;
+    }
+    if (node.isNumber()) {
+      values.put(path, node.asDouble());
+    }
+    else if (node.isObject()) {
+      final Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+      while (it.hasNext()) {
+        final Map.Entry<String, JsonNode> field = it.next();
+        flatten(path == null ? field.getKey() : path + "." + field.getKey(), field.getValue(), values);
+      }
+    }
+  }
+
+  private static class Sample
+      implements MetricsSample
+  {
+
+    private final long timestamp;
+
+    private final Map<String, Double> values;
+
+    private Sample(final long timestamp, final Map<String, Double> values) {
+      this.timestamp = timestamp;
+      this.values = Collections.unmodifiableMap(values);
+    }
+
+    @Override
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    @Override
+    public Map<String, Double> getValues() {
+      return values;
+    }
+
+    @Override
+    public String toString() {
+      return timestamp + "=" + values;
+    }
+
+  }
+
+}
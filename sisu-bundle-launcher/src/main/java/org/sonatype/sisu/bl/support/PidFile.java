@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.bl.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Checks liveness of a process whose id was recorded in a file (e.g. by a startup script forking the application).
+ *
+ * @since 1.12
+ */
+public class PidFile
+{
+
+  private static final Logger log = LoggerFactory.getLogger(PidFile.class);
+
+  private PidFile() {
+    // utility
+  }
+
+  /**
+   * Checks that the process recorded in specified pid file is still running. A missing or unreadable pid file is
+   * tolerated (e.g. process did not record its pid yet), as then it is not known that process exited.
+   *
+   * @param pidFile file containing process id
+   * @throws ReadinessScheduler.ProbeFailedException if process exited
+   */
+  public static void checkAlive(final File pidFile)
+      throws ReadinessScheduler.ProbeFailedException
+  {
+    if (!checkNotNull(pidFile).isFile()) {
+      return;
+    }
+    final long pid;
+    try {
+      pid = Long.parseLong(Files.toString(pidFile, Charsets.US_ASCII).trim());
+    }
+    catch (IOException | NumberFormatException e) {
+      log.debug("Could not read pid from {}", pidFile, e);
+      return;
+    }
+    if (!isAlive(pid)) {
+      throw new ReadinessScheduler.ProbeFailedException("Process " + pid + " exited");
+    }
+  }
+
+  /**
+   * Checks if process with specified id is alive, using {@code ProcessHandle} when running on Java 9+ and
+   * {@code /proc} otherwise.
+   *
+   * @return false if process is known to have exited, true otherwise
+   */
+  static boolean isAlive(final long pid) {
+    try {
+      final Class<?> processHandle = Class.forName("java.lang.ProcessHandle");
+      final Optional<?> handle = (Optional<?>) processHandle.getMethod("of", long.class).invoke(null, pid);
+      return handle.isPresent() && (Boolean) processHandle.getMethod("isAlive").invoke(handle.get());
+    }
+    catch (ReflectiveOperationException e) {
+      final File proc = new File("/proc");
+      return !proc.isDirectory() || new File(proc, String.valueOf(pid)).exists();
+    }
+  }
+
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Fingerprint of the inputs used to prepare a bundle target directory, recorded per preparation stage.
+ * <p/>
+ * Inputs are described by value: files outside target directory by their content (or, for directories, by size and
+ * last modified time of contained files), collections/maps/arrays by their elements and any other object (e.g. file
+ * tasks used as overlays) by the values of its fields. Injected fields are ignored. If an input cannot be described
+ * deterministically, the stage fingerprint is {@code null}, meaning that the stage is never considered up to date.
+ *
+ * @since 1.12
+ */
+class PrepareFingerprint
+{
+
+  /**
+   * Name of file (in target directory) containing the fingerprint.
+   */
+  static final String FILE_NAME = ".bundle-fingerprint";
+
+  /**
+   * Checksums of already hashed files, keyed by path, size and (high resolution) last modified time.
+   */
+  private static final ConcurrentMap<String, HashCode> checksums = new ConcurrentHashMap<String, HashCode>();
+
+  /**
+   * Stage fingerprints, keyed by stage name.
+   * Never null.
+   */
+  private final Properties stages;
+
+  PrepareFingerprint() {
+    stages = new Properties();
+  }
+
+  /**
+   * Returns fingerprint of specified stage.
+   *
+   * @param stage stage name
+   * @return stage fingerprint, null if stage was not recorded
+   */
+  String get(final String stage) {
+    return stages.getProperty(stage);
+  }
+
+  /**
+   * Records fingerprint of specified stage.
+   *
+   * @param stage       stage name
+   * @param fingerprint stage fingerprint. If null, stage is removed
+   */
+  void put(final String stage, final String fingerprint) {
+    if (fingerprint == null) {
+      stages.remove(stage);
+    }
+    else {
+      stages.setProperty(stage, fingerprint);
+    }
+  }
+
+  /**
+   * Writes fingerprint into target directory.
+   *
+   * @param targetDirectory bundle target directory
+   */
+  void store(final File targetDirectory) {
+    OutputStream out = null;
+    try {
+      targetDirectory.mkdirs();
+      out = new FileOutputStream(new File(targetDirectory, FILE_NAME));
+      stages.store(out, null);
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Could not write bundle fingerprint to " + targetDirectory, e);
+    }
+    finally {
+      try {
+        Closeables.close(out, true);
+      }
+      catch (IOException ignore) {
+        // ignore
+      }
+    }
+  }
+
+  /**
+   * Reads fingerprint from target directory.
+   *
+   * @param targetDirectory bundle target directory
+   * @return fingerprint or null if target directory does not contain a (readable) fingerprint
+   */
+  static PrepareFingerprint load(final File targetDirectory) {
+    final File file = new File(targetDirectory, FILE_NAME);
+    if (!file.isFile()) {
+      return null;
+    }
+    final PrepareFingerprint fingerprint = new PrepareFingerprint();
+    InputStream in = null;
+    try {
+      in = new FileInputStream(file);
+      fingerprint.stages.load(in);
+      return fingerprint;
+    }
+    catch (IOException e) {
+      return null;
+    }
+    finally {
+      Closeables.closeQuietly(in);
+    }
+  }
+
+  /**
+   * Removes fingerprint from target directory, if present.
+   *
+   * @param targetDirectory bundle target directory
+   */
+  static void delete(final File targetDirectory) {
+    final File file = new File(targetDirectory, FILE_NAME);
+    if (file.exists() && !file.delete()) {
+      throw new RuntimeException("Could not delete bundle fingerprint " + file);
+    }
+  }
+
+  /**
+   * Calculates fingerprint of specified inputs.
+   *
+   * @param targetDirectory bundle target directory. Files in target directory are described by their relative path.
+   * @param inputs          inputs to be described
+   * @return fingerprint or null if any of the inputs cannot be described
+   */
+  static String calculate(final File targetDirectory, final Object... inputs) {
+    final Describer describer = new Describer(checkNotNull(targetDirectory).getAbsoluteFile());
+    try {
+      describer.describe(inputs);
+    }
+    catch (NotDescribable e) {
+      return null;
+    }
+    return describer.hasher.hash().toString();
+  }
+
+  private static class NotDescribable
+      extends Exception
+  {
+
+    NotDescribable(final Object value) {
+      super(value.getClass().getName());
+    }
+
+  }
+
+  private static class Describer
+  {
+
+    private final Hasher hasher;
+
+    private final String target;
+
+    private final Set<Object> visited;
+
+    Describer(final File targetDirectory) {
+      this.hasher = Hashing.sha1().newHasher();
+      this.target = targetDirectory.getPath();
+      this.visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    }
+
+    void describe(final Object value)
+        throws NotDescribable
+    {
+      if (value == null) {
+        put("null");
+      }
+      else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+          || value instanceof Character || value instanceof Enum || value instanceof URL || value instanceof URI) {
+        put(value.getClass().getName()).put(value.toString());
+      }
+      else if (value instanceof Class) {
+        put("class").put(((Class) value).getName());
+      }
+      else if (value instanceof File) {
+        describeFile((File) value);
+      }
+      else if (value instanceof Logger) {
+        put("logger");
+      }
+      else if (!visited.add(value)) {
+        put("visited");
+      }
+      else if (value instanceof Map) {
+        put("map");
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+          describe(entry.getKey());
+          describe(entry.getValue());
+        }
+      }
+      else if (value instanceof Iterable) {
+        put("iterable");
+        for (Object element : (Iterable<?>) value) {
+          describe(element);
+        }
+      }
+      else if (value.getClass().isArray()) {
+        put("array");
+        final int length = Array.getLength(value);
+        for (int i = 0; i < length; i++) {
+          describe(Array.get(value, i));
+        }
+      }
+      else {
+        describeFields(value);
+      }
+    }
+
+    private void describeFields(final Object value)
+        throws NotDescribable
+    {
+      final String className = value.getClass().getName();
+      if (className.startsWith("java.") || className.startsWith("javax.") || className.startsWith("sun.")) {
+        throw new NotDescribable(value);
+      }
+      put(className);
+      Class<?> clazz = value.getClass();
+      while (clazz != null && clazz != Object.class) {
+        final Field[] fields = clazz.getDeclaredFields();
+        Arrays.sort(fields, new Comparator<Field>()
+        {
+          @Override
+          public int compare(final Field field1, final Field field2) {
+            return field1.getName().compareTo(field2.getName());
+          }
+        });
+        for (Field field : fields) {
+          if (Modifier.isStatic(field.getModifiers()) || field.isAnnotationPresent(Inject.class)) {
+            continue;
+          }
+          try {
+            field.setAccessible(true);
+            put(field.getName());
+            describe(field.get(value));
+          }
+          catch (IllegalAccessException | RuntimeException e) {
+            throw new NotDescribable(value);
+          }
+        }
+        clazz = clazz.getSuperclass();
+      }
+    }
+
+    private void describeFile(final File file)
+        throws NotDescribable
+    {
+      final String path = file.getAbsoluteFile().getPath();
+      if (!file.isAbsolute()) {
+        put("path").put(file.getPath());
+      }
+      else if (path.equals(target) || path.startsWith(target + File.separator)) {
+        put("target").put(path.substring(target.length()));
+      }
+      else if (target.startsWith(path.endsWith(File.separator) ? path : path + File.separator)) {
+        put("path").put(path);
+      }
+      else if (file.isFile()) {
+        put("file").put(path).put(checksum(file).toString());
+      }
+      else if (file.isDirectory()) {
+        put("directory").put(path);
+        final List<File> files = Lists.newArrayList(Files.fileTreeTraverser().preOrderTraversal(file));
+        Collections.sort(files);
+        for (File member : files) {
+          put(member.getPath().substring(path.length()));
+          hasher.putLong(member.length()).putLong(member.lastModified());
+        }
+      }
+      else {
+        put("missing").put(path);
+      }
+    }
+
+    private Describer put(final String value) {
+      hasher.putString(value, Charsets.UTF_8).putByte((byte) 0);
+      return this;
+    }
+
+  }
+
+  /**
+   * Calculates (and remembers) the checksum of a file.
+   *
+   * @param file to calculate checksum for
+   * @return file checksum
+   */
+  private static HashCode checksum(final File file)
+      throws NotDescribable
+  {
+    HashCode checksum;
+    try {
+      final String key = file.getAbsolutePath() + "|" + file.length() + "|"
+          + java.nio.file.Files.getLastModifiedTime(file.toPath()).to(TimeUnit.NANOSECONDS);
+      checksum = checksums.get(key);
+      if (checksum == null) {
+        checksum = Files.hash(file, Hashing.sha1());
+        checksums.put(key, checksum);
+      }
+    }
+    catch (IOException e) {
+      throw new NotDescribable(file);
+    }
+    return checksum;
+  }
+
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.sisu.goodies.common.Time;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Stages used to prepare a bundle target directory, with declared dependencies between them.
+ * <p/>
+ * Stages whose dependencies were completed are run concurrently on a bounded number of threads. If a stage fails, no
+ * further stages are started and the failure is propagated once running stages completed. If run with a single thread,
+ * stages are run on calling thread, in registration order. If run while a {@link TimingSpan} is current, a child span
+ * is recorded for each stage.
+ *
+ * @since 1.12
+ */
+public class PreparePipeline
+{
+
+  /**
+   * Registered stages, in registration order.
+   * Never null.
+   */
+  private final Map<String, Stage> stages;
+
+  /**
+   * Time it took to run each stage, keyed by stage name.
+   * Never null.
+   */
+  private final Map<String, Time> times;
+
+  /**
+   * Span (current when pipeline was run) to record stage spans into. Can be null.
+   */
+  private volatile TimingSpan parentSpan;
+
+  public PreparePipeline() {
+    stages = Maps.newLinkedHashMap();
+    times = new ConcurrentHashMap<String, Time>();
+  }
+
+  /**
+   * Registers a stage.
+   *
+   * @param name      stage name (unique)
+   * @param task      stage work
+   * @param dependsOn names of (already registered) stages that must complete before this stage is run
+   * @return itself, for usage in fluent api
+   */
+  public PreparePipeline stage(final String name, final Runnable task, final String... dependsOn) {
+    checkNotNull(name);
+    checkNotNull(task);
+    checkArgument(!stages.containsKey(name), "Stage '%s' already registered", name);
+    for (String dependency : dependsOn) {
+      checkArgument(stages.containsKey(dependency), "Stage '%s' depends on unknown stage '%s'", name, dependency);
+    }
+    stages.put(name, new Stage(name, task, Arrays.asList(dependsOn)));
+    return this;
+  }
+
+  /**
+   * Registers a stage that depends on all already registered stages.
+   *
+   * @param name stage name (unique)
+   * @param task stage work
+   * @return itself, for usage in fluent api
+   */
+  public PreparePipeline stageAfterAll(final String name, final Runnable task) {
+    return stage(name, task, getStageNames().toArray(new String[stages.size()]));
+  }
+
+  /**
+   * @return names of registered stages, in registration order
+   */
+  public List<String> getStageNames() {
+    return Lists.newArrayList(stages.keySet());
+  }
+
+  /**
+   * @return time it took to run each completed stage, keyed by stage name, in registration order
+   */
+  public Map<String, Time> getTimes() {
+    final Map<String, Time> ordered = Maps.newLinkedHashMap();
+    for (String name : stages.keySet()) {
+      if (times.containsKey(name)) {
+        ordered.put(name, times.get(name));
+      }
+    }
+    return Collections.unmodifiableMap(ordered);
+  }
+
+  /**
+   * Runs all stages, waiting for them to complete.
+   *
+   * @param threads maximum number of stages to be run concurrently. If 1, stages are run on calling thread (keeping
+   *                its context, e.g. thread locals)
+   * @throws RuntimeException if any of the stages failed
+   */
+  public void run(final int threads) {
+    checkArgument(threads > 0, "Number of threads must be greater than 0");
+    if (stages.isEmpty()) {
+      return;
+    }
+    parentSpan = TimingSpan.current();
+    if (threads == 1) {
+      // stages can only depend on already registered stages, so registration order satisfies the dependencies
+      for (Stage stage : stages.values()) {
+        stage.call();
+      }
+      return;
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(threads, stages.size()), new StageThreadFactory()
+    );
+    try {
+      run(new ExecutorCompletionService<String>(executor));
+    }
+    finally {
+      terminate(executor);
+    }
+  }
+
+  /**
+   * Interrupts running stages and waits for them to finish, so no stage touches the bundle after pipeline returned
+   * (e.g. when preparation is interrupted). Interruption of calling thread is preserved.
+   */
+  private static void terminate(final ExecutorService executor) {
+    executor.shutdownNow();
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+          return;
+        }
+        catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void run(final ExecutorCompletionService<String> completionService) {
+    final Set<String> pending = Sets.newLinkedHashSet(stages.keySet());
+    final Set<String> completed = Sets.newHashSet();
+    Throwable failure = null;
+    int running = 0;
+    while (true) {
+      if (failure == null) {
+        for (String name : Lists.newArrayList(pending)) {
+          final Stage stage = stages.get(name);
+          if (completed.containsAll(stage.dependsOn)) {
+            pending.remove(name);
+            completionService.submit(stage);
+            running++;
+          }
+        }
+      }
+      if (running == 0) {
+        break;
+      }
+      try {
+        completed.add(completionService.take().get());
+      }
+      catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw Throwables.propagate(e);
+      }
+      running--;
+    }
+    if (failure != null) {
+      throw Throwables.propagate(failure);
+    }
+  }
+
+  private class Stage
+      implements Callable<String>
+  {
+
+    private final String name;
+
+    private final Runnable task;
+
+    private final List<String> dependsOn;
+
+    private Stage(final String name, final Runnable task, final List<String> dependsOn) {
+      this.name = name;
+      this.task = task;
+      this.dependsOn = dependsOn;
+    }
+
+    @Override
+    public String call() {
+      final Stopwatch stopwatch = Stopwatch.createStarted();
+      final TimingSpan span = parentSpan == null ? null : parentSpan.child(name);
+      try {
+        task.run();
+      }
+      finally {
+        times.put(name, Time.millis(stopwatch.elapsed(TimeUnit.MILLISECONDS)));
+        if (span != null) {
+          span.close();
+        }
+      }
+      return name;
+    }
+
+  }
+
+  private static class StageThreadFactory
+      implements ThreadFactory
+  {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      final Thread thread = new Thread(runnable, "bundle-prepare-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
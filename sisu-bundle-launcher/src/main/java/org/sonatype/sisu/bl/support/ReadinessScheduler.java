@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+import org.sonatype.sisu.goodies.common.Time;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Checks readiness (e.g. application finished booting) of many bundles, scheduling their probes on a small number of
+ * threads.
+ * <p/>
+ * Probes themselves are run by a separate pool that grows as needed, so a probe blocked in I/O does not delay checks of
+ * other bundles. A check never has more than one probe running, so there are at most as many probe threads as checks
+ * running concurrently. A check times out even if its probe is blocked.
+ * <p/>
+ * Probes are run with an adaptive interval: first probe is run immediately, then the interval between probes starts
+ * at {@link #INITIAL_INTERVAL} and doubles after each unsuccessful probe up to {@link #MAX_INTERVAL}. The future of a
+ * check is completed as soon as a probe succeeds.
+ *
+ * @since 1.12
+ */
+@Named
+@Singleton
+public class ReadinessScheduler
+    extends ComponentSupport
+{
+
+  /**
+   * Interval between first and second probe.
+   */
+  public static final Time INITIAL_INTERVAL = Time.millis(50);
+
+  /**
+   * Maximum interval between probes.
+   */
+  public static final Time MAX_INTERVAL = Time.seconds(1);
+
+  /**
+   * Default number of threads used to schedule probes.
+   */
+  public static final int THREADS_DEFAULT = 2;
+
+  /**
+   * Schedules probes and timeouts.
+   */
+  private final ScheduledExecutorService executor;
+
+  /**
+   * Runs probes.
+   */
+  private final ExecutorService probes;
+
+  @Inject
+  public ReadinessScheduler() {
+    this(THREADS_DEFAULT);
+  }
+
+  /**
+   * @param threads number of threads used to schedule probes
+   */
+  public ReadinessScheduler(final int threads) {
+    checkArgument(threads > 0, "Number of threads must be greater than 0");
+    executor = Executors.newScheduledThreadPool(threads, new DaemonThreadFactory("bundle-readiness-"));
+    probes = Executors.newCachedThreadPool(new DaemonThreadFactory("bundle-readiness-probe-"));
+  }
+
+  /**
+   * Starts checking readiness using specified probe.
+   *
+   * @param probe   probe used to check readiness
+   * @param timeout after which check fails (future is completed exceptionally with a {@link TimeoutException})
+   * @return check. Never null.
+   */
+  public Check schedule(final Probe probe, final Time timeout) {
+    final Check check = new Check(checkNotNull(probe), checkNotNull(timeout));
+    probes.execute(check);
+    executor.schedule(new Runnable()
+    {
+      @Override
+      public void run() {
+        check.timeout();
+      }
+    }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    return check;
+  }
+
+  /**
+   * Returns a scheduler shared by bundles not configured with a scheduler.
+   *
+   * @return shared scheduler. Never null.
+   */
+  public static ReadinessScheduler getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * A readiness probe.
+   *
+   * @since 1.12
+   */
+  public static interface Probe
+  {
+
+    /**
+     * @return true if ready
+     * @throws ProbeFailedException if it is known that readiness will never be reached. Check fails immediately.
+     * @throws Exception            if probing failed. Considered as not ready.
+     */
+    boolean isReady()
+        throws Exception;
+
+  }
+
+  /**
+   * Thrown by a {@link Probe} when it is known that readiness will never be reached (e.g. application failed to boot).
+   *
+   * @since 1.12
+   */
+  public static class ProbeFailedException
+      extends Exception
+  {
+
+    public ProbeFailedException(final String message) {
+      super(message);
+    }
+
+    public ProbeFailedException(final String message, final Throwable cause) {
+      super(message, cause);
+    }
+
+  }
+
+  /**
+   * A scheduled readiness check, tracking the number of probe attempts and their latencies.
+   *
+   * @since 1.12
+   */
+  public class Check
+      implements Runnable
+  {
+
+    private final Probe probe;
+
+    private final Time timeout;
+
+    private final long start;
+
+    private final CompletableFuture<Check> future;
+
+    private final List<Time> latencies;
+
+    private long interval;
+
+    private volatile Exception lastFailure;
+
+    private Check(final Probe probe, final Time timeout) {
+      this.probe = probe;
+      this.timeout = timeout;
+      this.start = System.nanoTime();
+      this.future = new CompletableFuture<Check>();
+      this.latencies = new CopyOnWriteArrayList<Time>();
+      this.interval = INITIAL_INTERVAL.toMillis();
+    }
+
+    /**
+     * @return future completed when probe succeeded or exceptionally when timeout elapsed / probe failed with a
+     *         {@link ProbeFailedException}. Cancelling the future stops the check.
+     */
+    public CompletableFuture<Check> getFuture() {
+      return future;
+    }
+
+    /**
+     * @return number of probe attempts so far
+     */
+    public int getAttempts() {
+      return latencies.size();
+    }
+
+    /**
+     * @return latency of each probe attempt so far, in attempt order
+     */
+    public List<Time> getLatencies() {
+      return Collections.unmodifiableList(latencies);
+    }
+
+    /**
+     * @return failure of last probe attempt, if it failed with an exception, null otherwise
+     */
+    public Exception getLastFailure() {
+      return lastFailure;
+    }
+
+    /**
+     * Runs next probe, using probe pool.
+     */
+    private final Runnable next = new Runnable()
+    {
+      @Override
+      public void run() {
+        probes.execute(Check.this);
+      }
+    };
+
+    @Override
+    public void run() {
+      if (future.isDone()) {
+        return;
+      }
+      boolean ready = false;
+      final long probeStart = System.nanoTime();
+      try {
+        ready = probe.isReady();
+        lastFailure = null;
+      }
+      catch (ProbeFailedException e) {
+        latencies.add(Time.millis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - probeStart)));
+        lastFailure = e;
+        future.completeExceptionally(e);
+        return;
+      }
+      catch (Exception e) {
+        log.debug("Readiness probe failed: {}", e.toString());
+        lastFailure = e;
+      }
+      catch (Throwable e) {
+        // e.g. an error, probing further is unlikely to succeed
+        latencies.add(Time.millis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - probeStart)));
+        log.warn("Readiness probe failed", e);
+        future.completeExceptionally(e);
+        return;
+      }
+      final long now = System.nanoTime();
+      latencies.add(Time.millis(TimeUnit.NANOSECONDS.toMillis(now - probeStart)));
+      if (ready) {
+        future.complete(this);
+        return;
+      }
+      final long remaining = timeout.toMillis() - TimeUnit.NANOSECONDS.toMillis(now - start);
+      if (remaining <= 0) {
+        timeout();
+        return;
+      }
+      if (!future.isDone()) {
+        executor.schedule(next, Math.min(interval, remaining), TimeUnit.MILLISECONDS);
+        interval = Math.min(interval * 2, MAX_INTERVAL.toMillis());
+      }
+    }
+
+    /**
+     * Fails the check with a {@link TimeoutException}, if not already completed.
+     */
+    private void timeout() {
+      if (!future.isDone()) {
+        final TimeoutException timeoutException = new TimeoutException(
+            "Not ready after " + timeout + " (" + getAttempts() + " attempts)"
+        );
+        timeoutException.initCause(lastFailure);
+        future.completeExceptionally(timeoutException);
+      }
+    }
+
+  }
+
+  private static class DaemonThreadFactory
+      implements ThreadFactory
+  {
+
+    private final String prefix;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private DaemonThreadFactory(final String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      final Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+  private static class DefaultHolder
+  {
+
+    static final ReadinessScheduler INSTANCE = new ReadinessScheduler();
+
+  }
+
+}
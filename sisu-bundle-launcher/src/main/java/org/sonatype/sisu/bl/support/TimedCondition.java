@@ -41,7 +41,8 @@ public abstract class TimedCondition
    * @param delay    before first check of condition
    * @param timeout  after which condition is considered unsatisfied
    * @param interval between checks that condition is satisfied
-   * @return true if condition was satisfied before the specified timeout
+   * @return true if condition was satisfied before the specified timeout, false if not satisfied or waiting thread was
+   *         interrupted (case when thread interrupted status is kept)
    */
   public boolean await(final Time delay, final Time timeout, final Time interval) {
     checkNotNull(delay);
@@ -50,7 +51,7 @@ public abstract class TimedCondition
 
     sleep(delay);
     long start = System.currentTimeMillis();
-    while (System.currentTimeMillis() < start + timeout.toMillis()) {
+    while (System.currentTimeMillis() < start + timeout.toMillis() && !Thread.currentThread().isInterrupted()) {
       try {
         if (isSatisfied()) {
           return true;
@@ -95,8 +96,9 @@ public abstract class TimedCondition
       try {
         Thread.sleep(delay.toMillis());
       }
-      catch (InterruptedException ignore) {
-        // ignore
+      catch (InterruptedException e) {
+        // keep interrupted status, so waiting is aborted
+        Thread.currentThread().interrupt();
       }
     }
   }
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.sisu.bl.Span;
+import org.sonatype.sisu.goodies.common.Time;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link Span} being recorded.
+ * <p/>
+ * A started span becomes the current span of the starting thread, until closed, so spans started (by same thread)
+ * meanwhile become its children. Work handed to other threads should start its spans as explicit children
+ * ({@link #child(String)}) of a span captured via {@link #current()}. Usage:
+ * <pre>
+ * try (TimingSpan span = TimingSpan.start("copyServerXml")) {
+ *   ...
+ *   span.add("bytes", size);
+ * }
+ * </pre>
+ *
+ * @since 1.12
+ */
+public class TimingSpan
+    implements Span, AutoCloseable
+{
+
+  private static final ThreadLocal<TimingSpan> CURRENT = new ThreadLocal<TimingSpan>();
+
+  private final String name;
+
+  private final long start;
+
+  /**
+   * Attributes, in recording order. Guarded by itself.
+   */
+  private final Map<String, Long> attributes;
+
+  /**
+   * Files whose size was not yet added to attributes. Guarded by attributes.
+   */
+  private final List<File> unsized;
+
+  private final List<Span> children;
+
+  /**
+   * Span that was current on starting thread when this span was started. Restored when this span is closed.
+   */
+  private TimingSpan previous;
+
+  /**
+   * Duration in nanoseconds, -1 while not closed.
+   */
+  private volatile long duration;
+
+  private TimingSpan(final String name) {
+    this.name = checkNotNull(name);
+    this.start = System.nanoTime();
+    this.attributes = Maps.newLinkedHashMap();
+    this.unsized = Lists.newArrayList();
+    this.children = new CopyOnWriteArrayList<Span>();
+    this.duration = -1;
+  }
+
+  /**
+   * Returns the current span of calling thread.
+   *
+   * @return current span, null if there is no span in progress
+   */
+  public static TimingSpan current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Starts a span as a child of calling thread current span (if any) and makes it current.
+   *
+   * @param name span name
+   * @return started span. Never null.
+   */
+  public static TimingSpan start(final String name) {
+    final TimingSpan current = current();
+    if (current != null) {
+      return current.child(name);
+    }
+    return root(name);
+  }
+
+  /**
+   * Starts a root span (regardless of calling thread current span) and makes it current.
+   *
+   * @param name span name
+   * @return started span. Never null.
+   */
+  public static TimingSpan root(final String name) {
+    return new TimingSpan(name).activate();
+  }
+
+  /**
+   * Creates an already closed span, containing specified spans, with a duration equal to the sum of their durations.
+   *
+   * @param name     span name
+   * @param children spans to be contained
+   * @return created span. Never null.
+   */
+  public static TimingSpan of(final String name, final List<? extends Span> children) {
+    final TimingSpan span = new TimingSpan(name);
+    long duration = 0;
+    for (Span child : children) {
+      span.children.add(child);
+      duration += TimeUnit.MILLISECONDS.toNanos(child.getDuration().toMillis());
+    }
+    span.duration = duration;
+    return span;
+  }
+
+  /**
+   * Starts a child span and makes it current for calling thread.
+   *
+   * @param name child span name
+   * @return started child span. Never null.
+   */
+  public TimingSpan child(final String name) {
+    final TimingSpan child = new TimingSpan(name);
+    children.add(child);
+    return child.activate();
+  }
+
+  /**
+   * Sets value of an attribute.
+   *
+   * @param attribute attribute name
+   * @param value     attribute value
+   * @return itself, for usage in fluent api
+   */
+  public TimingSpan set(final String attribute, final long value) {
+    synchronized (attributes) {
+      attributes.put(checkNotNull(attribute), value);
+    }
+    return this;
+  }
+
+  /**
+   * Adds to value of an attribute.
+   *
+   * @param attribute attribute name
+   * @param delta     value to be added
+   * @return itself, for usage in fluent api
+   */
+  public TimingSpan add(final String attribute, final long delta) {
+    synchronized (attributes) {
+      final Long value = attributes.get(checkNotNull(attribute));
+      attributes.put(attribute, value == null ? delta : value + delta);
+    }
+    return this;
+  }
+
+  /**
+   * Adds number of files and their size (in bytes) to {@code files} / {@code bytes} attributes. Size is calculated
+   * when attributes are read, so files are only traversed if the span is consumed.
+   *
+   * @param file file or directory (case when all contained files are counted)
+   * @return itself, for usage in fluent api
+   */
+  public TimingSpan addSize(final File file) {
+    synchronized (attributes) {
+      unsized.add(checkNotNull(file));
+    }
+    return this;
+  }
+
+  /**
+   * Stops the span and restores the span that was current when this span was started.
+   */
+  @Override
+  public void close() {
+    if (duration < 0) {
+      duration = System.nanoTime() - start;
+    }
+    if (CURRENT.get() == this) {
+      if (previous == null) {
+        CURRENT.remove();
+      }
+      else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Time getDuration() {
+    final long nanos = duration < 0 ? System.nanoTime() - start : duration;
+    return Time.millis(TimeUnit.NANOSECONDS.toMillis(nanos));
+  }
+
+  @Override
+  public Map<String, Long> getAttributes() {
+    synchronized (attributes) {
+      for (File file : unsized) {
+        long files = 0;
+        long bytes = 0;
+        for (File member : Files.fileTreeTraverser().preOrderTraversal(file)) {
+          if (member.isFile()) {
+            files++;
+            bytes += member.length();
+          }
+        }
+        add("files", files).add("bytes", bytes);
+      }
+      unsized.clear();
+      return Collections.unmodifiableMap(Maps.newLinkedHashMap(attributes));
+    }
+  }
+
+  @Override
+  public List<Span> getChildren() {
+    return ImmutableList.copyOf(children);
+  }
+
+  @Override
+  public String toJson() {
+    final StringBuilder json = new StringBuilder();
+    toJson(this, json);
+    return json.toString();
+  }
+
+  @Override
+  public String toString() {
+    return name + "(" + getDuration() + ")";
+  }
+
+  private TimingSpan activate() {
+    previous = CURRENT.get();
+    CURRENT.set(this);
+    return this;
+  }
+
+  private static void toJson(final Span span, final StringBuilder json) {
+    json.append("{\"name\":");
+    quote(span.getName(), json);
+    json.append(",\"durationMillis\":").append(span.getDuration().toMillis());
+    json.append(",\"attributes\":{");
+    boolean first = true;
+    for (Map.Entry<String, Long> attribute : span.getAttributes().entrySet()) {
+      if (!first) {
+        json.append(',');
+      }
+      quote(attribute.getKey(), json);
+      json.append(':').append(attribute.getValue());
+      first = false;
+    }
+    json.append("},\"children\":[");
+    first = true;
+    for (Span child : span.getChildren()) {
+      if (!first) {
+        json.append(',');
+      }
+      toJson(child, json);
+      first = false;
+    }
+    json.append("]}");
+  }
+
+  private static void quote(final String value, final StringBuilder json) {
+    json.append('"');
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      }
+      else if (c < 0x20) {
+        json.append(String.format("\\u%04x", (int) c));
+      }
+      else {
+        json.append(c);
+      }
+    }
+    json.append('"');
+  }
+
+}
@@ -32,6 +32,48 @@ public interface PortReservationService
    */
   int reservePort();
 
+  /**
+   * Reserve a number of ports for use, in one pass.
+   * <p/>
+   * By default (for implementations predating reservation in one pass) ports are reserved one by one, via
+   * {@link #reservePort()}.
+   *
+   * @param count number of ports to reserve
+   * @return distinct ports, free at time of method call
+   * @throws RuntimeException if not all ports could be reserved, case when none of them stays reserved
+   * @since 1.12
+   */
+  default int[] reservePorts(int count) {
+    final int[] ports = new int[count];
+    int reserved = 0;
+    try {
+      for (; reserved < count; reserved++) {
+        ports[reserved] = reservePort();
+      }
+      return ports;
+    }
+    catch (RuntimeException e) {
+      for (int i = 0; i < reserved; i++) {
+        cancelPort(ports[i]);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Closes the sockets the service may keep bound on reserved ports (to guard them until used), so the ports can be
+   * bound by whom reserved them. Reservations are not affected. Ports that are not bound are ignored.
+   *
+   * <p/>
+   * By default (for implementations that do not keep ports bound) does nothing.
+   *
+   * @param ports reserved ports about to be bound
+   * @since 1.12
+   */
+  default void unbindPorts(int... ports) {
+    // nothing bound
+  }
+
   /**
    * Cancel the reservation of the specified port, indicating the service shall make it available for future
    * reservations.
@@ -14,23 +14,31 @@
 package org.sonatype.sisu.bl.support.port.internal;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.sisu.bl.support.port.PortReservationService;
+import org.sonatype.sisu.goodies.common.Time;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
 import com.google.common.base.Throwables;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Range;
-import com.google.common.collect.Sets;
-import com.google.common.primitives.Ints;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -41,6 +49,14 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * A free port is a port that this service can open a server socket with at the time of reservation.
  * A blocked port is either explicitly blocked or previously reserved.
  *
+ * Optionally (see {@link #HOLD_SOCKETS}), reserved ports are kept bound (with SO_REUSEADDR) until
+ * {@link #unbindPorts(int...) unbound} by whom reserved them, right before binding them, so no other process can take
+ * them meanwhile.
+ *
+ * Optionally (see {@link #RECYCLE_COOLDOWN}), cancelled ports are recycled: they are queued in release order and
+ * re-issued, before asking the system for a free port, once they have been released for longer than the cool-down and
+ * they can be bound without SO_REUSEADDR (so no connection of previous usage lingers in TIME_WAIT).
+ *
  * @author plynch
  */
 @Singleton
@@ -48,13 +64,57 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class DefaultPortReservationService
     implements PortReservationService
 {
+
+  /**
+   * Property holding whether reserved ports should be kept bound until unbound.
+   *
+   * @since 1.12
+   */
+  public static final String HOLD_SOCKETS = "DefaultPortReservationService.holdSockets";
+
+  /**
+   * Property holding the time (in milliseconds) cancelled ports are quarantined before being recycled. 0 (default)
+   * disables recycling.
+   *
+   * @since 1.12
+   */
+  public static final String RECYCLE_COOLDOWN = "DefaultPortReservationService.recycleCooldown";
+
   private static final int MAX_ATTEMPTS = 10;
 
-  private final List<Range> blockedPortRanges;
+  private static final int MAX_PORT = 0xFFFF;
 
-  private final Set<Integer> blockedPorts;
+  /**
+   * Explicitly blocked ports. Guarded by this.
+   */
+  private final BitSet blockedPorts;
 
-  private final Set<Integer> reservedPorts;
+  /**
+   * Reserved ports. Guarded by this.
+   */
+  private final BitSet reservedPorts;
+
+  /**
+   * Sockets bound on reserved ports, by port. Guarded by this.
+   */
+  private final Map<Integer, ServerSocket> boundSockets;
+
+  /**
+   * Cancelled ports waiting to be recycled, in release order. Guarded by this.
+   */
+  private final Queue<ReleasedPort> quarantine;
+
+  private volatile boolean holdSockets;
+
+  /**
+   * Time cancelled ports are quarantined before being recycled, in nanoseconds. 0 if recycling is disabled.
+   */
+  private volatile long recycleCooldown;
+
+  /**
+   * Source of time quarantined ports are released at.
+   */
+  private volatile Ticker ticker;
 
   @Inject
   public DefaultPortReservationService() {
@@ -76,9 +136,11 @@ public class DefaultPortReservationService
   }
 
   private DefaultPortReservationService(Range<Integer> blockedRange, Set<Integer> blockedSet) {
-    this.blockedPortRanges = Lists.newArrayList();
-    this.blockedPorts = Sets.newHashSet();
-    this.reservedPorts = Sets.newHashSet();
+    this.blockedPorts = new BitSet();
+    this.reservedPorts = new BitSet();
+    this.boundSockets = Maps.newHashMap();
+    this.quarantine = new ArrayDeque<ReleasedPort>();
+    this.ticker = Ticker.systemTicker();
     if (blockedRange != null) {
       addBlockedPorts(blockedRange);
     }
@@ -87,57 +149,255 @@ public class DefaultPortReservationService
     }
   }
 
+  /**
+   * @param holdSockets true if reserved ports should be kept bound until {@link #unbindPorts(int...) unbound}
+   * @since 1.12
+   */
+  @Inject
+  protected void configureHoldSockets(final @Named("${" + HOLD_SOCKETS + ":-false}") Boolean holdSockets) {
+    setHoldSockets(holdSockets);
+  }
+
+  /**
+   * @param holdSockets true if reserved ports should be kept bound until {@link #unbindPorts(int...) unbound}
+   * @since 1.12
+   */
+  public void setHoldSockets(final boolean holdSockets) {
+    this.holdSockets = holdSockets;
+  }
+
+  /**
+   * @param cooldown time (in milliseconds) cancelled ports are quarantined before being recycled. 0 disables recycling.
+   * @since 1.12
+   */
+  @Inject
+  protected void configureRecycleCooldown(final @Named("${" + RECYCLE_COOLDOWN + ":-0}") Integer cooldown) {
+    setRecycleCooldown(Time.millis(cooldown));
+  }
+
+  /**
+   * @param cooldown time cancelled ports are quarantined before being recycled. Null or 0 disables recycling (and
+   *                 drops already quarantined ports).
+   * @since 1.12
+   */
+  public synchronized void setRecycleCooldown(final Time cooldown) {
+    this.recycleCooldown = cooldown == null ? 0 : TimeUnit.MILLISECONDS.toNanos(cooldown.toMillis());
+    if (recycleCooldown <= 0) {
+      quarantine.clear();
+    }
+  }
+
+  /**
+   * @param ticker source of time used to quarantine cancelled ports
+   */
+  @VisibleForTesting
+  void setTicker(final Ticker ticker) {
+    this.ticker = checkNotNull(ticker);
+  }
+
   /**
    * @return a port that was 'free' and not explicitly blocked at the time of call
    * @throws RuntimeException if a port could not be reserved
    */
   @Override
-  public synchronized int reservePort() {
-    int port = 0;
-    int attempts = 0;
-    boolean searchingForPort = true;
-    while (searchingForPort && ++attempts < MAX_ATTEMPTS) {
-      port = findFreePort();
-      searchingForPort = isBlocked(port) || !reservedPorts.add(port);
+  public int reservePort() {
+    return reservePorts(1)[0];
+  }
+
+  /**
+   * @throws RuntimeException if a port could not be reserved
+   * @since 1.12
+   */
+  @Override
+  public int[] reservePorts(final int count) {
+    checkArgument(count > 0, "Number of ports to reserve must be greater than 0");
+    final int[] ports = new int[count];
+    int reserved = 0;
+    try {
+      while (reserved < count) {
+        ports[reserved] = reserveFreePort();
+        reserved++;
+      }
     }
-    if (searchingForPort) {
-      throw new RuntimeException("Could not allocate a free port after " + MAX_ATTEMPTS + " attempts.");
+    catch (RuntimeException e) {
+      for (int i = 0; i < reserved; i++) {
+        cancelPort(ports[i]);
+      }
+      throw e;
     }
-    return port;
+    return ports;
   }
 
   @Override
-  public synchronized void cancelPort(int port) {
+  public void cancelPort(int port) {
     checkNotNull(port);
-    if (!reservedPorts.remove(port)) {
-      throw new IllegalArgumentException("port " + port + " not yet reserved by this service.");
+    synchronized (this) {
+      if (port < 0 || !reservedPorts.get(port)) {
+        throw new IllegalArgumentException("port " + port + " not yet reserved by this service.");
+      }
+      reservedPorts.clear(port);
+      close(boundSockets.remove(port));
+      if (recycleCooldown > 0) {
+        quarantine.add(new ReleasedPort(port, ticker.read()));
+      }
+    }
+    releasePort(port);
+  }
+
+  /**
+   * @since 1.12
+   */
+  @Override
+  public synchronized void unbindPorts(final int... ports) {
+    checkNotNull(ports);
+    for (int port : ports) {
+      close(boundSockets.remove(port));
     }
   }
 
   @Override
   public synchronized void addBlockedPorts(Range<Integer> blockedRange) {
     checkNotNull(blockedRange);
-    this.blockedPortRanges.add(blockedRange);
+    final Range<Integer> validPorts = Range.closed(0, MAX_PORT);
+    if (blockedRange.isConnected(validPorts)) {
+      final ContiguousSet<Integer> ports = ContiguousSet.create(
+          blockedRange.intersection(validPorts), DiscreteDomain.integers()
+      );
+      if (!ports.isEmpty()) {
+        blockedPorts.set(ports.first(), ports.last() + 1);
+      }
+    }
   }
 
   @Override
   public synchronized void addBlockedPorts(Set<Integer> blockedSet) {
     checkNotNull(blockedSet);
-    this.blockedPorts.addAll(blockedSet);
+    for (Integer port : blockedSet) {
+      if (port != null && port >= 0) {
+        blockedPorts.set(port);
+      }
+    }
   }
 
   @Override
-  public void addBlockedPorts(final int... ports) {
-    this.blockedPorts.addAll(Ints.asList(ports));
+  public synchronized void addBlockedPorts(final int... ports) {
+    for (int port : ports) {
+      if (port >= 0) {
+        blockedPorts.set(port);
+      }
+    }
+  }
+
+  /**
+   * Finds a free port (outside lock) and reserves it if not blocked or already reserved.
+   */
+  private int reserveFreePort() {
+    int attempts = 0;
+    while (++attempts < MAX_ATTEMPTS) {
+      ServerSocket socket = pollRecycledPort();
+      final int port;
+      if (socket != null) {
+        port = socket.getLocalPort();
+        if (!holdSockets) {
+          close(socket);
+          socket = null;
+        }
+      }
+      else {
+        socket = holdSockets ? bindFreePort() : null;
+        port = socket != null ? socket.getLocalPort() : findFreePort();
+      }
+      boolean reserved = false;
+      synchronized (this) {
+        if (port >= 0 && !blockedPorts.get(port) && !reservedPorts.get(port)) {
+          reservedPorts.set(port);
+          reserved = true;
+        }
+      }
+      if (reserved) {
+        boolean acquired = false;
+        try {
+          acquired = acquirePort(port);
+        }
+        finally {
+          synchronized (this) {
+            if (!acquired) {
+              reservedPorts.clear(port);
+            }
+            else if (socket != null) {
+              boundSockets.put(port, socket);
+            }
+          }
+          if (!acquired) {
+            close(socket);
+          }
+        }
+        if (acquired) {
+          return port;
+        }
+      }
+      else {
+        close(socket);
+      }
+    }
+    throw new RuntimeException("Could not allocate a free port after " + MAX_ATTEMPTS + " attempts.");
   }
 
-  private boolean isBlocked(int port) {
-    for (Range r : this.blockedPortRanges) {
-      if (r.contains(port)) {
-        return true;
+  /**
+   * Takes the oldest quarantined port whose cool-down elapsed and that can be bound.
+   *
+   * @return socket bound on recycled port, null if there is no port to be recycled
+   */
+  private ServerSocket pollRecycledPort() {
+    while (true) {
+      final int port;
+      synchronized (this) {
+        final ReleasedPort released = quarantine.peek();
+        if (released == null || ticker.read() - released.time < recycleCooldown) {
+          return null;
+        }
+        quarantine.remove();
+        if (blockedPorts.get(released.port) || reservedPorts.get(released.port)) {
+          continue;
+        }
+        port = released.port;
+      }
+      ServerSocket server = null;
+      try {
+        server = new ServerSocket();
+        // without SO_REUSEADDR bind fails if there are connections in TIME_WAIT
+        server.setReuseAddress(false);
+        server.bind(new InetSocketAddress(port));
+        return server;
+      }
+      catch (IOException e) {
+        // not recyclable (yet), leave it to the system
+        close(server);
       }
     }
-    return blockedPorts.contains(port);
+  }
+
+  /**
+   * Called (outside service lock) for each port about to be reserved, after it was reserved within this service.
+   * Allows subclasses to coordinate reservations with other services (e.g. of other processes).
+   *
+   * @param port port about to be reserved
+   * @return true if port can be reserved, false if it is reserved elsewhere (another port is tried)
+   * @since 1.12
+   */
+  protected boolean acquirePort(final int port) {
+    return true;
+  }
+
+  /**
+   * Called (outside service lock) for each port, previously acquired via {@link #acquirePort(int)}, whose reservation
+   * was cancelled.
+   *
+   * @param port port whose reservation was cancelled
+   * @since 1.12
+   */
+  protected void releasePort(final int port) {
+    // nothing
   }
 
   /**
@@ -147,21 +407,64 @@ public class DefaultPortReservationService
    */
   @VisibleForTesting
   protected int findFreePort() {
-    ServerSocket server;
+    final ServerSocket server = bindFreePort();
+    Integer portNumber = server.getLocalPort();
     try {
-      server = new ServerSocket(0);
+      server.close();
     }
     catch (IOException e) {
-      throw Throwables.propagate(e);
+      throw new RuntimeException("Unable to release port " + portNumber, e);
     }
+    return portNumber;
+  }
 
-    Integer portNumber = server.getLocalPort();
+  /**
+   * Binds a server socket on a random free system port. Socket is bound with SO_REUSEADDR, so port can be bound again
+   * right after socket is closed.
+   *
+   * @return bound socket
+   * @since 1.12
+   */
+  @VisibleForTesting
+  protected ServerSocket bindFreePort() {
+    ServerSocket server = null;
     try {
-      server.close();
+      server = new ServerSocket();
+      server.setReuseAddress(true);
+      server.bind(new InetSocketAddress(0));
+      return server;
     }
     catch (IOException e) {
-      throw new RuntimeException("Unable to release port " + portNumber, e);
+      close(server);
+      throw Throwables.propagate(e);
     }
-    return portNumber;
+  }
+
+  private static void close(final ServerSocket socket) {
+    if (socket != null) {
+      try {
+        socket.close();
+      }
+      catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  private static class ReleasedPort
+  {
+
+    private final int port;
+
+    /**
+     * Release time (as of {@link System#nanoTime()}).
+     */
+    private final long time;
+
+    private ReleasedPort(final int port, final long time) {
+      this.port = port;
+      this.time = time;
+    }
+
   }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support.port.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.sisu.bl.support.port.PortReservationService;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link PortReservationService} that coordinates reservations with other processes on same host (e.g. parallel
+ * surefire forks), via a directory of lease files shared by them.
+ * <p/>
+ * A reserved port is leased by holding an exclusive lock on file {@code <port>.lease} in shared directory, so each
+ * reservation only locks its own lease file and there is no global lock. The lease file records the pid of the
+ * owning process, for diagnostics. Operating system releases the locks of a process when the process dies, so leases
+ * of dead processes are reclaimed by the next process reserving the port. Lease files are kept (truncated) when
+ * released, as deleting a file that another process might be about to lock is not safe.
+ *
+ * @since 1.12
+ */
+@Named("shared")
+@Singleton
+public class SharedPortReservationService
+    extends DefaultPortReservationService
+    implements PortReservationService
+{
+
+  /**
+   * Property holding the directory shared by processes coordinating port reservations.
+   */
+  public static final String DIRECTORY = "SharedPortReservationService.directory";
+
+  private static final Logger log = LoggerFactory.getLogger(SharedPortReservationService.class);
+
+  private static final String PID = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+
+  private final File directory;
+
+  /**
+   * Leases held by this process, by port.
+   */
+  private final ConcurrentMap<Integer, FileLock> leases;
+
+  /**
+   * @param directory directory shared by processes coordinating port reservations. If null or empty,
+   *                  {@code ${java.io.tmpdir}/sisu-bl-ports} is used.
+   */
+  @Inject
+  public SharedPortReservationService(final @Named("${" + DIRECTORY + ":-}") String directory) {
+    this(Strings.isNullOrEmpty(directory)
+        ? new File(System.getProperty("java.io.tmpdir"), "sisu-bl-ports")
+        : new File(directory));
+  }
+
+  /**
+   * @param directory directory shared by processes coordinating port reservations
+   */
+  public SharedPortReservationService(final File directory) {
+    this.directory = checkNotNull(directory);
+    this.leases = new ConcurrentHashMap<Integer, FileLock>();
+    if (!directory.mkdirs() && !directory.isDirectory()) {
+      throw new RuntimeException("Could not create port leases directory " + directory);
+    }
+  }
+
+  /**
+   * @return directory shared by processes coordinating port reservations
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Leases the port, unless leased by another (live) process.
+   */
+  @Override
+  protected boolean acquirePort(final int port) {
+    FileChannel channel = null;
+    try {
+      channel = FileChannel.open(
+          leaseFile(port).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+      );
+      FileLock lock;
+      try {
+        lock = channel.tryLock();
+      }
+      catch (OverlappingFileLockException e) {
+        // leased by another service of this process
+        lock = null;
+      }
+      if (lock == null) {
+        log.debug("Port {} is leased by another process", port);
+        channel.close();
+        return false;
+      }
+      channel.truncate(0);
+      channel.write(ByteBuffer.wrap(PID.getBytes(Charsets.UTF_8)));
+      leases.put(port, lock);
+      return true;
+    }
+    catch (IOException e) {
+      close(channel);
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * Releases the lease of the port.
+   */
+  @Override
+  protected void releasePort(final int port) {
+    final FileLock lock = leases.remove(port);
+    if (lock != null) {
+      try {
+        lock.channel().truncate(0);
+      }
+      catch (IOException e) {
+        log.debug("Could not clear lease of port {}", port, e);
+      }
+      // closing the channel releases the lock
+      close(lock.channel());
+    }
+  }
+
+  private File leaseFile(final int port) {
+    return new File(directory, port + ".lease");
+  }
+
+  private static void close(final FileChannel channel) {
+    if (channel != null) {
+      try {
+        channel.close();
+      }
+      catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+}
@@ -13,12 +13,36 @@
 
 package org.sonatype.sisu.bl.internal.support;
 
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.sonatype.sisu.bl.Bundle;
 import org.sonatype.sisu.bl.BundleConfiguration;
 import org.sonatype.sisu.bl.BundleStatistics;
+import org.sonatype.sisu.bl.support.TimedCondition;
+import org.sonatype.sisu.goodies.common.Time;
 import org.sonatype.sisu.litmus.testsupport.TestSupport;
 
+import com.google.common.collect.Lists;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Tests for {#link BundleLifecycle}.
@@ -29,6 +53,9 @@ public class BundleLifecycleTest
     extends TestSupport
 {
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   @Test
   public void stop() {
     new TestBundleLifecycle().stop();
@@ -55,6 +82,23 @@ public class BundleLifecycleTest
     }.prepare();
   }
 
+  @Test
+  public void onlyCleanupOfPrepareIsBeforePrepare() {
+    final List<Boolean> cleanups = Lists.newArrayList();
+    final TestBundleLifecycle bundle = new TestBundleLifecycle()
+    {
+      @Override
+      public void doClean() {
+        cleanups.add(isCleaningBeforePrepare());
+      }
+    };
+    bundle.prepare();
+    bundle.start();
+    bundle.stop();
+    bundle.cleanup();
+    assertThat(cleanups, contains(true, false));
+  }
+
   @Test
   public void prepare_start() {
     new TestBundleLifecycle().prepare().start();
@@ -82,6 +126,169 @@ public class BundleLifecycleTest
     new TestBundleLifecycle().start().stop();
   }
 
+  @Test
+  public void startAsync() throws Exception {
+    final TestBundleLifecycle bundle = new TestBundleLifecycle();
+    assertThat(bundle.startAsync().get(10, TimeUnit.SECONDS), is(sameInstance((Object) bundle)));
+    bundle.stopAsync().get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void prepareAsyncWithError() throws Exception {
+    final IllegalStateException failure = new IllegalStateException("ops");
+    final CompletableFuture future = new TestBundleLifecycle()
+    {
+      @Override
+      public void doPrepare() {
+        throw failure;
+      }
+    }.prepareAsync();
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail("Expected to fail");
+    }
+    catch (ExecutionException e) {
+      assertThat(e.getCause(), is(sameInstance((Throwable) failure)));
+    }
+  }
+
+  @Test
+  public void asyncFailureIsNotFailureOfPreviousOperation() throws Exception {
+    final IllegalStateException stopFailure = new IllegalStateException("stop");
+    final TestBundleLifecycle bundle = new TestBundleLifecycle()
+    {
+      @Override
+      public void doPrepare() {
+        throw new IllegalStateException("prepare");
+      }
+
+      @Override
+      public Bundle stop() {
+        super.stop();
+        throw stopFailure;
+      }
+    };
+    try {
+      bundle.prepareAsync().get(10, TimeUnit.SECONDS);
+      fail("Expected to fail");
+    }
+    catch (ExecutionException e) {
+      assertThat(e.getCause().getMessage(), is("prepare"));
+    }
+    try {
+      bundle.stopAsync().get(10, TimeUnit.SECONDS);
+      fail("Expected to fail");
+    }
+    catch (ExecutionException e) {
+      assertThat(e.getCause(), is(sameInstance((Throwable) stopFailure)));
+    }
+  }
+
+  @Test
+  public void cancelStartAsyncAbortsWaiting() throws Exception {
+    final CountDownLatch waiting = new CountDownLatch(1);
+    final CountDownLatch aborted = new CountDownLatch(1);
+    final CompletableFuture future = new TestBundleLifecycle()
+    {
+      @Override
+      public void doStart() {
+        waiting.countDown();
+        final boolean satisfied = new TimedCondition()
+        {
+          @Override
+          protected boolean isSatisfied() {
+            return false;
+          }
+        }.await(Time.minutes(1));
+        if (!satisfied && Thread.interrupted()) {
+          aborted.countDown();
+        }
+      }
+    }.startAsync();
+    assertTrue(waiting.await(10, TimeUnit.SECONDS));
+    future.cancel(true);
+    assertTrue(aborted.await(10, TimeUnit.SECONDS));
+    assertThat(future.isCancelled(), is(true));
+  }
+
+  @Test
+  public void cancelStartAsyncWaitingForPrepareDoesNotStart() throws Exception {
+    final CountDownLatch preparing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicBoolean started = new AtomicBoolean();
+    final TestBundleLifecycle lifecycle = new TestBundleLifecycle()
+    {
+      @Override
+      public void doPrepare() {
+        preparing.countDown();
+        try {
+          release.await(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+
+      @Override
+      public void doStart() {
+        started.set(true);
+      }
+    };
+    final CompletableFuture prepared = lifecycle.prepareAsync();
+    assertTrue(preparing.await(10, TimeUnit.SECONDS));
+    final CompletableFuture future = lifecycle.startAsync();
+    // wait for start to block on the lifecycle monitor, held by prepare
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!isAnyThreadBlocked() && System.nanoTime() < deadline) {
+      Thread.yield();
+    }
+    future.cancel(true);
+    release.countDown();
+    prepared.get(10, TimeUnit.SECONDS);
+    lifecycle.prepareAsync().get(10, TimeUnit.SECONDS);
+    assertThat(future.isCancelled(), is(true));
+    assertThat(started.get(), is(false));
+  }
+
+  private static boolean isAnyThreadBlocked() {
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getState() == Thread.State.BLOCKED) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void phasesRecordedAsFlightRecorderEvents() throws Exception {
+    final File dump = temp.newFile("lifecycle.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("org.sonatype.sisu.bl.BundleLifecycle");
+      recording.start();
+      new TestBundleLifecycle().start().stop();
+      try {
+        new TestBundleLifecycle()
+        {
+          @Override
+          public void doPrepare() {
+            throw new IllegalStateException("ops");
+          }
+        }.prepare();
+      }
+      catch (IllegalStateException expected) {
+        // expected
+      }
+      recording.stop();
+      recording.dump(dump.toPath());
+    }
+    final List<String> phases = Lists.newArrayList();
+    for (RecordedEvent event : RecordingFile.readAllEvents(dump.toPath())) {
+      phases.add(event.getString("phase") + ":" + event.getBoolean("success"));
+      assertThat(event.getString("bundleType"), is("TestBundleLifecycle"));
+    }
+    assertThat(phases, hasItems("start:true", "stop:true", "prepare:false"));
+  }
+
   private static class TestBundleLifecycle
       extends BundleLifecycle
   {
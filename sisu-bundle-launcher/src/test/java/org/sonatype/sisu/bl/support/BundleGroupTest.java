@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.sonatype.sisu.bl.Bundle;
+import org.sonatype.sisu.bl.BundleConfiguration;
+import org.sonatype.sisu.bl.BundleStatistics;
+import org.sonatype.sisu.bl.internal.support.BundleLifecycle;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link BundleGroup}.
+ */
+public class BundleGroupTest
+    extends TestSupport
+{
+
+  private final List<String> events = new CopyOnWriteArrayList<String>();
+
+  @Test
+  public void waves() {
+    final BundleGroup group = new BundleGroup()
+        .add("db", new TestBundle("db"))
+        .add("cache", new TestBundle("cache"))
+        .add("service", new TestBundle("service"), "db", "cache")
+        .add("web", new TestBundle("web"), "service");
+    assertThat(group.getWaves().size(), is(3));
+    assertThat(group.getWaves().get(0), contains("db", "cache"));
+    assertThat(group.getWaves().get(1), contains("service"));
+    assertThat(group.getWaves().get(2), contains("web"));
+  }
+
+  @Test
+  public void startAndStopInDependencyOrder() {
+    final BundleGroup group = new BundleGroup()
+        .add("db", new TestBundle("db"))
+        .add("web", new TestBundle("web"), "db")
+        .addBinding(new BundleGroup.Binding()
+        {
+          @Override
+          public void bind(final String name, final Bundle dependency, final Bundle dependent) {
+            events.add("bind " + name + " to " + ((TestBundle) dependent).name);
+          }
+        });
+
+    group.start();
+    assertThat(events.indexOf("prepare db"), lessThan(events.indexOf("bind db to web")));
+    assertThat(events.indexOf("bind db to web"), lessThan(events.indexOf("prepare web")));
+    assertThat(events.indexOf("start db"), lessThan(events.indexOf("start web")));
+
+    events.clear();
+    group.stop();
+    assertThat(events, contains("stop web", "stop db"));
+  }
+
+  @Test
+  public void startFailureStopsStartedBundles() {
+    final BundleGroup group = new BundleGroup()
+        .add("db", new TestBundle("db"))
+        .add("web", new TestBundle("web")
+        {
+          @Override
+          public void doStart() {
+            throw new IllegalStateException("web failed");
+          }
+        }, "db");
+    try {
+      group.start();
+      fail("Expected to fail");
+    }
+    catch (IllegalStateException e) {
+      assertThat(e.getMessage(), is("web failed"));
+    }
+    assertThat(events, hasItem("stop db"));
+  }
+
+  @Test
+  public void independentBundlesArePreparedTogether() {
+    new BundleGroup()
+        .add("a", new TestBundle("a"))
+        .add("b", new TestBundle("b"))
+        .prepare();
+    assertThat(events, containsInAnyOrder("prepare a", "prepare b"));
+  }
+
+  private class TestBundle
+      extends BundleLifecycle
+  {
+
+    private final String name;
+
+    private TestBundle(final String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void doPrepare() {
+      events.add("prepare " + name);
+    }
+
+    @Override
+    public void doClean() {
+      // Do nothing
+    }
+
+    @Override
+    public void doStart() {
+      events.add("start " + name);
+    }
+
+    @Override
+    public void doStop() {
+      events.add("stop " + name);
+    }
+
+    @Override
+    public BundleConfiguration getConfiguration() {
+      return null;
+    }
+
+    @Override
+    public Bundle setConfiguration(final BundleConfiguration configuration) {
+      return null;
+    }
+
+    @Override
+    public boolean isRunning() {
+      return false;
+    }
+
+    @Override
+    public BundleStatistics statistics() {
+      return null;
+    }
+
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.sonatype.sisu.goodies.common.Time;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link HttpProbe}.
+ */
+public class HttpProbeTest
+    extends TestSupport
+{
+
+  private HttpServer server;
+
+  private final AtomicInteger status = new AtomicInteger(200);
+
+  private final AtomicReference<String> healthChecks = new AtomicReference<String>("{}");
+
+  @Before
+  public void startServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/health", new HttpHandler()
+    {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        final byte[] body = "status".getBytes("UTF-8");
+        exchange.sendResponseHeaders(status.get(), body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+      }
+    });
+    server.createContext("/healthcheck", new HttpHandler()
+    {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        final byte[] body = healthChecks.get().getBytes("UTF-8");
+        exchange.sendResponseHeaders(status.get(), body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+      }
+    });
+    server.createContext("/hanging", new HttpHandler()
+    {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        try {
+          Thread.sleep(5000);
+        }
+        catch (InterruptedException e) {
+          // ignore
+        }
+        exchange.close();
+      }
+    });
+    server.start();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void readyOnExpectedStatus() throws Exception {
+    final HttpProbe probe = new HttpProbe(url("/health"), Time.seconds(1), Arrays.asList(200, 204));
+    status.set(503);
+    try {
+      probe.isReady();
+      fail("Expected to fail on unexpected status");
+    }
+    catch (IOException e) {
+      // expected
+    }
+    assertThat(probe.getTimeToFirstSuccess(), is(nullValue()));
+    status.set(204);
+    assertThat(probe.isReady(), is(true));
+    assertThat(probe.getTimeToFirstSuccess(), is(notNullValue()));
+  }
+
+  @Test
+  public void connectOnlyByDefault() throws Exception {
+    status.set(503);
+    assertThat(new HttpProbe(url("/health"), Time.seconds(1), Collections.<Integer>emptySet()).isReady(), is(true));
+    assertThat(new HttpProbe(url("/hanging"), Time.millis(200), null).isReady(), is(true));
+  }
+
+  @Test(expected = IOException.class)
+  public void connectOnlyFailsWhenNotListening() throws Exception {
+    final URL url = url("/health");
+    server.stop(0);
+    new HttpProbe(url, Time.seconds(1), null).isReady();
+  }
+
+  @Test(expected = SocketTimeoutException.class)
+  public void boundedByTimeout() throws Exception {
+    new HttpProbe(url("/hanging"), Time.millis(200), Arrays.asList(200)).isReady();
+  }
+
+  @Test
+  public void healthCheckReadyWhenAllChecksHealthy() throws Exception {
+    final HealthCheckProbe probe = new HealthCheckProbe(url("/healthcheck"), Time.seconds(1));
+    healthChecks.set("{\"deadlocks\":{\"healthy\":true},\"database\":{\"healthy\":false,\"message\":\"down\"}}");
+    try {
+      probe.isReady();
+      fail("Expected to fail on unhealthy check");
+    }
+    catch (IOException e) {
+      assertThat(e.getMessage(), containsString("[database]"));
+    }
+    healthChecks.set("{\"deadlocks\":{\"healthy\":true},\"database\":{\"healthy\":true}}");
+    assertThat(probe.isReady(), is(true));
+  }
+
+  private URL url(final String path) throws Exception {
+    return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link LifecycleStatistics}.
+ */
+public class LifecycleStatisticsTest
+    extends TestSupport
+{
+
+  @Test
+  public void bucketsCoverValuesWithBoundedError() {
+    long previous = -1;
+    for (long value = 0; value < Long.MAX_VALUE / 3; value = value * 3 / 2 + 1) {
+      final int index = LifecycleStatistics.Histogram.index(value);
+      final long highest = LifecycleStatistics.Histogram.highestEquivalent(index);
+      assertThat(value <= highest, is(true));
+      assertThat((double) (highest - value), is(lessThanOrEqualTo(value / 64.0)));
+      assertThat(index >= previous, is(true));
+      previous = index;
+    }
+  }
+
+  @Test
+  public void percentilesPerBundleTypeAndPhase() {
+    final LifecycleStatistics statistics = new LifecycleStatistics();
+    for (int i = 1; i <= 100; i++) {
+      statistics.record("jetty", "start", TimeUnit.MILLISECONDS.toNanos(i * 10), true);
+    }
+    statistics.record("jetty", "start", TimeUnit.SECONDS.toNanos(60), false);
+    statistics.record("tomcat", "start", TimeUnit.MILLISECONDS.toNanos(5), true);
+
+    final LifecycleHistogramMXBean jetty = statistics.getHistogram("jetty", "start");
+    assertThat(jetty.getCount(), is(100L));
+    assertThat(jetty.getFailures(), is(1L));
+    assertThat(jetty.getP50Millis(), is(closeTo(500, 10)));
+    assertThat(jetty.getP90Millis(), is(closeTo(900, 15)));
+    assertThat(jetty.getP99Millis(), is(closeTo(990, 16)));
+    assertThat(jetty.getMaxMillis(), is(1000.0));
+    assertThat(statistics.getHistogram("tomcat", "start").getMaxMillis(), is(5.0));
+  }
+
+  @Test
+  public void registeredAsMBeans() throws Exception {
+    final MBeanServer server = MBeanServerFactory.newMBeanServer();
+    final LifecycleStatistics statistics = new LifecycleStatistics();
+    statistics.record("jetty", "prepare", TimeUnit.MILLISECONDS.toNanos(3), true);
+    statistics.registerMBeans(server);
+    statistics.record("jetty", "start", TimeUnit.MILLISECONDS.toNanos(7), true);
+
+    assertThat(
+        (Long) server.getAttribute(
+            new ObjectName("org.sonatype.sisu.bl:type=LifecycleStatistics,bundle=\"jetty\",phase=\"prepare\""), "Count"
+        ),
+        is(1L)
+    );
+    assertThat(
+        (Double) server.getAttribute(
+            new ObjectName("org.sonatype.sisu.bl:type=LifecycleStatistics,bundle=\"jetty\",phase=\"start\""),
+            "MaxMillis"
+        ),
+        is(7.0)
+    );
+    statistics.unregisterMBeans();
+    assertThat(server.queryNames(new ObjectName("org.sonatype.sisu.bl:*"), null).isEmpty(), is(true));
+  }
+
+  @Test
+  public void servedInPrometheusTextFormat() throws Exception {
+    final LifecycleStatistics statistics = new LifecycleStatistics();
+    statistics.record("jet\"ty", "start", TimeUnit.MILLISECONDS.toNanos(1500), true);
+    statistics.record("jet\"ty", "start", 0, false);
+
+    final InetSocketAddress address = statistics.startHttpEndpoint(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)
+    );
+    try {
+      final String text;
+      try (InputStream in = new URL("http://127.0.0.1:" + address.getPort() + "/metrics").openStream()) {
+        text = new String(ByteStreams.toByteArray(in), Charsets.UTF_8);
+      }
+      assertThat(text, containsString("# TYPE sisu_bundle_lifecycle_seconds summary\n"));
+      assertThat(text, containsString(
+          "sisu_bundle_lifecycle_seconds{bundle=\"jet\\\"ty\",phase=\"start\",quantile=\"1\"} 1.500000\n"
+      ));
+      assertThat(text, containsString(
+          "sisu_bundle_lifecycle_seconds_count{bundle=\"jet\\\"ty\",phase=\"start\"} 1\n"
+      ));
+      assertThat(text, containsString(
+          "sisu_bundle_lifecycle_seconds_failures_total{bundle=\"jet\\\"ty\",phase=\"start\"} 1\n"
+      ));
+    }
+    finally {
+      statistics.stopHttpEndpoint();
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.File;
+import java.util.regex.Pattern;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link LogMarkerProbe}.
+ */
+public class LogMarkerProbeTest
+    extends TestSupport
+{
+
+  private static final Pattern STARTED = Pattern.compile("Server startup in \\d+ ms");
+
+  private static final Pattern FAILED = Pattern.compile("SEVERE");
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void readyWhenSuccessLineLogged() throws Exception {
+    final File log = temp.newFile("output.log");
+    final LogMarkerProbe probe = new LogMarkerProbe(log, STARTED, FAILED);
+    assertThat(probe.isReady(), is(false));
+    Files.append("INFO: Starting\nINFO: Server start", log, Charsets.UTF_8);
+    assertThat(probe.isReady(), is(false));
+    Files.append("up in 42 ms\n", log, Charsets.UTF_8);
+    assertThat(probe.isReady(), is(true));
+  }
+
+  @Test
+  public void contentLoggedBeforeProbeCreationIgnored() throws Exception {
+    final File log = temp.newFile("output.log");
+    Files.append("INFO: Server startup in 42 ms\n", log, Charsets.UTF_8);
+    final LogMarkerProbe probe = new LogMarkerProbe(log, STARTED, FAILED);
+    assertThat(probe.isReady(), is(false));
+  }
+
+  @Test
+  public void recreatedLogReadFromBeginning() throws Exception {
+    final File log = temp.newFile("output.log");
+    Files.append("INFO: Server startup in 42 ms\nINFO: Stopped\n", log, Charsets.UTF_8);
+    final LogMarkerProbe probe = new LogMarkerProbe(log, STARTED, FAILED);
+    Files.write("INFO: Server startup in 7 ms\n", log, Charsets.UTF_8);
+    assertThat(probe.isReady(), is(true));
+  }
+
+  @Test
+  public void logFilesCreatedInDirectoryTailed() throws Exception {
+    final File logs = temp.newFolder("logs");
+    final LogMarkerProbe probe = new LogMarkerProbe(logs, STARTED, FAILED);
+    assertThat(probe.isReady(), is(false));
+    Files.write("INFO: Server startup in 42 ms\n", new File(logs, "catalina.out"), Charsets.UTF_8);
+    assertThat(probe.isReady(), is(true));
+  }
+
+  @Test(expected = ReadinessScheduler.ProbeFailedException.class)
+  public void failsWhenFailureLineLogged() throws Exception {
+    final File log = temp.newFile("output.log");
+    final LogMarkerProbe probe = new LogMarkerProbe(log, STARTED, FAILED);
+    Files.append("SEVERE: Address already in use\n", log, Charsets.UTF_8);
+    probe.isReady();
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.bl.support;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link LogTail}.
+ */
+public class LogTailTest
+    extends TestSupport
+{
+
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private final LogTail tail = new LogTail(20, 16 * 1024);
+
+  @Test
+  public void limitedToMaxLines() throws Exception {
+    final File log = temp.newFile("output.log");
+    final StringBuilder content = new StringBuilder();
+    for (int i = 1; i <= 30; i++) {
+      content.append("line ").append(i).append("\n");
+    }
+    Files.write(content, log, Charsets.UTF_8);
+
+    final List<String> lines = lines(tail.read(log));
+    assertThat(lines.get(0), is(log + ":"));
+    assertThat(lines.size(), is(21));
+    assertThat(lines.get(1), is("line 11"));
+    assertThat(lines.get(20), is("line 30"));
+  }
+
+  @Test
+  public void limitedToMaxBytes() throws Exception {
+    final File log = temp.newFile("output.log");
+    Files.write("first\n" + Strings.repeat("x", 20 * 1024) + "\nlast\n", log, Charsets.UTF_8);
+
+    // first line read (the long one) is incomplete, so it is dropped
+    assertThat(lines(tail.read(log)), contains(log + ":", "last"));
+  }
+
+  @Test
+  public void newestFileOfDirectoryUsed() throws Exception {
+    final File logs = temp.newFolder("logs");
+    final File older = new File(logs, "older.log");
+    final File newer = new File(logs, "newer.log");
+    Files.write("older\n", older, Charsets.UTF_8);
+    Files.write("newer\n", newer, Charsets.UTF_8);
+    older.setLastModified(newer.lastModified() - 10000);
+
+    assertThat(lines(tail.read(logs)), contains(newer + ":", "newer"));
+  }
+
+  @Test
+  public void missingLog() throws Exception {
+    assertThat(tail.read(new File(temp.getRoot(), "missing.log")), is(nullValue()));
+    assertThat(tail.read(temp.newFolder("empty")), is(nullValue()));
+    assertThat(tail.read(null), is(nullValue()));
+  }
+
+  private static List<String> lines(final String tail) {
+    return Arrays.asList(tail.split(LINE_SEPARATOR));
+  }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.sisu.bl.MetricsSample;
+import org.sonatype.sisu.goodies.common.Time;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link MetricsScraper}.
+ */
+public class MetricsScraperTest
+    extends TestSupport
+{
+
+  private HttpServer server;
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  @Before
+  public void startServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/metrics", new HttpHandler()
+    {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        final byte[] body = ("{\"version\":\"3.0.0\","
+            + "\"gauges\":{\"jvm.memory.heap.used\":{\"value\":1024}},"
+            + "\"timers\":{\"requests\":{\"count\":" + requests.incrementAndGet() + ",\"p99\":0.5,\"m1_rate\":2.5}}}"
+        ).getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+      }
+    });
+    server.start();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void samplesNumericValuesUntilStopped() throws Exception {
+    final MetricsScraper scraper = new MetricsScraper(
+        new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/metrics"), Time.millis(20), Time.seconds(1)
+    );
+    scraper.start();
+    while (scraper.getSamples().size() < 3) {
+      Thread.sleep(10);
+    }
+    final List<MetricsSample> samples = scraper.stop();
+    final int collected = samples.size();
+    Thread.sleep(100);
+    assertThat(scraper.getSamples().size(), is(collected));
+
+    final MetricsSample first = samples.get(0);
+    assertThat(first.getValues().get("gauges.jvm.memory.heap.used.value"), is(1024.0));
+    assertThat(first.getValues().get("timers.requests.p99"), is(0.5));
+    assertThat(first.getValues().get("timers.requests.count"), is(1.0));
+    assertThat(first.getValues(), not(hasKey("version")));
+    assertThat(samples.get(2).getValues().get("timers.requests.count"), is(equalTo(3.0)));
+    assertThat(samples.get(2).getTimestamp(), is(greaterThan(first.getTimestamp() - 1)));
+  }
+
+  @Test
+  public void keepsOnlyLatestSamples() throws Exception {
+    final MetricsScraper scraper = new MetricsScraper(
+        new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/metrics"), Time.millis(10), Time.seconds(1), 2
+    );
+    scraper.start();
+    while (requests.get() < 5) {
+      Thread.sleep(10);
+    }
+    final List<MetricsSample> samples = scraper.stop();
+    assertThat(samples.size(), is(2));
+    final double last = samples.get(1).getValues().get("timers.requests.count");
+    assertThat(last, is(greaterThan(4.0)));
+    assertThat(samples.get(0).getValues().get("timers.requests.count"), is(last - 1));
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.bl.support;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link PidFile}.
+ */
+public class PidFileTest
+    extends TestSupport
+{
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test(expected = ReadinessScheduler.ProbeFailedException.class)
+  public void exitedProcessFails() throws Exception {
+    // greater than any pid a system hands out
+    PidFile.checkAlive(pidFile(String.valueOf(Integer.MAX_VALUE)));
+  }
+
+  @Test
+  public void aliveProcessPasses() throws Exception {
+    final String name = ManagementFactory.getRuntimeMXBean().getName();
+    PidFile.checkAlive(pidFile(name.substring(0, name.indexOf('@')) + "\n"));
+  }
+
+  @Test
+  public void missingPidFileTolerated() throws Exception {
+    PidFile.checkAlive(new File(temp.getRoot(), "bundle.pid"));
+  }
+
+  @Test
+  public void unreadablePidTolerated() throws Exception {
+    PidFile.checkAlive(pidFile(""));
+  }
+
+  private File pidFile(final String content) throws Exception {
+    final File pidFile = temp.newFile("bundle.pid");
+    Files.write(content, pidFile, Charsets.US_ASCII);
+    return pidFile;
+  }
+
+}
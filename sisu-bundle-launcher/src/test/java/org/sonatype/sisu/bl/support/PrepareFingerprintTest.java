@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link PrepareFingerprint}.
+ */
+public class PrepareFingerprintTest
+    extends TestSupport
+{
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File target;
+
+  private File source;
+
+  @Before
+  public void setUp() throws Exception {
+    target = temp.newFolder("target");
+    source = temp.newFile("source.txt");
+    Files.write("foo", source, Charsets.UTF_8);
+  }
+
+  @Test
+  public void sameInputsSameFingerprint() {
+    assertThat(
+        PrepareFingerprint.calculate(target, source, Arrays.asList(new Overlay(source, "a"))),
+        equalTo(PrepareFingerprint.calculate(target, source, Arrays.asList(new Overlay(source, "a"))))
+    );
+  }
+
+  @Test
+  public void changedOverlayChangesFingerprint() {
+    assertThat(
+        PrepareFingerprint.calculate(target, Arrays.asList(new Overlay(source, "a"))),
+        not(equalTo(PrepareFingerprint.calculate(target, Arrays.asList(new Overlay(source, "b")))))
+    );
+  }
+
+  @Test
+  public void changedFileContentChangesFingerprint() throws Exception {
+    final String before = PrepareFingerprint.calculate(target, source);
+    Files.write("bar", source, Charsets.UTF_8);
+    assertThat(PrepareFingerprint.calculate(target, source), not(equalTo(before)));
+  }
+
+  @Test
+  public void filesInTargetDirectoryDescribedByPath() throws Exception {
+    final File file = new File(target, "file.txt");
+    final String before = PrepareFingerprint.calculate(target, file);
+    Files.write("bar", file, Charsets.UTF_8);
+    assertThat(PrepareFingerprint.calculate(target, file), equalTo(before));
+  }
+
+  @Test
+  public void notDescribableInputHasNoFingerprint() {
+    assertThat(PrepareFingerprint.calculate(target, new Object()), is(nullValue()));
+  }
+
+  @Test
+  public void storeAndLoad() {
+    assertThat(PrepareFingerprint.load(target), is(nullValue()));
+
+    final PrepareFingerprint fingerprint = new PrepareFingerprint();
+    fingerprint.put("bundle", PrepareFingerprint.calculate(target, source));
+    fingerprint.store(target);
+
+    final PrepareFingerprint loaded = PrepareFingerprint.load(target);
+    assertThat(loaded, is(notNullValue()));
+    assertThat(loaded.get("bundle"), equalTo(PrepareFingerprint.calculate(target, source)));
+
+    PrepareFingerprint.delete(target);
+    assertThat(PrepareFingerprint.load(target), is(nullValue()));
+  }
+
+  private static class Overlay
+  {
+
+    private final File from;
+
+    private final String to;
+
+    private Overlay(final File from, final String to) {
+      this.from = from;
+      this.to = to;
+    }
+
+  }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link PreparePipeline}.
+ */
+public class PreparePipelineTest
+    extends TestSupport
+{
+
+  @Test
+  public void stagesRunAfterTheirDependencies() {
+    final List<String> order = new CopyOnWriteArrayList<String>();
+    final PreparePipeline pipeline = new PreparePipeline()
+        .stage("a", record(order, "a"))
+        .stage("b", record(order, "b"), "a")
+        .stage("c", record(order, "c"), "b");
+    pipeline.run(4);
+    assertThat(order, contains("a", "b", "c"));
+    assertThat(pipeline.getTimes().keySet(), contains("a", "b", "c"));
+  }
+
+  @Test
+  public void independentStagesRunConcurrently() {
+    // each stage waits for the other one to start, so they can only complete if run concurrently
+    final CountDownLatch started = new CountDownLatch(2);
+    final Runnable stage = new Runnable()
+    {
+      @Override
+      public void run() {
+        started.countDown();
+        try {
+          if (!started.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Stages did not run concurrently");
+          }
+        }
+        catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    new PreparePipeline().stage("a", stage).stage("b", stage).run(2);
+  }
+
+  @Test
+  public void singleThreadRunsStagesOnCallingThread() {
+    final Thread caller = Thread.currentThread();
+    final List<String> order = new CopyOnWriteArrayList<String>();
+    final Runnable stage = new Runnable()
+    {
+      @Override
+      public void run() {
+        order.add(Thread.currentThread() == caller ? "caller" : "other");
+      }
+    };
+    new PreparePipeline().stage("a", stage).stage("b", stage).run(1);
+    assertThat(order, contains("caller", "caller"));
+  }
+
+  @Test
+  public void failureStopsDependentStages() {
+    final List<String> order = new CopyOnWriteArrayList<String>();
+    final PreparePipeline pipeline = new PreparePipeline()
+        .stage("a", new Runnable()
+        {
+          @Override
+          public void run() {
+            throw new IllegalStateException("a failed");
+          }
+        })
+        .stageAfterAll("b", record(order, "b"));
+    try {
+      pipeline.run(1);
+      fail("Expected to fail");
+    }
+    catch (IllegalStateException e) {
+      assertThat(e.getMessage(), is("a failed"));
+    }
+    assertThat(order, not(contains("b")));
+  }
+
+  @Test
+  public void interruptedRunWaitsForRunningStages() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch finished = new CountDownLatch(1);
+    final PreparePipeline pipeline = new PreparePipeline().stage("a", new Runnable()
+    {
+      @Override
+      public void run() {
+        started.countDown();
+        try {
+          Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        }
+        catch (InterruptedException e) {
+          // a stage finishing its work even if interrupted
+          try {
+            Thread.sleep(200);
+          }
+          catch (InterruptedException ignore) {
+            // ignore
+          }
+          finished.countDown();
+        }
+      }
+    });
+    final Thread caller = Thread.currentThread();
+    final Thread interrupter = new Thread()
+    {
+      @Override
+      public void run() {
+        try {
+          started.await();
+        }
+        catch (InterruptedException e) {
+          return;
+        }
+        caller.interrupt();
+      }
+    };
+    interrupter.start();
+    try {
+      pipeline.run(2);
+      fail("Expected to be interrupted");
+    }
+    catch (RuntimeException e) {
+      assertThat(Thread.interrupted(), is(true));
+    }
+    assertThat(finished.getCount(), is(0L));
+    interrupter.join();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownDependency() {
+    new PreparePipeline().stage("a", record(new CopyOnWriteArrayList<String>(), "a"), "b");
+  }
+
+  private static Runnable record(final List<String> order, final String name) {
+    return new Runnable()
+    {
+      @Override
+      public void run() {
+        order.add(name);
+      }
+    };
+  }
+
+}
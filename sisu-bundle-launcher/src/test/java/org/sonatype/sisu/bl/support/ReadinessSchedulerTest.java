@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.sisu.goodies.common.Time;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ReadinessScheduler}.
+ */
+public class ReadinessSchedulerTest
+    extends TestSupport
+{
+
+  private final ReadinessScheduler scheduler = new ReadinessScheduler(1);
+
+  @Test
+  public void completesWhenProbeSucceeds() throws Exception {
+    final AtomicInteger probes = new AtomicInteger();
+    final ReadinessScheduler.Check check = scheduler.schedule(new ReadinessScheduler.Probe()
+    {
+      @Override
+      public boolean isReady() throws Exception {
+        if (probes.incrementAndGet() < 3) {
+          throw new IllegalStateException("not yet");
+        }
+        return true;
+      }
+    }, Time.seconds(10));
+
+    assertThat(check.getFuture().get(5, TimeUnit.SECONDS), is(sameInstance(check)));
+    assertThat(check.getAttempts(), is(3));
+    assertThat(check.getLatencies().size(), is(3));
+  }
+
+  @Test
+  public void failsAfterTimeout() throws Exception {
+    final IllegalStateException failure = new IllegalStateException("not ready");
+    final ReadinessScheduler.Check check = scheduler.schedule(new ReadinessScheduler.Probe()
+    {
+      @Override
+      public boolean isReady() {
+        throw failure;
+      }
+    }, Time.millis(300));
+
+    try {
+      check.getFuture().get(5, TimeUnit.SECONDS);
+      fail("Expected to time out");
+    }
+    catch (ExecutionException e) {
+      assertThat(e.getCause(), is(instanceOf(TimeoutException.class)));
+      assertThat(e.getCause().getCause(), is(sameInstance((Throwable) failure)));
+    }
+    assertThat(check.getAttempts(), is(greaterThan(1)));
+  }
+
+  @Test
+  public void failsImmediatelyWhenProbeThrowsError() throws Exception {
+    final AssertionError failure = new AssertionError("broken");
+    final ReadinessScheduler.Check check = scheduler.schedule(new ReadinessScheduler.Probe()
+    {
+      @Override
+      public boolean isReady() {
+        throw failure;
+      }
+    }, Time.seconds(10));
+
+    try {
+      check.getFuture().get(5, TimeUnit.SECONDS);
+      fail("Expected to fail");
+    }
+    catch (ExecutionException e) {
+      assertThat(e.getCause(), is(sameInstance((Throwable) failure)));
+    }
+  }
+
+  @Test
+  public void blockedProbeDoesNotDelayOtherChecks() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final ReadinessScheduler.Check blocked = scheduler.schedule(new ReadinessScheduler.Probe()
+    {
+      @Override
+      public boolean isReady() throws Exception {
+        release.await();
+        return true;
+      }
+    }, Time.seconds(10));
+    try {
+      final ReadinessScheduler.Check check = scheduler.schedule(new ReadinessScheduler.Probe()
+      {
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+      }, Time.seconds(10));
+      assertThat(check.getFuture().get(5, TimeUnit.SECONDS), is(sameInstance(check)));
+    }
+    finally {
+      release.countDown();
+    }
+    assertThat(blocked.getFuture().get(5, TimeUnit.SECONDS), is(sameInstance(blocked)));
+  }
+
+  @Test
+  public void blockedProbeTimesOut() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final ReadinessScheduler.Check check = scheduler.schedule(new ReadinessScheduler.Probe()
+    {
+      @Override
+      public boolean isReady() throws Exception {
+        release.await();
+        return true;
+      }
+    }, Time.millis(300));
+    try {
+      check.getFuture().get(5, TimeUnit.SECONDS);
+      fail("Expected to time out");
+    }
+    catch (ExecutionException e) {
+      assertThat(e.getCause(), is(instanceOf(TimeoutException.class)));
+    }
+    finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void failsImmediatelyWhenProbeFails() throws Exception {
+    final ReadinessScheduler.ProbeFailedException failure = new ReadinessScheduler.ProbeFailedException("failed");
+    final ReadinessScheduler.Check check = scheduler.schedule(new ReadinessScheduler.Probe()
+    {
+      @Override
+      public boolean isReady() throws Exception {
+        throw failure;
+      }
+    }, Time.seconds(10));
+
+    try {
+      check.getFuture().get(5, TimeUnit.SECONDS);
+      fail("Expected to fail");
+    }
+    catch (ExecutionException e) {
+      assertThat(e.getCause(), is(sameInstance((Throwable) failure)));
+    }
+    assertThat(check.getAttempts(), is(1));
+  }
+
+}
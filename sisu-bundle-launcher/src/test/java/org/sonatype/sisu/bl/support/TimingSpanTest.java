@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.sonatype.sisu.bl.Span;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link TimingSpan}.
+ */
+public class TimingSpanTest
+    extends TestSupport
+{
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void spansStartedWhileCurrentBecomeChildren() {
+    final TimingSpan root = TimingSpan.root("prepare");
+    try (TimingSpan configure = TimingSpan.start("configure")) {
+      assertThat(TimingSpan.current(), is(sameInstance(configure)));
+      try (TimingSpan ports = TimingSpan.start("reservePorts")) {
+        ports.add("ports", 1).add("ports", 1);
+      }
+      assertThat(TimingSpan.current(), is(sameInstance(configure)));
+    }
+    root.close();
+    assertThat(TimingSpan.current(), is(nullValue()));
+
+    final Span configure = root.getChildren().get(0);
+    assertThat(configure.getName(), is("configure"));
+    assertThat(configure.getChildren().get(0).getAttributes().get("ports"), is(2L));
+  }
+
+  @Test
+  public void pipelineStagesRecordedAsChildren() {
+    final TimingSpan root = TimingSpan.root("prepare");
+    try {
+      new PreparePipeline()
+          .stage("bundle", new Runnable()
+          {
+            @Override
+            public void run() {
+              TimingSpan.current().set("bytes", 42);
+            }
+          })
+          .stage("javaAgents", new Runnable()
+          {
+            @Override
+            public void run() {
+              // nothing
+            }
+          })
+          .run(2);
+    }
+    finally {
+      root.close();
+    }
+    assertThat(Arrays.asList(names(root)), containsInAnyOrder("bundle", "javaAgents"));
+  }
+
+  @Test
+  public void sizeCalculatedWhenAttributesRead() throws Exception {
+    final File directory = temp.newFolder();
+    final TimingSpan span = TimingSpan.root("bundle").addSize(directory);
+    span.close();
+    // written after size was added, so counted only if size is calculated when read
+    Files.write("12345", new File(directory, "a.txt"), Charsets.UTF_8);
+    assertThat(span.getAttributes().get("files"), is(1L));
+    assertThat(span.getAttributes().get("bytes"), is(5L));
+  }
+
+  @Test
+  public void exportedAsJson() {
+    final TimingSpan root = TimingSpan.root("st\"art");
+    TimingSpan.start("boot").set("probes", 3).close();
+    root.close();
+    assertThat(
+        TimingSpan.of("dw", Arrays.asList(root)).toJson().replaceAll("\"durationMillis\":\\d+", "\"durationMillis\":0"),
+        is(equalTo("{\"name\":\"dw\",\"durationMillis\":0,\"attributes\":{},\"children\":["
+            + "{\"name\":\"st\\\"art\",\"durationMillis\":0,\"attributes\":{},\"children\":["
+            + "{\"name\":\"boot\",\"durationMillis\":0,\"attributes\":{\"probes\":3},\"children\":[]}]}]}"))
+    );
+  }
+
+  private static String[] names(final Span span) {
+    final String[] names = new String[span.getChildren().size()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = span.getChildren().get(i).getName();
+    }
+    return names;
+  }
+
+}
@@ -13,8 +13,16 @@
 
 package org.sonatype.sisu.bl.support.port.internal;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sonatype.sisu.goodies.common.Time;
 import org.sonatype.sisu.litmus.testsupport.TestSupport;
 
+import com.google.common.base.Ticker;
 import com.google.common.collect.Range;
 import org.junit.Before;
 import org.junit.Test;
@@ -138,6 +146,109 @@ public class DefaultPortReservationServiceTest
 
   }
 
+  @Test
+  public void reservePortsReturnsDistinctPorts() throws Exception {
+    final int[] ports = portReservationService.reservePorts(5);
+    assertThat(ports.length, is(5));
+    assertThat(Sets.newSet(ports[0], ports[1], ports[2], ports[3], ports[4]).size(), is(5));
+    for (int port : ports) {
+      portReservationService.cancelPort(port);
+    }
+  }
+
+  @Test
+  public void failedBatchReservesNothing() throws Exception {
+    portReservationService = spy(new DefaultPortReservationService());
+    doReturn(6).when(portReservationService).findFreePort();
+    try {
+      portReservationService.reservePorts(2);
+      assertThat("Expected second port to be unavailable", true, is(false));
+    }
+    catch (RuntimeException re) {
+      //expected
+    }
+    assertReservePort(portReservationService, 6);
+  }
+
+  @Test
+  public void heldPortsStayBoundUntilUnbound() throws Exception {
+    portReservationService.setHoldSockets(true);
+    final int port = portReservationService.reservePort();
+    assertThat(canBind(port), is(false));
+    portReservationService.unbindPorts(port);
+    assertThat(canBind(port), is(true));
+    portReservationService.cancelPort(port);
+  }
+
+  @Test
+  public void cancelledHeldPortIsUnbound() throws Exception {
+    portReservationService.setHoldSockets(true);
+    final int port = portReservationService.reservePort();
+    portReservationService.cancelPort(port);
+    assertThat(canBind(port), is(true));
+  }
+
+  @Test
+  public void cancelledPortsRecycledAfterCooldown() throws Exception {
+    final int recycled = freePort();
+    final AtomicLong nanos = new AtomicLong();
+    portReservationService = spy(new DefaultPortReservationService());
+    portReservationService.setTicker(ticker(nanos));
+    portReservationService.setRecycleCooldown(Time.millis(100));
+    doReturn(recycled).doReturn(1).doReturn(2).when(portReservationService).findFreePort();
+
+    assertReservePort(portReservationService, recycled);
+    portReservationService.cancelPort(recycled);
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(99));
+    // still in quarantine
+    assertReservePort(portReservationService, 1);
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    assertReservePort(portReservationService, recycled);
+  }
+
+  @Test
+  public void cancelledPortsThatCannotBeBoundAreNotRecycled() throws Exception {
+    try (ServerSocket taken = new ServerSocket(0)) {
+      final AtomicLong nanos = new AtomicLong();
+      portReservationService = spy(new DefaultPortReservationService());
+      portReservationService.setTicker(ticker(nanos));
+      portReservationService.setRecycleCooldown(Time.millis(1));
+      doReturn(taken.getLocalPort()).doReturn(1).when(portReservationService).findFreePort();
+
+      assertReservePort(portReservationService, taken.getLocalPort());
+      portReservationService.cancelPort(taken.getLocalPort());
+      nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+      assertReservePort(portReservationService, 1);
+    }
+  }
+
+  private static Ticker ticker(final AtomicLong nanos) {
+    return new Ticker()
+    {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    };
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static boolean canBind(final int port) {
+    try (ServerSocket socket = new ServerSocket()) {
+      socket.setReuseAddress(true);
+      socket.bind(new InetSocketAddress(port));
+      return true;
+    }
+    catch (IOException e) {
+      return false;
+    }
+  }
+
   private void assertCannotReservePort() {
     try {
       portReservationService.reservePort();
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+
+package org.sonatype.sisu.bl.support.port.internal;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Tests for {@link SharedPortReservationService}.
+ */
+public class SharedPortReservationServiceTest
+    extends TestSupport
+{
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void portLeasedByAnotherServiceCannotBeReserved() throws Exception {
+    final SharedPortReservationService first = service(40001);
+    final SharedPortReservationService second = service(40001);
+
+    assertThat(first.reservePort(), is(40001));
+    try {
+      second.reservePort();
+      fail("Expected port to be leased");
+    }
+    catch (RuntimeException e) {
+      // expected
+    }
+
+    first.cancelPort(40001);
+    assertThat(second.reservePort(), is(40001));
+    assertThat(Files.toString(new File(temp.getRoot(), "40001.lease"), Charsets.UTF_8).isEmpty(), is(false));
+    second.cancelPort(40001);
+  }
+
+  @Test(timeout = 60000)
+  public void leaseOfDeadProcessIsReclaimed() throws Exception {
+    final File lease = new File(temp.getRoot(), "40002.lease");
+    final Process holder = new ProcessBuilder(
+        new File(System.getProperty("java.home"), "bin/java").getAbsolutePath(),
+        "-cp", System.getProperty("java.class.path"),
+        LeaseHolder.class.getName(), lease.getAbsolutePath()
+    ).redirectErrorStream(true).start();
+    try {
+      final BufferedReader out = new BufferedReader(new InputStreamReader(holder.getInputStream(), Charsets.UTF_8));
+      assertThat(out.readLine(), is(LeaseHolder.LOCKED));
+
+      final SharedPortReservationService service = service(40002);
+      try {
+        service.reservePort();
+        fail("Expected port to be leased by holder process");
+      }
+      catch (RuntimeException e) {
+        // expected
+      }
+
+      holder.destroy();
+      holder.waitFor();
+      assertThat(service.reservePort(), is(40002));
+      assertThat(Files.toString(lease, Charsets.UTF_8).equals(LeaseHolder.PID), is(false));
+      service.cancelPort(40002);
+      assertThat(lease.length(), is(0L));
+    }
+    finally {
+      holder.destroy();
+    }
+  }
+
+  private SharedPortReservationService service(final int port) {
+    final SharedPortReservationService service = spy(new SharedPortReservationService(temp.getRoot()));
+    doReturn(port).when(service).findFreePort();
+    return service;
+  }
+
+  /**
+   * Process holding the lease of a port (file specified as argument) until killed.
+   */
+  public static class LeaseHolder
+  {
+
+    static final String LOCKED = "locked";
+
+    static final String PID = "999999";
+
+    public static void main(final String[] args) throws Exception {
+      final FileChannel channel = FileChannel.open(
+          new File(args[0]).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+      );
+      channel.lock();
+      channel.write(ByteBuffer.wrap(PID.getBytes(Charsets.UTF_8)));
+      System.out.println(LOCKED);
+      System.out.flush();
+      Thread.sleep(Long.MAX_VALUE);
+    }
+
+  }
+
+}
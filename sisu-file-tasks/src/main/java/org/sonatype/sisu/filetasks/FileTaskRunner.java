@@ -12,22 +12,60 @@
  */
 package org.sonatype.sisu.filetasks;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.sonatype.sisu.filetasks.builder.AccessedPaths;
 import org.sonatype.sisu.filetasks.builder.Targetable;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Helper for execution of {@link FileTask}s.
+ * <p/>
+ * Tasks can be applied sequentially, in order, or {@link Target#applyAsync(Collection) asynchronously}, case when
+ * tasks that do not touch same paths run concurrently. Paths touched by a task are the ones declared by its builder
+ * (see {@link AccessedPaths}); tasks not declaring their paths are considered to touch any path. A task is started
+ * only after all tasks before it that touch same paths (one writing what the other reads or writes, where a path
+ * stands for the whole tree below it) finished, so tasks touching same paths still run in order.
  *
  * @since 1.0
  */
 public class FileTaskRunner
 {
 
+    /**
+     * System property key used to enable applying tasks (e.g. bundle overlays) asynchronously by default.
+     *
+     * @since 1.12
+     */
+    public static final String PARALLEL = "sisu.bl.tasks.parallel";
+
+    /**
+     * Whether or not tasks should be applied asynchronously, when not specified otherwise.
+     *
+     * @return true if {@link #PARALLEL} system property is set to true
+     * @since 1.12
+     */
+    public static boolean isParallelByDefault()
+    {
+        return Boolean.getBoolean( PARALLEL );
+    }
+
     /**
      * Ongoing builder for specifying a set of tasks that should be applied over specified directory.
+     * Asynchronously applied tasks are run by a shared pool using one thread per available processor.
      *
      * @param directory to which {@link FileTask}s should be applied
      * @return ongoing builder
@@ -35,6 +73,20 @@ public class FileTaskRunner
      */
     public static Target onDirectory( final File directory )
     {
+        return onDirectory( directory, SharedExecutor.INSTANCE );
+    }
+
+    /**
+     * Ongoing builder for specifying a set of tasks that should be applied over specified directory.
+     *
+     * @param directory to which {@link FileTask}s should be applied
+     * @param executor  running asynchronously applied tasks
+     * @return ongoing builder
+     * @since 1.12
+     */
+    public static Target onDirectory( final File directory, final Executor executor )
+    {
+        checkNotNull( executor );
         return new Target()
         {
 
@@ -54,18 +106,182 @@ public class FileTaskRunner
                 {
                     for ( FileTask task : tasks )
                     {
-                        if ( task instanceof Targetable )
-                        {
-                            ( (Targetable) task ).setTargetDirectory( directory );
-                        }
+                        retarget( task );
                         task.run();
                     }
                 }
             }
 
+            @Override
+            public CompletableFuture<Void> applyAsync( final Collection<FileTask> tasks )
+            {
+                if ( tasks == null || tasks.isEmpty() )
+                {
+                    return CompletableFuture.completedFuture( null );
+                }
+                final List<FileTask> ordered = new ArrayList<FileTask>( tasks );
+                // paths are known only after re-targeting, so re-target all up front
+                for ( FileTask task : ordered )
+                {
+                    retarget( task );
+                }
+                return schedule( ordered, executor );
+            }
+
+            private void retarget( final FileTask task )
+            {
+                if ( task instanceof Targetable )
+                {
+                    ( (Targetable) task ).setTargetDirectory( directory );
+                }
+            }
+
         };
     }
 
+    /**
+     * Schedules each task to run after all tasks before it touching same paths.
+     *
+     * @return future completing when all tasks finished, exceptionally with failure of first failed task (in order)
+     */
+    private static CompletableFuture<Void> schedule( final List<FileTask> tasks, final Executor executor )
+    {
+        final List<Paths> paths = new ArrayList<Paths>( tasks.size() );
+        final List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>( tasks.size() );
+        for ( final FileTask task : tasks )
+        {
+            final Paths taskPaths = Paths.of( task );
+            final List<CompletableFuture<Void>> dependencies = new ArrayList<CompletableFuture<Void>>();
+            for ( int i = 0; i < paths.size(); i++ )
+            {
+                if ( taskPaths.conflictsWith( paths.get( i ) ) )
+                {
+                    dependencies.add( futures.get( i ) );
+                }
+            }
+            paths.add( taskPaths );
+            // a task depending on a failed task does not run (completes exceptionally with same failure)
+            futures.add( allOf( dependencies ).thenRunAsync( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    task.run();
+                }
+            }, executor ) );
+        }
+        return allOf( futures ).handle( new BiFunction<Void, Throwable, Void>()
+        {
+            @Override
+            public Void apply( final Void result, final Throwable failure )
+            {
+                if ( failure == null )
+                {
+                    return null;
+                }
+                // dependencies come before dependants, so first failed task failed on its own
+                for ( final CompletableFuture<Void> future : futures )
+                {
+                    if ( future.isCompletedExceptionally() )
+                    {
+                        future.join();
+                    }
+                }
+                throw failure instanceof CompletionException
+                    ? (CompletionException) failure
+                    : new CompletionException( failure );
+            }
+        } );
+    }
+
+    private static CompletableFuture<Void> allOf( final List<CompletableFuture<Void>> futures )
+    {
+        return CompletableFuture.allOf( futures.toArray( new CompletableFuture<?>[futures.size()] ) );
+    }
+
+    /**
+     * Normalized paths read/written by a task. Null paths mean any path.
+     */
+    private static class Paths
+    {
+
+        private final Collection<Path> read;
+
+        private final Collection<Path> written;
+
+        private Paths( final Collection<File> read, final Collection<File> written )
+        {
+            this.read = normalize( read );
+            this.written = normalize( written );
+        }
+
+        private static Paths of( final FileTask task )
+        {
+            if ( task instanceof AccessedPaths )
+            {
+                final AccessedPaths accessed = (AccessedPaths) task;
+                return new Paths( accessed.getReadPaths(), accessed.getWrittenPaths() );
+            }
+            return new Paths( null, null );
+        }
+
+        private boolean conflictsWith( final Paths paths )
+        {
+            return overlap( written, paths.read ) || overlap( written, paths.written ) || overlap( read, paths.written );
+        }
+
+        private static boolean overlap( final Collection<Path> paths, final Collection<Path> otherPaths )
+        {
+            if ( paths == null )
+            {
+                return otherPaths == null || !otherPaths.isEmpty();
+            }
+            if ( otherPaths == null )
+            {
+                return !paths.isEmpty();
+            }
+            for ( final Path path : paths )
+            {
+                for ( final Path otherPath : otherPaths )
+                {
+                    if ( path.startsWith( otherPath ) || otherPath.startsWith( path ) )
+                    {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static Collection<Path> normalize( final Collection<File> files )
+        {
+            if ( files == null )
+            {
+                return null;
+            }
+            final Collection<Path> paths = new ArrayList<Path>( files.size() );
+            for ( final File file : files )
+            {
+                paths.add( file.getAbsoluteFile().toPath().normalize() );
+            }
+            return paths;
+        }
+
+    }
+
+    /**
+     * Lazily created pool running asynchronously applied tasks, using daemon threads so it never prevents JVM exit.
+     */
+    private static class SharedExecutor
+    {
+
+        private static final Executor INSTANCE = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat( "file-tasks-%d" ).setDaemon( true ).build()
+        );
+
+    }
+
     /**
      * Target set of {@link FileTask}s.
      *
@@ -90,6 +306,45 @@ public class FileTaskRunner
          */
         void apply( Collection<FileTask> tasks );
 
+        /**
+         * Executes the specified tasks asynchronously, running tasks that do not touch same paths concurrently.
+         *
+         * @param tasks to be executed
+         * @return future completing when all tasks finished
+         * @since 1.12
+         */
+        default CompletableFuture<Void> applyAsync( FileTask... tasks )
+        {
+            return applyAsync( tasks == null ? null : Arrays.asList( tasks ) );
+        }
+
+        /**
+         * Executes the specified tasks asynchronously, running tasks that do not touch same paths concurrently.
+         * Tasks touching same paths run in specified order. If a task fails, tasks depending on it are not run while
+         * the others run to completion, and returned future completes exceptionally with failure of first failed task.
+         * <p/>
+         * By default (for implementations predating asynchronous execution) tasks are executed sequentially, via
+         * {@link #apply(Collection)}, and an already completed future is returned.
+         *
+         * @param tasks to be executed
+         * @return future completing when all tasks finished
+         * @since 1.12
+         */
+        default CompletableFuture<Void> applyAsync( Collection<FileTask> tasks )
+        {
+            final CompletableFuture<Void> future = new CompletableFuture<Void>();
+            try
+            {
+                apply( tasks );
+                future.complete( null );
+            }
+            catch ( Throwable e )
+            {
+                future.completeExceptionally( e );
+            }
+            return future;
+        }
+
     }
 
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.builder;
+
+import java.io.File;
+import java.util.Collection;
+
+/**
+ * Implemented by builders that can tell which paths the task they build reads and writes, so tasks that do not
+ * touch same paths can be run concurrently.
+ * <p/>
+ * A path stands for the whole tree below it. Paths are only meaningful once builder was
+ * {@link Targetable#setTargetDirectory(File) re-targeted}.
+ *
+ * @since 1.12
+ */
+public interface AccessedPaths
+{
+
+    /**
+     * Returns the paths read (but not modified) by task.
+     *
+     * @return read paths, or null if task may read any path
+     * @since 1.12
+     */
+    Collection<File> getReadPaths();
+
+    /**
+     * Returns the paths created, modified or deleted by task.
+     *
+     * @return written paths, or null if task may write any path
+     * @since 1.12
+     */
+    Collection<File> getWrittenPaths();
+
+}
@@ -57,6 +57,15 @@ public interface CopyDirectoryBuilder
      */
     CopyDirectoryBuilder excludeEmptyDirectories();
 
+    /**
+     * Copy directory via {@link org.sonatype.sisu.filetasks.support.ParallelCopier} (NIO, in parallel) instead of
+     * ANT, unless files are filtered.
+     *
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    CopyDirectoryBuilder useParallelCopy();
+
     /**
      * Ongoing destination builder.
      *
@@ -102,4 +102,14 @@ public interface CopySettingsBuilder<B extends CopySettingsBuilder>
      */
     B doNotFailIfSourceDoesNotExist();
 
+    /**
+     * Hard link files to source files instead of copying them, when supported by file system. Filtered files are
+     * always copied. Linked files share content and permissions with source files, so should only be modified via
+     * file tasks (which replace them with a copy first).
+     *
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    B useHardLinks();
+
 }
@@ -73,4 +73,20 @@ public interface DeleteDirectoryBuilder
      */
     DeleteDirectoryBuilder doNotFailIfNotPresent( );
 
+    /**
+     * Specifies that directory should be deleted via NIO, in parallel.
+     *
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    DeleteDirectoryBuilder useParallelDelete();
+
+    /**
+     * Specifies that directory should be moved to trash and deleted in background, when whole directory is deleted.
+     *
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    DeleteDirectoryBuilder useTrash();
+
 }
@@ -66,6 +66,34 @@ public interface ExpandBuilder
      */
     ExpandBuilder exclude( String pattern );
 
+    /**
+     * Specifies that archive should be expanded only once into the machine wide archive cache and target directory
+     * populated from there.
+     *
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    ExpandBuilder useCache();
+
+    /**
+     * Specifies that archive should be expanded via the machine wide archive cache and target directory populated by
+     * hard linking the cached files, when supported by file system. Expanded files then share content and permissions
+     * with the cache entry (used by other expansions too), so should only be modified via file tasks.
+     *
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    ExpandBuilder useHardLinks();
+
+    /**
+     * Specifies that archive should be expanded in parallel instead of via ANT: entries of ZIP archives are inflated
+     * in parallel, entries of tar archives are decompressed on one thread and written by others.
+     *
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    ExpandBuilder useParallelExpand();
+
     /**
      * Ongoing destination builder.
      *
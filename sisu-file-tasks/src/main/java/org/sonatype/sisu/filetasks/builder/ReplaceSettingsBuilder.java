@@ -47,4 +47,12 @@ public interface ReplaceSettingsBuilder<B extends ReplaceSettingsBuilder>
      */
     B doNotFailIfNoReplacementWasMade();
 
+    /**
+     * Specifies that tokens should be replaced natively, in one pass per file and in parallel.
+     *
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    B useParallelReplace();
+
 }
@@ -13,6 +13,7 @@
 package org.sonatype.sisu.filetasks.builder.internal;
 
 import org.sonatype.sisu.filetasks.FileTask;
+import org.sonatype.sisu.filetasks.builder.AccessedPaths;
 import org.sonatype.sisu.filetasks.builder.FileRef;
 import org.sonatype.sisu.filetasks.builder.Targetable;
 
@@ -26,7 +27,7 @@ import java.util.Collection;
  * @since 1.0
  */
 public abstract class BuilderImpl
-    implements FileTask, Targetable
+    implements FileTask, Targetable, AccessedPaths
 {
 
     /**
@@ -83,11 +84,62 @@ public abstract class BuilderImpl
         {
             if ( retargetable.fileRef != null )
             {
-                retargetable.retargetAs( retargetable.fileRef.retarget( targetDirectory ).getFile() );
+                retargetable.retarget( retargetable.fileRef.retarget( targetDirectory ).getFile() );
             }
         }
     }
 
+    /**
+     * Returns files of re-target-ables that are only read.
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public Collection<File> getReadPaths()
+    {
+        return accessesUndeclaredPaths() ? null : paths( Access.READ );
+    }
+
+    /**
+     * Returns files of re-target-ables that are written.
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public Collection<File> getWrittenPaths()
+    {
+        return accessesUndeclaredPaths() ? null : paths( Access.WRITE );
+    }
+
+    /**
+     * Whether or not task accesses paths besides the ones of its re-target-ables (e.g. runs an external process), case
+     * when it can read and write any path.
+     *
+     * @return false, by default
+     * @since 1.12
+     */
+    boolean accessesUndeclaredPaths()
+    {
+        return false;
+    }
+
+    private Collection<File> paths( final Access access )
+    {
+        final Collection<File> paths = new ArrayList<File>();
+        for ( Retargetable retargetable : retargetables )
+        {
+            if ( retargetable.access == access && retargetable.file != null )
+            {
+                paths.add( retargetable.file );
+            }
+        }
+        return paths;
+    }
+
     /**
      * Returns the builder specific task to be run.
      *
@@ -95,6 +147,24 @@ public abstract class BuilderImpl
      */
     abstract FileTask task();
 
+    /**
+     * How a task accesses a re-target-able file.
+     *
+     * @since 1.12
+     */
+    static enum Access
+    {
+        /**
+         * File is only read.
+         */
+        READ,
+
+        /**
+         * File is created, modified or deleted.
+         */
+        WRITE
+    }
+
     /**
      * A re-target-able file reference callback.
      *
@@ -103,11 +173,40 @@ public abstract class BuilderImpl
     static abstract class Retargetable
     {
 
+        /**
+         * How referenced file is accessed.
+         */
+        private final Access access;
+
         /**
          * Re-target-able file reference.
          */
         private FileRef fileRef;
 
+        /**
+         * Currently referenced file (after re-targeting took place), null if not set.
+         */
+        private File file;
+
+        /**
+         * Constructor for a file that is written.
+         */
+        Retargetable()
+        {
+            this( Access.WRITE );
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param access how referenced file is accessed
+         * @since 1.12
+         */
+        Retargetable( final Access access )
+        {
+            this.access = access;
+        }
+
         /**
          * File reference setter.
          *
@@ -116,7 +215,13 @@ public abstract class BuilderImpl
         void setFileRef( FileRef fileRef )
         {
             this.fileRef = fileRef;
-            retargetAs( this.fileRef.getFile() );
+            retarget( this.fileRef.getFile() );
+        }
+
+        private void retarget( final File file )
+        {
+            this.file = file;
+            retargetAs( file );
         }
 
         /**
@@ -51,7 +51,7 @@ class CopyDirectoryBuilderImpl
     CopyDirectoryBuilderImpl( final CopyDirectoryTask task )
     {
         super( task );
-        from = addRetargetable( new Retargetable()
+        from = addRetargetable( new Retargetable( Access.READ )
         {
             @Override
             void retargetAs( final File file )
@@ -133,6 +133,18 @@ class CopyDirectoryBuilderImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public CopyDirectoryBuilderImpl useParallelCopy()
+    {
+        task().setUseParallelCopy( true );
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      *
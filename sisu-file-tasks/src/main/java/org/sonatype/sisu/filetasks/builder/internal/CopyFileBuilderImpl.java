@@ -56,7 +56,7 @@ class CopyFileBuilderImpl
     CopyFileBuilderImpl( final CopyFileTask task )
     {
         super( task );
-        from = addRetargetable( new Retargetable()
+        from = addRetargetable( new Retargetable( Access.READ )
         {
             @Override
             void retargetAs( final File file )
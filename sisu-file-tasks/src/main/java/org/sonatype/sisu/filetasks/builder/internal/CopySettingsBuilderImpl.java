@@ -101,6 +101,13 @@ abstract class CopySettingsBuilderImpl<BI extends CopySettingsBuilder, CS extend
         return (BI) this;
     }
 
+    @Override
+    public BI useHardLinks()
+    {
+        task().setUseHardLinks( true );
+        return (BI) this;
+    }
+
     CS task()
     {
         return task;
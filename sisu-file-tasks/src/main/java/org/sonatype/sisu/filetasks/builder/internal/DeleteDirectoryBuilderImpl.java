@@ -147,6 +147,30 @@ class DeleteDirectoryBuilderImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public DeleteDirectoryBuilderImpl useParallelDelete()
+    {
+        task().setUseParallelDelete( true );
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public DeleteDirectoryBuilderImpl useTrash()
+    {
+        task().setUseTrash( true );
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      *
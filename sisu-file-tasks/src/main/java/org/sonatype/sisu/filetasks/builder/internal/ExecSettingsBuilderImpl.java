@@ -171,4 +171,17 @@ abstract class ExecSettingsBuilderImpl<ESB extends ExecSettingsBuilder, ES exten
         return task;
     }
 
+    /**
+     * An external process can read and write any path.
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    boolean accessesUndeclaredPaths()
+    {
+        return true;
+    }
+
 }
@@ -56,7 +56,7 @@ public class ExpandBuilderImpl
     ExpandBuilderImpl( final ExpandTask task )
     {
         this.task = task;
-        archive = addRetargetable( new Retargetable()
+        archive = addRetargetable( new Retargetable( Access.READ )
         {
             @Override
             void retargetAs( final File file )
@@ -140,6 +140,42 @@ public class ExpandBuilderImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public ExpandBuilderImpl useCache()
+    {
+        task().setUseCache( true );
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public ExpandBuilderImpl useHardLinks()
+    {
+        task().setUseHardLinks( true );
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public ExpandBuilderImpl useParallelExpand()
+    {
+        task().setUseParallelExpand( true );
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -57,6 +57,13 @@ abstract class ReplaceSettingsBuilderImpl<RSB extends ReplaceSettingsBuilder, RS
         return (RSB) this;
     }
 
+    @Override
+    public RSB useParallelReplace()
+    {
+        task().setUseParallelReplace( true );
+        return (RSB) this;
+    }
+
     RS task()
     {
         return task;
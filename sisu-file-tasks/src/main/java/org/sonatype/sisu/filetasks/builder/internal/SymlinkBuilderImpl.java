@@ -56,7 +56,7 @@ public class SymlinkBuilderImpl
     SymlinkBuilderImpl( final SymlinkTask task )
     {
         this.task = task;
-        source = addRetargetable( new Retargetable()
+        source = addRetargetable( new Retargetable( Access.READ )
         {
             @Override
             void retargetAs( final File file )
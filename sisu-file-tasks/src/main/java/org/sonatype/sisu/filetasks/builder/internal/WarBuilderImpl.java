@@ -88,6 +88,19 @@ public class WarBuilderImpl
         return task;
     }
 
+    /**
+     * Added libraries/classes/resources are not re-target-able.
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    boolean accessesUndeclaredPaths()
+    {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -20,24 +20,59 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Singleton;
 import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Utility for using ANT tasks.
+ * <p/>
+ * ANT projects are not thread safe (properties, references, filters), so each task execution gets its own project:
+ * projects are pooled and handed out via {@link #acquireProject()} / {@link #releaseProject(Project)}. Projects are
+ * initialized cheaply, by sharing the task/type definitions of a template project that is fully initialized once. A
+ * released project that got modified by the tasks it ran (property values, references or filters) is discarded instead
+ * of being reused.
  *
  * @since 1.0
  */
 @Named
+@Singleton
 public class AntHelper
 {
 
     /**
-     * ANT instance.
+     * Maximum number of idle projects kept in pool.
+     */
+    private static final int MAX_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * Fully initialized ANT project, whose definitions are shared by all projects handed out.
+     * Never null.
+     */
+    private final Project template;
+
+    /**
+     * Logger adapter shared by all projects.
+     * Never null.
+     */
+    private final Slf4jAntLoggerAdapter antLogger;
+
+    /**
+     * Idle projects.
      * Never null.
      */
-    private final Project ant;
+    private final Queue<Project> idle;
+
+    /**
+     * Number of idle projects (as size of a concurrent queue is not constant time).
+     */
+    private final AtomicInteger idleCount;
 
     /**
      * (eventually) injected logger.
@@ -53,13 +88,19 @@ public class AntHelper
     @Inject
     AntHelper()
     {
-        ant = new Project();
-        initAntLogger( logger, ant );
-        ant.init();
+        antLogger = createAntLogger( logger );
+        template = new Project();
+        template.addBuildListener( antLogger );
+        template.init();
+        idle = new ConcurrentLinkedQueue<Project>();
+        idleCount = new AtomicInteger();
     }
 
     /**
-     * Creates and basically configures an ANT task by type.
+     * Creates and basically configures an ANT task by type, bound to a project of its own.
+     * <p/>
+     * Project is taken from pool (see {@link #acquireProject()}) but never returned to it, as task is used by caller
+     * for an unknown time (e.g. an exec task spawning a process).
      *
      * @param type type of ANT task to be created
      * @param <T>  task type
@@ -67,13 +108,28 @@ public class AntHelper
      * @since 1.0
      */
     public <T extends ProjectComponent> T createTask( final Class<T> type )
+    {
+        return createTask( type, acquireProject() );
+    }
+
+    /**
+     * Creates and basically configures an ANT task by type, bound to specified project.
+     *
+     * @param type    type of ANT task to be created
+     * @param project project task belongs to (see {@link #acquireProject()})
+     * @param <T>     task type
+     * @return created ANT task
+     * @since 1.12
+     */
+    public <T extends ProjectComponent> T createTask( final Class<T> type, final Project project )
     {
         checkNotNull( type );
+        checkNotNull( project );
 
         try
         {
             T task = type.newInstance();
-            task.setProject( ant );
+            task.setProject( project );
             return task;
         }
         catch ( Exception e )
@@ -82,16 +138,70 @@ public class AntHelper
         }
     }
 
+    /**
+     * Acquires a project for exclusive use of calling thread, until released via {@link #releaseProject(Project)}.
+     *
+     * @return an idle project from pool, or a new project if pool is empty
+     * @since 1.12
+     */
+    public Project acquireProject()
+    {
+        final Project project = idle.poll();
+        if ( project != null )
+        {
+            idleCount.decrementAndGet();
+            return project;
+        }
+        return newProject();
+    }
+
+    /**
+     * Returns a project acquired via {@link #acquireProject()} to pool. Project must not be used afterwards.
+     *
+     * @param project to release
+     * @since 1.12
+     */
+    public void releaseProject( final Project project )
+    {
+        if ( !( checkNotNull( project ) instanceof PooledProject ) || !( (PooledProject) project ).isPristine() )
+        {
+            return;
+        }
+        if ( idleCount.incrementAndGet() <= MAX_IDLE )
+        {
+            idle.offer( project );
+        }
+        else
+        {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Creates a new project, sharing the definitions of template project.
+     */
+    private Project newProject()
+    {
+        final PooledProject project = new PooledProject();
+        project.addBuildListener( antLogger );
+        synchronized ( template )
+        {
+            template.initSubProject( project );
+        }
+        project.initProperties();
+        project.snapshot();
+        return project;
+    }
+
     /**
      * Proxies ANT logger to SLF4J logger.
      *
      * @param logger SLF4J logger
-     * @param ant    ANT
+     * @return ANT logger
      */
-    private void initAntLogger( final Logger logger, final Project ant )
+    private static Slf4jAntLoggerAdapter createAntLogger( final Logger logger )
     {
         checkNotNull( logger );
-        checkNotNull( ant );
 
         Slf4jAntLoggerAdapter antLogger = new Slf4jAntLoggerAdapter( logger );
 
@@ -108,7 +218,67 @@ public class AntHelper
             antLogger.setMessageOutputLevel( Project.MSG_INFO );
         }
 
-        ant.addBuildListener( antLogger );
+        return antLogger;
+    }
+
+    /**
+     * Project that remembers its state after initialization, to tell if tasks it ran modified it.
+     */
+    private static class PooledProject
+        extends Project
+    {
+
+        /**
+         * Properties after initialization.
+         */
+        private Map<?, ?> properties;
+
+        /**
+         * User properties after initialization.
+         */
+        private Map<?, ?> userProperties;
+
+        /**
+         * References after initialization.
+         */
+        private Map<?, ?> references;
+
+        private void snapshot()
+        {
+            // properties are returned as copies
+            properties = getProperties();
+            userProperties = getUserProperties();
+            references = new HashMap<Object, Object>( getReferences() );
+        }
+
+        /**
+         * Whether or not project was not modified by tasks it ran (same property values, same reference instances and
+         * no filters), so it can be reused.
+         */
+        private boolean isPristine()
+        {
+            if ( getGlobalFilterSet().hasFilters()
+                || !properties.equals( getProperties() )
+                || !userProperties.equals( getUserProperties() ) )
+            {
+                return false;
+            }
+            final Map<?, ?> current = getReferences();
+            if ( current.size() != references.size() )
+            {
+                return false;
+            }
+            // iterate entries, as get() resolves lazily defined references
+            for ( Map.Entry<?, ?> entry : current.entrySet() )
+            {
+                if ( references.get( entry.getKey() ) != entry.getValue() )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
     }
 
     /**
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * Machine wide cache of expanded archives.
+ * <p/>
+ * Each archive is expanded once per distinct content (checksum) and expansion variant (include/exclude patterns,
+ * directories to cut) into a pristine directory, which is then used to populate target directories. Expansion of a
+ * cache entry is guarded by a file lock, so concurrent processes sharing the cache directory expand an archive only
+ * once. Cache entries are never modified after being created.
+ * <p/>
+ * Staging directories left over by an expansion that failed or by a process that died while expanding are deleted
+ * (under the lock) by next expansion of same entry, and the lock file is deleted once the entry exists.
+ *
+ * @since 1.12
+ */
+@Named
+@Singleton
+public class ArchiveCache
+{
+
+    /**
+     * System property key used to configure cache directory.
+     */
+    public static final String DIRECTORY = "sisu.bl.cache.directory";
+
+    private static final Logger log = LoggerFactory.getLogger( ArchiveCache.class );
+
+    /**
+     * Directory containing cache entries.
+     * Never null.
+     */
+    private final File directory;
+
+    /**
+     * Checksums of already hashed archives, keyed by path, size and last modified time.
+     * Never null.
+     */
+    private final ConcurrentMap<String, HashCode> checksums;
+
+    /**
+     * In-process locks per cache entry (file locks are held on behalf of the whole JVM).
+     * Never null.
+     */
+    private final ConcurrentMap<String, Object> locks;
+
+    /**
+     * Constructor. Uses the directory specified by {@link #DIRECTORY} system property or {@code ~/.cache/sisu-bl}.
+     *
+     * @since 1.12
+     */
+    @Inject
+    public ArchiveCache()
+    {
+        this( new File(
+            System.getProperty(
+                DIRECTORY, new File( System.getProperty( "user.home" ), ".cache/sisu-bl" ).getAbsolutePath()
+            )
+        ) );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param directory directory containing cache entries
+     * @since 1.12
+     */
+    public ArchiveCache( final File directory )
+    {
+        this.directory = checkNotNull( directory );
+        this.checksums = new ConcurrentHashMap<String, HashCode>();
+        this.locks = new ConcurrentHashMap<String, Object>();
+    }
+
+    /**
+     * Returns the directory containing cache entries.
+     *
+     * @return cache directory. Never null.
+     * @since 1.12
+     */
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * Returns the pristine expanded directory of an archive, expanding it if not already cached.
+     *
+     * @param archive  archive to be expanded
+     * @param variant  description of how archive is expanded (patterns, directories to cut), part of cache key
+     * @param expander callback used to expand the archive into a directory, when not already cached
+     * @return directory containing the expanded archive. Must not be modified.
+     * @since 1.12
+     */
+    public File get( final File archive, final String variant, final Expander expander )
+    {
+        checkNotNull( archive );
+        checkNotNull( variant );
+        checkNotNull( expander );
+
+        final String key = Hashing.sha1().newHasher()
+            .putBytes( checksum( archive ).asBytes() )
+            .putString( variant, Charsets.UTF_8 )
+            .hash().toString();
+        final File entry = new File( directory, key );
+        if ( entry.isDirectory() )
+        {
+            log.debug( "Using cached expansion of {} from {}", archive, entry );
+            return entry;
+        }
+
+        Object lock = locks.get( key );
+        if ( lock == null )
+        {
+            final Object newLock = new Object();
+            lock = locks.putIfAbsent( key, newLock );
+            if ( lock == null )
+            {
+                lock = newLock;
+            }
+        }
+
+        synchronized ( lock )
+        {
+            try
+            {
+                Files.createDirectories( directory.toPath() );
+                try (RandomAccessFile lockFile = new RandomAccessFile( new File( directory, key + ".lock" ), "rw" );
+                     FileChannel channel = lockFile.getChannel();
+                     FileLock ignored = channel.lock())
+                {
+                    // another process could have expanded it while we were waiting for the lock
+                    if ( !entry.isDirectory() )
+                    {
+                        deleteStaleStaging( key );
+                        final File temp = new File( directory, key + "." + UUID.randomUUID() + ".tmp" );
+                        log.debug( "Expanding {} into cache {}", archive, entry );
+                        try
+                        {
+                            expander.expandTo( temp );
+                            Files.createDirectories( temp.toPath() );
+                            Files.move( temp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE );
+                        }
+                        finally
+                        {
+                            if ( temp.exists() )
+                            {
+                                delete( temp.toPath() );
+                            }
+                        }
+                    }
+                    // safe to delete as lock holders only expand when entry does not exist, and entries are never
+                    // deleted
+                    deleteQuietly( new File( directory, key + ".lock" ).toPath() );
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( "Could not cache expanded archive " + archive, e );
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Populates target directory with the content of a cache entry, by copying the files.
+     *
+     * @param entry          cache entry directory, as returned by {@link #get(File, String, Expander)}
+     * @param target         directory to be populated
+     * @param overwriteNewer whether or not files that are newer in target directory should be overwritten
+     * @since 1.12
+     */
+    public void materialize( final File entry, final File target, final boolean overwriteNewer )
+    {
+        materialize( entry, target, overwriteNewer, false );
+    }
+
+    /**
+     * Populates target directory with the content of a cache entry, by hard linking the files (falling back to copying
+     * them when file system does not support hard links) or by copying them.
+     *
+     * @param entry          cache entry directory, as returned by {@link #get(File, String, Expander)}
+     * @param target         directory to be populated
+     * @param overwriteNewer whether or not files that are newer in target directory should be overwritten
+     * @param link           whether or not files should be hard linked (see {@link HardLinks})
+     * @since 1.12
+     */
+    public void materialize( final File entry, final File target, final boolean overwriteNewer, final boolean link )
+    {
+        final Path from = checkNotNull( entry ).toPath();
+        final Path to = checkNotNull( target ).toPath();
+        if ( link )
+        {
+            HardLinks.register( target );
+        }
+        try
+        {
+            Files.walkFileTree( from, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory( final Path dir, final BasicFileAttributes attrs )
+                    throws IOException
+                {
+                    Files.createDirectories( to.resolve( from.relativize( dir ) ) );
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile( final Path file, final BasicFileAttributes attrs )
+                    throws IOException
+                {
+                    final Path targetFile = to.resolve( from.relativize( file ) );
+                    if ( overwriteNewer || !Files.exists( targetFile )
+                        || Files.getLastModifiedTime( targetFile ).compareTo( attrs.lastModifiedTime() ) < 0 )
+                    {
+                        if ( !link || !HardLinks.link( file, targetFile ) )
+                        {
+                            Files.copy(
+                                file, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES
+                            );
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            } );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Could not copy " + entry + " to " + target, e );
+        }
+    }
+
+    /**
+     * Calculates (and remembers) the checksum of an archive.
+     *
+     * @param archive to calculate checksum for
+     * @return archive checksum
+     */
+    private HashCode checksum( final File archive )
+    {
+        final String key = archive.getAbsolutePath() + "|" + archive.length() + "|" + archive.lastModified();
+        HashCode checksum = checksums.get( key );
+        if ( checksum == null )
+        {
+            try
+            {
+                checksum = com.google.common.io.Files.hash( archive, Hashing.sha1() );
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( "Could not calculate checksum of " + archive, e );
+            }
+            checksums.put( key, checksum );
+        }
+        return checksum;
+    }
+
+    /**
+     * Deletes staging directories of an entry. Must be called while holding the lock of the entry, as then no other
+     * process or thread can be expanding it, so any staging directory is stale.
+     */
+    private void deleteStaleStaging( final String key )
+    {
+        final File[] stale = directory.listFiles( new FilenameFilter()
+        {
+            @Override
+            public boolean accept( final File dir, final String name )
+            {
+                return name.startsWith( key + "." ) && name.endsWith( ".tmp" );
+            }
+        } );
+        if ( stale != null )
+        {
+            for ( final File temp : stale )
+            {
+                log.debug( "Deleting stale cache staging directory {}", temp );
+                try
+                {
+                    delete( temp.toPath() );
+                }
+                catch ( IOException e )
+                {
+                    log.warn( "Could not delete stale cache staging directory {}", temp, e );
+                }
+            }
+        }
+    }
+
+    private static void deleteQuietly( final Path path )
+    {
+        try
+        {
+            Files.deleteIfExists( path );
+        }
+        catch ( IOException e )
+        {
+            // e.g. on Windows, where a file cannot be deleted while open
+            log.debug( "Could not delete {}: {}", path, e.toString() );
+        }
+    }
+
+    private static void delete( final Path path )
+        throws IOException
+    {
+        Files.walkFileTree( path, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile( final Path file, final BasicFileAttributes attrs )
+                throws IOException
+            {
+                Files.delete( file );
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory( final Path dir, final IOException exc )
+                throws IOException
+            {
+                Files.delete( dir );
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+    }
+
+    /**
+     * Callback used to expand an archive into a directory, when archive is not already cached.
+     *
+     * @since 1.12
+     */
+    public static interface Expander
+    {
+
+        /**
+         * Expands the archive into specified directory.
+         *
+         * @param directory where archive should be expanded
+         * @since 1.12
+         */
+        void expandTo( File directory );
+
+    }
+
+}
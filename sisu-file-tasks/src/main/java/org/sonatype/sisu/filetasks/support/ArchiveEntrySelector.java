@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+/**
+ * Selects and maps archive entries the same way as ANT expand/untar tasks: patterns are ANT patterns matched against
+ * entry names (no default excludes) before cutting directories, a trailing separator in a pattern matches everything
+ * below and leading slashes of entry names are stripped. Unlike ANT, entries that would be written outside target
+ * directory are rejected.
+ *
+ * @since 1.12
+ */
+final class ArchiveEntrySelector
+{
+
+    private final Path target;
+
+    private final String[] includes;
+
+    private final String[] excludes;
+
+    private final int directoriesToCut;
+
+    /**
+     * @param target           directory archive is expanded to
+     * @param includes         ANT style patterns of entries to be expanded. If empty all entries are included.
+     * @param excludes         ANT style patterns of entries not to be expanded
+     * @param directoriesToCut number of leading directories to cut from entry names
+     */
+    ArchiveEntrySelector( final File target,
+                          final Collection<String> includes,
+                          final Collection<String> excludes,
+                          final int directoriesToCut )
+    {
+        this.target = checkNotNull( target ).toPath().toAbsolutePath().normalize();
+        this.includes = normalize( checkNotNull( includes ) );
+        this.excludes = normalize( checkNotNull( excludes ) );
+        this.directoriesToCut = directoriesToCut;
+    }
+
+    /**
+     * @return directory archive is expanded to (absolute and normalized)
+     */
+    Path target()
+    {
+        return target;
+    }
+
+    /**
+     * Maps an entry to the path it should be expanded to.
+     *
+     * @param entryName name of archive entry
+     * @return path entry should be expanded to, null if entry should not be expanded
+     * @throws IOException if entry would be expanded outside of target directory
+     */
+    Path map( final String entryName )
+        throws IOException
+    {
+        final String name = stripLeadingSlashes( entryName );
+        if ( !isSelected( name ) )
+        {
+            return null;
+        }
+        final String mapped = cut( name );
+        if ( mapped == null )
+        {
+            return null;
+        }
+        final Path path = target.resolve( mapped ).normalize();
+        if ( !path.startsWith( target ) )
+        {
+            throw new IOException( "Entry " + entryName + " is outside of target directory" );
+        }
+        return path;
+    }
+
+    private boolean isSelected( final String name )
+    {
+        final String path = name.replace( '/', File.separatorChar ).replace( '\\', File.separatorChar );
+        boolean included = includes.length == 0;
+        for ( final String include : includes )
+        {
+            if ( SelectorUtils.matchPath( include, path ) )
+            {
+                included = true;
+                break;
+            }
+        }
+        if ( included )
+        {
+            for ( final String exclude : excludes )
+            {
+                if ( SelectorUtils.matchPath( exclude, path ) )
+                {
+                    return false;
+                }
+            }
+        }
+        return included;
+    }
+
+    /**
+     * @return name without first directories, null if name does not have more elements than directories to cut
+     */
+    private String cut( final String name )
+    {
+        String remaining = name.replace( '\\', '/' );
+        for ( int i = 0; i < directoriesToCut; i++ )
+        {
+            final int slash = remaining.indexOf( '/' );
+            if ( slash < 0 )
+            {
+                return null;
+            }
+            remaining = remaining.substring( slash + 1 );
+        }
+        return remaining.isEmpty() ? null : remaining;
+    }
+
+    /**
+     * Normalizes ANT patterns the same way ANT expand task does: uses platform separator and a trailing separator
+     * matches everything below.
+     */
+    private static String[] normalize( final Collection<String> patterns )
+    {
+        final String[] normalized = new String[patterns.size()];
+        int i = 0;
+        for ( final String pattern : patterns )
+        {
+            String p = pattern.replace( '/', File.separatorChar ).replace( '\\', File.separatorChar );
+            if ( p.endsWith( File.separator ) )
+            {
+                p += SelectorUtils.DEEP_TREE_MATCH;
+            }
+            normalized[i++] = p;
+        }
+        return normalized;
+    }
+
+    private static String stripLeadingSlashes( final String name )
+    {
+        int i = 0;
+        while ( i < name.length() && ( name.charAt( i ) == '/' || name.charAt( i ) == '\\' ) )
+        {
+            i++;
+        }
+        return name.substring( i );
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Format of an archive, detected from its content (magic bytes).
+ *
+ * @since 1.12
+ */
+public enum ArchiveFormat
+{
+
+    /**
+     * ZIP archive (zip, jar, war).
+     */
+    ZIP,
+
+    /**
+     * Uncompressed tar archive.
+     */
+    TAR,
+
+    /**
+     * Gzip compressed tar archive.
+     */
+    TAR_GZIP,
+
+    /**
+     * Bzip2 compressed tar archive.
+     */
+    TAR_BZIP2;
+
+    /**
+     * Offset of "ustar" magic in a tar header.
+     */
+    private static final int TAR_MAGIC_OFFSET = 257;
+
+    /**
+     * @return true if archive is a (compressed) tar archive
+     * @since 1.12
+     */
+    public boolean isTar()
+    {
+        return this != ZIP;
+    }
+
+    /**
+     * Detects the format of an archive from its first bytes. Falls back to file name extension when archive cannot be
+     * read or its format is not recognized (tar archives of old formats do not have a magic).
+     *
+     * @param archive archive file
+     * @return detected format. Never null.
+     * @since 1.12
+     */
+    public static ArchiveFormat detect( final File archive )
+    {
+        checkNotNull( archive );
+        try (InputStream in = new BufferedInputStream( new FileInputStream( archive ) ))
+        {
+            final byte[] header = new byte[TAR_MAGIC_OFFSET + 5];
+            final int read = ByteStreams.read( in, header, 0, header.length );
+            if ( read >= 4 && header[0] == 'P' && header[1] == 'K' && header[2] < 9 && header[3] < 9 )
+            {
+                return ZIP;
+            }
+            if ( read >= 2 && ( header[0] & 0xff ) == 0x1f && ( header[1] & 0xff ) == 0x8b )
+            {
+                return TAR_GZIP;
+            }
+            if ( read >= 3 && header[0] == 'B' && header[1] == 'Z' && header[2] == 'h' )
+            {
+                return TAR_BZIP2;
+            }
+            if ( read == header.length && isTarMagic( header ) )
+            {
+                return TAR;
+            }
+        }
+        catch ( IOException e )
+        {
+            // fall back to extension
+        }
+        return fromExtension( archive.getName() );
+    }
+
+    private static boolean isTarMagic( final byte[] header )
+    {
+        final String magic = "ustar";
+        for ( int i = 0; i < magic.length(); i++ )
+        {
+            if ( header[TAR_MAGIC_OFFSET + i] != magic.charAt( i ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ArchiveFormat fromExtension( final String name )
+    {
+        if ( name.endsWith( ".tar.gz" ) || name.endsWith( ".tgz" ) )
+        {
+            return TAR_GZIP;
+        }
+        if ( name.endsWith( ".tar.bz2" ) || name.endsWith( ".tbz2" ) )
+        {
+            return TAR_BZIP2;
+        }
+        if ( name.endsWith( ".tar" ) )
+        {
+            return TAR;
+        }
+        return ZIP;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of an archive expansion.
+ *
+ * @since 1.12
+ */
+public class ExpansionReport
+{
+
+    private final File archive;
+
+    private final AtomicLong entries = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private volatile long nanos;
+
+    ExpansionReport( final File archive )
+    {
+        this.archive = archive;
+    }
+
+    /**
+     * Records an expanded file entry.
+     */
+    void entryExpanded( final long size )
+    {
+        entries.incrementAndGet();
+        bytes.addAndGet( size );
+    }
+
+    /**
+     * Records the end of expansion.
+     */
+    void finished( final long startNanos )
+    {
+        nanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return expanded archive
+     * @since 1.12
+     */
+    public File getArchive()
+    {
+        return archive;
+    }
+
+    /**
+     * @return number of expanded (written) file entries
+     * @since 1.12
+     */
+    public long getEntries()
+    {
+        return entries.get();
+    }
+
+    /**
+     * @return number of written (uncompressed) bytes
+     * @since 1.12
+     */
+    public long getBytes()
+    {
+        return bytes.get();
+    }
+
+    /**
+     * @return expansion duration in milliseconds
+     * @since 1.12
+     */
+    public long getMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( nanos );
+    }
+
+    /**
+     * @return throughput in uncompressed megabytes per second
+     * @since 1.12
+     */
+    public double getMegabytesPerSecond()
+    {
+        return nanos == 0 ? 0 : ( bytes.get() / ( 1024.0 * 1024.0 ) ) / ( nanos / 1e9 );
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "%s: %d entries, %d bytes in %d ms (%.1f MB/s)",
+            archive.getName(), getEntries(), getBytes(), getMillis(), getMegabytesPerSecond()
+        );
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Selects files of a directory the same way as an ANT file set: include/exclude patterns are ANT patterns matched
+ * against paths relative to the directory, a trailing separator in a pattern matches everything below, default
+ * excludes apply and directories that cannot contain selected files are not traversed.
+ *
+ * @since 1.12
+ */
+final class FileSetSelector
+{
+
+    private final String[] includes;
+
+    private final String[] excludes;
+
+    /**
+     * @param includes ANT style patterns of selected files. If empty all files are included.
+     * @param excludes ANT style patterns of files not selected (besides ANT default excludes)
+     */
+    FileSetSelector( final Collection<String> includes, final Collection<String> excludes )
+    {
+        this.includes = normalize( checkNotNull( includes ).isEmpty() ? Lists.newArrayList( "**" ) : includes );
+        this.excludes = normalize( concat( checkNotNull( excludes ), DirectoryScanner.getDefaultExcludes() ) );
+    }
+
+    /**
+     * Selector selecting everything (no default excludes).
+     */
+    FileSetSelector()
+    {
+        this.includes = new String[]{ SelectorUtils.DEEP_TREE_MATCH };
+        this.excludes = new String[0];
+    }
+
+    /**
+     * @param path relative path (using platform separator)
+     * @return true if path is included and not excluded
+     */
+    boolean isSelected( final String path )
+    {
+        return matchesAny( includes, path ) && !matchesAny( excludes, path );
+    }
+
+    /**
+     * Whether or not a directory could contain selected files, so it has to be traversed.
+     *
+     * @param path relative path of directory (using platform separator)
+     * @return true if directory has to be traversed
+     */
+    boolean isTraversed( final String path )
+    {
+        if ( path.isEmpty() )
+        {
+            return true;
+        }
+        boolean couldHoldIncluded = false;
+        for ( final String include : includes )
+        {
+            if ( SelectorUtils.matchPatternStart( include, path, true ) )
+            {
+                couldHoldIncluded = true;
+                break;
+            }
+        }
+        if ( !couldHoldIncluded )
+        {
+            return false;
+        }
+        // an exclude pattern ending with "**" that matches the directory excludes whole content
+        for ( final String exclude : excludes )
+        {
+            if ( SelectorUtils.DEEP_TREE_MATCH.equals( exclude ) )
+            {
+                return false;
+            }
+            final String suffix = File.separator + SelectorUtils.DEEP_TREE_MATCH;
+            if ( exclude.endsWith( suffix )
+                && SelectorUtils.matchPath( exclude.substring( 0, exclude.length() - suffix.length() ), path, true ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesAny( final String[] patterns, final String path )
+    {
+        for ( final String pattern : patterns )
+        {
+            if ( SelectorUtils.matchPath( pattern, path, true ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Normalizes ANT patterns the same way ANT directory scanner does: uses platform separator and a trailing
+     * separator matches everything below.
+     */
+    private static String[] normalize( final Collection<String> patterns )
+    {
+        final String[] normalized = new String[patterns.size()];
+        int i = 0;
+        for ( final String pattern : patterns )
+        {
+            String p = pattern.replace( '/', File.separatorChar ).replace( '\\', File.separatorChar );
+            if ( p.endsWith( File.separator ) )
+            {
+                p += SelectorUtils.DEEP_TREE_MATCH;
+            }
+            normalized[i++] = p;
+        }
+        return normalized;
+    }
+
+    private static Collection<String> concat( final Collection<String> patterns, final String[] morePatterns )
+    {
+        final List<String> all = new ArrayList<String>( patterns );
+        all.addAll( Lists.newArrayList( morePatterns ) );
+        return all;
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Support for timing an operation as a Java Flight Recorder event.
+ * <p/>
+ * Subclasses wrap the actual event (a {@link Jfr} subclass), so Flight Recorder classes are only touched when
+ * available (JDK 8u262+). No event is created unless Flight Recorder is recording it, so a disabled event costs a
+ * (constant folded) flag check. Usage:
+ * <pre>
+ * static MyEvent begin() {
+ *     final MyEvent.Jfr event = isAvailable() ? begin( new MyEvent.Jfr() ) : null;
+ *     return event == null ? null : new MyEvent( event );
+ * }
+ *
+ * void commit( final String name, final boolean success ) {
+ *     final MyEvent.Jfr event = end( success );
+ *     if ( event != null ) {
+ *         event.name = name;
+ *         event.commit();
+ *     }
+ * }
+ * </pre>
+ *
+ * @since 1.12
+ */
+public abstract class FlightRecorderEvent<E extends FlightRecorderEvent.Jfr>
+{
+
+    /**
+     * Whether Flight Recorder API is available in running JVM.
+     */
+    private static final boolean AVAILABLE = checkAvailable();
+
+    private final E event;
+
+    protected FlightRecorderEvent( final E event )
+    {
+        this.event = checkNotNull( event );
+    }
+
+    /**
+     * @return true if Flight Recorder API is available in running JVM, so actual events can be created
+     */
+    protected static boolean isAvailable()
+    {
+        return AVAILABLE;
+    }
+
+    /**
+     * Starts timing the actual event, if Flight Recorder is recording it.
+     *
+     * @param event actual event
+     * @return started event, null if Flight Recorder is not recording the event
+     */
+    protected static <E extends Jfr> E begin( final E event )
+    {
+        if ( !event.isEnabled() )
+        {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends timing. If event should be committed, records the outcome and returns the event, to be filled in and
+     * committed by caller.
+     *
+     * @param success whether timed operation succeeded
+     * @return ended event, null if event should not be committed (e.g. shorter than recording threshold)
+     */
+    protected final E end( final boolean success )
+    {
+        event.end();
+        if ( !event.shouldCommit() )
+        {
+            return null;
+        }
+        event.success = success;
+        return event;
+    }
+
+    private static boolean checkAvailable()
+    {
+        try
+        {
+            Class.forName( "jdk.jfr.Event" );
+            return true;
+        }
+        catch ( Throwable e )
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Base of actual events, holding the fields common to all events. Only loaded when Flight Recorder API is
+     * available. Fields are written by (instrumented) subclasses, so they cannot be private to this package.
+     */
+    public abstract static class Jfr
+        extends Event
+    {
+
+        @Label( "Success" )
+        protected boolean success;
+
+    }
+
+}
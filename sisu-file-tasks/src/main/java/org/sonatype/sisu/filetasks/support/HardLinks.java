@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utilities for materializing files as hard links to a source (or cache) tree, instead of copying them.
+ * <p/>
+ * A hard linked file shares its inode (content and permissions) with the source file, for as long as both exist, so
+ * writing it in place or changing its permissions would modify the source too. Therefore file tasks that modify files
+ * in place (copy/create/properties/chmod) first {@link #unshare(File) unshare} them, replacing a linked file with a
+ * private copy (copy-on-write), while replace and expand write a new file and move it in place. Writes done by other
+ * means (e.g. by an application running from linked files) are not guarded and go through to the source. Hard links
+ * are only used on file systems that report link counts (unix), otherwise files are copied.
+ * <p/>
+ * Checking link counts costs a file system call per file, so it is done only for files within trees
+ * {@link #register(File) registered} as (possibly) containing linked files. Trees are registered when files are linked
+ * into them, and should be registered by callers reusing trees that could have been linked by another process.
+ *
+ * @since 1.12
+ */
+public final class HardLinks
+{
+
+    private static final Logger log = LoggerFactory.getLogger( HardLinks.class );
+
+    /**
+     * Roots (absolute and normalized) of trees that may contain hard linked files.
+     * Never null.
+     */
+    private static final Set<Path> ROOTS = Collections.newSetFromMap( new ConcurrentHashMap<Path, Boolean>() );
+
+    private HardLinks()
+    {
+        // utility
+    }
+
+    /**
+     * Creates target as a hard link to source, replacing target if it exists.
+     *
+     * @param source file to link to
+     * @param target link to create
+     * @return true if link was created, false if hard links are not supported between source and target (e.g. other
+     *         file system), case when caller should copy the file
+     * @throws IOException if target could not be replaced
+     * @since 1.12
+     */
+    public static boolean link( final Path source, final Path target )
+        throws IOException
+    {
+        if ( linkCount( checkNotNull( source ) ) < 0 )
+        {
+            return false;
+        }
+        Files.deleteIfExists( checkNotNull( target ) );
+        try
+        {
+            Files.createLink( target, source );
+            return true;
+        }
+        catch ( UnsupportedOperationException | FileSystemException e )
+        {
+            // not supported by file system, cross device or no permission to link
+            log.debug( "Could not link {} to {}: {}", target, source, e.toString() );
+            return false;
+        }
+    }
+
+    /**
+     * Registers a tree (directory or file) as possibly containing hard linked files, so files within it get unshared
+     * before being modified in place. Trees stay registered for the life of the JVM.
+     *
+     * @param root of tree
+     * @since 1.12
+     */
+    public static void register( final File root )
+    {
+        ROOTS.add( normalize( checkNotNull( root ) ) );
+    }
+
+    /**
+     * Whether or not a file, or any file below it if it is a directory, may be hard linked, meaning that it overlaps a
+     * {@link #register(File) registered} tree. Cheap check (no file system access) to be done before checking files
+     * one by one.
+     *
+     * @param file to check
+     * @return true if file is within, or contains, a registered tree
+     * @since 1.12
+     */
+    public static boolean mayBeShared( final File file )
+    {
+        if ( ROOTS.isEmpty() )
+        {
+            return false;
+        }
+        final Path path = normalize( checkNotNull( file ) );
+        for ( Path root : ROOTS )
+        {
+            if ( path.startsWith( root ) || root.startsWith( path ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether or not a file shares its content with other files (is hard linked).
+     *
+     * @param file to check
+     * @return true if file exists and has more than one link
+     * @since 1.12
+     */
+    public static boolean isShared( final Path file )
+    {
+        return linkCount( checkNotNull( file ) ) > 1;
+    }
+
+    /**
+     * Replaces a hard linked file with a private copy of its content, so it can be safely modified in place.
+     * Does nothing if file is not within a {@link #register(File) registered} tree, does not exist or is not linked.
+     *
+     * @param file to unshare
+     * @since 1.12
+     */
+    public static void unshare( final File file )
+    {
+        final Path path = checkNotNull( file ).toPath();
+        if ( !mayBeShared( file ) || !isShared( path ) )
+        {
+            return;
+        }
+        final Path copy = path.resolveSibling( path.getFileName() + "." + UUID.randomUUID() + ".tmp" );
+        try
+        {
+            Files.copy( path, copy, StandardCopyOption.COPY_ATTRIBUTES );
+            Files.move( copy, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            log.debug( "Unshared hard linked file {}", file );
+        }
+        catch ( IOException e )
+        {
+            try
+            {
+                Files.deleteIfExists( copy );
+            }
+            catch ( IOException ignore )
+            {
+                // ignore
+            }
+            throw new RuntimeException( "Could not unshare hard linked file " + file, e );
+        }
+    }
+
+    private static Path normalize( final File file )
+    {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * @return number of links of file, 0 if file does not exist, -1 if link count is not available
+     */
+    private static int linkCount( final Path file )
+    {
+        try
+        {
+            return (Integer) Files.getAttribute( file, "unix:nlink" );
+        }
+        catch ( UnsupportedOperationException | IllegalArgumentException e )
+        {
+            return -1;
+        }
+        catch ( IOException e )
+        {
+            return 0;
+        }
+    }
+
+}
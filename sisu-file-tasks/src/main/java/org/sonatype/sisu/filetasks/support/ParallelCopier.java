@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.tools.ant.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies directories using NIO, in parallel.
+ * <p/>
+ * Each directory is listed by its own fork-join task, which forks one task per sub directory and one task per batch
+ * of files, so large trees are copied by all pool threads. File bodies are copied via
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, letting the operating system
+ * copy the bytes without passing them through java heap.
+ * <p/>
+ * Files are selected the same way as by an ANT file set: include/exclude patterns are ANT patterns, default excludes
+ * apply, symbolic links are followed and directories that cannot contain included files are not traversed. Files are
+ * overwritten the same way as by ANT copy task: unless overwriting newer files, a file is copied only when source is
+ * newer than target (within file system timestamp granularity), and read only target files are replaced only when
+ * forced. As with ANT, last modified time and permissions are not preserved.
+ * <p/>
+ * Optionally files are hard linked instead of copied (see {@link HardLinks}), falling back to a copy when the file
+ * system does not support it. A hard linked target file is never overwritten in place, but replaced.
+ * <p/>
+ * Optionally files are filtered while copied (see {@link TokenFilter}), in which case they are never hard linked.
+ * <p/>
+ * As with ANT, symbolic links to directories are followed, except when linking to a directory being copied (one of
+ * its ancestors), so a link loop is not followed endlessly.
+ *
+ * @since 1.12
+ */
+@Named
+@Singleton
+public class ParallelCopier
+{
+
+    /**
+     * System property key used to enable parallel copying of directories by default (when not specified per task).
+     */
+    public static final String ENABLED = "sisu.bl.copy.parallel";
+
+    /**
+     * Maximum number of files copied by one fork-join task.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * Size of buffer used to copy filtered files.
+     */
+    private static final int FILTER_BUFFER_SIZE = 8 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger( ParallelCopier.class );
+
+    /**
+     * Pool running the copy tasks.
+     * Never null.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor. Uses one thread per available processor.
+     *
+     * @since 1.12
+     */
+    @Inject
+    public ParallelCopier()
+    {
+        this( Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism maximum number of threads copying in parallel
+     * @since 1.12
+     */
+    public ParallelCopier( final int parallelism )
+    {
+        checkArgument( parallelism > 0, "Parallelism must be greater than 0" );
+        this.pool = new ForkJoinPool( parallelism );
+    }
+
+    /**
+     * Whether or not directories should be copied in parallel, when not specified per task.
+     *
+     * @return true if {@link #ENABLED} system property is set to true
+     * @since 1.12
+     */
+    public static boolean isEnabledByDefault()
+    {
+        return Boolean.getBoolean( ENABLED );
+    }
+
+    /**
+     * Copies the content of a directory.
+     *
+     * @param from                    directory to copy from
+     * @param to                      directory to copy to
+     * @param includes                ANT style patterns of files to be copied. If empty all files are included.
+     * @param excludes                ANT style patterns of files not to be copied (besides ANT default excludes)
+     * @param includeEmptyDirectories whether or not directories that do not contain copied files should be created
+     * @param overwriteNewer          whether or not files that are newer in target directory should be overwritten
+     * @param overwriteReadOnly       whether or not files that are read only in target directory should be overwritten
+     * @since 1.12
+     */
+    public void copy( final File from,
+                      final File to,
+                      final Collection<String> includes,
+                      final Collection<String> excludes,
+                      final boolean includeEmptyDirectories,
+                      final boolean overwriteNewer,
+                      final boolean overwriteReadOnly )
+    {
+        copy( from, to, includes, excludes, includeEmptyDirectories, overwriteNewer, overwriteReadOnly, false );
+    }
+
+    /**
+     * Copies (or hard links) the content of a directory.
+     *
+     * @param from                    directory to copy from
+     * @param to                      directory to copy to
+     * @param includes                ANT style patterns of files to be copied. If empty all files are included.
+     * @param excludes                ANT style patterns of files not to be copied (besides ANT default excludes)
+     * @param includeEmptyDirectories whether or not directories that do not contain copied files should be created
+     * @param overwriteNewer          whether or not files that are newer in target directory should be overwritten
+     * @param overwriteReadOnly       whether or not files that are read only in target directory should be overwritten
+     * @param link                    whether or not files should be hard linked instead of copied (when supported)
+     * @since 1.12
+     */
+    public void copy( final File from,
+                      final File to,
+                      final Collection<String> includes,
+                      final Collection<String> excludes,
+                      final boolean includeEmptyDirectories,
+                      final boolean overwriteNewer,
+                      final boolean overwriteReadOnly,
+                      final boolean link )
+    {
+        copy( from, to, includes, excludes, includeEmptyDirectories, overwriteNewer, overwriteReadOnly, link, null );
+    }
+
+    /**
+     * Copies (or hard links) the content of a directory, optionally filtering copied files.
+     *
+     * @param from                    directory to copy from
+     * @param to                      directory to copy to
+     * @param includes                ANT style patterns of files to be copied. If empty all files are included.
+     * @param excludes                ANT style patterns of files not to be copied (besides ANT default excludes)
+     * @param includeEmptyDirectories whether or not directories that do not contain copied files should be created
+     * @param overwriteNewer          whether or not files that are newer in target directory should be overwritten
+     * @param overwriteReadOnly       whether or not files that are read only in target directory should be overwritten
+     * @param link                    whether or not files should be hard linked instead of copied (when supported).
+     *                                Ignored if files are filtered.
+     * @param filter                  filter to copy files through (using platform charset, as ANT). If null files
+     *                                are copied as is.
+     * @since 1.12
+     */
+    public void copy( final File from,
+                      final File to,
+                      final Collection<String> includes,
+                      final Collection<String> excludes,
+                      final boolean includeEmptyDirectories,
+                      final boolean overwriteNewer,
+                      final boolean overwriteReadOnly,
+                      final boolean link,
+                      final TokenFilter filter )
+    {
+        final Operation operation = new Operation(
+            checkNotNull( from ).toPath(), checkNotNull( to ).toPath(), new FileSetSelector( includes, excludes ),
+            includeEmptyDirectories, overwriteNewer, overwriteReadOnly, link && filter == null, filter
+        );
+        log.debug( "{} {} to {}", link ? "Linking" : "Copying", from, to );
+        if ( operation.link )
+        {
+            // both sides share the linked files
+            HardLinks.register( from );
+            HardLinks.register( to );
+        }
+        pool.invoke( operation.new DirectoryAction( operation.from, new HashSet<Object>() ) );
+    }
+
+    /**
+     * Copies (or hard links) one file, with same overwrite semantics as when copying directories.
+     *
+     * @param from              file to copy
+     * @param to                target file
+     * @param overwriteNewer    whether or not target file should be overwritten if newer
+     * @param overwriteReadOnly whether or not target file should be overwritten if read only
+     * @param link              whether or not file should be hard linked instead of copied (when supported)
+     * @since 1.12
+     */
+    public void copyFile( final File from,
+                          final File to,
+                          final boolean overwriteNewer,
+                          final boolean overwriteReadOnly,
+                          final boolean link )
+    {
+        final Operation operation = new Operation(
+            checkNotNull( from ).getAbsoluteFile().getParentFile().toPath(),
+            checkNotNull( to ).getAbsoluteFile().getParentFile().toPath(),
+            new FileSetSelector(), false, overwriteNewer, overwriteReadOnly, link, null
+        );
+        if ( link )
+        {
+            HardLinks.register( from );
+            HardLinks.register( to );
+        }
+        try
+        {
+            Files.createDirectories( operation.to );
+            operation.copyFile(
+                from.toPath(), Files.readAttributes( from.toPath(), BasicFileAttributes.class ), to.toPath()
+            );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Could not copy " + from + " to " + to, e );
+        }
+    }
+
+    /**
+     * A copy operation (settings shared by all tasks copying a directory).
+     */
+    private static class Operation
+    {
+
+        private final Path from;
+
+        private final Path to;
+
+        private final FileSetSelector selector;
+
+        private final boolean includeEmptyDirectories;
+
+        private final boolean overwriteNewer;
+
+        private final boolean overwriteReadOnly;
+
+        private final boolean link;
+
+        private final TokenFilter filter;
+
+        private final long granularity;
+
+        private Operation( final Path from,
+                           final Path to,
+                           final FileSetSelector selector,
+                           final boolean includeEmptyDirectories,
+                           final boolean overwriteNewer,
+                           final boolean overwriteReadOnly,
+                           final boolean link,
+                           final TokenFilter filter )
+        {
+            this.from = from;
+            this.to = to;
+            this.selector = selector;
+            this.includeEmptyDirectories = includeEmptyDirectories;
+            this.overwriteNewer = overwriteNewer;
+            this.overwriteReadOnly = overwriteReadOnly;
+            this.link = link;
+            this.filter = filter;
+            this.granularity = FileUtils.getFileUtils().getFileTimestampGranularity();
+        }
+
+        private String relativePath( final Path path )
+        {
+            return from.relativize( path ).toString();
+        }
+
+        private void copyFile( final Path source, final BasicFileAttributes attributes, final Path target )
+            throws IOException
+        {
+            if ( Files.exists( target, LinkOption.NOFOLLOW_LINKS ) )
+            {
+                if ( !overwriteNewer
+                    && attributes.lastModifiedTime().toMillis()
+                    <= Files.getLastModifiedTime( target ).toMillis() + granularity )
+                {
+                    return;
+                }
+                if ( !Files.isWritable( target ) )
+                {
+                    if ( !overwriteReadOnly )
+                    {
+                        throw new IOException( "can't write to read-only destination file " + target );
+                    }
+                    Files.delete( target );
+                }
+                else if ( HardLinks.isShared( target ) )
+                {
+                    // do not write through a hard link into the file it shares content with
+                    Files.delete( target );
+                }
+            }
+            if ( link && HardLinks.link( Files.isSymbolicLink( source ) ? source.toRealPath() : source, target ) )
+            {
+                return;
+            }
+            if ( filter != null )
+            {
+                // same as ANT: lenient decoding/encoding with platform charset
+                try (Reader in = filter.chain(
+                    new InputStreamReader( Files.newInputStream( source ), Charset.defaultCharset() )
+                );
+                     Writer out = new OutputStreamWriter(
+                         Files.newOutputStream( target ), Charset.defaultCharset()
+                     ))
+                {
+                    final char[] buffer = new char[FILTER_BUFFER_SIZE];
+                    int read;
+                    while ( ( read = in.read( buffer ) ) != -1 )
+                    {
+                        out.write( buffer, 0, read );
+                    }
+                }
+                return;
+            }
+            try (FileChannel in = FileChannel.open( source, StandardOpenOption.READ );
+                 FileChannel out = FileChannel.open(
+                     target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+                 ))
+            {
+                final long size = in.size();
+                long position = 0;
+                while ( position < size )
+                {
+                    final long transferred = in.transferTo( position, size - position, out );
+                    if ( transferred <= 0 )
+                    {
+                        // source shrunk while being copied
+                        break;
+                    }
+                    position += transferred;
+                }
+            }
+        }
+
+        /**
+         * Copies a directory: lists it and fans out copying of its sub directories and files.
+         */
+        private class DirectoryAction
+            extends RecursiveAction
+        {
+
+            private final Path directory;
+
+            /**
+             * Keys of this directory and its ancestors (see {@link #key(Path, BasicFileAttributes)}).
+             */
+            private final Set<Object> ancestors;
+
+            private DirectoryAction( final Path directory, final Set<Object> parents )
+            {
+                this.directory = directory;
+                this.ancestors = parents;
+            }
+
+            @Override
+            protected void compute()
+            {
+                final String path = relativePath( directory );
+                final Path target = to.resolve( path );
+                final List<Path> files = new ArrayList<Path>();
+                final List<BasicFileAttributes> attributes = new ArrayList<BasicFileAttributes>();
+                final List<RecursiveAction> actions = new ArrayList<RecursiveAction>();
+                try
+                {
+                    ancestors.add( key( directory, Files.readAttributes( directory, BasicFileAttributes.class ) ) );
+                    if ( includeEmptyDirectories && selector.isSelected( path ) )
+                    {
+                        Files.createDirectories( target );
+                    }
+                    // list direct children, getting their attributes along
+                    Files.walkFileTree(
+                        directory, EnumSet.of( FileVisitOption.FOLLOW_LINKS ), 1, new SimpleFileVisitor<Path>()
+                    {
+                        @Override
+                        public FileVisitResult visitFile( final Path file, final BasicFileAttributes attrs )
+                            throws IOException
+                        {
+                            final String childPath = relativePath( file );
+                            if ( attrs.isDirectory() )
+                            {
+                                if ( ancestors.contains( key( file, attrs ) ) )
+                                {
+                                    log.debug( "Skipping {} as it links to a directory being copied", file );
+                                }
+                                else if ( selector.isTraversed( childPath ) )
+                                {
+                                    actions.add( new DirectoryAction( file, new HashSet<Object>( ancestors ) ) );
+                                }
+                            }
+                            else if ( selector.isSelected( childPath ) )
+                            {
+                                files.add( file );
+                                attributes.add( attrs );
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed( final Path file, final IOException e )
+                            throws IOException
+                        {
+                            if ( e instanceof NoSuchFileException )
+                            {
+                                // dangling symbolic link or file deleted meanwhile
+                                log.debug( "Skipping {} as it does not exist", file );
+                                return FileVisitResult.CONTINUE;
+                            }
+                            throw e;
+                        }
+                    } );
+                }
+                catch ( IOException e )
+                {
+                    throw new RuntimeException( "Could not copy " + directory + " to " + target, e );
+                }
+                for ( int i = 0; i < files.size(); i += BATCH_SIZE )
+                {
+                    final int end = Math.min( i + BATCH_SIZE, files.size() );
+                    actions.add( new FilesAction( target, files.subList( i, end ), attributes.subList( i, end ) ) );
+                }
+                invokeAll( actions );
+            }
+
+            /**
+             * @return file system key of a directory, or its real path when file system does not provide keys
+             */
+            private Object key( final Path dir, final BasicFileAttributes attrs )
+                throws IOException
+            {
+                return attrs.fileKey() != null ? attrs.fileKey() : dir.toRealPath();
+            }
+
+        }
+
+        /**
+         * Copies a batch of files from same directory.
+         */
+        private class FilesAction
+            extends RecursiveAction
+        {
+
+            private final Path target;
+
+            private final List<Path> files;
+
+            private final List<BasicFileAttributes> attributes;
+
+            private FilesAction( final Path target, final List<Path> files, final List<BasicFileAttributes> attributes )
+            {
+                this.target = target;
+                this.files = files;
+                this.attributes = attributes;
+            }
+
+            @Override
+            protected void compute()
+            {
+                Path file = null;
+                try
+                {
+                    Files.createDirectories( target );
+                    for ( int i = 0; i < files.size(); i++ )
+                    {
+                        file = files.get( i );
+                        copyFile( file, attributes.get( i ), target.resolve( file.getFileName().toString() ) );
+                    }
+                }
+                catch ( IOException e )
+                {
+                    throw new RuntimeException( "Could not copy " + file + " to " + target, e );
+                }
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deletes directories using NIO, in parallel.
+ * <p/>
+ * Each directory is listed by its own fork-join task, which forks one task per sub directory and one task per batch
+ * of files, and deletes the directory itself once all its content was deleted, so large trees are deleted by all
+ * pool threads. Files are selected the same way as by an ANT file set (see {@link FileSetSelector}), except that
+ * symbolic links are never followed: a link is deleted, not the files it points to.
+ * <p/>
+ * When a whole directory is to be deleted, it can be moved to trash instead: the directory is atomically renamed to
+ * a hidden sibling and deleted in background, so caller can immediately recreate it. Trash left over by a previous
+ * process (e.g. one that exited before background deletion finished) is deleted along.
+ *
+ * @since 1.12
+ */
+@Named
+@Singleton
+public class ParallelDeleter
+{
+
+    /**
+     * System property key used to enable parallel deletion of directories by default (when not specified per task).
+     */
+    public static final String ENABLED = "sisu.bl.delete.parallel";
+
+    /**
+     * System property key used to enable moving deleted directories to trash by default (when not specified per task).
+     */
+    public static final String TRASH = "sisu.bl.delete.trash";
+
+    /**
+     * Maximum number of files deleted by one fork-join task.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * Infix of names of trash directories: {@code .<name>.trash-<uuid>}.
+     */
+    private static final String TRASH_INFIX = ".trash-";
+
+    private static final Logger log = LoggerFactory.getLogger( ParallelDeleter.class );
+
+    /**
+     * Pool running the delete tasks (including background deletion of trash).
+     * Never null.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor. Uses one thread per available processor.
+     *
+     * @since 1.12
+     */
+    @Inject
+    public ParallelDeleter()
+    {
+        this( Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism maximum number of threads deleting in parallel
+     * @since 1.12
+     */
+    public ParallelDeleter( final int parallelism )
+    {
+        checkArgument( parallelism > 0, "Parallelism must be greater than 0" );
+        this.pool = new ForkJoinPool( parallelism );
+    }
+
+    /**
+     * Whether or not directories should be deleted in parallel, when not specified per task.
+     *
+     * @return true if {@link #ENABLED} system property is set to true
+     * @since 1.12
+     */
+    public static boolean isEnabledByDefault()
+    {
+        return Boolean.getBoolean( ENABLED );
+    }
+
+    /**
+     * Whether or not deleted directories should be moved to trash, when not specified per task.
+     *
+     * @return true if {@link #TRASH} system property is set to true
+     * @since 1.12
+     */
+    public static boolean isTrashEnabledByDefault()
+    {
+        return Boolean.getBoolean( TRASH );
+    }
+
+    /**
+     * Deletes the content of a directory.
+     *
+     * @param directory               directory to delete from
+     * @param includes                ANT style patterns of files to be deleted. If empty all files are included.
+     * @param excludes                ANT style patterns of files not to be deleted (besides ANT default excludes)
+     * @param includeEmptyDirectories whether or not directories that are empty after deleting files (including the
+     *                                directory itself) should be deleted
+     * @since 1.12
+     */
+    public void delete( final File directory,
+                        final Collection<String> includes,
+                        final Collection<String> excludes,
+                        final boolean includeEmptyDirectories )
+    {
+        final Path root = checkNotNull( directory ).toPath();
+        log.debug( "Deleting {}", directory );
+        pool.invoke(
+            new DirectoryAction( root, root, new FileSetSelector( includes, excludes ), includeEmptyDirectories )
+        );
+    }
+
+    /**
+     * Moves a directory to trash (renames it to a hidden sibling) and deletes it in background, together with trash
+     * left over from previous deletions of same directory. The whole directory is deleted (no default excludes).
+     *
+     * @param directory to be deleted
+     * @return background deletion, or null if directory could not be renamed (e.g. files are in use or renames are
+     *         not atomic on file system), case when caller should delete it in place
+     * @since 1.12
+     */
+    public Future<?> trash( final File directory )
+    {
+        final Path path = checkNotNull( directory ).toPath().toAbsolutePath();
+        final Path parent = path.getParent();
+        if ( parent == null )
+        {
+            return null;
+        }
+        final String prefix = "." + path.getFileName() + TRASH_INFIX;
+        final Path trash = parent.resolve( prefix + UUID.randomUUID() );
+        try
+        {
+            Files.move( path, trash, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( IOException e )
+        {
+            log.debug( "Could not move {} to trash: {}", directory, e.toString() );
+            return null;
+        }
+        log.debug( "Moved {} to trash {}", directory, trash );
+
+        final List<Path> trashes = new ArrayList<Path>();
+        trashes.add( trash );
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream( parent ))
+        {
+            for ( final Path sibling : siblings )
+            {
+                if ( sibling.getFileName().toString().startsWith( prefix ) && !sibling.equals( trash )
+                    && Files.isDirectory( sibling ) )
+                {
+                    trashes.add( sibling );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            log.debug( "Could not list left over trash of {}: {}", directory, e.toString() );
+        }
+        return pool.submit( new RecursiveAction()
+        {
+            @Override
+            protected void compute()
+            {
+                final FileSetSelector all = new FileSetSelector();
+                final List<ForkJoinTask<?>> actions = new ArrayList<ForkJoinTask<?>>();
+                for ( final Path directory : trashes )
+                {
+                    actions.add( new DirectoryAction( directory, directory, all, true ) );
+                }
+                try
+                {
+                    invokeAll( actions );
+                }
+                catch ( RuntimeException e )
+                {
+                    log.warn( "Could not delete trash {}", trashes, e );
+                    throw e;
+                }
+            }
+        } );
+    }
+
+    /**
+     * Deletes the content of a directory: lists it and fans out deletion of its sub directories and files, then
+     * deletes the directory itself if selected and empty.
+     */
+    private class DirectoryAction
+        extends RecursiveAction
+    {
+
+        private final Path root;
+
+        private final Path directory;
+
+        private final FileSetSelector selector;
+
+        private final boolean includeEmptyDirectories;
+
+        private DirectoryAction( final Path root,
+                                 final Path directory,
+                                 final FileSetSelector selector,
+                                 final boolean includeEmptyDirectories )
+        {
+            this.root = root;
+            this.directory = directory;
+            this.selector = selector;
+            this.includeEmptyDirectories = includeEmptyDirectories;
+        }
+
+        @Override
+        protected void compute()
+        {
+            final List<Path> files = new ArrayList<Path>();
+            final List<RecursiveAction> actions = new ArrayList<RecursiveAction>();
+            try
+            {
+                // list direct children, without following links
+                Files.walkFileTree(
+                    directory, EnumSet.noneOf( FileVisitOption.class ), 1, new SimpleFileVisitor<Path>()
+                {
+                    @Override
+                    public FileVisitResult visitFile( final Path file, final BasicFileAttributes attrs )
+                    {
+                        final String path = root.relativize( file ).toString();
+                        if ( attrs.isDirectory() )
+                        {
+                            if ( selector.isTraversed( path ) )
+                            {
+                                actions.add( new DirectoryAction( root, file, selector, includeEmptyDirectories ) );
+                            }
+                        }
+                        else if ( selector.isSelected( path ) )
+                        {
+                            files.add( file );
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed( final Path file, final IOException e )
+                        throws IOException
+                    {
+                        if ( e instanceof NoSuchFileException )
+                        {
+                            // deleted meanwhile
+                            return FileVisitResult.CONTINUE;
+                        }
+                        throw e;
+                    }
+                } );
+            }
+            catch ( NoSuchFileException e )
+            {
+                // deleted meanwhile
+                return;
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( "Could not delete " + directory, e );
+            }
+            for ( int i = 0; i < files.size(); i += BATCH_SIZE )
+            {
+                actions.add( new FilesAction( files.subList( i, Math.min( i + BATCH_SIZE, files.size() ) ) ) );
+            }
+            invokeAll( actions );
+
+            if ( includeEmptyDirectories && selector.isSelected( root.relativize( directory ).toString() ) )
+            {
+                try
+                {
+                    Files.deleteIfExists( directory );
+                }
+                catch ( DirectoryNotEmptyException e )
+                {
+                    // contains files not selected, same as ANT
+                    log.debug( "Not deleting {} as it is not empty", directory );
+                }
+                catch ( IOException e )
+                {
+                    throw new RuntimeException( "Could not delete " + directory, e );
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Deletes a batch of files from same directory.
+     */
+    private static class FilesAction
+        extends RecursiveAction
+    {
+
+        private final List<Path> files;
+
+        private FilesAction( final List<Path> files )
+        {
+            this.files = files;
+        }
+
+        @Override
+        protected void compute()
+        {
+            for ( final Path file : files )
+            {
+                try
+                {
+                    Files.deleteIfExists( file );
+                }
+                catch ( IOException e )
+                {
+                    throw new RuntimeException( "Could not delete " + file, e );
+                }
+            }
+        }
+
+    }
+
+}
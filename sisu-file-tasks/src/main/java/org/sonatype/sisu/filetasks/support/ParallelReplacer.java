@@ -0,0 +1,540 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replaces tokens in files, in one pass per file and in parallel.
+ * <p/>
+ * All tokens are compiled into one Aho-Corasick automaton (a DFA over bytes of tokens encoded with files charset).
+ * Each file is first scanned (memory mapped where safe) and left untouched if it contains no token. Otherwise it is
+ * streamed once through a bounded buffer into a temporary sibling file, which then atomically replaces the original
+ * (keeping its permissions). Files are processed in parallel by a fork-join pool.
+ * <p/>
+ * As with ANT replace task, {@code \n} in tokens and values stands for platform line separator. Unlike ANT, which
+ * applies tokens one after another, all tokens are replaced in one pass: at each position the longest token wins and
+ * replaced values are not scanned again. Results differ from ANT only when a token is part of another token or of a
+ * replacement value.
+ * <p/>
+ * Matching bytes is same as matching characters only for charsets where no character is a byte subsequence of another
+ * character (see {@link #isSupported(Charset)}).
+ *
+ * @since 1.12
+ */
+@Named
+@Singleton
+public class ParallelReplacer
+{
+
+    /**
+     * System property key used to enable parallel replace by default (when not specified per task).
+     */
+    public static final String ENABLED = "sisu.bl.replace.parallel";
+
+    /**
+     * Size of buffer used to stream files.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum size of a memory mapped region.
+     */
+    private static final long MAX_MAPPED = 256 * 1024 * 1024;
+
+    /**
+     * Whether or not files can be memory mapped. On Windows a file cannot be replaced while mapped and there is no
+     * way to unmap it explicitly, so files are read instead.
+     */
+    private static final boolean MMAP = !System.getProperty( "os.name", "" ).startsWith( "Windows" );
+
+    private static final Logger log = LoggerFactory.getLogger( ParallelReplacer.class );
+
+    /**
+     * Pool running the replace tasks.
+     * Never null.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor. Uses one thread per available processor.
+     *
+     * @since 1.12
+     */
+    @Inject
+    public ParallelReplacer()
+    {
+        this( Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism maximum number of files processed in parallel
+     * @since 1.12
+     */
+    public ParallelReplacer( final int parallelism )
+    {
+        checkArgument( parallelism > 0, "Parallelism must be greater than 0" );
+        this.pool = new ForkJoinPool( parallelism );
+    }
+
+    /**
+     * Whether or not replace tasks should use parallel replace, when not specified per task.
+     *
+     * @return true if {@link #ENABLED} system property is set to true
+     * @since 1.12
+     */
+    public static boolean isEnabledByDefault()
+    {
+        return Boolean.getBoolean( ENABLED );
+    }
+
+    /**
+     * Whether or not tokens can be matched as bytes in files using specified charset.
+     *
+     * @param charset of files
+     * @return true for UTF-8, US-ASCII and ISO-8859-1
+     * @since 1.12
+     */
+    public static boolean isSupported( final Charset charset )
+    {
+        final String name = checkNotNull( charset ).name();
+        return "UTF-8".equals( name ) || "US-ASCII".equals( name ) || "ISO-8859-1".equals( name );
+    }
+
+    /**
+     * Replaces tokens in files.
+     *
+     * @param files        files to replace tokens in
+     * @param replacements values to replace tokens with, by token (tokens must not be empty)
+     * @param charset      charset of files (see {@link #isSupported(Charset)})
+     * @return number of replacements made
+     * @since 1.12
+     */
+    public long replace( final Collection<File> files, final Map<String, String> replacements, final Charset charset )
+    {
+        checkArgument( isSupported( charset ), "Charset %s is not supported", charset );
+        final Automaton automaton = new Automaton( checkNotNull( replacements ), charset );
+        final AtomicLong count = new AtomicLong();
+        final List<RecursiveAction> actions = new ArrayList<RecursiveAction>();
+        for ( final File file : checkNotNull( files ) )
+        {
+            actions.add( new RecursiveAction()
+            {
+                @Override
+                protected void compute()
+                {
+                    try
+                    {
+                        count.addAndGet( replace( file.toPath(), automaton ) );
+                    }
+                    catch ( IOException e )
+                    {
+                        throw new RuntimeException( "Could not replace tokens in " + file, e );
+                    }
+                }
+            } );
+        }
+        pool.invoke( new RecursiveAction()
+        {
+            @Override
+            protected void compute()
+            {
+                invokeAll( actions );
+            }
+        } );
+        log.debug( "Replaced {} occurrences in {} files", count.get(), files.size() );
+        return count.get();
+    }
+
+    private static long replace( final Path file, final Automaton automaton )
+        throws IOException
+    {
+        if ( !automaton.occursIn( file ) )
+        {
+            return 0;
+        }
+        final Path temp = Files.createTempFile( file.toAbsolutePath().getParent(), "rep", ".tmp" );
+        try
+        {
+            final long count;
+            try (InputStream in = Files.newInputStream( file );
+                 OutputStream out = new BufferedOutputStream(
+                     Files.newOutputStream( temp, StandardOpenOption.TRUNCATE_EXISTING ), BUFFER_SIZE
+                 ))
+            {
+                count = automaton.replace( in, out );
+            }
+            final PosixFileAttributeView view = Files.getFileAttributeView( file, PosixFileAttributeView.class );
+            if ( view != null )
+            {
+                Files.getFileAttributeView( temp, PosixFileAttributeView.class ).setPermissions(
+                    view.readAttributes().permissions()
+                );
+            }
+            Files.move( temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            return count;
+        }
+        finally
+        {
+            Files.deleteIfExists( temp );
+        }
+    }
+
+    /**
+     * Aho-Corasick automaton compiled into a DFA over bytes: one transition per state and byte value.
+     */
+    private static class Automaton
+    {
+
+        private final byte[][] values;
+
+        /**
+         * Length of tokens, by token index.
+         */
+        private final int[] lengths;
+
+        /**
+         * Length of longest token.
+         */
+        private final int maxLength;
+
+        /**
+         * Transitions: next state by state and byte value.
+         */
+        private final int[][] delta;
+
+        /**
+         * Depth of each state (length of the token prefix it stands for).
+         */
+        private final int[] depth;
+
+        /**
+         * Longest token ending in each state (including via suffix links), -1 if none.
+         */
+        private final int[] output;
+
+        private Automaton( final Map<String, String> replacements, final Charset charset )
+        {
+            final int size = replacements.size();
+            final byte[][] tokens = new byte[size][];
+            values = new byte[size][];
+            lengths = new int[size];
+            int i = 0;
+            int states = 1;
+            int max = 0;
+            for ( final Map.Entry<String, String> entry : replacements.entrySet() )
+            {
+                tokens[i] = lineSeparators( entry.getKey() ).getBytes( charset );
+                checkArgument( tokens[i].length > 0, "The token attribute must not be an empty string." );
+                values[i] = lineSeparators( entry.getValue() ).getBytes( charset );
+                lengths[i] = tokens[i].length;
+                states += tokens[i].length;
+                max = Math.max( max, tokens[i].length );
+                i++;
+            }
+            maxLength = max;
+
+            // trie
+            final int[][] trie = new int[states][];
+            depth = new int[states];
+            output = new int[states];
+            Arrays.fill( output, -1 );
+            trie[0] = newTransitions();
+            int count = 1;
+            for ( int t = 0; t < size; t++ )
+            {
+                int state = 0;
+                for ( final byte b : tokens[t] )
+                {
+                    if ( trie[state][b & 0xff] < 0 )
+                    {
+                        trie[count] = newTransitions();
+                        depth[count] = depth[state] + 1;
+                        trie[state][b & 0xff] = count++;
+                    }
+                    state = trie[state][b & 0xff];
+                }
+                output[state] = t;
+            }
+
+            // breadth first: fail links turn trie into DFA, outputs inherit longest output of fail state
+            delta = new int[count][];
+            final int[] fail = new int[count];
+            final Queue<Integer> queue = new ArrayDeque<Integer>();
+            delta[0] = trie[0];
+            for ( int b = 0; b < 256; b++ )
+            {
+                if ( delta[0][b] < 0 )
+                {
+                    delta[0][b] = 0;
+                }
+                else
+                {
+                    queue.add( delta[0][b] );
+                }
+            }
+            while ( !queue.isEmpty() )
+            {
+                final int state = queue.remove();
+                delta[state] = trie[state];
+                if ( output[state] < 0 )
+                {
+                    output[state] = output[fail[state]];
+                }
+                for ( int b = 0; b < 256; b++ )
+                {
+                    final int next = delta[state][b];
+                    if ( next < 0 )
+                    {
+                        delta[state][b] = delta[fail[state]][b];
+                    }
+                    else
+                    {
+                        fail[next] = delta[fail[state]][b];
+                        queue.add( next );
+                    }
+                }
+            }
+        }
+
+        private static int[] newTransitions()
+        {
+            final int[] transitions = new int[256];
+            Arrays.fill( transitions, -1 );
+            return transitions;
+        }
+
+        /**
+         * Same as ANT: line separators in tokens and values are "\n", standing for platform line separator.
+         */
+        private static String lineSeparators( final String value )
+        {
+            return value.replace( "\r\n", "\n" ).replace( "\n", System.getProperty( "line.separator" ) );
+        }
+
+        /**
+         * Whether or not any token occurs in file.
+         */
+        private boolean occursIn( final Path file )
+            throws IOException
+        {
+            try (FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ))
+            {
+                final long size = channel.size();
+                final ByteBuffer heap = MMAP ? null : ByteBuffer.allocate( BUFFER_SIZE );
+                int state = 0;
+                long position = 0;
+                while ( position < size )
+                {
+                    final ByteBuffer buffer;
+                    if ( MMAP )
+                    {
+                        buffer = channel.map(
+                            FileChannel.MapMode.READ_ONLY, position, Math.min( MAX_MAPPED, size - position )
+                        );
+                    }
+                    else
+                    {
+                        heap.clear();
+                        if ( channel.read( heap, position ) < 0 )
+                        {
+                            break;
+                        }
+                        heap.flip();
+                        buffer = heap;
+                    }
+                    position += buffer.remaining();
+                    while ( buffer.hasRemaining() )
+                    {
+                        state = delta[state][buffer.get() & 0xff];
+                        if ( output[state] >= 0 )
+                        {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            }
+        }
+
+        /**
+         * Copies input to output replacing tokens: leftmost match wins, then longest one, matches do not overlap.
+         * <p/>
+         * A match is only emitted once no longer match starting at or before it is possible, that is when the
+         * earliest start of the partial match the automaton is in moved past the start of the match. Input is kept
+         * in a window from the first byte not yet written; bytes that cannot be part of a match are written as the
+         * window fills up, so window holds at most {@link #BUFFER_SIZE} plus twice the longest token bytes.
+         *
+         * @return number of replacements
+         */
+        private long replace( final InputStream in, final OutputStream out )
+            throws IOException
+        {
+            final Window window = new Window( in, out, BUFFER_SIZE + 2 * maxLength );
+            long count = 0;
+            long matchStart = -1;
+            long matchEnd = -1;
+            int match = -1;
+            int state = 0;
+            long i = 0;
+            while ( true )
+            {
+                final int b = window.get( i, match < 0 ? i - depth[state] : Math.min( matchStart, i - depth[state] ) );
+                if ( b >= 0 )
+                {
+                    state = delta[state][b];
+                    final int t = output[state];
+                    if ( t >= 0 )
+                    {
+                        final long start = i - lengths[t] + 1;
+                        if ( match < 0 || start <= matchStart )
+                        {
+                            match = t;
+                            matchStart = start;
+                            matchEnd = i + 1;
+                        }
+                    }
+                    i++;
+                }
+                if ( match >= 0 && ( b < 0 || i - depth[state] > matchStart ) )
+                {
+                    window.write( matchStart );
+                    out.write( values[match] );
+                    window.skip( matchEnd );
+                    count++;
+                    // rescan bytes after the match
+                    i = matchEnd;
+                    state = 0;
+                    match = -1;
+                }
+                else if ( b < 0 )
+                {
+                    window.write( i );
+                    return count;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Window over input stream, from first byte not yet written to output.
+     */
+    private static class Window
+    {
+
+        private final InputStream in;
+
+        private final OutputStream out;
+
+        private final byte[] buffer;
+
+        /**
+         * Input position of first byte in buffer (first byte not yet written).
+         */
+        private long base;
+
+        /**
+         * Number of bytes in buffer.
+         */
+        private int limit;
+
+        private Window( final InputStream in, final OutputStream out, final int size )
+        {
+            this.in = in;
+            this.out = out;
+            this.buffer = new byte[size];
+        }
+
+        /**
+         * @param position input position of byte to get
+         * @param keep     input position from which bytes may still be replaced (all before can be written)
+         * @return byte value or -1 if end of input
+         */
+        private int get( final long position, final long keep )
+            throws IOException
+        {
+            while ( position >= base + limit )
+            {
+                if ( limit == buffer.length )
+                {
+                    // window is full: write out bytes that cannot be part of a match anymore
+                    write( keep );
+                }
+                final int read = in.read( buffer, limit, buffer.length - limit );
+                if ( read < 0 )
+                {
+                    return -1;
+                }
+                limit += read;
+            }
+            return buffer[(int) ( position - base )] & 0xff;
+        }
+
+        /**
+         * Writes buffered bytes up to input position (exclusive) and discards them.
+         */
+        private void write( final long position )
+            throws IOException
+        {
+            out.write( buffer, 0, (int) ( position - base ) );
+            skip( position );
+        }
+
+        /**
+         * Discards buffered bytes up to input position (exclusive).
+         */
+        private void skip( final long position )
+        {
+            final int length = (int) ( position - base );
+            System.arraycopy( buffer, length, buffer, 0, limit - length );
+            limit -= length;
+            base = position;
+        }
+
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Expands ZIP archives (zip, jar, war), inflating entries in parallel.
+ * <p/>
+ * The central directory is read once, include/exclude patterns and directories to cut are applied to the entry list
+ * up front, all needed directories are created and then entries are inflated in parallel (ZIP entries are
+ * independent and randomly accessible) by fork-join tasks, each handling a batch of entries of about same size.
+ * <p/>
+ * Entries are selected as by ANT expand task (see {@link ArchiveEntrySelector}) and written the same way: an existing
+ * file is overwritten only when overwriting newer files or when older than the entry, and files get the last modified
+ * time of their entries.
+ *
+ * @since 1.12
+ */
+@Named
+@Singleton
+public class ParallelZipExpander
+{
+
+    /**
+     * System property key used to enable parallel expansion of ZIP archives by default (when not specified per task).
+     */
+    public static final String ENABLED = "sisu.bl.expand.parallel";
+
+    /**
+     * Target (uncompressed) number of bytes inflated by one fork-join task.
+     */
+    private static final long BATCH_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Size of buffer used to write inflated entries.
+     */
+    private static final int BUFFER_SIZE = 128 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger( ParallelZipExpander.class );
+
+    /**
+     * Pool running the inflating tasks.
+     * Never null.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor. Uses one thread per available processor.
+     *
+     * @since 1.12
+     */
+    @Inject
+    public ParallelZipExpander()
+    {
+        this( Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism maximum number of threads inflating entries in parallel
+     * @since 1.12
+     */
+    public ParallelZipExpander( final int parallelism )
+    {
+        checkArgument( parallelism > 0, "Parallelism must be greater than 0" );
+        this.pool = new ForkJoinPool( parallelism );
+    }
+
+    /**
+     * Whether or not ZIP archives should be expanded in parallel, when not specified per task.
+     *
+     * @return true if {@link #ENABLED} system property is set to true
+     * @since 1.12
+     */
+    public static boolean isEnabledByDefault()
+    {
+        return Boolean.getBoolean( ENABLED );
+    }
+
+    /**
+     * Expands a ZIP archive.
+     *
+     * @param archive          ZIP archive to expand
+     * @param to               directory to expand to
+     * @param includes         ANT style patterns of entries to be expanded. If empty all entries are included.
+     * @param excludes         ANT style patterns of entries not to be expanded
+     * @param directoriesToCut number of leading directories to cut from entry names
+     * @param overwriteNewer   whether or not files that are newer in target directory should be overwritten
+     * @return expansion statistics
+     * @since 1.12
+     */
+    public ExpansionReport expand( final File archive,
+                          final File to,
+                          final Collection<String> includes,
+                          final Collection<String> excludes,
+                          final int directoriesToCut,
+                          final boolean overwriteNewer )
+    {
+        checkNotNull( archive );
+        final long start = System.nanoTime();
+        final ArchiveEntrySelector selector = new ArchiveEntrySelector( to, includes, excludes, directoriesToCut );
+
+        try (ZipFile zip = new ZipFile( archive ))
+        {
+            // select and map entries up front (later entries mapped to same path win, as with ANT)
+            final Map<Path, ZipEntry> files = new LinkedHashMap<Path, ZipEntry>();
+            final TreeSet<Path> directories = new TreeSet<Path>();
+            directories.add( selector.target() );
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while ( entries.hasMoreElements() )
+            {
+                final ZipEntry entry = entries.nextElement();
+                final Path path = selector.map( entry.getName() );
+                if ( path == null )
+                {
+                    continue;
+                }
+                if ( entry.isDirectory() )
+                {
+                    directories.add( path );
+                }
+                else
+                {
+                    files.remove( path );
+                    files.put( path, entry );
+                    directories.add( path.getParent() );
+                }
+            }
+
+            for ( final Path directory : directories )
+            {
+                Files.createDirectories( directory );
+            }
+
+            final ExpansionReport report = new ExpansionReport( archive );
+            final List<RecursiveAction> actions = new ArrayList<RecursiveAction>();
+            List<Map.Entry<Path, ZipEntry>> batch = new ArrayList<Map.Entry<Path, ZipEntry>>();
+            long batchBytes = 0;
+            for ( final Map.Entry<Path, ZipEntry> file : files.entrySet() )
+            {
+                batch.add( file );
+                batchBytes += Math.max( 0, file.getValue().getSize() );
+                if ( batchBytes >= BATCH_BYTES )
+                {
+                    actions.add( new InflateAction( zip, batch, overwriteNewer, report ) );
+                    batch = new ArrayList<Map.Entry<Path, ZipEntry>>();
+                    batchBytes = 0;
+                }
+            }
+            if ( !batch.isEmpty() )
+            {
+                actions.add( new InflateAction( zip, batch, overwriteNewer, report ) );
+            }
+            pool.invoke( new RecursiveAction()
+            {
+                @Override
+                protected void compute()
+                {
+                    invokeAll( actions );
+                }
+            } );
+            report.finished( start );
+            log.debug( "Expanded {}", report );
+            return report;
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Could not expand " + archive + " to " + to, e );
+        }
+    }
+
+    /**
+     * Inflates a batch of entries.
+     */
+    private static class InflateAction
+        extends RecursiveAction
+    {
+
+        private final ZipFile zip;
+
+        private final List<Map.Entry<Path, ZipEntry>> files;
+
+        private final boolean overwriteNewer;
+
+        private final ExpansionReport report;
+
+        private InflateAction( final ZipFile zip,
+                               final List<Map.Entry<Path, ZipEntry>> files,
+                               final boolean overwriteNewer,
+                               final ExpansionReport report )
+        {
+            this.zip = zip;
+            this.files = files;
+            this.overwriteNewer = overwriteNewer;
+            this.report = report;
+        }
+
+        @Override
+        protected void compute()
+        {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            for ( final Map.Entry<Path, ZipEntry> file : files )
+            {
+                final Path path = file.getKey();
+                final ZipEntry entry = file.getValue();
+                try
+                {
+                    if ( Files.exists( path ) )
+                    {
+                        if ( !overwriteNewer && Files.getLastModifiedTime( path ).toMillis() >= entry.getTime() )
+                        {
+                            continue;
+                        }
+                        if ( HardLinks.isShared( path ) )
+                        {
+                            // do not write through a hard link into the file it shares content with
+                            Files.delete( path );
+                        }
+                    }
+                    long bytes = 0;
+                    try (InputStream in = zip.getInputStream( entry );
+                         OutputStream out = Files.newOutputStream(
+                             path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                             StandardOpenOption.TRUNCATE_EXISTING
+                         ))
+                    {
+                        int read;
+                        while ( ( read = in.read( buffer ) ) != -1 )
+                        {
+                            out.write( buffer, 0, read );
+                            bytes += read;
+                        }
+                    }
+                    if ( entry.getTime() != -1 )
+                    {
+                        path.toFile().setLastModified( entry.getTime() );
+                    }
+                    report.entryExpanded( bytes );
+                }
+                catch ( IOException e )
+                {
+                    throw new RuntimeException( "Could not expand " + entry.getName() + " to " + path, e );
+                }
+            }
+        }
+
+    }
+
+}
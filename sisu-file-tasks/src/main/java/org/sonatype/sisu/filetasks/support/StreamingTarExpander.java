@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.zip.GZIPInputStream;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.tools.bzip2.CBZip2InputStream;
+import org.apache.tools.tar.TarEntry;
+import org.apache.tools.tar.TarInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Expands (compressed) tar archives as a pipeline.
+ * <p/>
+ * One thread decompresses the archive and reads tar headers. Include/exclude patterns and directories to cut are
+ * applied on headers, so bodies of excluded entries are skipped (decompressed but neither buffered nor written).
+ * Bodies of selected entries are read into memory and handed over a bounded queue to writer threads; bodies larger
+ * than {@link #INLINE_LIMIT} are written directly by the reading thread, which bounds the memory used by the queue.
+ * <p/>
+ * As with ANT, when an archive contains more entries with the same path the last one wins: entries of a path are
+ * written one at a time, and a body still waiting to be written is dropped when a later entry of same path is read.
+ * <p/>
+ * Entries are selected as by ANT untar task (see {@link ArchiveEntrySelector}) and written the same way: an existing
+ * file is overwritten only when overwriting newer files or when older than the entry, and files get the last modified
+ * time of their entries. Additionally, files that are executable by owner in the archive are made executable.
+ *
+ * @since 1.12
+ */
+@Named
+@Singleton
+public class StreamingTarExpander
+{
+
+    /**
+     * Maximum size of an entry body handed over to writer threads.
+     */
+    private static final int INLINE_LIMIT = 1024 * 1024;
+
+    /**
+     * Maximum number of entry bodies waiting to be written.
+     */
+    private static final int QUEUE_SIZE = 32;
+
+    /**
+     * Size of buffers used to read/decompress the archive and write large bodies.
+     */
+    private static final int BUFFER_SIZE = 128 * 1024;
+
+    /**
+     * Number of locks serializing writes of same path.
+     */
+    private static final int PATH_LOCKS = 64;
+
+    private static final Logger log = LoggerFactory.getLogger( StreamingTarExpander.class );
+
+    /**
+     * Marks the end of entries, one per writer.
+     */
+    private static final Body END = new Body( null, null, 0, false );
+
+    /**
+     * Number of writer threads per expansion.
+     */
+    private final int writers;
+
+    /**
+     * Runs writers.
+     * Never null.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Constructor. Uses one writer thread per available processor (at most 4).
+     *
+     * @since 1.12
+     */
+    @Inject
+    public StreamingTarExpander()
+    {
+        this( Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param writers number of threads writing entries, per expansion
+     * @since 1.12
+     */
+    public StreamingTarExpander( final int writers )
+    {
+        checkArgument( writers > 0, "Number of writers must be greater than 0" );
+        this.writers = writers;
+        this.executor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon( true ).setNameFormat( "sisu-untar-%d" ).build()
+        );
+    }
+
+    /**
+     * Expands a (compressed) tar archive.
+     *
+     * @param archive          tar archive to expand
+     * @param format           archive format (one of tar formats)
+     * @param to               directory to expand to
+     * @param includes         ANT style patterns of entries to be expanded. If empty all entries are included.
+     * @param excludes         ANT style patterns of entries not to be expanded
+     * @param directoriesToCut number of leading directories to cut from entry names
+     * @param overwriteNewer   whether or not files that are newer in target directory should be overwritten
+     * @return expansion statistics
+     * @since 1.12
+     */
+    public ExpansionReport expand( final File archive,
+                                   final ArchiveFormat format,
+                                   final File to,
+                                   final Collection<String> includes,
+                                   final Collection<String> excludes,
+                                   final int directoriesToCut,
+                                   final boolean overwriteNewer )
+    {
+        checkNotNull( archive );
+        checkArgument( checkNotNull( format ).isTar(), "Not a tar archive: %s", format );
+        final long start = System.nanoTime();
+        final ArchiveEntrySelector selector = new ArchiveEntrySelector( to, includes, excludes, directoriesToCut );
+        final ExpansionReport report = new ExpansionReport( archive );
+        final BlockingQueue<Body> queue = new ArrayBlockingQueue<Body>( QUEUE_SIZE );
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final Bodies bodies = new Bodies();
+
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+        for ( int i = 0; i < writers; i++ )
+        {
+            futures.add( executor.submit( new Writer( queue, failure, report, bodies ) ) );
+        }
+        try (TarInputStream tar = new TarInputStream( decompress( archive, format ) ))
+        {
+            Files.createDirectories( selector.target() );
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            TarEntry entry;
+            while ( ( entry = tar.getNextEntry() ) != null && failure.get() == null )
+            {
+                final Path path = selector.map( entry.getName() );
+                if ( path == null )
+                {
+                    // body is skipped when moving to next entry
+                    continue;
+                }
+                if ( entry.isDirectory() )
+                {
+                    Files.createDirectories( path );
+                    continue;
+                }
+                final long modified = entry.getModTime().getTime();
+                if ( !overwriteNewer && bodies.lastModified( path ) >= modified )
+                {
+                    continue;
+                }
+                Files.createDirectories( path.getParent() );
+                final boolean executable = ( entry.getMode() & 0100 ) != 0;
+                if ( entry.getSize() <= INLINE_LIMIT )
+                {
+                    final byte[] content = new byte[(int) entry.getSize()];
+                    ByteStreams.readFully( tar, content );
+                    final Body body = bodies.add( new Body( path, content, modified, executable ) );
+                    while ( !queue.offer( body, 100, TimeUnit.MILLISECONDS ) && failure.get() == null )
+                    {
+                        // wait for writers, unless they failed
+                    }
+                }
+                else
+                {
+                    final Body body = bodies.add( new Body( path, null, modified, executable ) );
+                    final long bytes = bodies.write( body, tar, buffer );
+                    if ( bytes >= 0 )
+                    {
+                        report.entryExpanded( bytes );
+                    }
+                }
+            }
+        }
+        catch ( Exception e )
+        {
+            if ( e instanceof InterruptedException )
+            {
+                Thread.currentThread().interrupt();
+            }
+            failure.compareAndSet( null, e );
+        }
+        finally
+        {
+            for ( int i = 0; i < writers; i++ )
+            {
+                try
+                {
+                    queue.put( END );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    failure.compareAndSet( null, e );
+                    break;
+                }
+            }
+            for ( final Future<?> future : futures )
+            {
+                try
+                {
+                    future.get();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    failure.compareAndSet( null, e );
+                }
+                catch ( ExecutionException e )
+                {
+                    failure.compareAndSet( null, e.getCause() );
+                }
+            }
+        }
+        if ( failure.get() != null )
+        {
+            throw new RuntimeException( "Could not expand " + archive + " to " + to, failure.get() );
+        }
+        report.finished( start );
+        log.debug( "Expanded {}", report );
+        return report;
+    }
+
+    private static InputStream decompress( final File archive, final ArchiveFormat format )
+        throws IOException
+    {
+        final InputStream in = new BufferedInputStream( new FileInputStream( archive ), BUFFER_SIZE );
+        try
+        {
+            switch ( format )
+            {
+                case TAR_GZIP:
+                    return new GZIPInputStream( in, BUFFER_SIZE );
+                case TAR_BZIP2:
+                    // ANT bzip2 stream expects the "BZ" magic to be already consumed
+                    if ( in.read() != 'B' || in.read() != 'Z' )
+                    {
+                        throw new IOException( "Invalid bz2 archive " + archive );
+                    }
+                    return new CBZip2InputStream( in );
+                default:
+                    return in;
+            }
+        }
+        catch ( IOException e )
+        {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a file, replacing (instead of writing through) a hard linked file.
+     *
+     * @return number of bytes written
+     */
+    private static long write( final Path path,
+                               final InputStream in,
+                               final byte[] buffer,
+                               final long modified,
+                               final boolean executable )
+        throws IOException
+    {
+        if ( HardLinks.isShared( path ) )
+        {
+            Files.delete( path );
+        }
+        long bytes = 0;
+        try (OutputStream out = Files.newOutputStream(
+            path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        ))
+        {
+            int read;
+            while ( ( read = in.read( buffer ) ) != -1 )
+            {
+                out.write( buffer, 0, read );
+                bytes += read;
+            }
+        }
+        setAttributes( path, modified, executable );
+        return bytes;
+    }
+
+    /**
+     * Writes a file from an in memory content, replacing (instead of writing through) a hard linked file.
+     */
+    private static void write( final Path path, final byte[] content, final long modified, final boolean executable )
+        throws IOException
+    {
+        if ( HardLinks.isShared( path ) )
+        {
+            Files.delete( path );
+        }
+        Files.write( path, content );
+        setAttributes( path, modified, executable );
+    }
+
+    private static void setAttributes( final Path path, final long modified, final boolean executable )
+    {
+        final File file = path.toFile();
+        file.setLastModified( modified );
+        if ( executable )
+        {
+            file.setExecutable( true );
+        }
+    }
+
+    /**
+     * Body of an entry, waiting to be written.
+     */
+    private static class Body
+    {
+
+        private final Path path;
+
+        private final byte[] content;
+
+        private final long modified;
+
+        private final boolean executable;
+
+        private Body( final Path path, final byte[] content, final long modified, final boolean executable )
+        {
+            this.path = path;
+            this.content = content;
+            this.modified = modified;
+            this.executable = executable;
+        }
+
+    }
+
+    /**
+     * Bodies of an expansion that are not yet written, at most one (the last read) per path.
+     */
+    private static class Bodies
+    {
+
+        private final ConcurrentMap<Path, Body> pending = new ConcurrentHashMap<Path, Body>();
+
+        private final Striped<Lock> locks = Striped.lock( PATH_LOCKS );
+
+        /**
+         * Records body as the last one of its path, superseding a pending body of same path.
+         *
+         * @return body
+         */
+        private Body add( final Body body )
+        {
+            pending.put( body.path, body );
+            return body;
+        }
+
+        /**
+         * @return last modified time path will have once pending bodies are written, -1 if path does not exist
+         */
+        private long lastModified( final Path path )
+            throws IOException
+        {
+            final Body body = pending.get( path );
+            if ( body != null )
+            {
+                return body.modified;
+            }
+            return Files.exists( path ) ? Files.getLastModifiedTime( path ).toMillis() : -1;
+        }
+
+        /**
+         * Writes a body (from its content or, if none, from an input stream), unless superseded by a later body of same
+         * path. Holds the lock of path while writing, so a path is written by one thread at a time.
+         *
+         * @return number of bytes written, -1 if body was superseded
+         */
+        private long write( final Body body, final InputStream in, final byte[] buffer )
+            throws IOException
+        {
+            final Lock lock = locks.get( body.path );
+            lock.lock();
+            try
+            {
+                if ( pending.get( body.path ) != body )
+                {
+                    return -1;
+                }
+                try
+                {
+                    if ( body.content != null )
+                    {
+                        StreamingTarExpander.write( body.path, body.content, body.modified, body.executable );
+                        return body.content.length;
+                    }
+                    return StreamingTarExpander.write( body.path, in, buffer, body.modified, body.executable );
+                }
+                finally
+                {
+                    pending.remove( body.path, body );
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+    }
+
+    /**
+     * Writes entry bodies from queue, until end marker. After a failure keeps draining the queue so reader is never
+     * blocked.
+     */
+    private static class Writer
+        implements Runnable
+    {
+
+        private final BlockingQueue<Body> queue;
+
+        private final AtomicReference<Throwable> failure;
+
+        private final ExpansionReport report;
+
+        private final Bodies bodies;
+
+        private Writer( final BlockingQueue<Body> queue,
+                        final AtomicReference<Throwable> failure,
+                        final ExpansionReport report,
+                        final Bodies bodies )
+        {
+            this.queue = queue;
+            this.failure = failure;
+            this.report = report;
+            this.bodies = bodies;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                Body body;
+                while ( ( body = queue.take() ) != END )
+                {
+                    if ( failure.get() != null )
+                    {
+                        continue;
+                    }
+                    try
+                    {
+                        final long bytes = bodies.write( body, null, null );
+                        if ( bytes >= 0 )
+                        {
+                            report.entryExpanded( bytes );
+                        }
+                    }
+                    catch ( IOException e )
+                    {
+                        failure.compareAndSet( null, e );
+                    }
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet( null, e );
+            }
+        }
+
+    }
+
+}
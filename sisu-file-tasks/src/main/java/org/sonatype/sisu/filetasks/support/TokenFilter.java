@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.tools.ant.filters.ChainableReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replaces {@code ${key}} tokens with values, as ANT copy task does with filtering turned on and a filter set using
+ * {@code ${} / {@code }} tokens, but scoped to the task using it instead of ANT's project wide global filter set.
+ * <p/>
+ * Semantics are same as ANT filter set: a token must not span lines, tokens with unknown keys are left as is, and
+ * tokens in values are replaced too (recursively; a token referring back to itself is left as is).
+ * <p/>
+ * A filter is immutable (values are resolved once, up front) and so can be shared by any number of threads. Each
+ * {@link #chain(Reader) chained} reader streams its input through a fixed size buffer, never holding more than a
+ * chunk of input, and does not allocate per token: keys are looked up by a view over the buffer.
+ *
+ * @since 1.12
+ */
+public final class TokenFilter
+    implements ChainableReader
+{
+
+    private static final String BEGIN = "${";
+
+    private static final char END = '}';
+
+    /**
+     * Number of chars read from input at once.
+     */
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger( TokenFilter.class );
+
+    /**
+     * Resolved values, by key (wrapped as char buffer so they can be looked up by a view over a buffer).
+     */
+    private final Map<CharBuffer, char[]> values;
+
+    /**
+     * Length of longest key.
+     */
+    private final int maxKeyLength;
+
+    /**
+     * Constructor.
+     *
+     * @param filters values to replace tokens with, by key (token is {@code ${key}})
+     * @since 1.12
+     */
+    public TokenFilter( final Map<String, String> filters )
+    {
+        checkNotNull( filters );
+        values = new HashMap<CharBuffer, char[]>();
+        int max = 0;
+        for ( final Map.Entry<String, String> entry : filters.entrySet() )
+        {
+            final String key = checkNotNull( entry.getKey() );
+            values.put( CharBuffer.wrap( key ), resolve( key, filters, new ArrayDeque<String>() ).toCharArray() );
+            max = Math.max( max, key.length() );
+        }
+        maxKeyLength = max;
+    }
+
+    /**
+     * Returns a reader replacing tokens in content of specified reader.
+     *
+     * @param reader to filter
+     * @return filtering reader
+     * @since 1.12
+     */
+    @Override
+    public Reader chain( final Reader reader )
+    {
+        return new FilteringReader( checkNotNull( reader ) );
+    }
+
+    /**
+     * Resolves tokens in value of key, the way ANT filter set does.
+     */
+    private static String resolve( final String key, final Map<String, String> filters, final Deque<String> resolving )
+    {
+        final String value = filters.get( key );
+        if ( value.equals( key ) || !value.contains( BEGIN ) )
+        {
+            return value;
+        }
+        if ( resolving.contains( key ) )
+        {
+            log.debug( "Infinite loop in tokens {}, leaving {}{}{} as is", resolving, BEGIN, key, END );
+            return BEGIN + key + END;
+        }
+        resolving.push( key );
+        final StringBuilder resolved = new StringBuilder();
+        int i = 0;
+        int index = value.indexOf( BEGIN );
+        while ( index > -1 )
+        {
+            final int end = value.indexOf( END, index + BEGIN.length() + 1 );
+            if ( end == -1 )
+            {
+                break;
+            }
+            final String token = value.substring( index + BEGIN.length(), end );
+            resolved.append( value, i, index );
+            if ( filters.containsKey( token ) )
+            {
+                resolved.append( resolve( token, filters, resolving ) );
+                i = end + 1;
+            }
+            else
+            {
+                resolved.append( BEGIN.charAt( 0 ) );
+                i = index + 1;
+            }
+            index = value.indexOf( BEGIN, i );
+        }
+        resolved.append( value.substring( i ) );
+        resolving.pop();
+        return resolved.toString();
+    }
+
+    /**
+     * Reader replacing tokens while streaming.
+     */
+    private class FilteringReader
+        extends Reader
+    {
+
+        private final Reader in;
+
+        /**
+         * Input buffer. Holds a chunk plus room for the longest token, so a token is always fully buffered when
+         * matched.
+         */
+        private final char[] buffer;
+
+        /**
+         * View over buffer used to look up keys.
+         */
+        private final CharBuffer key;
+
+        private int position;
+
+        private int limit;
+
+        private boolean eof;
+
+        /**
+         * Value being written, null if none.
+         */
+        private char[] value;
+
+        private int valuePosition;
+
+        private FilteringReader( final Reader in )
+        {
+            this.in = in;
+            this.buffer = new char[CHUNK_SIZE + maxKeyLength + BEGIN.length() + 1];
+            this.key = CharBuffer.wrap( buffer );
+        }
+
+        @Override
+        public int read( final char[] chars, final int offset, final int length )
+            throws IOException
+        {
+            int count = 0;
+            while ( count < length )
+            {
+                if ( value != null )
+                {
+                    final int n = Math.min( length - count, value.length - valuePosition );
+                    System.arraycopy( value, valuePosition, chars, offset + count, n );
+                    count += n;
+                    valuePosition += n;
+                    if ( valuePosition == value.length )
+                    {
+                        value = null;
+                    }
+                    continue;
+                }
+                if ( position == limit && !fill( 1 ) )
+                {
+                    break;
+                }
+                if ( buffer[position] != BEGIN.charAt( 0 ) )
+                {
+                    // copy plain chars up to next possible token
+                    int end = position + 1;
+                    final int max = Math.min( limit, position + length - count );
+                    while ( end < max && buffer[end] != BEGIN.charAt( 0 ) )
+                    {
+                        end++;
+                    }
+                    System.arraycopy( buffer, position, chars, offset + count, end - position );
+                    count += end - position;
+                    position = end;
+                    continue;
+                }
+                fill( BEGIN.length() + maxKeyLength + 1 );
+                final char[] replacement = token();
+                if ( replacement != null )
+                {
+                    value = replacement;
+                    valuePosition = 0;
+                }
+                else
+                {
+                    // not a known token, same as ANT go on after its first char
+                    chars[offset + count++] = buffer[position++];
+                }
+            }
+            return count == 0 && length > 0 ? -1 : count;
+        }
+
+        /**
+         * Matches a known token at current position. If matched, moves position after token.
+         *
+         * @return value of token or null if there is no known token at current position
+         */
+        private char[] token()
+        {
+            final int start = position + BEGIN.length();
+            if ( start > limit || buffer[position + 1] != BEGIN.charAt( 1 ) )
+            {
+                return null;
+            }
+            final int max = Math.min( limit, start + maxKeyLength + 1 );
+            for ( int end = start + 1; end < max; end++ )
+            {
+                final char c = buffer[end];
+                if ( c == END )
+                {
+                    key.limit( end ).position( start );
+                    final char[] resolved = values.get( key );
+                    if ( resolved != null )
+                    {
+                        position = end + 1;
+                    }
+                    return resolved;
+                }
+                if ( c == '\n' || c == '\r' )
+                {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Makes sure buffer holds at least specified number of chars after position, unless input ended.
+         *
+         * @return true if buffer holds at least one char after position
+         */
+        private boolean fill( final int needed )
+            throws IOException
+        {
+            if ( limit - position < needed && !eof )
+            {
+                System.arraycopy( buffer, position, buffer, 0, limit - position );
+                limit -= position;
+                position = 0;
+                while ( limit < needed && !eof )
+                {
+                    final int read = in.read( buffer, limit, buffer.length - limit );
+                    if ( read < 0 )
+                    {
+                        eof = true;
+                    }
+                    else
+                    {
+                        limit += read;
+                    }
+                }
+            }
+            return position < limit;
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            in.close();
+        }
+
+    }
+
+}
@@ -70,4 +70,15 @@ public interface CopyDirectoryTask
      */
     CopyDirectoryTask setIncludeEmptyDirectories( boolean includeEmptyDirectories );
 
+    /**
+     * Whether or not the directory should be copied via {@link org.sonatype.sisu.filetasks.support.ParallelCopier}
+     * (NIO, in parallel) instead of ANT. Copies that filter files are always performed by ANT. By default parallel
+     * copy is used when {@link org.sonatype.sisu.filetasks.support.ParallelCopier#ENABLED} system property is true.
+     *
+     * @param useParallelCopy true/false if directory should be copied in parallel
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    CopyDirectoryTask setUseParallelCopy( boolean useParallelCopy );
+
 }
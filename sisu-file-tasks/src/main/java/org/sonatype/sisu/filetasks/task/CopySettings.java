@@ -83,4 +83,18 @@ public interface CopySettings
      */
     CopySettings setFailIfSourceDoesNotExist( boolean fail );
 
+    /**
+     * Whether or not files should be hard linked to source files instead of being copied, when supported by file
+     * system. Filtered files are always copied. By default files are copied.
+     * <p/>
+     * A hard linked file shares its inode (content and permissions) with its source for as long as both exist. File
+     * tasks replace linked files with a copy before modifying them, but anything else writing a linked file in place
+     * also modifies the source. Use only when copied files are not written by other means.
+     *
+     * @param useHardLinks true/false if files should be hard linked
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    CopySettings setUseHardLinks( boolean useHardLinks );
+
 }
@@ -71,4 +71,26 @@ public interface DeleteDirectoryTask
      */
     DeleteDirectoryTask setFailIfNotPresent( boolean failIfNotPresent );
 
+    /**
+     * Whether or not directory should be deleted via NIO, in parallel. If not set, uses value of system property
+     * {@code sisu.bl.delete.parallel}, defaulting to false (ANT delete).
+     *
+     * @param useParallelDelete true/false if directory should be deleted in parallel
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    DeleteDirectoryTask setUseParallelDelete( boolean useParallelDelete );
+
+    /**
+     * Whether or not directory should be moved to trash (renamed) and deleted in background, so it can be recreated
+     * right away. Only applies when whole directory is deleted (no include/exclude patterns and empty directories are
+     * deleted); if directory cannot be renamed it is deleted in parallel. If not set, uses value of system property
+     * {@code sisu.bl.delete.trash}, defaulting to false.
+     *
+     * @param useTrash true/false if directory should be moved to trash
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    DeleteDirectoryTask setUseTrash( boolean useTrash );
+
 }
@@ -79,4 +79,41 @@ public interface ExpandTask
      */
     ExpandTask addExcludePattern( String pattern );
 
+    /**
+     * Whether or not the archive should be expanded via the machine wide {@link
+     * org.sonatype.sisu.filetasks.support.ArchiveCache}. If true, archive is expanded only once per content and
+     * expansion settings and target directory is populated from the cached expansion. By default cache is not used.
+     *
+     * @param useCache true/false if archive cache should be used
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    ExpandTask setUseCache( boolean useCache );
+
+    /**
+     * Whether or not target directory should be populated by hard linking the files of the cached expansion instead
+     * of copying them, when supported by file system. Implies usage of archive cache. By default files are copied.
+     * <p/>
+     * Linked files share their inodes with the cache entry until deleted: a file modified in place by other means than
+     * file tasks (e.g. a running application) corrupts the cache for every later expansion.
+     *
+     * @param useHardLinks true/false if files should be hard linked from archive cache
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    ExpandTask setUseHardLinks( boolean useHardLinks );
+
+    /**
+     * Whether or not archive should be expanded in parallel instead of via ANT: ZIP archives via {@link
+     * org.sonatype.sisu.filetasks.support.ParallelZipExpander} (entries inflated in parallel) and tar archives via
+     * {@link org.sonatype.sisu.filetasks.support.StreamingTarExpander} (entries decompressed on one thread and written
+     * by others). By default parallel expansion is used when {@link
+     * org.sonatype.sisu.filetasks.support.ParallelZipExpander#ENABLED} system property is true.
+     *
+     * @param useParallelExpand true/false if archive should be expanded in parallel
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    ExpandTask setUseParallelExpand( boolean useParallelExpand );
+
 }
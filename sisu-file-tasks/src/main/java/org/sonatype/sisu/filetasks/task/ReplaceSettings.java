@@ -42,4 +42,14 @@ public interface ReplaceSettings
      */
     ReplaceSettings setFailIfNoReplacementWasMade( boolean fail );
 
+    /**
+     * Whether or not tokens should be replaced natively, in one pass per file and in parallel, instead of via ANT.
+     * If not set, uses value of system property {@code sisu.bl.replace.parallel}, defaulting to false.
+     *
+     * @param useParallelReplace true/false if tokens should be replaced in parallel
+     * @return itself, for fluent API usage
+     * @since 1.12
+     */
+    ReplaceSettings setUseParallelReplace( boolean useParallelReplace );
+
 }
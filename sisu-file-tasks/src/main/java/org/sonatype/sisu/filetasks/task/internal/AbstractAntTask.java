@@ -12,11 +12,13 @@
  */
 package org.sonatype.sisu.filetasks.task.internal;
 
+import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
 import org.sonatype.sisu.filetasks.FileTask;
 import org.sonatype.sisu.filetasks.support.AntHelper;
 
 import javax.inject.Inject;
+import java.io.File;
 
 /**
  * Base class for all ANT based tasks implementations.
@@ -35,7 +37,8 @@ abstract class AbstractAntTask<T extends Task>
 
     /**
      * Creates an ANT task (type specified by subclasses), asks to be prepared and executes it if
-     * {@link #shouldExecute()} (default, if not overridden returns true)
+     * {@link #shouldExecute()} (default, if not overridden returns true). The ANT task belongs to a project acquired
+     * for this execution only, so file tasks can run concurrently.
      *
      * @since 1.0
      */
@@ -44,9 +47,24 @@ abstract class AbstractAntTask<T extends Task>
     {
         if ( shouldExecute() )
         {
-            T antTask = ant.createTask( antTaskType() );
-            prepare( antTask );
-            antTask.execute();
+            final FileTaskEvent event = FileTaskEvent.begin();
+            final Project project = ant.acquireProject();
+            boolean success = false;
+            try
+            {
+                T antTask = ant.createTask( antTaskType(), project );
+                prepare( antTask );
+                execute( antTask );
+                success = true;
+            }
+            finally
+            {
+                ant.releaseProject( project );
+                if ( event != null )
+                {
+                    event.commit( this, target(), success );
+                }
+            }
         }
     }
 
@@ -62,6 +80,17 @@ abstract class AbstractAntTask<T extends Task>
         return true;
     }
 
+    /**
+     * File or directory the task acts upon, recorded in Flight Recorder events.
+     *
+     * @return target path (null by default, if not overridden)
+     * @since 1.12
+     */
+    File target()
+    {
+        return null;
+    }
+
     /**
      * Type of ANT task to be created.
      * Must be implemented by concrete file tasks.
@@ -80,4 +109,15 @@ abstract class AbstractAntTask<T extends Task>
      */
     abstract void prepare( T antTask );
 
+    /**
+     * Executes the prepared ANT task. Subclasses may override in order to change how the task gets executed.
+     *
+     * @param antTask prepared ANT task to be executed
+     * @since 1.12
+     */
+    void execute( final T antTask )
+    {
+        antTask.execute();
+    }
+
 }
@@ -13,7 +13,7 @@
 package org.sonatype.sisu.filetasks.task.internal;
 
 import org.apache.tools.ant.taskdefs.Copy;
-import org.apache.tools.ant.types.FilterSet;
+import org.sonatype.sisu.filetasks.support.TokenFilter;
 import org.sonatype.sisu.filetasks.task.CopySettings;
 
 import javax.inject.Inject;
@@ -48,6 +48,11 @@ abstract class AbstractCopyTask<AFCT extends AbstractCopyTask>
      */
     private final Map<String, String> properties;
 
+    /**
+     * If files should be hard linked instead of copied (when not filtered). Default false.
+     */
+    private boolean useHardLinks;
+
     /**
      * Constructor.
      *
@@ -88,19 +93,58 @@ abstract class AbstractCopyTask<AFCT extends AbstractCopyTask>
 
         if ( properties.size() > 0 )
         {
-            FilterSet globalFilterSet = copy.getProject().getGlobalFilterSet();
-            globalFilterSet.setBeginToken( "${" );
-            globalFilterSet.setEndToken( "}" );
-            for ( Map.Entry<String, String> entry : properties.entrySet() )
-            {
-                globalFilterSet.addFilter( entry.getKey(), entry.getValue() );
-            }
-            copy.setFiltering( true );
+            // filter via a chain of this task (instead of ANT project global filter set) so filters do not leak
+            copy.createFilterChain().add( filter() );
         }
 
         copy.setFailOnError( true );
     }
 
+    /**
+     * @return true if a file which is newer in destination should be replaced
+     * @since 1.12
+     */
+    boolean isOverwriteNewer()
+    {
+        return overwriteNewer;
+    }
+
+    /**
+     * @return true if a file which is read only in destination should be replaced
+     * @since 1.12
+     */
+    boolean isOverwriteReadOnly()
+    {
+        return overwriteReadOnly;
+    }
+
+    /**
+     * @return true if copied files should be filtered
+     * @since 1.12
+     */
+    boolean isFiltering()
+    {
+        return properties.size() > 0;
+    }
+
+    /**
+     * @return filter replacing {@code ${key}} tokens with filtering properties of this task, null if not filtering
+     * @since 1.12
+     */
+    TokenFilter filter()
+    {
+        return properties.isEmpty() ? null : new TokenFilter( properties );
+    }
+
+    /**
+     * @return true if files should be hard linked instead of copied
+     * @since 1.12
+     */
+    boolean isUseHardLinks()
+    {
+        return useHardLinks;
+    }
+
     @Override
     public AFCT setOverwriteNewer( final boolean overwrite )
     {
@@ -115,6 +159,13 @@ abstract class AbstractCopyTask<AFCT extends AbstractCopyTask>
         return (AFCT) this;
     }
 
+    @Override
+    public AFCT setUseHardLinks( final boolean useHardLinks )
+    {
+        this.useHardLinks = useHardLinks;
+        return (AFCT) this;
+    }
+
     @Override
     public AFCT addFilter( final String key, final String value )
     {
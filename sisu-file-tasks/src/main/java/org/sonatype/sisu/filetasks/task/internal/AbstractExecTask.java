@@ -204,4 +204,15 @@ abstract class AbstractExecTask<AET extends AbstractExecTask>
         return (AET) this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return workDir;
+    }
+
 }
@@ -14,11 +14,16 @@ package org.sonatype.sisu.filetasks.task.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import javax.inject.Inject;
 
+import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.taskdefs.Replace;
+import org.sonatype.sisu.filetasks.support.ParallelReplacer;
 import org.sonatype.sisu.filetasks.task.ReplaceSettings;
 
 /**
@@ -42,6 +47,17 @@ abstract class AbstractReplaceTask<ART extends AbstractReplaceTask>
      */
     private boolean failIfReplacedValueDoesNotExist;
 
+    /**
+     * True if tokens should be replaced via parallel replacer. If null, {@link ParallelReplacer#isEnabledByDefault()}.
+     */
+    private Boolean useParallelReplace;
+
+    /**
+     * Parallel (single pass) replacer.
+     */
+    @Inject
+    private ParallelReplacer parallelReplacer;
+
     AbstractReplaceTask()
     {
         failIfReplacedValueDoesNotExist = true;
@@ -71,6 +87,41 @@ abstract class AbstractReplaceTask<ART extends AbstractReplaceTask>
         task.setFailOnNoReplacements( failIfReplacedValueDoesNotExist );
     }
 
+    /**
+     * When parallel replace should be used, replaces tokens in {@link #files()} via {@link ParallelReplacer}, failing
+     * the same way as ANT when no replacement was made. Falls back to ANT when files charset (platform default) cannot
+     * be matched as bytes or a token is empty (so ANT reports it).
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    void execute( final Replace task )
+    {
+        final boolean parallel = useParallelReplace == null ? ParallelReplacer.isEnabledByDefault() : useParallelReplace;
+        final Charset charset = Charset.defaultCharset();
+        if ( !parallel || !ParallelReplacer.isSupported( charset ) || replacements.containsKey( "" ) )
+        {
+            super.execute( task );
+            return;
+        }
+        final long count = parallelReplacer.replace( files(), replacements, charset );
+        if ( failIfReplacedValueDoesNotExist && count == 0 )
+        {
+            throw new BuildException( "didn't replace anything" );
+        }
+    }
+
+    /**
+     * Files tokens should be replaced in, when replacing via {@link ParallelReplacer}.
+     *
+     * @return files to replace tokens in
+     * @throws BuildException if file/directory to replace in does not exist
+     * @since 1.12
+     */
+    abstract Collection<File> files();
+
     /**
      * Returns false if file does not exist, true otherwise.
      * <p/>
@@ -95,4 +146,11 @@ abstract class AbstractReplaceTask<ART extends AbstractReplaceTask>
         failIfReplacedValueDoesNotExist = fail;
         return (ART) this;
     }
+
+    @Override
+    public ReplaceSettings setUseParallelReplace( final boolean useParallelReplace )
+    {
+        this.useParallelReplace = useParallelReplace;
+        return (ART) this;
+    }
 }
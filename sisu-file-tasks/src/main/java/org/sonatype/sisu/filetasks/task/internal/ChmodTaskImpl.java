@@ -14,6 +14,7 @@ package org.sonatype.sisu.filetasks.task.internal;
 
 import org.apache.tools.ant.taskdefs.Chmod;
 import org.apache.tools.ant.types.FileSet;
+import org.sonatype.sisu.filetasks.support.HardLinks;
 import org.sonatype.sisu.filetasks.task.ChmodTask;
 
 import javax.inject.Inject;
@@ -89,6 +90,33 @@ class ChmodTaskImpl
      */
     @Override
     void prepare( final Chmod chmod )
+    {
+        chmod.addFileset( fileSet() );
+        chmod.setPerm( checkNotNull( permissions ) );
+    }
+
+    /**
+     * Before changing permissions via ANT, unshares files that are hard linked (if directory may contain linked files),
+     * as permissions belong to the file content shared with the linked files (e.g. an archive cache).
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    void execute( final Chmod chmod )
+    {
+        if ( HardLinks.mayBeShared( directory ) && directory.isDirectory() )
+        {
+            for ( String path : fileSet().getDirectoryScanner( chmod.getProject() ).getIncludedFiles() )
+            {
+                HardLinks.unshare( new File( directory, path ) );
+            }
+        }
+        super.execute( chmod );
+    }
+
+    private FileSet fileSet()
     {
         FileSet fileSet = new FileSet();
         fileSet.setDir( checkNotNull( directory ) );
@@ -100,8 +128,7 @@ class ChmodTaskImpl
         {
             fileSet.appendExcludes( excludes.toArray( new String[excludes.size()] ) );
         }
-        chmod.addFileset( fileSet );
-        chmod.setPerm( checkNotNull( permissions ) );
+        return fileSet;
     }
 
     /**
@@ -152,4 +179,15 @@ class ChmodTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return directory;
+    }
+
 }
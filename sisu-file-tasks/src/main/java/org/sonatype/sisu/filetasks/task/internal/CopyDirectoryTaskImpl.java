@@ -20,8 +20,11 @@ import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.taskdefs.Copy;
 import org.apache.tools.ant.types.FileSet;
+import org.sonatype.sisu.filetasks.support.HardLinks;
+import org.sonatype.sisu.filetasks.support.ParallelCopier;
 import org.sonatype.sisu.filetasks.task.CopyDirectoryTask;
 
 /**
@@ -67,6 +70,17 @@ class CopyDirectoryTaskImpl
      */
     private boolean failIfSourceDoesNotExist;
 
+    /**
+     * True if directory should be copied via parallel copier. If null, {@link ParallelCopier#isEnabledByDefault()}.
+     */
+    private Boolean useParallelCopy;
+
+    /**
+     * Parallel (NIO) directory copier.
+     */
+    @Inject
+    private ParallelCopier parallelCopier;
+
     /**
      * Constructor.
      *
@@ -104,6 +118,16 @@ class CopyDirectoryTaskImpl
     {
         super.prepare( copy );
 
+        copy.addFileset( fileSet() );
+        copy.setIncludeEmptyDirs( includeEmptyDirectories );
+        copy.setTodir( toDirectory );
+    }
+
+    /**
+     * @return file set of files to be copied
+     */
+    private FileSet fileSet()
+    {
         FileSet fileSet = new FileSet();
         fileSet.setDir( checkNotNull( fromDirectory ) );
         if ( includes.size() > 0 )
@@ -114,9 +138,44 @@ class CopyDirectoryTaskImpl
         {
             fileSet.appendExcludes( excludes.toArray( new String[excludes.size()] ) );
         }
-        copy.addFileset( fileSet );
-        copy.setIncludeEmptyDirs( includeEmptyDirectories );
-        copy.setTodir( toDirectory );
+        return fileSet;
+    }
+
+    /**
+     * When parallel copy should be used, or hard links should be used and files are not filtered, copies the directory
+     * via {@link ParallelCopier}. Otherwise, before copying via ANT (which writes files in place), unshares target files
+     * that are hard linked, if target directory may contain linked files (see {@link HardLinks#mayBeShared(File)}).
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    void execute( final Copy copy )
+    {
+        final boolean parallel = useParallelCopy == null ? ParallelCopier.isEnabledByDefault() : useParallelCopy;
+        final boolean link = isUseHardLinks() && !isFiltering();
+        if ( !parallel && !link )
+        {
+            if ( toDirectory != null && HardLinks.mayBeShared( toDirectory )
+                && toDirectory.isDirectory() && fromDirectory.isDirectory() )
+            {
+                for ( String path : fileSet().getDirectoryScanner( copy.getProject() ).getIncludedFiles() )
+                {
+                    HardLinks.unshare( new File( toDirectory, path ) );
+                }
+            }
+            super.execute( copy );
+            return;
+        }
+        if ( !fromDirectory.isDirectory() )
+        {
+            throw new BuildException( fromDirectory.getAbsolutePath() + " does not exist." );
+        }
+        parallelCopier.copy(
+            fromDirectory, checkNotNull( toDirectory ), includes, excludes,
+            includeEmptyDirectories, isOverwriteNewer(), isOverwriteReadOnly(), link, filter()
+        );
     }
 
     /**
@@ -191,4 +250,27 @@ class CopyDirectoryTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public CopyDirectoryTaskImpl setUseParallelCopy( final boolean useParallelCopy )
+    {
+        this.useParallelCopy = useParallelCopy;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return toDirectory;
+    }
+
 }
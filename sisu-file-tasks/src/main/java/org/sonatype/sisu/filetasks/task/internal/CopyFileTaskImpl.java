@@ -13,6 +13,8 @@
 package org.sonatype.sisu.filetasks.task.internal;
 
 import org.apache.tools.ant.taskdefs.Copy;
+import org.sonatype.sisu.filetasks.support.HardLinks;
+import org.sonatype.sisu.filetasks.support.ParallelCopier;
 import org.sonatype.sisu.filetasks.task.CopyFileTask;
 
 import javax.inject.Inject;
@@ -52,6 +54,12 @@ class CopyFileTaskImpl
      */
     private boolean failIfSourceDoesNotExist;
 
+    /**
+     * Copier used when file should be hard linked.
+     */
+    @Inject
+    private ParallelCopier parallelCopier;
+
     /**
      * Constructor.
      *
@@ -98,6 +106,30 @@ class CopyFileTaskImpl
         copy.setTodir( toDirectory );
     }
 
+    /**
+     * When hard links should be used and file is not filtered, links the file via {@link ParallelCopier}. Otherwise,
+     * before copying via ANT (which writes file in place), unshares target file if hard linked.
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    void execute( final Copy copy )
+    {
+        final File targetFile = toDirectory != null ? new File( toDirectory, fromFile.getName() ) : toFile;
+        if ( isUseHardLinks() && !isFiltering() && fromFile.isFile() )
+        {
+            parallelCopier.copyFile( fromFile, targetFile, isOverwriteNewer(), isOverwriteReadOnly(), true );
+            return;
+        }
+        if ( targetFile != null )
+        {
+            HardLinks.unshare( targetFile );
+        }
+        super.execute( copy );
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -146,4 +178,15 @@ class CopyFileTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return toDirectory != null ? toDirectory : toFile;
+    }
+
 }
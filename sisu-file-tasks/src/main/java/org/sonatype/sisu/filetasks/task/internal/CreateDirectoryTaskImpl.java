@@ -74,5 +74,15 @@ class CreateDirectoryTaskImpl
         return Mkdir.class;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return dirToCreate;
+    }
 
 }
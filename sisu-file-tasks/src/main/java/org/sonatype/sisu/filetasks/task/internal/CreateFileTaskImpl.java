@@ -19,6 +19,7 @@ import javax.inject.Named;
 import java.io.File;
 
 import java.nio.charset.Charset;
+import org.sonatype.sisu.filetasks.support.HardLinks;
 import org.sonatype.sisu.filetasks.task.CreateFileTask;
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -86,14 +87,22 @@ class CreateFileTaskImpl
     @Override
     public void run() {
         checkNotNull( fileToCreate );
+        final FileTaskEvent event = FileTaskEvent.begin();
+        boolean success = false;
         try {
             Files.createParentDirs(fileToCreate);
             fileToCreate.createNewFile();
+            HardLinks.unshare( fileToCreate );
             if ( content != null ){
                 Files.append(content, fileToCreate, encoding == null ? Charset.defaultCharset() : Charset.forName(encoding));
             }
+            success = true;
         } catch (IOException ex) {
             throw new RuntimeException("Could not create file", ex);
+        } finally {
+            if ( event != null ) {
+                event.commit( this, fileToCreate, success );
+            }
         }
     }
 
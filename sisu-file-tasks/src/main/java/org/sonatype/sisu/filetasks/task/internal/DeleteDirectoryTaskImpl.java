@@ -12,8 +12,10 @@
  */
 package org.sonatype.sisu.filetasks.task.internal;
 
+import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.taskdefs.Delete;
 import org.apache.tools.ant.types.FileSet;
+import org.sonatype.sisu.filetasks.support.ParallelDeleter;
 import org.sonatype.sisu.filetasks.task.DeleteDirectoryTask;
 
 import javax.inject.Inject;
@@ -62,6 +64,22 @@ class DeleteDirectoryTaskImpl
      */
     private boolean failIfNotPresent;
 
+    /**
+     * True if directory should be deleted via parallel deleter. If null, {@link ParallelDeleter#isEnabledByDefault()}.
+     */
+    private Boolean useParallelDelete;
+
+    /**
+     * True if directory should be moved to trash. If null, {@link ParallelDeleter#isTrashEnabledByDefault()}.
+     */
+    private Boolean useTrash;
+
+    /**
+     * Parallel (NIO) directory deleter.
+     */
+    @Inject
+    private ParallelDeleter parallelDeleter;
+
     /**
      * Constructor.
      *
@@ -124,6 +142,36 @@ class DeleteDirectoryTaskImpl
         delete.setFailOnError( true );
     }
 
+    /**
+     * When whole directory is deleted and trash should be used, moves directory to trash. Otherwise, when parallel
+     * delete (or trash) should be used, deletes via {@link ParallelDeleter}, falling back to ANT delete.
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    void execute( final Delete delete )
+    {
+        final boolean trash = useTrash == null ? ParallelDeleter.isTrashEnabledByDefault() : useTrash;
+        final boolean parallel = useParallelDelete == null ? ParallelDeleter.isEnabledByDefault() : useParallelDelete;
+        if ( !parallel && !trash )
+        {
+            super.execute( delete );
+            return;
+        }
+        if ( !directory.isDirectory() )
+        {
+            throw new BuildException( directory.getAbsolutePath() + " does not exist." );
+        }
+        if ( trash && includes.isEmpty() && excludes.isEmpty() && includeEmptyDirectories
+            && parallelDeleter.trash( directory ) != null )
+        {
+            return;
+        }
+        parallelDeleter.delete( directory, includes, excludes, includeEmptyDirectories );
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -184,4 +232,39 @@ class DeleteDirectoryTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public DeleteDirectoryTaskImpl setUseParallelDelete( final boolean useParallelDelete )
+    {
+        this.useParallelDelete = useParallelDelete;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public DeleteDirectoryTaskImpl setUseTrash( final boolean useTrash )
+    {
+        this.useTrash = useTrash;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return directory;
+    }
+
 }
@@ -106,4 +106,15 @@ class DeleteFileTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return file;
+    }
+
 }
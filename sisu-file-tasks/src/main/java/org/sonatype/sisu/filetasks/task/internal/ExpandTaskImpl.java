@@ -24,7 +24,15 @@ import org.apache.tools.ant.taskdefs.Expand;
 import org.apache.tools.ant.taskdefs.Untar;
 import org.apache.tools.ant.types.PatternSet;
 import org.apache.tools.ant.types.mappers.CutDirsMapper;
+import org.sonatype.sisu.filetasks.support.ArchiveCache;
+import org.sonatype.sisu.filetasks.support.ArchiveFormat;
+import org.sonatype.sisu.filetasks.support.ExpansionReport;
+import org.sonatype.sisu.filetasks.support.HardLinks;
+import org.sonatype.sisu.filetasks.support.ParallelZipExpander;
+import org.sonatype.sisu.filetasks.support.StreamingTarExpander;
 import org.sonatype.sisu.filetasks.task.ExpandTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * ANT based {@link ExpandTask} implementation.
@@ -37,6 +45,8 @@ class ExpandTaskImpl
     implements ExpandTask
 {
 
+    private static final Logger log = LoggerFactory.getLogger( ExpandTaskImpl.class );
+
     /**
      * Archive file to be expanded.
      */
@@ -69,6 +79,44 @@ class ExpandTaskImpl
      */
     private final List<String> excludes;
 
+    /**
+     * True if archive should be expanded via archive cache. Default false.
+     */
+    private boolean useCache;
+
+    /**
+     * True if files should be hard linked from archive cache instead of copied. Default false.
+     */
+    private boolean useHardLinks;
+
+    /**
+     * True if ZIP archive should be expanded in parallel. If null, {@link ParallelZipExpander#isEnabledByDefault()}.
+     */
+    private Boolean useParallelExpand;
+
+    /**
+     * Parallel ZIP archives expander.
+     */
+    @Inject
+    private ParallelZipExpander parallelZipExpander;
+
+    /**
+     * Pipelined tar archives expander.
+     */
+    @Inject
+    private StreamingTarExpander streamingTarExpander;
+
+    /**
+     * Format of archive, detected on first usage.
+     */
+    private ArchiveFormat format;
+
+    /**
+     * Machine wide cache of expanded archives.
+     */
+    @Inject
+    private ArchiveCache archiveCache;
+
     /**
      * Constructor.
      *
@@ -84,7 +132,7 @@ class ExpandTaskImpl
     }
 
     /**
-     * Returns a {@link Expand} or {@link Untar} ANT task based on archive extension.
+     * Returns a {@link Expand} or {@link Untar} ANT task based on archive format.
      * <p/>
      * {@inheritDoc}
      *
@@ -93,7 +141,21 @@ class ExpandTaskImpl
     @Override
     Class<? extends Expand> antTaskType()
     {
-        return checkNotNull( archive ).getName().endsWith( ".tar.gz" ) ? Untar.class : Expand.class;
+        return format().isTar() ? Untar.class : Expand.class;
+    }
+
+    /**
+     * Returns format of archive, detected from archive content (and remembered).
+     *
+     * @return archive format
+     */
+    private ArchiveFormat format()
+    {
+        if ( format == null )
+        {
+            format = ArchiveFormat.detect( checkNotNull( archive ) );
+        }
+        return format;
     }
 
     /**
@@ -141,6 +203,90 @@ class ExpandTaskImpl
             } );
         }
         expand.setStripAbsolutePathSpec( true );
+        if ( expand instanceof Untar )
+        {
+            final Untar.UntarCompressionMethod compression = new Untar.UntarCompressionMethod();
+            compression.setValue(
+                format() == ArchiveFormat.TAR_GZIP ? "gzip" : format() == ArchiveFormat.TAR_BZIP2 ? "bzip2" : "none"
+            );
+            ( (Untar) expand ).setCompression( compression );
+        }
+    }
+
+    /**
+     * When archive cache (or hard links) should be used, expands the archive into cache (if not already cached) and
+     * copies (or hard links) the cached files to destination directory.
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    void execute( final Expand expand )
+    {
+        if ( !useCache && !useHardLinks )
+        {
+            expand( expand, checkNotNull( toDirectory ) );
+            return;
+        }
+        final File expanded = archiveCache.get( archive, cacheVariant(), new ArchiveCache.Expander()
+        {
+            @Override
+            public void expandTo( final File directory )
+            {
+                expand( expand, directory );
+            }
+        } );
+        archiveCache.materialize( expanded, checkNotNull( toDirectory ), overwriteNewer, useHardLinks );
+    }
+
+    /**
+     * Expands the archive into a directory, when parallel expansion should be used via {@link ParallelZipExpander}
+     * (ZIP archives) or {@link StreamingTarExpander} (tar archives), otherwise via ANT. As ANT overwrites existing files
+     * in place, parallel expansion (which replaces hard linked files) is used also when directory may contain hard
+     * linked files.
+     *
+     * @param expand    prepared ANT task
+     * @param directory where archive should be expanded
+     */
+    private void expand( final Expand expand, final File directory )
+    {
+        final boolean parallel = useParallelExpand == null
+            ? ParallelZipExpander.isEnabledByDefault()
+            : useParallelExpand;
+        if ( parallel || HardLinks.mayBeShared( directory ) )
+        {
+            final ExpansionReport report;
+            if ( format().isTar() )
+            {
+                report = streamingTarExpander.expand(
+                    archive, format(), directory, includes, excludes, directoriesToCut, overwriteNewer
+                );
+            }
+            else
+            {
+                report = parallelZipExpander.expand(
+                    archive, directory, includes, excludes, directoriesToCut, overwriteNewer
+                );
+            }
+            log.debug( "Expanded {}", report );
+            return;
+        }
+        expand.setDest( directory );
+        super.execute( expand );
+    }
+
+    /**
+     * Describes the settings that influence the expanded content, used as part of the archive cache key.
+     *
+     * @return expansion settings description
+     */
+    private String cacheVariant()
+    {
+        return antTaskType().getSimpleName()
+            + ";cut=" + directoriesToCut
+            + ";includes=" + includes
+            + ";excludes=" + excludes;
     }
 
     /**
@@ -152,6 +298,7 @@ class ExpandTaskImpl
     public ExpandTask setArchive( final File archive )
     {
         this.archive = archive;
+        this.format = null;
         return this;
     }
 
@@ -211,4 +358,51 @@ class ExpandTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public ExpandTask setUseCache( final boolean useCache )
+    {
+        this.useCache = useCache;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public ExpandTask setUseHardLinks( final boolean useHardLinks )
+    {
+        this.useHardLinks = useHardLinks;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    public ExpandTask setUseParallelExpand( final boolean useParallelExpand )
+    {
+        this.useParallelExpand = useParallelExpand;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return toDirectory;
+    }
+
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.task.internal;
+
+import java.io.File;
+
+import org.sonatype.sisu.filetasks.support.FlightRecorderEvent;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event of a file task execution.
+ *
+ * @since 1.12
+ */
+final class FileTaskEvent
+    extends FlightRecorderEvent<FileTaskEvent.Jfr>
+{
+
+    private FileTaskEvent( final Jfr event )
+    {
+        super( event );
+    }
+
+    /**
+     * Starts timing a file task execution.
+     *
+     * @return started event, null if Flight Recorder is not recording file task events
+     */
+    static FileTaskEvent begin()
+    {
+        final Jfr event = isAvailable() ? begin( new Jfr() ) : null;
+        return event == null ? null : new FileTaskEvent( event );
+    }
+
+    /**
+     * Ends timing and commits the event.
+     *
+     * @param task    executed task
+     * @param target  path of file/directory task acted upon (can be null)
+     * @param success whether task execution succeeded
+     */
+    void commit( final Object task, final File target, final boolean success )
+    {
+        final Jfr event = end( success );
+        if ( event != null )
+        {
+            event.taskType = task.getClass().getSimpleName();
+            event.target = target == null ? null : target.getAbsolutePath();
+            event.commit();
+        }
+    }
+
+    /**
+     * The actual event. Only loaded when Flight Recorder API is available.
+     */
+    @Name( "org.sonatype.sisu.filetasks.FileTask" )
+    @Label( "File Task" )
+    @Category( { "Sisu", "File Tasks" } )
+    @Description( "Execution of a file task" )
+    static class Jfr
+        extends FlightRecorderEvent.Jfr
+    {
+
+        @Label( "Task Type" )
+        String taskType;
+
+        @Label( "Target Path" )
+        String target;
+
+    }
+
+}
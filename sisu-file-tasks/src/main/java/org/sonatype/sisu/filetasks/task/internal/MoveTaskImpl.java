@@ -91,4 +91,15 @@ class MoveTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return to;
+    }
+
 }
@@ -22,6 +22,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Properties;
 
+import org.sonatype.sisu.filetasks.support.HardLinks;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -91,6 +93,7 @@ public class PropertiesHelper
         try
         {
             checkNotNull( propertiesFile ).getParentFile().mkdirs();
+            HardLinks.unshare( propertiesFile );
             out = new BufferedOutputStream( new FileOutputStream( propertiesFile ) );
             if ( propertiesFile.getName().endsWith( ".xml" ) )
             {
@@ -81,30 +81,43 @@ class PropertiesTaskImpl
     @Override
     public void run()
     {
-        Properties properties = load( checkNotNull( propertiesFile ) );
-
-        if ( removeAllProperties )
+        final FileTaskEvent event = FileTaskEvent.begin();
+        boolean success = false;
+        try
         {
-            properties.clear();
-        }
+            Properties properties = load( checkNotNull( propertiesFile ) );
 
-        if ( propertiesToRemove.size() > 0 )
-        {
-            for ( String key : propertiesToRemove )
+            if ( removeAllProperties )
             {
-                properties.remove( key );
+                properties.clear();
+            }
+
+            if ( propertiesToRemove.size() > 0 )
+            {
+                for ( String key : propertiesToRemove )
+                {
+                    properties.remove( key );
+                }
+            }
+
+            if ( propertiesToSet.size() > 0 )
+            {
+                for ( Map.Entry<String, String> entry : propertiesToSet.entrySet() )
+                {
+                    properties.setProperty( entry.getKey(), entry.getValue() );
+                }
             }
-        }
 
-        if ( propertiesToSet.size() > 0 )
+            save( properties, propertiesFile );
+            success = true;
+        }
+        finally
         {
-            for ( Map.Entry<String, String> entry : propertiesToSet.entrySet() )
+            if ( event != null )
             {
-                properties.setProperty( entry.getKey(), entry.getValue() );
+                event.commit( this, propertiesFile, success );
             }
         }
-
-        save( properties, propertiesFile );
     }
 
     /**
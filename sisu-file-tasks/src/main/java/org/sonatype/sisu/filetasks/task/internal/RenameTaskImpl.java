@@ -91,4 +91,15 @@ class RenameTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return target;
+    }
+
 }
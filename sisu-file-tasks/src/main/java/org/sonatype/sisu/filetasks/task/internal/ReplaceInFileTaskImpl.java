@@ -13,9 +13,12 @@
 package org.sonatype.sisu.filetasks.task.internal;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.taskdefs.Replace;
 import org.sonatype.sisu.filetasks.task.ReplaceInFileTask;
 
@@ -69,6 +72,21 @@ class ReplaceInFileTaskImpl
         task.setFile( file );
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    Collection<File> files()
+    {
+        if ( !file.exists() )
+        {
+            throw new BuildException( "Replace: source file " + file.getPath() + " doesn't exist" );
+        }
+        return Collections.singletonList( file );
+    }
+
     @Override
     public ReplaceInFileTaskImpl setFile( final File file )
     {
@@ -83,4 +101,15 @@ class ReplaceInFileTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return file;
+    }
+
 }
@@ -13,10 +13,13 @@
 package org.sonatype.sisu.filetasks.task.internal;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.taskdefs.Replace;
 import org.sonatype.sisu.filetasks.task.ReplaceInFilesFromDirectoryTask;
 import com.google.common.collect.Lists;
@@ -93,6 +96,37 @@ class ReplaceInFilesFromDirectoryTaskImpl
         }
     }
 
+    /**
+     * Scans directory the same way as ANT replace task does (default excludes apply).
+     * <p/>
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    Collection<File> files()
+    {
+        if ( !directory.isDirectory() )
+        {
+            throw new BuildException( directory.getAbsolutePath() + " does not exist." );
+        }
+        final DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir( directory );
+        if ( includes.size() > 0 )
+        {
+            scanner.setIncludes( includes.toArray( new String[includes.size()] ) );
+        }
+        scanner.setExcludes( excludes.toArray( new String[excludes.size()] ) );
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        final List<File> files = Lists.newArrayList();
+        for ( final String path : scanner.getIncludedFiles() )
+        {
+            files.add( new File( directory, path ) );
+        }
+        return files;
+    }
+
     @Override
     public ReplaceInFilesFromDirectoryTaskImpl setDirectory( final File directory )
     {
@@ -135,4 +169,15 @@ class ReplaceInFilesFromDirectoryTaskImpl
         return sb.toString();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return directory;
+    }
+
 }
@@ -110,4 +110,15 @@ class SymlinkTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return target;
+    }
+
 }
@@ -97,4 +97,15 @@ class WarTaskImpl
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.12
+     */
+    @Override
+    File target()
+    {
+        return archive;
+    }
+
 }
@@ -14,13 +14,23 @@ package org.sonatype.sisu.filetasks;
 
 import static org.sonatype.sisu.filetasks.builder.FileRef.file;
 import static org.sonatype.sisu.filetasks.builder.FileRef.path;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.tools.ant.BuildException;
 import org.junit.Test;
 import org.sonatype.sisu.filetasks.support.FileTaskTest;
+import org.sonatype.sisu.filetasks.support.HardLinks;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 
 /**
  * TODO
@@ -262,4 +272,343 @@ public class CopyDirectoryTest
         );
     }
 
+    @Test
+    public void parallelCopyDirectory()
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/" ) )
+                .useParallelCopy()
+        );
+        assertSameContent(
+            testClassSourceFile( "set-1/dir01/file0101.txt" ),
+            testMethodTargetFile( "dir01/file0101.txt" )
+        );
+        assertSameContent(
+            testClassSourceFile( "set-1/dir01/dir0101/file010101.txt" ),
+            testMethodTargetFile( "dir01/dir0101/file010101.txt" )
+        );
+    }
+
+    @Test
+    public void parallelCopyDirectoryWithIncludesAndExcludes()
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/included" ) )
+                .include( "**/dir0101/*" )
+                .useParallelCopy(),
+
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/excluded" ) )
+                .exclude( "**/file0101.txt" )
+                .useParallelCopy()
+        );
+        assertDoesNotExist( "included/dir01/file0101.txt" );
+        assertExists( "included/dir01/dir0101/file010101.txt" );
+        assertDoesNotExist( "excluded/dir01/file0101.txt" );
+        assertExists( "excluded/dir01/dir0101/file010101.txt" );
+    }
+
+    @Test
+    public void parallelCopyDirectoryEmptyDirectories()
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/included" ) )
+                .exclude( "**/*.txt" )
+                .includeEmptyDirectories()
+                .useParallelCopy(),
+
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/excluded" ) )
+                .exclude( "**/*.txt" )
+                .excludeEmptyDirectories()
+                .useParallelCopy()
+        );
+        assertExists( "included/dir01/dir0101" );
+        assertDoesNotExist( "included/dir01/file0101.txt" );
+        assertDoesNotExist( "excluded/dir01" );
+    }
+
+    @Test
+    public void parallelCopyDirectoryDoesNotOverwriteNewer()
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/" ) ),
+
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-2" ) ) )
+                .to().directory( path( "/" ) )
+                .doNotOverwriteNewer()
+                .useParallelCopy()
+        );
+        assertSameContent(
+            testClassSourceFile( "set-1/dir01/file0101.txt" ),
+            testMethodTargetFile( "dir01/file0101.txt" )
+        );
+    }
+
+    @Test
+    public void parallelCopyDirectoryOverwritesReadOnly()
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/" ) )
+        );
+        assertThat( testMethodTargetFile( "dir01/file0101.txt" ).setReadOnly(), is( true ) );
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-2" ) ) )
+                .to().directory( path( "/" ) )
+                .overwriteNewer()
+                .overwriteReadOnly()
+                .useParallelCopy()
+        );
+        assertSameContent(
+            testClassSourceFile( "set-2/dir01/file0101.txt" ),
+            testMethodTargetFile( "dir01/file0101.txt" )
+        );
+    }
+
+    /**
+     * Test that files are filtered when copied in parallel.
+     */
+    @Test
+    public void parallelCopyDirectoryWithFiltering()
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/" ) )
+                .filterUsing( "property.manual", "manual" )
+                .useParallelCopy()
+        );
+        assertContains(
+            "dir01/file0101.txt",
+            "property.manual=manual"
+        );
+    }
+
+    /**
+     * Test that parallel copy fails if directory to be copied does not exist.
+     */
+    @Test( expected = BuildException.class )
+    public void parallelCopyDirectoryFailsIfSourceDoesNotExist()
+    {
+        run(
+            builder().copy()
+                .directory( file( new File( String.valueOf( System.currentTimeMillis() ) ) ) )
+                .to().directory( path( "/" ) )
+                .useParallelCopy()
+        );
+    }
+
+    /**
+     * Test that parallel copy does not follow a symbolic link to an ancestor directory.
+     */
+    @Test
+    public void parallelCopyDirectoryDoesNotFollowLinkLoops()
+        throws Exception
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/source" ) )
+        );
+        final File loop = testMethodTargetFile( "source/dir01/loop" );
+        java.nio.file.Files.createSymbolicLink( loop.toPath(), testMethodTargetFile( "source" ).toPath() );
+        try
+        {
+            run(
+                builder().copy()
+                    .directory( path( "/source" ) )
+                    .to().directory( path( "/copy" ) )
+                    .useParallelCopy()
+            );
+            assertExists( "copy/dir01/dir0101/file010101.txt" );
+            assertDoesNotExist( "copy/dir01/loop" );
+        }
+        finally
+        {
+            // test directory cleanup follows links
+            java.nio.file.Files.delete( loop.toPath() );
+        }
+    }
+
+    /**
+     * Test that hard linked files are replaced (and not modified in place) when overwritten.
+     */
+    @Test
+    public void copyDirectoryUsingHardLinks()
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/source" ) ),
+
+            builder().copy()
+                .directory( path( "/source" ) )
+                .to().directory( path( "/linked" ) )
+                .useHardLinks()
+        );
+        assertThat( HardLinks.isShared( testMethodTargetFile( "linked/dir01/file0101.txt" ).toPath() ), is( true ) );
+        assertSameContent(
+            testClassSourceFile( "set-1/dir01/dir0101/file010101.txt" ),
+            testMethodTargetFile( "linked/dir01/dir0101/file010101.txt" )
+        );
+
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-2" ) ) )
+                .to().directory( path( "/linked" ) )
+                .overwriteNewer()
+        );
+        assertSameContent(
+            testClassSourceFile( "set-2/dir01/file0101.txt" ),
+            testMethodTargetFile( "linked/dir01/file0101.txt" )
+        );
+        assertSameContent(
+            testClassSourceFile( "set-1/dir01/file0101.txt" ),
+            testMethodTargetFile( "source/dir01/file0101.txt" )
+        );
+    }
+
+    /**
+     * Test that permissions of hard linked files are changed on a private copy, and not on the source files.
+     */
+    @Test
+    public void chmodUnsharesHardLinkedFiles()
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/source" ) ),
+
+            builder().copy()
+                .directory( path( "/source" ) )
+                .to().directory( path( "/linked" ) )
+                .useHardLinks(),
+
+            builder().chmod( path( "/linked" ) )
+                .include( "**/file0101.txt" )
+                .permissions( "u+x" )
+        );
+        final File linked = testMethodTargetFile( "linked/dir01/file0101.txt" );
+        assertThat( linked.canExecute(), is( true ) );
+        assertThat( HardLinks.isShared( linked.toPath() ), is( false ) );
+        assertThat( testMethodTargetFile( "source/dir01/file0101.txt" ).canExecute(), is( false ) );
+        assertThat(
+            HardLinks.isShared( testMethodTargetFile( "linked/dir01/dir0101/file010101.txt" ).toPath() ), is( true )
+        );
+    }
+
+    /**
+     * Test that filters of a copy task are not used by other copy tasks.
+     */
+    @Test
+    public void copyDirectoryFiltersAreScopedToTask()
+    {
+        run(
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/filtered" ) )
+                .filterUsing( "property.manual", "manual" ),
+            builder().copy()
+                .directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/not-filtered" ) )
+        );
+        assertContains( "filtered/dir01/file0101.txt", "property.manual=manual" );
+        assertContains( "not-filtered/dir01/file0101.txt", "property.manual=${property.manual}" );
+    }
+
+    /**
+     * Test that tokens in filter values are replaced and that tokens spanning filter buffer boundaries are replaced,
+     * by both ANT and parallel copy.
+     */
+    @Test
+    public void copyDirectoryWithRecursiveFilters()
+        throws Exception
+    {
+        final StringBuilder content = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for ( int i = 0; i < 5000; i++ )
+        {
+            content.append( "url=${url} port=${port} ${unknown} $${port}\n" );
+            expected.append( "url=http://localhost:8081/ port=8081 ${unknown} $8081\n" );
+        }
+        final File source = testMethodTargetFile( "source/tokens.txt" );
+        Files.createParentDirs( source );
+        Files.write( content, source, Charsets.UTF_8 );
+        run(
+            builder().copy()
+                .directory( file( testMethodTargetFile( "source" ) ) )
+                .to().directory( path( "/ant" ) )
+                .filterUsing( "url", "http://localhost:${port}/" )
+                .filterUsing( "port", "8081" ),
+            builder().copy()
+                .directory( file( testMethodTargetFile( "source" ) ) )
+                .to().directory( path( "/parallel" ) )
+                .filterUsing( "url", "http://localhost:${port}/" )
+                .filterUsing( "port", "8081" )
+                .useParallelCopy()
+        );
+        assertThat(
+            Files.toString( testMethodTargetFile( "ant/tokens.txt" ), Charsets.UTF_8 ), is( expected.toString() )
+        );
+        assertThat(
+            Files.toString( testMethodTargetFile( "parallel/tokens.txt" ), Charsets.UTF_8 ), is( expected.toString() )
+        );
+    }
+
+    /**
+     * Test that copy tasks (with different filters) can run concurrently.
+     */
+    @Test
+    public void copyDirectoriesConcurrently()
+        throws Exception
+    {
+        final int count = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool( count );
+        try
+        {
+            final List<Future<?>> copies = new ArrayList<Future<?>>();
+            for ( int i = 0; i < count; i++ )
+            {
+                final FileTask copy = builder().copy()
+                    .directory( file( testClassSourceFile( "set-1" ) ) )
+                    .to().directory( path( "/copy-" + i ) )
+                    .filterUsing( "property.manual", "manual-" + i );
+                copies.add( executor.submit( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        FileTaskRunner.onDirectory( testMethodTargetFile( "/" ) ).apply( copy );
+                    }
+                } ) );
+            }
+            for ( final Future<?> copy : copies )
+            {
+                copy.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        for ( int i = 0; i < count; i++ )
+        {
+            assertContains( "copy-" + i + "/dir01/file0101.txt", "property.manual=manual-" + i );
+        }
+    }
+
 }
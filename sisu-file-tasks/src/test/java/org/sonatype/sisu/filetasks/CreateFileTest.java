@@ -12,6 +12,14 @@
  */
 package org.sonatype.sisu.filetasks;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.Test;
 import org.sonatype.sisu.filetasks.support.FileTaskTest;
 import org.sonatype.sisu.litmus.testsupport.hamcrest.FileMatchers;
@@ -20,6 +28,8 @@ import static org.sonatype.sisu.filetasks.builder.FileRef.path;
 
 
 import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 
 /**
  * Tests creating files.
@@ -70,6 +80,39 @@ public class CreateFileTest extends FileTaskTest{
         assertThat(testMethodTargetFile("relative.txt"), FileMatchers.containsOnly("relative path file"));
     }
 
+    @Test
+    public void createRecordedAsFlightRecorderEvents()
+        throws Exception
+    {
+        final File file = testMethodTargetFile( "test.txt" );
+        final File directory = testMethodTargetFile( "dir" );
+        final Path dump = Files.createTempFile( "file-tasks", ".jfr" );
+        try
+        {
+            try ( Recording recording = new Recording() )
+            {
+                recording.enable( "org.sonatype.sisu.filetasks.FileTask" );
+                recording.start();
+                run( builder().create().file( file( file ) ).containing( "content" ) );
+                run( builder().create().directory( file( directory ) ) );
+                recording.stop();
+                recording.dump( dump );
+            }
+            final List<RecordedEvent> events = RecordingFile.readAllEvents( dump );
+            assertThat( events, hasSize( 2 ) );
+            assertThat( events.get( 0 ).getString( "taskType" ), is( "CreateFileTaskImpl" ) );
+            assertThat( events.get( 0 ).getString( "target" ), is( file.getAbsolutePath() ) );
+            assertThat( events.get( 0 ).getBoolean( "success" ), is( true ) );
+            assertThat( events.get( 1 ).getString( "taskType" ), is( "CreateDirectoryTaskImpl" ) );
+            assertThat( events.get( 1 ).getString( "target" ), is( directory.getAbsolutePath() ) );
+            assertThat( events.get( 1 ).getBoolean( "success" ), is( true ) );
+        }
+        finally
+        {
+            Files.deleteIfExists( dump );
+        }
+    }
+
 
 
 }
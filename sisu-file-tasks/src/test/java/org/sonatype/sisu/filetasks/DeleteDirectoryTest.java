@@ -12,10 +12,16 @@
  */
 package org.sonatype.sisu.filetasks;
 
+import java.io.File;
+import java.util.Arrays;
+
 import org.apache.tools.ant.BuildException;
 import org.junit.Test;
 import org.sonatype.sisu.filetasks.support.FileTaskTest;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
 import static org.sonatype.sisu.filetasks.builder.FileRef.file;
 import static org.sonatype.sisu.filetasks.builder.FileRef.path;
 
@@ -90,4 +96,62 @@ public class DeleteDirectoryTest
         );
     }
 
+    /**
+     * Test that directory is deleted in parallel, including directories that becomes empty.
+     */
+    @Test
+    public void deleteDirectoryInParallel()
+    {
+        run(
+            builder().copy().directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/set-1" ) ),
+
+            builder().delete().directory( path( "set-1" ) ).useParallelDelete()
+        );
+        assertDoesNotExist( "set-1" );
+    }
+
+    /**
+     * Test that parallel delete keeps excluded files and the directories containing them.
+     */
+    @Test
+    public void deleteDirectoryInParallelWithExcludes()
+    {
+        run(
+            builder().copy().directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/set-1" ) ),
+            builder().copy().directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/set-1/dir02" ) ),
+
+            builder().delete().directory( path( "set-1" ) ).exclude( "dir01/**" ).useParallelDelete()
+        );
+        assertExists( "set-1/dir01/file0101.txt" );
+        assertDoesNotExist( "set-1/dir02" );
+    }
+
+    /**
+     * Test that directory moved to trash does not exist anymore and that trash is deleted in background.
+     */
+    @Test
+    public void deleteDirectoryUsingTrash()
+        throws Exception
+    {
+        run(
+            builder().copy().directory( file( testClassSourceFile( "set-1" ) ) )
+                .to().directory( path( "/set-1" ) ),
+
+            builder().delete().directory( path( "set-1" ) ).useTrash()
+        );
+        assertDoesNotExist( "set-1" );
+
+        final File parent = testMethodTargetFile( "" );
+        final long deadline = System.currentTimeMillis() + 10000;
+        String[] left;
+        while ( ( left = parent.list() ).length > 0 && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 50 );
+        }
+        assertThat( Arrays.asList( left ), is( empty() ) );
+    }
+
 }
@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.sonatype.sisu.filetasks.builder.FileRef.file;
+import static org.sonatype.sisu.filetasks.builder.FileRef.path;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.ZipFile;
+
+import org.apache.tools.tar.TarEntry;
+import org.apache.tools.tar.TarOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.sisu.filetasks.support.ArchiveCache;
+import org.sonatype.sisu.filetasks.support.ArchiveFormat;
+import org.sonatype.sisu.filetasks.support.FileTaskTest;
+import org.sonatype.sisu.filetasks.support.HardLinks;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Tests for {@link org.sonatype.sisu.filetasks.builder.ExpandBuilder}.
+ *
+ * @since 1.12
+ */
+public class ExpandTest
+    extends FileTaskTest
+{
+
+    /**
+     * Cache directory shared by all tests of this class.
+     */
+    private static final File CACHE_DIRECTORY =
+        new File( "target/archive-cache/" + System.currentTimeMillis() ).getAbsoluteFile();
+
+    private String cacheDirectory;
+
+    @Before
+    public void useTestCacheDirectory()
+    {
+        cacheDirectory = System.setProperty( ArchiveCache.DIRECTORY, CACHE_DIRECTORY.getPath() );
+    }
+
+    @After
+    public void restoreCacheDirectory()
+    {
+        if ( cacheDirectory == null )
+        {
+            System.clearProperty( ArchiveCache.DIRECTORY );
+        }
+        else
+        {
+            System.setProperty( ArchiveCache.DIRECTORY, cacheDirectory );
+        }
+    }
+
+    @Test
+    public void expand()
+    {
+        run(
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .to().directory( path( "/" ) )
+        );
+        assertExists( "dir01/file0101.txt" );
+        assertExists( "dir01/dir0101/file010101.txt" );
+    }
+
+    @Test
+    public void expandUsingCache()
+    {
+        run(
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .exclude( "**/dir0101/**" )
+                .useCache()
+                .to().directory( path( "/first" ) )
+        );
+        run(
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .exclude( "**/dir0101/**" )
+                .useCache()
+                .to().directory( path( "/second" ) )
+        );
+        assertExists( "first/dir01/file0101.txt" );
+        assertDoesNotExist( "first/dir01/dir0101/file010101.txt" );
+        assertExists( "second/dir01/file0101.txt" );
+        assertDoesNotExist( "second/dir01/dir0101/file010101.txt" );
+        assertSameContent(
+            testMethodTargetFile( "first/dir01/file0101.txt" ), testMethodTargetFile( "second/dir01/file0101.txt" )
+        );
+
+        final File[] entries = CACHE_DIRECTORY.listFiles();
+        int cached = 0;
+        for ( File entry : entries )
+        {
+            if ( entry.isDirectory() )
+            {
+                cached++;
+            }
+        }
+        assertThat( cached, is( 1 ) );
+    }
+
+    /**
+     * Test that staging directories left over by a failed expansion (or a process that died while expanding) are
+     * deleted by next expansion of same entry, together with the lock file.
+     */
+    @Test
+    public void expandUsingCacheDeletesStaleStaging()
+    {
+        final File directory = testMethodTargetFile( "cache" );
+        final ArchiveCache cache = new ArchiveCache( directory );
+        final File archive = testClassSourceFile( "bundle.zip" );
+        final File[] staging = new File[1];
+        try
+        {
+            cache.get( archive, "variant", new ArchiveCache.Expander()
+            {
+                @Override
+                public void expandTo( final File temp )
+                {
+                    staging[0] = temp;
+                    throw new IllegalStateException( "expected" );
+                }
+            } );
+        }
+        catch ( IllegalStateException expected )
+        {
+            // expected
+        }
+        // as left by a process that died while expanding
+        assertThat( staging[0].mkdirs(), is( true ) );
+
+        final File entry = cache.get( archive, "variant", new ArchiveCache.Expander()
+        {
+            @Override
+            public void expandTo( final File temp )
+            {
+                assertThat( temp.mkdirs(), is( true ) );
+            }
+        } );
+        assertThat( entry.isDirectory(), is( true ) );
+        assertThat( staging[0].exists(), is( false ) );
+        assertThat( directory.list(), is( new String[]{ entry.getName() } ) );
+    }
+
+    /**
+     * Uses same expansion settings as {@link #expandUsingCache()}, so both share one cache entry.
+     */
+    @Test
+    public void expandUsingHardLinks()
+    {
+        run(
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .exclude( "**/dir0101/**" )
+                .useHardLinks()
+                .to().directory( path( "/first" ) )
+        );
+        run(
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .exclude( "**/dir0101/**" )
+                .useHardLinks()
+                .to().directory( path( "/second" ) )
+        );
+        assertThat( HardLinks.isShared( testMethodTargetFile( "first/dir01/file0101.txt" ).toPath() ), is( true ) );
+        assertSameContent(
+            testMethodTargetFile( "first/dir01/file0101.txt" ), testMethodTargetFile( "second/dir01/file0101.txt" )
+        );
+
+        run(
+            builder().properties( path( "first/dir01/file0101.txt" ) )
+                .property( "changed", "true" )
+        );
+        assertContains( "first/dir01/file0101.txt", "changed=true" );
+        assertThat(
+            testMethodTargetFile( "second/dir01/file0101.txt" ).length()
+                == testMethodTargetFile( "first/dir01/file0101.txt" ).length(),
+            is( false )
+        );
+    }
+
+    @Test
+    public void expandInParallel()
+        throws IOException
+    {
+        run(
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .to().directory( path( "/ant" ) ),
+
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .useParallelExpand()
+                .to().directory( path( "/parallel" ) ),
+
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .exclude( "**/dir0101/**" )
+                .useParallelExpand()
+                .to().directory( path( "/excluded" ) )
+        );
+        assertSameContent(
+            testMethodTargetFile( "ant/dir01/file0101.txt" ), testMethodTargetFile( "parallel/dir01/file0101.txt" )
+        );
+        assertSameContent(
+            testMethodTargetFile( "ant/dir01/dir0101/file010101.txt" ),
+            testMethodTargetFile( "parallel/dir01/dir0101/file010101.txt" )
+        );
+        try (ZipFile zip = new ZipFile( testClassSourceFile( "bundle.zip" ) ))
+        {
+            assertThat(
+                testMethodTargetFile( "parallel/dir01/file0101.txt" ).lastModified(),
+                is( zip.getEntry( "bundle-1.0/dir01/file0101.txt" ).getTime() )
+            );
+        }
+        assertDoesNotExist( "parallel/bundle-1.0" );
+        assertExists( "excluded/dir01/file0101.txt" );
+        assertDoesNotExist( "excluded/dir01/dir0101/file010101.txt" );
+    }
+
+    @Test
+    public void expandTarGzInParallel()
+    {
+        run(
+            builder().expand( file( testClassSourceFile( "bundle.tar.gz" ) ) )
+                .cutDirectories( 1 )
+                .exclude( "*/javadoc/**" )
+                .to().directory( path( "/ant" ) ),
+
+            builder().expand( file( testClassSourceFile( "bundle.tar.gz" ) ) )
+                .cutDirectories( 1 )
+                .exclude( "*/javadoc/**" )
+                .useParallelExpand()
+                .to().directory( path( "/parallel" ) )
+        );
+        for ( String path : new String[]{
+            "dir01/file0101.txt", "dir01/dir0101/file010101.txt", "dir01/large.txt", "bin/run.sh" } )
+        {
+            assertSameContent( testMethodTargetFile( "ant/" + path ), testMethodTargetFile( "parallel/" + path ) );
+        }
+        assertDoesNotExist( "ant/javadoc" );
+        assertDoesNotExist( "parallel/javadoc" );
+        assertThat( testMethodTargetFile( "parallel/bin/run.sh" ).canExecute(), is( true ) );
+    }
+
+    /**
+     * Test that expanding (via ANT) over hard linked files replaces them instead of writing through the link.
+     */
+    @Test
+    public void expandDoesNotWriteThroughHardLinks()
+    {
+        run(
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .to().directory( path( "/source" ) ),
+
+            builder().copy()
+                .directory( path( "/source" ) )
+                .to().directory( path( "/linked" ) )
+                .useHardLinks()
+        );
+        final File linked = testMethodTargetFile( "linked/dir01/file0101.txt" );
+        assertThat( HardLinks.isShared( linked.toPath() ), is( true ) );
+        run(
+            builder().expand( file( testClassSourceFile( "bundle.zip" ) ) )
+                .cutDirectories( 1 )
+                .to().directory( path( "/linked" ) )
+        );
+        assertThat( HardLinks.isShared( linked.toPath() ), is( false ) );
+        assertSameContent( testMethodTargetFile( "source/dir01/file0101.txt" ), linked );
+    }
+
+    /**
+     * Test that archive format is detected from content and not from file extension.
+     */
+    @Test
+    public void expandDetectsFormatFromContent()
+        throws IOException
+    {
+        final File archive = testMethodTargetFile( "archive/bundle-tar-gz.bin" );
+        Files.createParentDirs( archive );
+        Files.copy( testClassSourceFile( "bundle.tar.gz" ), archive );
+        assertThat( ArchiveFormat.detect( archive ), is( ArchiveFormat.TAR_GZIP ) );
+        assertThat( ArchiveFormat.detect( testClassSourceFile( "bundle.zip" ) ), is( ArchiveFormat.ZIP ) );
+        run(
+            builder().expand( file( archive ) )
+                .cutDirectories( 1 )
+                .to().directory( path( "/" ) )
+        );
+        assertExists( "dir01/file0101.txt" );
+        assertExists( "javadoc/index.html" );
+    }
+
+    /**
+     * Test that, as with ANT, the last of the entries with same path wins when expanding a tar in parallel, whether
+     * bodies are written by writer threads (small) or by reading thread (large).
+     */
+    @Test
+    public void expandTarInParallelLastDuplicateEntryWins()
+        throws IOException
+    {
+        final byte[] large = new byte[2 * 1024 * 1024];
+        Arrays.fill( large, (byte) 'x' );
+        final byte[] small = "small".getBytes( Charsets.UTF_8 );
+        final File archive = testMethodTargetFile( "archive/duplicates.tar" );
+        Files.createParentDirs( archive );
+        try (TarOutputStream tar = new TarOutputStream( new FileOutputStream( archive ) ))
+        {
+            tar.setLongFileMode( TarOutputStream.LONGFILE_GNU );
+            putEntry( tar, "small-then-large.txt", small );
+            putEntry( tar, "small-then-large.txt", large );
+            putEntry( tar, "large-then-small.txt", large );
+            putEntry( tar, "large-then-small.txt", small );
+            putEntry( tar, "small-twice.txt", "first".getBytes( Charsets.UTF_8 ) );
+            putEntry( tar, "small-twice.txt", small );
+        }
+        run(
+            builder().expand( file( archive ) )
+                .to().directory( path( "/ant" ) ),
+
+            builder().expand( file( archive ) )
+                .useParallelExpand()
+                .to().directory( path( "/parallel" ) )
+        );
+        for ( String dir : new String[]{ "ant", "parallel" } )
+        {
+            assertThat( testMethodTargetFile( dir + "/small-then-large.txt" ).length(), is( (long) large.length ) );
+            assertThat( Files.toByteArray( testMethodTargetFile( dir + "/large-then-small.txt" ) ), is( small ) );
+            assertThat( Files.toByteArray( testMethodTargetFile( dir + "/small-twice.txt" ) ), is( small ) );
+        }
+    }
+
+    private static void putEntry( final TarOutputStream tar, final String name, final byte[] content )
+        throws IOException
+    {
+        final TarEntry entry = new TarEntry( name );
+        entry.setSize( content.length );
+        tar.putNextEntry( entry );
+        tar.write( content );
+        tar.closeEntry();
+    }
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.sonatype.sisu.filetasks.FileTaskRunner.onDirectory;
+import static org.sonatype.sisu.filetasks.builder.FileRef.file;
+import static org.sonatype.sisu.filetasks.builder.FileRef.path;
+import static org.sonatype.sisu.filetasks.support.FileTaskTest.PropertyBinding.property;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tools.ant.BuildException;
+import org.junit.Test;
+import org.sonatype.sisu.filetasks.builder.AccessedPaths;
+import org.sonatype.sisu.filetasks.support.FileTaskTest;
+
+/**
+ * {@link FileTaskRunner} asynchronous execution related tests.
+ *
+ * @since 1.12
+ */
+public class FileTaskRunnerTest
+    extends FileTaskTest
+{
+
+    /**
+     * Test that tasks touching same paths run in order: properties are changed only after directory was copied.
+     */
+    @Test
+    public void applyAsyncRunsTasksTouchingSamePathsInOrder()
+        throws Exception
+    {
+        final List<FileTask> tasks = new ArrayList<FileTask>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            tasks.add(
+                builder().copy().directory( file( testClassSourceFile( "set-1" ) ) )
+                    .to().directory( path( "copy-" + i ) )
+            );
+        }
+        for ( int i = 0; i < 8; i++ )
+        {
+            tasks.add(
+                builder().properties( path( "copy-" + i + "/dir01/file0101.properties" ) )
+                    .property( "key.1", "value.1.changed-" + i )
+            );
+        }
+        onDirectory( testMethodTargetFile( "/" ) ).applyAsync( tasks ).get();
+        for ( int i = 0; i < 8; i++ )
+        {
+            assertContains( "copy-" + i + "/dir01/file0101.properties",
+                            property( "key.1", "value.1.changed-" + i ),
+                            property( "key.2", "value.2.original" ) );
+        }
+    }
+
+    /**
+     * Test that tasks writing same path never run concurrently and run in order: while first task is held, no other
+     * task runs, even if there are idle threads.
+     */
+    @Test
+    public void applyAsyncSerializesTasksWritingSamePath()
+        throws Exception
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            final CountDownLatch firstStarted = new CountDownLatch( 1 );
+            final CountDownLatch firstReleased = new CountDownLatch( 1 );
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final List<Integer> order = Collections.synchronizedList( new ArrayList<Integer>() );
+            final List<FileTask> tasks = new ArrayList<FileTask>();
+            for ( int i = 0; i < 8; i++ )
+            {
+                final int index = i;
+                tasks.add( new PathsTask( testMethodTargetFile( "dir/file-" + i ), testMethodTargetFile( "dir" ) )
+                {
+                    @Override
+                    public void run()
+                    {
+                        final int now = running.incrementAndGet();
+                        maxRunning.set( Math.max( maxRunning.get(), now ) );
+                        if ( index == 0 )
+                        {
+                            firstStarted.countDown();
+                            try
+                            {
+                                firstReleased.await( 30, TimeUnit.SECONDS );
+                            }
+                            catch ( InterruptedException e )
+                            {
+                                throw new RuntimeException( e );
+                            }
+                        }
+                        order.add( index );
+                        running.decrementAndGet();
+                    }
+                } );
+            }
+            final Future<Void> future = onDirectory( testMethodTargetFile( "/" ), executor ).applyAsync( tasks );
+            assertThat( firstStarted.await( 30, TimeUnit.SECONDS ), is( true ) );
+            assertThat( order, is( empty() ) );
+            assertThat( future.isDone(), is( false ) );
+            firstReleased.countDown();
+            future.get( 30, TimeUnit.SECONDS );
+            assertThat( maxRunning.get(), is( 1 ) );
+            assertThat( order, contains( 0, 1, 2, 3, 4, 5, 6, 7 ) );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that tasks touching different paths run concurrently (each waits for the other to start).
+     */
+    @Test
+    public void applyAsyncRunsIndependentTasksConcurrently()
+        throws Exception
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            final CyclicBarrier barrier = new CyclicBarrier( 2 );
+            final List<FileTask> tasks = new ArrayList<FileTask>();
+            for ( int i = 0; i < 2; i++ )
+            {
+                tasks.add( new PathsTask( testClassSourceFile( "set-1" ), testMethodTargetFile( "dir-" + i ) )
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            barrier.await( 30, TimeUnit.SECONDS );
+                        }
+                        catch ( Exception e )
+                        {
+                            throw new RuntimeException( e );
+                        }
+                    }
+                } );
+            }
+            onDirectory( testMethodTargetFile( "/" ), executor ).applyAsync( tasks ).get();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that a failed task fails returned future, tasks depending on it are not run and other tasks are.
+     */
+    @Test
+    public void applyAsyncDoesNotRunTasksDependingOnFailedTask()
+        throws Exception
+    {
+        try
+        {
+            onDirectory( testMethodTargetFile( "/" ) ).applyAsync(
+                builder().copy()
+                    .directory( file( new File( String.valueOf( System.currentTimeMillis() ) ) ) )
+                    .to().directory( path( "copy" ) ),
+                builder().create().file( path( "copy/dependant.txt" ) ).containing( "dependant" ),
+                builder().create().file( path( "independent.txt" ) ).containing( "independent" )
+            ).get();
+            fail( "Expected to fail as directory to be copied does not exist" );
+        }
+        catch ( ExecutionException e )
+        {
+            assertThat( e.getCause(), is( instanceOf( BuildException.class ) ) );
+        }
+        assertDoesNotExist( "copy/dependant.txt" );
+        assertExists( "independent.txt" );
+    }
+
+    /**
+     * Test that targets implementing only sequential execution apply tasks when applied asynchronously, failing
+     * returned future if a task fails.
+     */
+    @Test
+    public void applyAsyncDefaultsToSequentialApply()
+        throws Exception
+    {
+        final List<FileTask> applied = new ArrayList<FileTask>();
+        final FileTaskRunner.Target target = new FileTaskRunner.Target()
+        {
+            @Override
+            public void apply( final FileTask... tasks )
+            {
+                apply( Arrays.asList( tasks ) );
+            }
+
+            @Override
+            public void apply( final Collection<FileTask> tasks )
+            {
+                for ( FileTask task : tasks )
+                {
+                    applied.add( task );
+                    task.run();
+                }
+            }
+        };
+        final FileTask task = builder().create().file( file( testMethodTargetFile( "test.txt" ) ) );
+        assertThat( target.applyAsync( task ).isDone(), is( true ) );
+        assertThat( applied, contains( task ) );
+        assertExists( "test.txt" );
+        try
+        {
+            target.applyAsync(
+                builder().copy().directory( file( new File( String.valueOf( System.currentTimeMillis() ) ) ) )
+                    .to().directory( path( "copy" ) )
+            ).get();
+            fail( "Expected to fail as directory to be copied does not exist" );
+        }
+        catch ( ExecutionException e )
+        {
+            assertThat( e.getCause(), is( instanceOf( BuildException.class ) ) );
+        }
+    }
+
+    /**
+     * A task declaring the paths it reads and writes.
+     */
+    private static abstract class PathsTask
+        implements FileTask, AccessedPaths
+    {
+
+        private final File read;
+
+        private final File written;
+
+        private PathsTask( final File read, final File written )
+        {
+            this.read = read;
+            this.written = written;
+        }
+
+        @Override
+        public Collection<File> getReadPaths()
+        {
+            return Collections.singletonList( read );
+        }
+
+        @Override
+        public Collection<File> getWrittenPaths()
+        {
+            return Collections.singletonList( written );
+        }
+
+    }
+
+}
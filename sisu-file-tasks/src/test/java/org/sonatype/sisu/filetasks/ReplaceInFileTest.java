@@ -13,6 +13,7 @@
 package org.sonatype.sisu.filetasks;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.sonatype.sisu.filetasks.builder.FileRef.file;
 import static org.sonatype.sisu.filetasks.builder.FileRef.path;
 import static org.sonatype.sisu.litmus.testsupport.hamcrest.FileMatchers.contains;
@@ -20,6 +21,8 @@ import static org.sonatype.sisu.litmus.testsupport.hamcrest.FileMatchers.contain
 import java.io.File;
 
 import org.apache.tools.ant.BuildException;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonatype.sisu.filetasks.support.FileTaskTest;
@@ -108,4 +111,49 @@ public class ReplaceInFileTest
         );
     }
 
+    /**
+     * Verify that tokens are replaced in one pass: longest token wins, replaced values are not replaced again and
+     * tokens spanning streaming buffer boundaries are replaced.
+     */
+    @Test
+    public void replaceInFileInParallel()
+        throws Exception
+    {
+        final StringBuilder content = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for ( int i = 0; i < 20000; i++ )
+        {
+            content.append( "${host}:${port}/${port.ssl} ${host.name}\n" );
+            expected.append( "localhost:8081/8443 ${host}\n" );
+        }
+        final File file = testMethodTargetFile( "tokens.txt" );
+        Files.write( content, file, Charsets.UTF_8 );
+        run(
+            builder().replace().inFile( path( "tokens.txt" ) )
+                .replace( "${host}", "localhost" )
+                .replace( "${port}", "8081" )
+                .replace( "${port.ssl}", "8443" )
+                .replace( "${host.name}", "${host}" )
+                .useParallelReplace()
+        );
+        assertThat( Files.toString( file, Charsets.UTF_8 ), is( expected.toString() ) );
+    }
+
+    /**
+     * Verify that file without tokens is not rewritten.
+     */
+    @Test
+    public void replaceInFileInParallelLeavesFileWithoutTokensUntouched()
+    {
+        final File file = testMethodTargetFile( "file01.txt" );
+        file.setLastModified( 1000000000000L );
+        run(
+            builder().replace().inFile( path( "file01.txt" ) )
+                .replace( "something that does not exist", "with whatever" )
+                .doNotFailIfNoReplacementWasMade()
+                .useParallelReplace()
+        );
+        assertThat( file.lastModified(), is( 1000000000000L ) );
+    }
+
 }
@@ -156,4 +156,40 @@ public class ReplaceInFilesFromDirectoryTest
         }
     }
 
+    /**
+     * Verify that values are replaced in parallel in all files.
+     */
+    @Test
+    public void replaceInFilesFromDirectoryInParallel()
+    {
+        run(
+            builder().replace().inFilesFromDirectory( path( "/" ) )
+                .replace( "should be", "were" )
+                .replace( "Some", "All" )
+                .useParallelReplace()
+        );
+        {
+            final File replaced = testMethodTargetFile( "file01.txt" );
+            assertThat( replaced, contains( "All values in this file were replaced" ) );
+        }
+        {
+            final File replaced = testMethodTargetFile( "file02.txt" );
+            assertThat( replaced, contains( "All values in this file were replaced" ) );
+        }
+    }
+
+    /**
+     * Verify that parallel replace fails if value to be replaced does not exist.
+     */
+    @Test( expected = BuildException.class )
+    public void replaceInFilesFromDirectoryInParallelFailsIfNoReplacementWasMade()
+    {
+        run(
+            builder().replace().inFilesFromDirectory( path( "/" ) )
+                .replace( "something that does not exist", "with whatever" )
+                .failIfNoReplacementWasMade()
+                .useParallelReplace()
+        );
+    }
+
 }
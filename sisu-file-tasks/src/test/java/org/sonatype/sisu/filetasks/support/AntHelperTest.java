@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.taskdefs.Echo;
+import org.junit.Test;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+/**
+ * Tests for {@link AntHelper} project pooling.
+ *
+ * @since 1.12
+ */
+public class AntHelperTest
+    extends TestSupport
+{
+
+    private final AntHelper ant = new AntHelper();
+
+    @Test
+    public void pristineProjectIsReused()
+    {
+        final Project project = ant.acquireProject();
+        project.getProperty( "ant.version" );
+        project.getReference( "ant.PropertyHelper" );
+        ant.releaseProject( project );
+        assertThat( ant.acquireProject(), is( sameInstance( project ) ) );
+    }
+
+    @Test
+    public void projectThatRanTaskIsReused()
+    {
+        final Project project = ant.acquireProject();
+        final Echo echo = ant.createTask( Echo.class, project );
+        echo.setMessage( "test" );
+        echo.execute();
+        ant.releaseProject( project );
+        assertThat( ant.acquireProject(), is( sameInstance( project ) ) );
+    }
+
+    @Test
+    public void projectWithChangedPropertyValueIsDiscarded()
+    {
+        final Project project = ant.acquireProject();
+        project.setProperty( "ant.version", "changed" );
+        ant.releaseProject( project );
+        assertThat( ant.acquireProject(), is( not( sameInstance( project ) ) ) );
+    }
+
+    @Test
+    public void projectWithNewPropertyIsDiscarded()
+    {
+        final Project project = ant.acquireProject();
+        project.setUserProperty( "test", "value" );
+        ant.releaseProject( project );
+        assertThat( ant.acquireProject(), is( not( sameInstance( project ) ) ) );
+    }
+
+    @Test
+    public void projectWithChangedReferenceIsDiscarded()
+    {
+        final Project project = ant.acquireProject();
+        project.addReference( "test", new Object() );
+        ant.releaseProject( project );
+        assertThat( ant.acquireProject(), is( not( sameInstance( project ) ) ) );
+    }
+
+    @Test
+    public void projectWithFiltersIsDiscarded()
+    {
+        final Project project = ant.acquireProject();
+        project.getGlobalFilterSet().addFilter( "token", "value" );
+        ant.releaseProject( project );
+        assertThat( ant.acquireProject(), is( not( sameInstance( project ) ) ) );
+    }
+
+    @Test
+    public void createdTaskTakesProjectFromPool()
+    {
+        final Project project = ant.acquireProject();
+        ant.releaseProject( project );
+        final Echo echo = ant.createTask( Echo.class );
+        assertThat( echo.getProject(), is( sameInstance( project ) ) );
+        assertThat( ant.acquireProject(), is( not( sameInstance( project ) ) ) );
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2007-2013 Sonatype, Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.sonatype.sisu.filetasks.support;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+/**
+ * Tests for {@link HardLinks}.
+ *
+ * @since 1.12
+ */
+public class HardLinksTest
+    extends TestSupport
+{
+
+    @Test
+    public void onlyFilesWithinRegisteredTreesAreUnshared()
+        throws Exception
+    {
+        final File directory = util.resolveFile( "target/hard-links/" + System.nanoTime() );
+        final Path source = new File( directory, "source.txt" ).toPath();
+        final Path unregistered = new File( directory, "unregistered/linked.txt" ).toPath();
+        final Path registered = new File( directory, "registered/linked.txt" ).toPath();
+        Files.createDirectories( unregistered.getParent() );
+        Files.createDirectories( registered.getParent() );
+        Files.write( source, "content".getBytes( "UTF-8" ) );
+        Files.createLink( unregistered, source );
+        Files.createLink( registered, source );
+
+        HardLinks.register( registered.getParent().toFile() );
+        assertThat( HardLinks.mayBeShared( registered.toFile() ), is( true ) );
+        assertThat( HardLinks.mayBeShared( directory ), is( true ) );
+        assertThat( HardLinks.mayBeShared( unregistered.toFile() ), is( false ) );
+
+        HardLinks.unshare( unregistered.toFile() );
+        HardLinks.unshare( registered.toFile() );
+        assertThat( HardLinks.isShared( unregistered ), is( true ) );
+        assertThat( HardLinks.isShared( registered ), is( false ) );
+    }
+
+}